@@ -41,6 +41,8 @@ public enum MessageCode {
             "OR with SQL and the `-sync` option."),
     CINE_WITH_EXIST("Schema exists already.  But you've specified 'createIfNotExist', which will attempt to create " +
             "and softly fail and continue with the remainder sql statements for the table."),
+    CIRCUIT_BREAKER_OPENED("The {0} circuit breaker opened after {1} transient failures in a row.  The statements " +
+            "against {0} were paused until its HiveServer2 recovered.  Check the logs for the failures."),
     CONFIG_INVALID("The configuration is invalid.  Please check the configuration and try again."),
     CLUSTER_NOT_DEFINED_OR_CONFIGURED("The {0} cluster is NOT defined or configured in the runtime configuration.  " +
             "Please check the configuration and try again."),
@@ -151,6 +153,9 @@ public enum MessageCode {
     NON_LEGACY_TO_LEGACY("`hms-mirror` does NOT support migrations from Hive 3 to Hive 1/2."),
     OPTIONAL_ARG_ISSUE("Bad optional argument"),
     OZONE_VOLUME_NAME_TOO_SHORT("The Ozone volume name is too short.  It must be at least 3 characters."),
+    PARTITION_LIMIT_EXCEEDED("The number of partitions: {0} exceeds the configuration limit ({1}) of {2}.  This " +
+            "value is used to abort migrations that have a high potential for failure.  The migration will need to be " +
+            "done manually OR try increasing the limit. Review commandline option {3}."),
     PASSWORDS_ENCRYPTED("Passwords are encrypted.  Too change/add a password, you must decrypt them first."),
     PASSWORD_CFG("PasswordApp en/de crypt"),
     PKEY_PASSWORD_CFG("Passwords are encrypted.  You must supply a password key to run the process. For CLI '-pkey' with '-p'."),
@@ -200,6 +205,8 @@ public enum MessageCode {
     SCHEMA_EXISTS_SYNC_PARTS("Schema exists already and matches. `--sync` and `-epl` specified, adding partition sync."),
     SCHEMA_WILL_BE_CREATED("Schema will be created"),
     SKIPPED("Skipped"),
+    SHARD_FAILED("Shard {0} didn''t finish cleanly (exit code {1}).  Check the log at ''{2}''."),
+    SHARD_REPORT_ISSUE("Couldn''t read the shard report ''{0}''.  The merged report is missing its results."),
     SESSION_ISSUE("There was an issue with the session. ''{0}'' Check the logs for details."),
     SQL_ACID_DA_DISTCP_WO_EXT_WAREHOUSE("You need to specify `-ewd` when using `distcp`, `da`, and `SQL`"),
     SQL_ACID_W_DC("`distcp` isn't valid for SQL strategies on ACID tables."),
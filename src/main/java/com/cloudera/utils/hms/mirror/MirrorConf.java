@@ -21,9 +21,12 @@ public interface MirrorConf {
     String DESCRIBE_DB = "DESCRIBE DATABASE EXTENDED {0}";
     String SHOW_CREATE_DATABASE = "SHOW CREATE DATABASE {0}";
     String SHOW_DATABASES = "SHOW DATABASES";
+    String SHOW_DATABASES_LIKE = "SHOW DATABASES LIKE ''{0}''";
     String GET_ENV_VARS = "SET -v";
     String SHOW_TABLES = "SHOW TABLES";
     String SHOW_VIEWS = "SHOW VIEWS";
+    String SHOW_TABLES_LIKE = "SHOW TABLES LIKE ''{0}''";
+    String SHOW_VIEWS_LIKE = "SHOW VIEWS LIKE ''{0}''";
     String SHOW_TABLE_EXTENDED_WITH_PARTITION = "SHOW TABLE EXTENDED LIKE {0} PARTITION ({1})";
     String SHOW_TABLE_EXTENDED = "SHOW TABLE EXTENDED LIKE {0}";
     String SHOW_CREATE_TABLE = "SHOW CREATE TABLE {0}";
@@ -55,6 +58,8 @@ public interface MirrorConf {
     String ALTER_TABLE_PARTITION_ADD_LOCATION_DESC = "Alter Table Partition Add Location";
     String ALTER_TABLE_PARTITION_ADD_LOCATION =
             "ALTER TABLE {0} ADD IF NOT EXISTS\n{1}";
+    String ALTER_TABLE_PARTITION_ADD_LOCATION_CHUNK_DESC =
+            "Alter Table Partition Add Location: chunk {0} of {1} ({2} to {3})";
     String CREATE_LIKE =
             "CREATE TABLE IF NOT EXISTS {0} LIKE {1}";
     String CREATE_EXTERNAL_LIKE =
@@ -80,6 +85,12 @@ public interface MirrorConf {
             "IMPORT TABLE {0} FROM \"{1}\"";
     String IMPORT_EXTERNAL_TABLE_LOCATION =
             "IMPORT EXTERNAL TABLE {0} FROM \"{1}\" LOCATION \"{2}\"";
+    String EXPORT_TABLE_PARTITION =
+            "EXPORT TABLE {0} PARTITION ({1}) TO \"{2}\"";
+    String IMPORT_EXTERNAL_TABLE_PARTITION_LOCATION =
+            "IMPORT EXTERNAL TABLE {0} PARTITION ({1}) FROM \"{2}\" LOCATION \"{3}\"";
+    String EXPORT_PARTITION_DESC = "EXPORT partition {0} (group {1} of {2})";
+    String IMPORT_PARTITION_DESC = "IMPORT partition {0} (group {1} of {2})";
     String ADD_TABLE_PROP_DESC =
             "Add/Update Table Property";
     String ADD_TABLE_PROP =
@@ -107,6 +118,8 @@ public interface MirrorConf {
     String SQL_DATA_TRANSFER_WITH_PARTITIONS_PRESCRIPTIVE = "FROM {0} INSERT OVERWRITE TABLE {1} PARTITION ({2}) SELECT * DISTRIBUTE BY {3}";
     String SQL_DATA_TRANSFER_WITH_PARTITIONS_PRESCRIPTIVE_FOR_NON_NATIVE = "FROM {0} INSERT OVERWRITE TABLE {1} SELECT * DISTRIBUTE BY {2}";
     String SQL_DATA_TRANSFER_WITH_PARTITIONS_DECLARATIVE = "FROM {0} INSERT OVERWRITE TABLE {1} PARTITION ({2}) SELECT * ";
+    String SQL_DATA_TRANSFER_WITH_PARTITIONS_PRESCRIPTIVE_CHUNK = "FROM {0} INSERT OVERWRITE TABLE {1} PARTITION ({2}) SELECT * WHERE {3} DISTRIBUTE BY {4}";
+    String SQL_DATA_TRANSFER_WITH_PARTITIONS_DECLARATIVE_CHUNK = "FROM {0} INSERT OVERWRITE TABLE {1} PARTITION ({2}) SELECT * WHERE {3}";
 
     String DB_LOCATION = "LOCATION";
     String DB_MANAGED_LOCATION = "MANAGEDLOCATION";
@@ -121,7 +134,13 @@ public interface MirrorConf {
     String AVG_FILE_SIZE = "avg.file.size";
     String TABLE_EMPTY = "table.empty";
     String PARTITION_COUNT = "partition.count";
+    String ICEBERG_CONVERSION_TIME = "iceberg.conversion.ms";
     String NOT_SET = "NOT_SET";
+    // Table step templates, filled in when the steps are reported.
+    String SQL_RUN_COMPLETE_STEP = "Sql Run Complete for: {0}";
+    String SQL_RUN_COMPLETE_RESULT_STEP = "Sql Run Complete for: {0} : {1}";
+    String SQL_RUN_SKIPPED_STEP = "Sql Run SKIPPED (DRY-RUN) for: {0}";
+    String SQL_RUN_UNCHANGED_STEP = "Sql Run SKIPPED (ALREADY SET ON THE CONNECTION) for: {0}";
 
     //    String CONVERT_TO_ICEBERG_V1 = "ALTER TABLE {0} SET TBLPROPERTIES ('storage_handler'='org.apache.iceberg.mr.hive.HiveIcebergStorageHandler')";
     String CONVERT_TO_ICEBERG = "ALTER TABLE {0} SET TBLPROPERTIES ({1})";
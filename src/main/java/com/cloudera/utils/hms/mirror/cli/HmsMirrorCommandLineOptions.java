@@ -18,11 +18,13 @@
 package com.cloudera.utils.hms.mirror.cli;
 
 import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.Sharding;
 import com.cloudera.utils.hms.mirror.domain.Warehouse;
 import com.cloudera.utils.hms.mirror.domain.support.*;
 import com.cloudera.utils.hms.mirror.reporting.ReportingConf;
 import com.cloudera.utils.hms.mirror.service.ConfigService;
 import com.cloudera.utils.hms.mirror.service.ConnectionPoolService;
+import com.cloudera.utils.hms.mirror.service.ShardService;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -625,6 +627,29 @@ public class HmsMirrorCommandLineOptions {
         };
     }
 
+    @Bean
+    @Order(1)
+    @ConditionalOnProperty(
+            name = "hms-mirror.config.iceberg-bulk",
+            havingValue = "true")
+    CommandLineRunner configIcebergBulk(HmsMirrorConfig hmsMirrorConfig) {
+        return args -> {
+            log.info("iceberg-bulk: {}", Boolean.TRUE);
+            hmsMirrorConfig.getIcebergConversion().setBulk(Boolean.TRUE);
+        };
+    }
+
+    @Bean
+    @Order(1)
+    @ConditionalOnProperty(
+            name = "hms-mirror.config.iceberg-database-concurrency")
+    CommandLineRunner configIcebergDatabaseConcurrency(HmsMirrorConfig hmsMirrorConfig, @Value("${hms-mirror.config.iceberg-database-concurrency}") String value) {
+        return args -> {
+            log.info("iceberg-database-concurrency: {}", value);
+            hmsMirrorConfig.getIcebergConversion().setDatabaseConcurrency(Integer.parseInt(value));
+        };
+    }
+
     @Bean
     @Order(1)
     @ConditionalOnProperty(
@@ -1173,6 +1198,60 @@ public class HmsMirrorCommandLineOptions {
         };
     }
 
+    @Bean
+    @Order(1)
+    @ConditionalOnProperty(
+            name = "hms-mirror.config.shards")
+    CommandLineRunner configShards(HmsMirrorConfig hmsMirrorConfig, @Value("${hms-mirror.config.shards}") String value) {
+        return args -> {
+            log.info("shards: {}", value);
+            hmsMirrorConfig.getSharding().setCount(Integer.parseInt(value));
+        };
+    }
+
+    @Bean
+    @Order(1)
+    @ConditionalOnProperty(
+            name = "hms-mirror.config.shard-by")
+    CommandLineRunner configShardBy(HmsMirrorConfig hmsMirrorConfig, @Value("${hms-mirror.config.shard-by}") String value) {
+        return args -> {
+            log.info("shard-by: {}", value);
+            hmsMirrorConfig.getSharding().setBy(ShardByEnum.valueOf(value.toUpperCase()));
+        };
+    }
+
+    @Bean
+    @Order(1)
+    @ConditionalOnProperty(
+            name = "hms-mirror.config.shard-work-dir")
+    CommandLineRunner configShardWorkDir(HmsMirrorConfig hmsMirrorConfig, @Value("${hms-mirror.config.shard-work-dir}") String value) {
+        return args -> {
+            log.info("shard-work-dir: {}", value);
+            hmsMirrorConfig.getSharding().setWorkDirectory(value);
+        };
+    }
+
+    /*
+    After the 'output-dir' is set, so the worker's reports go to its directory under the coordinator's work
+    directory.
+     */
+    @Bean
+    @Order(10)
+    @ConditionalOnProperty(
+            name = "hms-mirror.config.shard-index")
+    CommandLineRunner configShardIndex(HmsMirrorConfig hmsMirrorConfig, @Value("${hms-mirror.config.shard-index}") String value) {
+        return args -> {
+            log.info("shard-index: {}", value);
+            Sharding sharding = hmsMirrorConfig.getSharding();
+            sharding.setIndex(Integer.parseInt(value));
+            if (sharding.isWorker() && nonNull(sharding.getWorkDirectory())) {
+                hmsMirrorConfig.setOutputDirectory(sharding.getWorkDirectory() + File.separator
+                        + ShardService.SHARD_DIRECTORY_PREFIX + sharding.getIndex());
+                hmsMirrorConfig.setUserSetOutputDirectory(Boolean.TRUE);
+            }
+        };
+    }
+
     @Bean
     @Order(1)
     @ConditionalOnProperty(
@@ -1605,6 +1684,19 @@ public class HmsMirrorCommandLineOptions {
         compressTextOutputOption.setRequired(Boolean.FALSE);
         options.addOption(compressTextOutputOption);
 
+        Option icebergBulkOption = new Option("ib", "iceberg-bulk", false,
+                "For the ICEBERG_CONVERSION strategy.  Check which tables can be converted from the Metastore Direct " +
+                        "connection before fetching their definitions, skip the rest, and convert the tables with the " +
+                        "most partitions first.");
+        icebergBulkOption.setRequired(Boolean.FALSE);
+        options.addOption(icebergBulkOption);
+
+        Option icebergDatabaseConcurrencyOption = new Option("idc", "iceberg-database-concurrency", true,
+                "With '--iceberg-bulk', the most conversions run at the same time in a database.  Default is 4.");
+        icebergDatabaseConcurrencyOption.setRequired(Boolean.FALSE);
+        icebergDatabaseConcurrencyOption.setArgName("count");
+        options.addOption(icebergDatabaseConcurrencyOption);
+
         Option icebergVersionOption = new Option("iv", "iceberg-version", true,
                 "Specify the Iceberg Version to use.  Specify 1 or 2.  Default is 2.");
         icebergVersionOption.setOptionalArg(Boolean.TRUE);
@@ -2003,6 +2095,31 @@ public class HmsMirrorCommandLineOptions {
         acidPartCountOption.setArgName("limit");
         options.addOption(acidPartCountOption);
 
+        Option shardsOption = new Option("sh", "shards", true,
+                "Split the run across this many worker processes and merge their reports into one.  The " +
+                        "databases (or tables, see 'shard-by') are assigned to the workers by a stable hash.");
+        shardsOption.setRequired(Boolean.FALSE);
+        shardsOption.setArgName("count");
+        options.addOption(shardsOption);
+
+        Option shardByOption = new Option("shb", "shard-by", true,
+                "How the work is split for 'shards': DATABASE (default) or TABLE.");
+        shardByOption.setRequired(Boolean.FALSE);
+        shardByOption.setArgName("DATABASE|TABLE");
+        options.addOption(shardByOption);
+
+        Option shardIndexOption = new Option("shi", "shard-index", true,
+                "The shard a worker process runs.  Set by the coordinator of a 'shards' run.");
+        shardIndexOption.setRequired(Boolean.FALSE);
+        shardIndexOption.setArgName("index");
+        options.addOption(shardIndexOption);
+
+        Option shardWorkDirOption = new Option("shw", "shard-work-dir", true,
+                "Where the worker processes write their reports.  Set by the coordinator of a 'shards' run.");
+        shardWorkDirOption.setRequired(Boolean.FALSE);
+        shardWorkDirOption.setArgName("directory");
+        options.addOption(shardWorkDirOption);
+
         Option sqlPartCountOption = new Option("sp", "sql-partition-count", true,
                 "Set the limit of partitions that the SQL strategy will work with. '-1' means no-limit.");
         sqlPartCountOption.setRequired(Boolean.FALSE);
@@ -57,6 +57,8 @@ public enum HmsMirrorCommandLineOptionsEnum {
     HELP("h", "help", null, ""),
     IN_PLACE("ip", "in-place", null, ""),
     INTERMEDIATE_STORAGE("is", "intermediate-storage", "storage-path", ""),
+    ICEBERG_BULK("ib", "iceberg-bulk", null, ""),
+    ICEBERG_DATABASE_CONCURRENCY("idc", "iceberg-database-concurrency", "count", ""),
     ICEBERG_TABLE_PROPERTY_OVERRIDES("itpo", "iceberg-table-property-overrides", "key=value", ""),
     ICEBERG_VERSION("iv", "iceberg-version", "version", ""),
     LOAD_TEST_DATA("ltd", "load-test-data", "file", ""),
@@ -91,6 +93,10 @@ public enum HmsMirrorCommandLineOptionsEnum {
     SQL_OUTPUT("sql", "sql-output", null, ""),
     SKIP_STATS_COLLECTION("ssc", "skip-stats-collection", null, ""),
     SETUP("su", "setup", null, ""),
+    SHARDS("sh", "shards", "count", "Split the run across worker processes."),
+    SHARD_BY("shb", "shard-by", "DATABASE|TABLE", ""),
+    SHARD_INDEX("shi", "shard-index", "index", "Set by the coordinator for its workers."),
+    SHARD_WORK_DIR("shw", "shard-work-dir", "directory", "Set by the coordinator for its workers."),
     SUPPRESS_WARNINGS("scw", "suppress-cli-warnings", null, ""),
     TABLE_EXCLUDE_FILTER("tef", "table-exclude-filter", "regex", ""),
     TABLE_FILTER("tf", "table-filter", "regex", ""),
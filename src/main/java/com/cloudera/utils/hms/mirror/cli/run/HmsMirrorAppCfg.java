@@ -18,6 +18,9 @@ package com.cloudera.utils.hms.mirror.cli.run;
 
 import com.cloudera.utils.hms.mirror.cli.CliReporter;
 import com.cloudera.utils.hms.mirror.cli.HmsMirrorCommandLineOptions;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.ProgressEnum;
+import com.cloudera.utils.hms.mirror.domain.support.RunStatus;
 import com.cloudera.utils.hms.mirror.service.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -28,6 +31,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 
+import java.util.Date;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 
@@ -50,6 +54,7 @@ public class HmsMirrorAppCfg {
     private final HMSMirrorAppService hmsMirrorAppService;
     private final TableService tableService;
     private final TransferService transferService;
+    private final ShardService shardService;
 
     public HmsMirrorAppCfg(
             ReportWriterService reportWriterService,
@@ -60,7 +65,8 @@ public class HmsMirrorAppCfg {
             DatabaseService databaseService,
             HMSMirrorAppService hmsMirrorAppService,
             TableService tableService,
-            TransferService transferService
+            TransferService transferService,
+            ShardService shardService
     ) {
         this.reportWriterService = reportWriterService;
         this.cliReporter = cliReporter;
@@ -71,6 +77,7 @@ public class HmsMirrorAppCfg {
         this.hmsMirrorAppService = hmsMirrorAppService;
         this.tableService = tableService;
         this.transferService = transferService;
+        this.shardService = shardService;
     }
 
     // TODO: Need to address failures here...
@@ -82,6 +89,18 @@ public class HmsMirrorAppCfg {
             matchIfMissing = true)
     public CommandLineRunner start() {
         return args -> {
+            ExecuteSession session = executeSessionService.getSession();
+            if (session.getConfig().getSharding().isCoordinator()) {
+                // The workers do the run.  Collect their results and report them as one.
+                RunStatus runStatus = session.getRunStatus();
+                runStatus.setProgress(ProgressEnum.IN_PROGRESS);
+                boolean rtn = shardService.coordinate(shardService.currentProcessCommand());
+                runStatus.setEnd(new Date());
+                runStatus.setProgress(rtn ? ProgressEnum.COMPLETED : ProgressEnum.FAILED);
+                reportWriterService.wrapup();
+                cliReporter.refresh(Boolean.TRUE);
+                return;
+            }
             // NOTE: The transitionToActive process happens in another bean....
             CompletableFuture<Boolean> result = hmsMirrorAppService.run();
             while (!result.isDone()) {
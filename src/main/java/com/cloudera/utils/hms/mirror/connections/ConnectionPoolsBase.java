@@ -61,6 +61,12 @@ public abstract class ConnectionPoolsBase implements ConnectionPools {
     protected final Map<Environment, DataSource> metastoreDirectDataSources = new TreeMap<>();
 
     public void close() {
+        // Return the drivers to the classloader cache.
+        for (Driver driver : hs2Drivers.values()) {
+            DriverUtils.releaseDriver(driver);
+        }
+        hs2Drivers.clear();
+
         try {
             if (hs2DataSources.get(Environment.LEFT) != null) {
                 if (hs2DataSources.get(Environment.LEFT) instanceof PoolingDataSource) {
@@ -122,11 +128,14 @@ public abstract class ConnectionPoolsBase implements ConnectionPools {
         metastoreDirectConfigs.put(environment, dbStore);
     }
 
-    public synchronized Connection getHS2EnvironmentConnection(Environment environment) throws SQLException {
+    /*
+    The driver stays registered for as long as it's cached (see DriverClassLoaderCache), and the pools connect
+    through it directly, so the borrows don't need to be serialized.
+     */
+    public Connection getHS2EnvironmentConnection(Environment environment) throws SQLException {
         Driver lclDriver = getHS2EnvironmentDriver(environment);
         Connection conn = null;
         if (lclDriver != null) {
-            DriverManager.registerDriver(lclDriver);
             try {
                 DataSource ds = getHS2EnvironmentDataSource(environment);
                 if (ds != null) {
@@ -135,8 +144,6 @@ public abstract class ConnectionPoolsBase implements ConnectionPools {
             } catch (Throwable se) {
                 log.error(se.getMessage(), se);
                 throw new RuntimeException(se);
-            } finally {
-                DriverManager.deregisterDriver(lclDriver);
             }
         }
         return conn;
@@ -171,14 +178,12 @@ public abstract class ConnectionPoolsBase implements ConnectionPools {
             HiveServer2Config hs2Config = hiveServerConfigs.get(environment);
             if (hs2Config != null) {
                 Driver driver = DriverUtils.getDriver(hs2Config, environment);
-                // Need to deregister, because it was registered in the getDriver.
-                try {
-                    DriverManager.deregisterDriver(driver);
-                } catch (SQLException throwables) {
-                    log.error(throwables.getMessage(), throwables);
-                    throw throwables;
+                // Every 'getDriver' took a reference, even when it's the same cached driver, so always give
+                // back the previous one.
+                Driver previousDriver = hs2Drivers.put(environment, driver);
+                if (nonNull(previousDriver)) {
+                    DriverUtils.releaseDriver(previousDriver);
                 }
-                hs2Drivers.put(environment, driver);
             }
         }
     }
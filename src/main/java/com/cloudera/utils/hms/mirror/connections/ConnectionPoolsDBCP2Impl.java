@@ -36,6 +36,7 @@ import org.apache.commons.pool2.impl.GenericObjectPool;
 import javax.sql.DataSource;
 import java.net.URISyntaxException;
 import java.sql.Connection;
+import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -80,8 +81,11 @@ public class ConnectionPoolsDBCP2Impl extends ConnectionPoolsBase implements Con
                     }
                 }
                 log.info("{} - HS2 DBCP2 Connection Properties: {}", environment, connProperties);
-                ConnectionFactory connectionFactory =
-                        new DriverManagerConnectionFactory(hs2Config.getUri(), connProperties);
+                // Connect through the environment's driver, not the first registered one that takes the URL.
+                Driver lclDriver = getHS2EnvironmentDriver(environment);
+                ConnectionFactory connectionFactory = nonNull(lclDriver)
+                        ? new DriverConnectionFactory(lclDriver, hs2Config.getUri(), connProperties)
+                        : new DriverManagerConnectionFactory(hs2Config.getUri(), connProperties);
 
                 PoolableConnectionFactory poolableConnectionFactory =
                         new PoolableConnectionFactory(connectionFactory, null);
@@ -99,6 +103,8 @@ public class ConnectionPoolsDBCP2Impl extends ConnectionPoolsBase implements Con
                 }
 
                 PoolingDataSource<PoolableConnection> poolingDatasource = new PoolingDataSource<>(connectionPool);
+                // So the session settings can follow the driver connection from one borrow to the next.
+                poolingDatasource.setAccessToUnderlyingConnectionAllowed(true);
 //            poolingDatasource.setLoginTimeout(10);
 
                 hs2DataSources.put(environment, poolingDatasource);
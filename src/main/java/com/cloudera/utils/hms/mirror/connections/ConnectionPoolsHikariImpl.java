@@ -27,13 +27,13 @@ import com.cloudera.utils.hms.mirror.exceptions.SessionException;
 import com.cloudera.utils.hms.mirror.service.ConnectionPoolService;
 import com.cloudera.utils.hms.mirror.service.PasswordService;
 import com.cloudera.utils.hms.util.ConfigUtils;
+import com.cloudera.utils.hms.util.DriverDataSource;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import lombok.extern.slf4j.Slf4j;
 
 import java.sql.Connection;
 import java.sql.Driver;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.*;
 
@@ -63,51 +63,43 @@ public class ConnectionPoolsHikariImpl extends ConnectionPoolsBase implements Co
                 Driver lclDriver = getHS2EnvironmentDriver(environment);
                 if (lclDriver != null) {
                     try {
-                        DriverManager.registerDriver(lclDriver);
-                        try {
-                            Properties props = new Properties();
-                            // Add the HikariCP properties established in the configs and add them to the connection properties.
-                            props.putAll(connectionPoolService.getHikariProperties().toProperties());
-
-                            // We need to review any property overrides for the environment to see
-                            //   if they're trying to set the queue. EG tez.queue.name or mapred.job.queue.name
-                            String queueOverride = ConfigUtils.getQueuePropertyOverride(environment, executeSession.getConfig());
-                            if (queueOverride != null) {
-                                props.put("connectionInitSql", queueOverride);
-                            }
+                        Properties props = new Properties();
+                        // Add the HikariCP properties established in the configs and add them to the connection properties.
+                        props.putAll(connectionPoolService.getHikariProperties().toProperties());
+
+                        // We need to review any property overrides for the environment to see
+                        //   if they're trying to set the queue. EG tez.queue.name or mapred.job.queue.name
+                        String queueOverride = ConfigUtils.getQueuePropertyOverride(environment, executeSession.getConfig());
+                        if (queueOverride != null) {
+                            props.put("connectionInitSql", queueOverride);
+                        }
 
-                            // Make a copy.
-                            Properties connProperties = new Properties();
-                            // Trim properties to include only those supported by the driver.
-                            connProperties.putAll(HiveDriverEnum.getDriverEnum(hs2Config.getDriverClassName()).reconcileForDriver(hs2Config.getConnectionProperties()));
-
-                            // If the ExecuteSession has the 'passwordKey' set, resolve Encrypted PasswordApp first.
-                            if (executeSession.getConfig().isEncryptedPasswords()) {
-                                if (nonNull(executeSession.getConfig().getPasswordKey()) && !executeSession.getConfig().getPasswordKey().isEmpty()) {
-                                    String encryptedPassword = connProperties.getProperty("password");
-                                    String decryptedPassword = passwordService.decryptPassword(executeSession.getConfig().getPasswordKey(), encryptedPassword);
-                                    connProperties.setProperty("password", decryptedPassword);
-                                } else {
-                                    throw new SessionException("Passwords encrypted, but no password key present.");
-                                }
+                        // Make a copy.
+                        Properties connProperties = new Properties();
+                        // Trim properties to include only those supported by the driver.
+                        connProperties.putAll(HiveDriverEnum.getDriverEnum(hs2Config.getDriverClassName()).reconcileForDriver(hs2Config.getConnectionProperties()));
+
+                        // If the ExecuteSession has the 'passwordKey' set, resolve Encrypted PasswordApp first.
+                        if (executeSession.getConfig().isEncryptedPasswords()) {
+                            if (nonNull(executeSession.getConfig().getPasswordKey()) && !executeSession.getConfig().getPasswordKey().isEmpty()) {
+                                String encryptedPassword = connProperties.getProperty("password");
+                                String decryptedPassword = passwordService.decryptPassword(executeSession.getConfig().getPasswordKey(), encryptedPassword);
+                                connProperties.setProperty("password", decryptedPassword);
+                            } else {
+                                throw new SessionException("Passwords encrypted, but no password key present.");
                             }
-
-                            log.info("{} - HS2 Hikari Connection Properties: {}", environment, props);
-                            HikariConfig config = new HikariConfig(props);
-                            config.setJdbcUrl(hs2Config.getUri());
-                            config.setDataSourceProperties(connProperties);
-                            HikariDataSource poolingDatasource = new HikariDataSource(config);
-
-                            hs2DataSources.put(environment, poolingDatasource);
-                        } catch (Throwable se) {
-                            log.error(se.getMessage(), se);
-                            throw new RuntimeException(se);
-                        } finally {
-                            DriverManager.deregisterDriver(lclDriver);
                         }
-                    } catch (SQLException e) {
-                        log.error(e.getMessage(), e);
-                        throw new RuntimeException(e);
+
+                        log.info("{} - HS2 Hikari Connection Properties: {}", environment, props);
+                        HikariConfig config = new HikariConfig(props);
+                        // Connect through the environment's driver, not the first registered one that takes the URL.
+                        config.setDataSource(new DriverDataSource(lclDriver, hs2Config.getUri(), connProperties));
+                        HikariDataSource poolingDatasource = new HikariDataSource(config);
+
+                        hs2DataSources.put(environment, poolingDatasource);
+                    } catch (Throwable se) {
+                        log.error(se.getMessage(), se);
+                        throw new RuntimeException(se);
                     }
                 }
 
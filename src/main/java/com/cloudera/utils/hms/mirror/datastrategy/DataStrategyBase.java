@@ -28,18 +28,20 @@ import com.cloudera.utils.hms.mirror.Pair;
 import com.cloudera.utils.hms.mirror.domain.Cluster;
 import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
 import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.Optimization;
 import com.cloudera.utils.hms.mirror.domain.TableMirror;
 import com.cloudera.utils.hms.mirror.domain.support.*;
 import com.cloudera.utils.hms.mirror.exceptions.MismatchException;
 import com.cloudera.utils.hms.mirror.exceptions.MissingDataPointException;
 import com.cloudera.utils.hms.mirror.exceptions.RequiredConfigurationException;
 import com.cloudera.utils.hms.mirror.feature.Feature;
-import com.cloudera.utils.hms.mirror.feature.FeaturesEnum;
+import com.cloudera.utils.hms.mirror.feature.FeatureEngine;
 import com.cloudera.utils.hms.mirror.service.ExecuteSessionService;
 import com.cloudera.utils.hms.mirror.service.StatsCalculatorService;
 import com.cloudera.utils.hms.mirror.service.TranslatorService;
 import com.cloudera.utils.hms.util.ConfigUtils;
 import com.cloudera.utils.hms.util.NamespaceUtils;
+import com.cloudera.utils.hms.util.PartitionChunkUtils;
 import com.cloudera.utils.hms.util.TableUtils;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -468,16 +470,12 @@ public abstract class DataStrategyBase implements DataStrategy {
                     }
                     // 6. Go through the features, if any.
                     if (!config.isSkipFeatures()) {
-                        for (FeaturesEnum features : FeaturesEnum.values()) {
-                            Feature feature = features.getFeature();
-                            log.debug("Table: {} - Checking Feature: {}", tableMirror.getName(), features);
-                            if (feature.fixSchema(target)) {
-                                log.debug("Table: {} - Feature Applicable: {}", tableMirror.getName(), features);
-                                target.addIssue("Feature (" + features + ") was found applicable and adjustments applied. " +
-                                        feature.getDescription());
-                            } else {
-                                log.debug("Table: {} - Feature NOT Applicable: {}", tableMirror.getName(), features);
-                            }
+                        log.debug("Table: {} - Checking Features", tableMirror.getName());
+                        Map<String, Feature> applied = FeatureEngine.getDefault().apply(target.getDefinition());
+                        for (Map.Entry<String, Feature> entry : applied.entrySet()) {
+                            log.debug("Table: {} - Feature Applicable: {}", tableMirror.getName(), entry.getKey());
+                            target.addIssue("Feature (" + entry.getKey() + ") was found applicable and adjustments applied. " +
+                                    entry.getValue().getDescription());
                         }
                     } else {
                         log.debug("Table: {} - Skipping Features Check...", tableMirror.getName());
@@ -563,24 +561,32 @@ public abstract class DataStrategyBase implements DataStrategy {
                 targetEnvTable = null;
         }
 
+        // When set, the transfer is split into chunks of at most this many partitions.
+        int chunkLimit = 0;
         if (TableUtils.isACID(original)) {
             if (original.getPartitions().size() > config.getMigrateACID().getPartitionLimit() && config.getMigrateACID().getPartitionLimit() > 0) {
-                // The partition limit has been exceeded.  The process will need to be done manually.
-                original.addError("The number of partitions: " + original.getPartitions().size() + " exceeds the configuration " +
-                        "limit (migrateACID->partitionLimit) of " + config.getMigrateACID().getPartitionLimit() +
-                        ".  This value is used to abort migrations that have a high potential for failure.  " +
-                        "The migration will need to be done manually OR try increasing the limit. Review commandline option '-ap'.");
-                rtn = Boolean.FALSE;
+                if (config.getOptimization().isChunkedSqlTransfer()) {
+                    chunkLimit = config.getMigrateACID().getPartitionLimit();
+                } else {
+                    // The partition limit has been exceeded.  The process will need to be done manually.
+                    original.addError(MessageCode.PARTITION_LIMIT_EXCEEDED, original.getPartitions().size(),
+                            "migrateACID->partitionLimit", config.getMigrateACID().getPartitionLimit(),
+                            "'-ap' or enable 'optimization->chunkedSqlTransfer'");
+                    rtn = Boolean.FALSE;
+                }
             }
         } else {
             if (original.getPartitions().size() > config.getHybrid().getSqlPartitionLimit() &&
                     config.getHybrid().getSqlPartitionLimit() > 0) {
-                // The partition limit has been exceeded.  The process will need to be done manually.
-                original.addError("The number of partitions: " + original.getPartitions().size() + " exceeds the configuration " +
-                        "limit (hybrid->sqlPartitionLimit) of " + config.getHybrid().getSqlPartitionLimit() +
-                        ".  This value is used to abort migrations that have a high potential for failure.  " +
-                        "The migration will need to be done manually OR try increasing the limit. Review commandline option '-sp'.");
-                rtn = Boolean.FALSE;
+                if (config.getOptimization().isChunkedSqlTransfer()) {
+                    chunkLimit = config.getHybrid().getSqlPartitionLimit();
+                } else {
+                    // The partition limit has been exceeded.  The process will need to be done manually.
+                    original.addError(MessageCode.PARTITION_LIMIT_EXCEEDED, original.getPartitions().size(),
+                            "hybrid->sqlPartitionLimit", config.getHybrid().getSqlPartitionLimit(),
+                            "'-sp' or enable 'optimization->chunkedSqlTransfer'");
+                    rtn = Boolean.FALSE;
+                }
             }
         }
 
@@ -607,11 +613,8 @@ public abstract class DataStrategyBase implements DataStrategy {
                         targetEnvTable.addSql("Setting " + SORT_DYNAMIC_PARTITION, MessageFormat.format(SET_SESSION_VALUE_STRING, SORT_DYNAMIC_PARTITION, "false"));
                     }
                     String partElement = TableUtils.getPartitionElements(original);
-                    String transferSql = MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_WITH_PARTITIONS_DECLARATIVE,
-                            source.getName(), target.getName(), partElement);
-                    String transferDesc = MessageFormat.format(TableUtils.STAGE_TRANSFER_PARTITION_DESC, original.getPartitions().size());
                     assert targetEnvTable != null;
-                    targetEnvTable.addSql(new Pair(transferDesc, transferSql));
+                    addPartitionTransferSql(targetEnvTable, original, source, target, partElement, null, chunkLimit);
                 } else if (config.getOptimization().isSortDynamicPartitionInserts()) {
                     if (!config.getCluster(Environment.LEFT).isLegacyHive()) {
                         targetEnvTable.addSql("Setting " + SORT_DYNAMIC_PARTITION, MessageFormat.format(SET_SESSION_VALUE_STRING, SORT_DYNAMIC_PARTITION, "true"));
@@ -620,10 +623,7 @@ public abstract class DataStrategyBase implements DataStrategy {
                         }
                     }
                     String partElement = TableUtils.getPartitionElements(original);
-                    String transferSql = MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_WITH_PARTITIONS_DECLARATIVE,
-                            source.getName(), target.getName(), partElement);
-                    String transferDesc = MessageFormat.format(TableUtils.STAGE_TRANSFER_PARTITION_DESC, original.getPartitions().size());
-                    targetEnvTable.addSql(new Pair(transferDesc, transferSql));
+                    addPartitionTransferSql(targetEnvTable, original, source, target, partElement, null, chunkLimit);
                 } else {
                     if (!config.getCluster(Environment.LEFT).isLegacyHive()) {
                         targetEnvTable.addSql("Setting " + SORT_DYNAMIC_PARTITION, MessageFormat.format(SET_SESSION_VALUE_STRING, SORT_DYNAMIC_PARTITION, "false"));
@@ -633,10 +633,7 @@ public abstract class DataStrategyBase implements DataStrategy {
                     }
                     String partElement = TableUtils.getPartitionElements(original);
                     String distPartElement = statsCalculatorService.getDistributedPartitionElements(original);
-                    String transferSql = MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_WITH_PARTITIONS_PRESCRIPTIVE,
-                            source.getName(), target.getName(), partElement, distPartElement);
-                    String transferDesc = MessageFormat.format(TableUtils.STAGE_TRANSFER_PARTITION_DESC, original.getPartitions().size());
-                    targetEnvTable.addSql(new Pair(transferDesc, transferSql));
+                    addPartitionTransferSql(targetEnvTable, original, source, target, partElement, distPartElement, chunkLimit);
                 }
             } else {
                 String transferSql = MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_OVERWRITE,
@@ -675,6 +672,136 @@ public abstract class DataStrategyBase implements DataStrategy {
         return rtn;
     }
 
+    /*
+    Add the partitioned data transfer to the target.  When 'chunkLimit' is set, the transfer is split into
+    chunks that each select a contiguous run of the source partitions.  Without a 'distPartElement', the
+    declarative form (no DISTRIBUTE BY) is used.
+     */
+    protected void addPartitionTransferSql(EnvironmentTable targetEnvTable, EnvironmentTable original,
+                                           EnvironmentTable source, EnvironmentTable target,
+                                           String partElement, String distPartElement, int chunkLimit) {
+        int partitionCount = original.getPartitions().size();
+        if (chunkLimit <= 0 || partitionCount <= chunkLimit) {
+            String transferSql = isNull(distPartElement)
+                    ? MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_WITH_PARTITIONS_DECLARATIVE,
+                    source.getName(), target.getName(), partElement)
+                    : MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_WITH_PARTITIONS_PRESCRIPTIVE,
+                    source.getName(), target.getName(), partElement, distPartElement);
+            String transferDesc = MessageFormat.format(TableUtils.STAGE_TRANSFER_PARTITION_DESC, partitionCount);
+            targetEnvTable.addSql(new Pair(transferDesc, transferSql));
+            return;
+        }
+        HmsMirrorConfig config = executeSessionService.getSession().getConfig();
+
+        // When the table size is known, keep each chunk under the SQL size limit too.
+        int maxPartitions = chunkLimit;
+        long avgPartitionSize = 0L;
+        Object dataSize = original.getStatistics().get(MirrorConf.DATA_SIZE);
+        if (dataSize instanceof Number) {
+            avgPartitionSize = ((Number) dataSize).longValue() / partitionCount;
+            long sqlSizeLimit = config.getHybrid().getSqlSizeLimit();
+            if (avgPartitionSize > 0 && sqlSizeLimit > 0) {
+                maxPartitions = (int) Math.max(1L, Math.min(maxPartitions, sqlSizeLimit / avgPartitionSize));
+            }
+        }
+
+        List<List<String>> chunks = PartitionChunkUtils.chunk(original.getPartitions().keySet(), maxPartitions,
+                null, 0L);
+        targetEnvTable.getTransferChunks().clear();
+        int id = 1;
+        for (List<String> chunk : chunks) {
+            String predicate = PartitionChunkUtils.buildPredicate(chunk);
+            String transferSql = isNull(distPartElement)
+                    ? MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_WITH_PARTITIONS_DECLARATIVE_CHUNK,
+                    source.getName(), target.getName(), partElement, predicate)
+                    : MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_WITH_PARTITIONS_PRESCRIPTIVE_CHUNK,
+                    source.getName(), target.getName(), partElement, predicate, distPartElement);
+            String first = chunk.get(0);
+            String last = chunk.get(chunk.size() - 1);
+            String transferDesc = MessageFormat.format(TableUtils.STAGE_TRANSFER_PARTITION_CHUNK_DESC,
+                    partitionCount, id, chunks.size(), first, last);
+            Pair transferPair = new Pair(transferDesc, transferSql);
+
+            TransferChunk transferChunk = new TransferChunk(id, chunks.size());
+            transferChunk.setPartitionCount(chunk.size());
+            transferChunk.setDataSize(avgPartitionSize * chunk.size());
+            transferChunk.setFirstPartition(first);
+            transferChunk.setLastPartition(last);
+            transferChunk.setSql(transferPair);
+            targetEnvTable.getTransferChunks().add(transferChunk);
+            targetEnvTable.addSql(transferPair);
+            id++;
+        }
+        targetEnvTable.addIssue("The number of partitions: " + partitionCount + " exceeds the SQL partition limit of "
+                + chunkLimit + ".  The data transfer has been split into " + chunks.size() + " chunks of at most "
+                + maxPartitions + " partitions.");
+    }
+
+    /**
+     * Add the statements that add the table's partitions, with their locations.  When there's more than one, they
+     * are chunks of the same table and are run as a group (see TableService.runTransferChunks), so they can run in
+     * parallel and a failed chunk can be re-run on its own.
+     */
+    protected void buildPartitionAddSql(EnvironmentTable environmentTable) {
+        buildPartitionAddSql(environmentTable, environmentTable.getName(), environmentTable.getPartitions());
+    }
+
+    /**
+     * @param environmentTable the table whose sql list the statements go in
+     * @param tableName        the table the partitions are added to
+     * @param partitions       partition name to location
+     * @see #buildPartitionAddSql(EnvironmentTable)
+     */
+    protected void buildPartitionAddSql(EnvironmentTable environmentTable, String tableName,
+                                        Map<String, String> partitions) {
+        Optimization optimization = executeSessionService.getSession().getConfig().getOptimization();
+        List<TransferChunk> chunks = translatorService.buildPartitionAddChunks(tableName, partitions,
+                optimization.getPartitionAddChunkSize(), optimization.getPartitionAddMaxBytes());
+        // This will be empty when there's no data.
+        if (chunks.size() == 1) {
+            environmentTable.addSql(chunks.get(0).getSql());
+        } else if (chunks.size() > 1) {
+            int parallelism = Math.max(1, optimization.getPartitionAddParallelism());
+            for (TransferChunk chunk : chunks) {
+                chunk.setParallelism(parallelism);
+                environmentTable.getTransferChunks().add(chunk);
+                environmentTable.addSql(chunk.getSql());
+            }
+            environmentTable.addIssue("The " + partitions.size() + " partitions of " + tableName + " are added in "
+                    + chunks.size() + " statements.");
+        }
+    }
+
+    /**
+     * Adds the known partitions of the source table to the target, in place of an MSCK REPAIR, when
+     * partitionDiscovery.registerPartitions is set on the RIGHT cluster.  The locations are the target's own when
+     * they were loaded (and translated), otherwise the source's, moved under the target's table location.
+     *
+     * @param environmentTable the table whose sql list the statements go in
+     * @return false when the partitions couldn't be registered and the MSCK is still needed.
+     */
+    protected boolean registerKnownPartitions(EnvironmentTable source, EnvironmentTable target,
+                                              EnvironmentTable environmentTable) {
+        HmsMirrorConfig config = executeSessionService.getSession().getConfig();
+        Cluster right = config.getCluster(Environment.RIGHT);
+        if (isNull(right) || !right.getPartitionDiscovery().isRegisterPartitions()) {
+            return Boolean.FALSE;
+        }
+        Map<String, String> partitions = target.getPartitions();
+        if (partitions.isEmpty() || partitions.containsValue(MirrorConf.NOT_SET)) {
+            partitions = TableUtils.rebasePartitionLocations(source.getPartitions(),
+                    TableUtils.getLocation(source.getName(), source.getDefinition()),
+                    TableUtils.getLocation(target.getName(), target.getDefinition()));
+        }
+        if (isNull(partitions) || partitions.isEmpty()) {
+            log.info("{}: The partitions of {} weren't collected or can't be moved under its location. Using MSCK.",
+                    target.getName(), source.getName());
+            return Boolean.FALSE;
+        }
+        buildPartitionAddSql(environmentTable, target.getName(), partitions);
+        return Boolean.TRUE;
+    }
+
     public Boolean isACIDInPlace(TableMirror tableMirror, Environment environment) {
         HmsMirrorConfig hmsMirrorConfig = executeSessionService.getSession().getConfig();
 
@@ -105,12 +105,7 @@ public class DumpDataStrategy extends DataStrategyBase {
         // If partitioned, !ACID, repair
         if (let.getPartitioned() && !TableUtils.isACID(let)) {
             if (config.loadMetadataDetails()) {
-                String tableParts = getTranslatorService().buildPartitionAddStatement(let);
-                // This will be empty when there's no data and we need to handle that.
-                if (!isBlank(tableParts)) {
-                    String addPartSql = MessageFormat.format(MirrorConf.ALTER_TABLE_PARTITION_ADD_LOCATION, let.getName(), tableParts);
-                    let.addSql(MirrorConf.ALTER_TABLE_PARTITION_ADD_LOCATION_DESC, addPartSql);
-                }
+                buildPartitionAddSql(let);
             } else if (config.getCluster(Environment.LEFT).getPartitionDiscovery().isInitMSCK()) {
                 String msckStmt = MessageFormat.format(MirrorConf.MSCK_REPAIR_TABLE, let.getName());
                 if (config.getTransfer().getStorageMigration().isDistcp()) {
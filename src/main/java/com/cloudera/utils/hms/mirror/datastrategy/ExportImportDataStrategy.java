@@ -21,22 +21,26 @@ import com.cloudera.utils.hms.mirror.CopySpec;
 import com.cloudera.utils.hms.mirror.CreateStrategy;
 import com.cloudera.utils.hms.mirror.MessageCode;
 import com.cloudera.utils.hms.mirror.MirrorConf;
+import com.cloudera.utils.hms.mirror.Pair;
 import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
 import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
 import com.cloudera.utils.hms.mirror.domain.TableMirror;
 import com.cloudera.utils.hms.mirror.domain.Warehouse;
 import com.cloudera.utils.hms.mirror.domain.support.Environment;
 import com.cloudera.utils.hms.mirror.domain.support.HmsMirrorConfigUtil;
+import com.cloudera.utils.hms.mirror.domain.support.TransferChunk;
 import com.cloudera.utils.hms.mirror.exceptions.MissingDataPointException;
 import com.cloudera.utils.hms.mirror.exceptions.RequiredConfigurationException;
 import com.cloudera.utils.hms.mirror.service.*;
 import com.cloudera.utils.hms.util.NamespaceUtils;
+import com.cloudera.utils.hms.util.PartitionChunkUtils;
 import com.cloudera.utils.hms.util.TableUtils;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.text.MessageFormat;
+import java.util.List;
 
 import static com.cloudera.utils.hms.mirror.MessageCode.*;
 import static com.cloudera.utils.hms.mirror.TablePropertyVars.TRANSLATED_TO_EXTERNAL;
@@ -186,8 +190,16 @@ public class ExportImportDataStrategy extends DataStrategyBase {
                 let.addSql(TableUtils.RENAME_TABLE, renameSql);
             }
 
-            String exportSql = MessageFormat.format(MirrorConf.EXPORT_TABLE, let.getName(), exportLoc);
-            let.addSql(TableUtils.EXPORT_TABLE, exportSql);
+            boolean chunked = isPartitionChunked(let, config);
+            List<List<String>> partitionGroups = null;
+            if (chunked) {
+                partitionGroups = PartitionChunkUtils.chunk(let.getPartitions().keySet(),
+                        Math.max(1, config.getOptimization().getExportImportPartitionGroupSize()), null, 0L);
+                addPartitionExports(let, exportLoc, partitionGroups, config);
+            } else {
+                String exportSql = MessageFormat.format(MirrorConf.EXPORT_TABLE, let.getName(), exportLoc);
+                let.addSql(TableUtils.EXPORT_TABLE, exportSql);
+            }
 
             // RIGHT IMPORT from Directory
             if (!isACIDInPlace(tableMirror, Environment.LEFT)) {
@@ -238,7 +250,11 @@ public class ExportImportDataStrategy extends DataStrategyBase {
             if (isACIDInPlace(tableMirror, Environment.LEFT)) {
                 let.addSql(TableUtils.IMPORT_TABLE, importSql);
             } else {
-                ret.addSql(TableUtils.IMPORT_TABLE, importSql);
+                if (chunked) {
+                    addPartitionImports(let, ret, importLoc, targetLocation, partitionGroups, config);
+                } else {
+                    ret.addSql(TableUtils.IMPORT_TABLE, importSql);
+                }
                 if (!config.getCluster(Environment.RIGHT).isLegacyHive()
                         && config.getOwnershipTransfer().isTable() && let.getOwner() != null) {
                     String ownerSql = MessageFormat.format(MirrorConf.SET_TABLE_OWNER, let.getName(), let.getOwner());
@@ -246,14 +262,17 @@ public class ExportImportDataStrategy extends DataStrategyBase {
                 }
             }
 
-            if (let.getPartitions().size() > config.getHybrid().getExportImportPartitionLimit() &&
+            if (chunked) {
+                let.addIssue("The " + let.getPartitions().size() + " partitions are exported and imported in "
+                        + partitionGroups.size() + " groups of at most "
+                        + config.getOptimization().getExportImportPartitionGroupSize() + " partitions.");
+                rtn = Boolean.TRUE;
+            } else if (let.getPartitions().size() > config.getHybrid().getExportImportPartitionLimit() &&
                     config.getHybrid().getExportImportPartitionLimit() > 0) {
                 // The partition limit has been exceeded.  The process will need to be done manually.
-                let.addError("The number of partitions: " + let.getPartitions().size() + " exceeds the configuration " +
-                        "limit (hybrid->exportImportPartitionLimit) of "
-                        + config.getHybrid().getExportImportPartitionLimit() +
-                        ".  This value is used to abort migrations that have a high potential for failure.  " +
-                        "The migration will need to be done manually OR try increasing the limit. Review commandline option '-ep'.");
+                let.addError(MessageCode.PARTITION_LIMIT_EXCEEDED, let.getPartitions().size(),
+                        "hybrid->exportImportPartitionLimit", config.getHybrid().getExportImportPartitionLimit(),
+                        "'-ep'");
                 rtn = Boolean.FALSE;
             } else {
                 rtn = Boolean.TRUE;
@@ -266,6 +285,72 @@ public class ExportImportDataStrategy extends DataStrategyBase {
         return rtn;
     }
 
+    /**
+     * EXPORT/IMPORT the table in partition groups instead of as a whole.  See 'optimization->chunkedExportImport'.
+     */
+    public static boolean isPartitionChunked(EnvironmentTable let, HmsMirrorConfig config) {
+        return config.getOptimization().isChunkedExportImport() && !let.getPartitions().isEmpty()
+                && !TableUtils.isACID(let);
+    }
+
+    /*
+    Each partition is exported to its own directory under the table's export directory.
+     */
+    private void addPartitionExports(EnvironmentTable let, String exportLoc, List<List<String>> partitionGroups,
+                                     HmsMirrorConfig config) {
+        int id = 1;
+        for (List<String> partitionGroup : partitionGroups) {
+            TransferChunk chunk = newPartitionChunk(id++, partitionGroups.size(), partitionGroup, config);
+            for (String partition : partitionGroup) {
+                String exportSql = MessageFormat.format(MirrorConf.EXPORT_TABLE_PARTITION, let.getName(),
+                        TableUtils.toPartitionSpec(partition), exportLoc + "/" + partition);
+                Pair exportPair = new Pair(MessageFormat.format(MirrorConf.EXPORT_PARTITION_DESC, partition,
+                        chunk.getId(), chunk.getTotal()), exportSql);
+                chunk.addSql(exportPair);
+                let.addSql(exportPair);
+            }
+            let.getTransferChunks().add(chunk);
+        }
+    }
+
+    /*
+    The IMPORT of the first partition creates the table, so it's run on its own before the groups.
+     */
+    private void addPartitionImports(EnvironmentTable let, EnvironmentTable ret, String importLoc,
+                                     String targetLocation, List<List<String>> partitionGroups,
+                                     HmsMirrorConfig config) {
+        boolean first = Boolean.TRUE;
+        int id = 1;
+        for (List<String> partitionGroup : partitionGroups) {
+            TransferChunk chunk = newPartitionChunk(id++, partitionGroups.size(), partitionGroup, config);
+            for (String partition : partitionGroup) {
+                String importSql = MessageFormat.format(MirrorConf.IMPORT_EXTERNAL_TABLE_PARTITION_LOCATION,
+                        let.getName(), TableUtils.toPartitionSpec(partition), importLoc + "/" + partition,
+                        targetLocation);
+                Pair importPair = new Pair(MessageFormat.format(MirrorConf.IMPORT_PARTITION_DESC, partition,
+                        chunk.getId(), chunk.getTotal()), importSql);
+                if (first) {
+                    first = Boolean.FALSE;
+                } else {
+                    chunk.addSql(importPair);
+                }
+                ret.addSql(importPair);
+            }
+            if (!chunk.getStatements().isEmpty()) {
+                ret.getTransferChunks().add(chunk);
+            }
+        }
+    }
+
+    private TransferChunk newPartitionChunk(int id, int total, List<String> partitionGroup, HmsMirrorConfig config) {
+        TransferChunk rtn = new TransferChunk(id, total);
+        rtn.setPartitionCount(partitionGroup.size());
+        rtn.setFirstPartition(partitionGroup.get(0));
+        rtn.setLastPartition(partitionGroup.get(partitionGroup.size() - 1));
+        rtn.setParallelism(Math.max(1, config.getOptimization().getExportImportParallelism()));
+        return rtn;
+    }
+
     @Override
     public Boolean build(TableMirror tableMirror) {
         Boolean rtn = Boolean.FALSE;
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.datastrategy;
+
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.support.HybridCostEstimate;
+
+/**
+ * Picks the strategy (EXPORT_IMPORT or SQL) the HYBRID strategy uses for a table, from the table's statistics.
+ * Used when 'hybrid->costBased' is set.  Provide another bean of this type to replace the default model.
+ */
+public interface HybridCostModel {
+
+    /**
+     * @param source the LEFT table, with its statistics and partitions
+     * @param config the session config
+     * @return the estimate, or null when the table doesn't have the statistics the model needs.  The HYBRID
+     * strategy then falls back to 'hybrid->exportImportPartitionLimit'.
+     */
+    HybridCostEstimate estimate(EnvironmentTable source, HmsMirrorConfig config);
+
+}
@@ -22,6 +22,7 @@ import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
 import com.cloudera.utils.hms.mirror.domain.TableMirror;
 import com.cloudera.utils.hms.mirror.domain.support.DataStrategyEnum;
 import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.HybridCostEstimate;
 import com.cloudera.utils.hms.mirror.exceptions.MissingDataPointException;
 import com.cloudera.utils.hms.mirror.service.ConfigService;
 import com.cloudera.utils.hms.mirror.service.ExecuteSessionService;
@@ -32,6 +33,7 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import static java.util.Objects.isNull;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 @Component
@@ -44,6 +46,7 @@ public class HybridDataStrategy extends DataStrategyBase {
     private final IntermediateDataStrategy intermediateDataStrategy;
     private final SQLDataStrategy sqlDataStrategy;
     private final ExportImportDataStrategy exportImportDataStrategy;
+    private final HybridCostModel hybridCostModel;
 
     public HybridDataStrategy(StatsCalculatorService statsCalculatorService,
                               ExecuteSessionService executeSessionService,
@@ -51,12 +54,14 @@ public class HybridDataStrategy extends DataStrategyBase {
                               ConfigService configService,
                               IntermediateDataStrategy intermediateDataStrategy,
                               SQLDataStrategy sqlDataStrategy,
-                              ExportImportDataStrategy exportImportDataStrategy) {
+                              ExportImportDataStrategy exportImportDataStrategy,
+                              HybridCostModel hybridCostModel) {
         super(statsCalculatorService, executeSessionService, translatorService);
         this.configService = configService;
         this.intermediateDataStrategy = intermediateDataStrategy;
         this.sqlDataStrategy = sqlDataStrategy;
         this.exportImportDataStrategy = exportImportDataStrategy;
+        this.hybridCostModel = hybridCostModel;
     }
 
     @Override
@@ -69,6 +74,36 @@ public class HybridDataStrategy extends DataStrategyBase {
         return null;
     }
 
+    /**
+     * Pick EXPORT_IMPORT or SQL for a non-ACID table.  With 'hybrid->costBased' the cost model decides,
+     * otherwise (or when the table doesn't have statistics) tables with more partitions than
+     * 'hybrid->exportImportPartitionLimit' use SQL, unless they're exported in partition groups
+     * ('optimization->chunkedExportImport').
+     *
+     * @return the estimate.  The costs are only set when the cost model made the choice.
+     */
+    protected HybridCostEstimate selectStrategy(EnvironmentTable let, HmsMirrorConfig config) {
+        HybridCostEstimate rtn = null;
+        if (config.getHybrid().isCostBased()) {
+            rtn = hybridCostModel.estimate(let, config);
+        }
+        if (isNull(rtn)) {
+            if (let.getPartitioned() && let.getPartitions().size() > config.getHybrid().getExportImportPartitionLimit() &&
+                    config.getHybrid().getExportImportPartitionLimit() > 0
+                    && !ExportImportDataStrategy.isPartitionChunked(let, config)) {
+                rtn = new HybridCostEstimate(DataStrategyEnum.SQL, "The number of partitions: " + let.getPartitions().size()
+                        + " exceeds the EXPORT_IMPORT "
+                        + "partition limit (hybrid->exportImportPartitionLimit) of "
+                        + config.getHybrid().getExportImportPartitionLimit() +
+                        ".  Hence, the SQL method has been selected for the migration.");
+            } else {
+                rtn = new HybridCostEstimate(DataStrategyEnum.EXPORT_IMPORT,
+                        "Within the EXPORT_IMPORT partition limit (hybrid->exportImportPartitionLimit).");
+            }
+        }
+        return rtn;
+    }
+
     @Override
     public Boolean build(TableMirror tableMirror) {
         Boolean rtn = Boolean.FALSE;
@@ -87,27 +122,22 @@ public class HybridDataStrategy extends DataStrategyBase {
                 rtn = Boolean.FALSE;
             }
         } else {
-            if (let.getPartitioned()) {
-                if (let.getPartitions().size() > config.getHybrid().getExportImportPartitionLimit() &&
-                        config.getHybrid().getExportImportPartitionLimit() > 0) {
-                    // SQL
-                    let.addIssue("The number of partitions: " + let.getPartitions().size()
-                            + " exceeds the EXPORT_IMPORT "
-                            + "partition limit (hybrid->exportImportPartitionLimit) of "
-                            + config.getHybrid().getExportImportPartitionLimit() +
-                            ".  Hence, the SQL method has been selected for the migration.");
-
-                    tableMirror.setStrategy(DataStrategyEnum.SQL);
-                    if (!isBlank(config.getTransfer().getIntermediateStorage())
-                            || !isBlank(config.getTransfer().getTargetNamespace())) {
-                        rtn = intermediateDataStrategy.build(tableMirror);
-                    } else {
-                        rtn = sqlDataStrategy.build(tableMirror);
-                    }
+            HybridCostEstimate estimate = selectStrategy(let, config);
+            if (estimate.getExportImportCost() >= 0 || estimate.getSqlCost() >= 0) {
+                tableMirror.addStep("HYBRID Cost Estimate", estimate.toString());
+            }
+            if (estimate.getStrategy() == DataStrategyEnum.SQL) {
+                // SQL
+                if (estimate.getSqlCost() < 0) {
+                    let.addIssue(estimate.getReason());
+                }
+
+                tableMirror.setStrategy(DataStrategyEnum.SQL);
+                if (!isBlank(config.getTransfer().getIntermediateStorage())
+                        || !isBlank(config.getTransfer().getTargetNamespace())) {
+                    rtn = intermediateDataStrategy.build(tableMirror);
                 } else {
-                    // EXPORT
-                    tableMirror.setStrategy(DataStrategyEnum.EXPORT_IMPORT);
-                    rtn = exportImportDataStrategy.build(tableMirror);
+                    rtn = sqlDataStrategy.build(tableMirror);
                 }
             } else {
                 // EXPORT
@@ -133,18 +163,13 @@ public class HybridDataStrategy extends DataStrategyBase {
                 rtn = Boolean.FALSE;
             }
         } else {
-            if (let.getPartitioned()) {
-                if (let.getPartitions().size() > config.getHybrid().getExportImportPartitionLimit() &&
-                        config.getHybrid().getExportImportPartitionLimit() > 0) {
-                    if (!isBlank(config.getTransfer().getIntermediateStorage())
-                            || !isBlank(config.getTransfer().getTargetNamespace())) {
-                        rtn = intermediateDataStrategy.execute(tableMirror);
-                    } else {
-                        rtn = sqlDataStrategy.execute(tableMirror);
-                    }
+            // Same inputs as the build, so the same choice.
+            if (selectStrategy(let, config).getStrategy() == DataStrategyEnum.SQL) {
+                if (!isBlank(config.getTransfer().getIntermediateStorage())
+                        || !isBlank(config.getTransfer().getTargetNamespace())) {
+                    rtn = intermediateDataStrategy.execute(tableMirror);
                 } else {
-                    // EXPORT
-                    rtn = exportImportDataStrategy.execute(tableMirror);
+                    rtn = sqlDataStrategy.execute(tableMirror);
                 }
             } else {
                 // EXPORT
@@ -37,6 +37,8 @@ import org.springframework.stereotype.Component;
 import java.text.MessageFormat;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 
 import static java.util.Objects.isNull;
 
@@ -59,6 +61,10 @@ import static java.util.Objects.isNull;
 public class IcebergConversionDataStrategy extends DataStrategyBase {
 
     private final TableService tableService;
+    /*
+    The conversions that can run at the same time in each database, by session and database, for a bulk conversion.
+     */
+    private final Map<String, Semaphore> databasePermits = new ConcurrentHashMap<>();
 
     public IcebergConversionDataStrategy(StatsCalculatorService statsCalculatorService,
                                          ExecuteSessionService executeSessionService,
@@ -160,7 +166,35 @@ public class IcebergConversionDataStrategy extends DataStrategyBase {
 
     @Override
     public Boolean execute(TableMirror tableMirror) {
-        return  getTableService().runTableSql(tableMirror, Environment.LEFT);
+        HmsMirrorConfig hmsMirrorConfig = executeSessionService.getSession().getConfig();
+        EnvironmentTable let = tableMirror.getEnvironmentTable(Environment.LEFT);
+        Semaphore permits = null;
+        int databaseConcurrency = hmsMirrorConfig.getIcebergConversion().getDatabaseConcurrency();
+        if (hmsMirrorConfig.getIcebergConversion().isBulk() && databaseConcurrency > 0) {
+            // Each conversion locks the table in the metastore.  Keep a database from being converted all at once.
+            String key = executeSessionService.getSession().getSessionId() + "." + tableMirror.getParent().getName();
+            permits = databasePermits.computeIfAbsent(key, k -> new Semaphore(databaseConcurrency, true));
+            try {
+                tableMirror.setMigrationStageMessage("Waiting for a conversion slot in the database");
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                let.addError("Interrupted while waiting to convert the table.");
+                return Boolean.FALSE;
+            }
+        }
+        long start = System.currentTimeMillis();
+        try {
+            return getTableService().runTableSql(tableMirror, Environment.LEFT);
+        } finally {
+            if (permits != null) {
+                permits.release();
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            let.getStatistics().put(MirrorConf.ICEBERG_CONVERSION_TIME, elapsed);
+            log.info("{}.{}: Iceberg conversion took {}ms", tableMirror.getParent().getName(), tableMirror.getName(),
+                    elapsed);
+        }
     }
 
 }
@@ -232,8 +232,8 @@ public class IntermediateDataStrategy extends DataStrategyBase {
                 ret.addSql(TableUtils.DROP_DESC, dropStmt);
                 // Create Shadow Table
                 ret.addSql(TableUtils.CREATE_SHADOW_DESC, shadowCreateStmt);
-                // Repair Partitions for Shadow Table
-                if (TableUtils.isPartitioned(let)) {
+                // Repair Partitions for Shadow Table, with the ones we know when we can.
+                if (TableUtils.isPartitioned(let) && !registerKnownPartitions(let, set, ret)) {
                     String shadowMSCKStmt = MessageFormat.format(MirrorConf.MSCK_REPAIR_TABLE, set.getName());
                     ret.addSql(TableUtils.REPAIR_DESC, shadowMSCKStmt);
                 }
@@ -276,7 +276,7 @@ public class IntermediateDataStrategy extends DataStrategyBase {
                     // Unless we are using 'distcp' to copy the data.
                     // Partitioned, non-acid, w/ distcp.
                     if (let.getPartitioned() && config.getTransfer().getStorageMigration().isDistcp()
-                            && !TableUtils.isACID(ret)) {
+                            && !TableUtils.isACID(ret) && !registerKnownPartitions(let, ret, ret)) {
                         String rightMSCKStmt = MessageFormat.format(MirrorConf.MSCK_REPAIR_TABLE, ret.getName());
                         ret.addSql(TableUtils.REPAIR_DESC, rightMSCKStmt);
                     }
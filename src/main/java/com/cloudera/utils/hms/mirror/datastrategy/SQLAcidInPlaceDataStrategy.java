@@ -43,6 +43,7 @@ import static com.cloudera.utils.hms.mirror.MessageCode.*;
 import static com.cloudera.utils.hms.mirror.SessionVars.*;
 import static com.cloudera.utils.hms.mirror.TablePropertyVars.ACID_INPLACE;
 import static com.cloudera.utils.hms.mirror.TablePropertyVars.TRANSLATED_TO_EXTERNAL;
+import static java.util.Objects.isNull;
 
 @Component
 @Slf4j
@@ -162,15 +163,14 @@ public class SQLAcidInPlaceDataStrategy extends DataStrategyBase {
         }
 
         if (let.getPartitioned()) {
+            String partElement = TableUtils.getPartitionElements(let);
+            String distPartElement = null;
+            String transferDesc = TableUtils.STORAGE_MIGRATION_TRANSFER_DESC;
             if (hmsMirrorConfig.getOptimization().isSkip()) {
                 if (!hmsMirrorConfig.getCluster(Environment.LEFT).isLegacyHive()) {
                     let.addSql("Setting " + SORT_DYNAMIC_PARTITION, MessageFormat.format(SET_SESSION_VALUE_STRING, SORT_DYNAMIC_PARTITION, "false"));
                 }
-                String partElement = TableUtils.getPartitionElements(let);
-                String transferSql = MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_WITH_PARTITIONS_DECLARATIVE,
-                        let.getName(), ret.getName(), partElement);
-                String transferDesc = MessageFormat.format(TableUtils.STAGE_TRANSFER_PARTITION_DESC, let.getPartitions().size());
-                let.addSql(new Pair(transferDesc, transferSql));
+                transferDesc = MessageFormat.format(TableUtils.STAGE_TRANSFER_PARTITION_DESC, let.getPartitions().size());
             } else if (hmsMirrorConfig.getOptimization().isSortDynamicPartitionInserts()) {
                 if (!hmsMirrorConfig.getCluster(Environment.LEFT).isLegacyHive()) {
                     let.addSql("Setting " + SORT_DYNAMIC_PARTITION, MessageFormat.format(SET_SESSION_VALUE_STRING, SORT_DYNAMIC_PARTITION, "true"));
@@ -178,11 +178,6 @@ public class SQLAcidInPlaceDataStrategy extends DataStrategyBase {
                         let.addSql("Setting " + SORT_DYNAMIC_PARTITION_THRESHOLD, MessageFormat.format(SET_SESSION_VALUE_INT, SORT_DYNAMIC_PARTITION_THRESHOLD, 0));
                     }
                 }
-                String partElement = TableUtils.getPartitionElements(let);
-                String transferSql = MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_WITH_PARTITIONS_DECLARATIVE,
-                        let.getName(), ret.getName(), partElement);
-                String transferDesc = MessageFormat.format(TableUtils.STORAGE_MIGRATION_TRANSFER_DESC, let.getPartitions().size());
-                let.addSql(new Pair(transferDesc, transferSql));
             } else {
                 // Prescriptive Optimization.
                 if (!hmsMirrorConfig.getCluster(Environment.LEFT).isLegacyHive()) {
@@ -191,12 +186,18 @@ public class SQLAcidInPlaceDataStrategy extends DataStrategyBase {
                         let.addSql("Setting " + SORT_DYNAMIC_PARTITION_THRESHOLD, MessageFormat.format(SET_SESSION_VALUE_INT, SORT_DYNAMIC_PARTITION_THRESHOLD, -1));
                     }
                 }
-
-                String partElement = TableUtils.getPartitionElements(let);
-                String distPartElement = statsCalculatorService.getDistributedPartitionElements(let);
-                String transferSql = MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_WITH_PARTITIONS_PRESCRIPTIVE,
+                distPartElement = statsCalculatorService.getDistributedPartitionElements(let);
+            }
+            int partitionLimit = hmsMirrorConfig.getMigrateACID().getPartitionLimit();
+            if (hmsMirrorConfig.getOptimization().isChunkedSqlTransfer() && partitionLimit > 0
+                    && let.getPartitions().size() > partitionLimit) {
+                addPartitionTransferSql(let, let, let, ret, partElement, distPartElement, partitionLimit);
+            } else {
+                String transferSql = isNull(distPartElement)
+                        ? MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_WITH_PARTITIONS_DECLARATIVE,
+                        let.getName(), ret.getName(), partElement)
+                        : MessageFormat.format(MirrorConf.SQL_DATA_TRANSFER_WITH_PARTITIONS_PRESCRIPTIVE,
                         let.getName(), ret.getName(), partElement, distPartElement);
-                String transferDesc = MessageFormat.format(TableUtils.STORAGE_MIGRATION_TRANSFER_DESC, let.getPartitions().size());
                 let.addSql(new Pair(transferDesc, transferSql));
             }
         } else {
@@ -242,7 +243,8 @@ public class SQLAcidInPlaceDataStrategy extends DataStrategyBase {
             let.addCleanUpSql(TableUtils.DROP_DESC, cleanUpArchive);
 
             // Check Partition Counts.
-            if (let.getPartitioned() && let.getPartitions().size() > hmsMirrorConfig.getMigrateACID().getPartitionLimit()) {
+            if (let.getPartitioned() && let.getPartitions().size() > hmsMirrorConfig.getMigrateACID().getPartitionLimit()
+                    && !hmsMirrorConfig.getOptimization().isChunkedSqlTransfer()) {
                 let.addError("The number of partitions: " + let.getPartitions().size() + " exceeds the ACID SQL " +
                         "partition limit (migrateACID->partitionLimit) of " + hmsMirrorConfig.getMigrateACID().getPartitionLimit() +
                         ".  The queries will NOT be automatically run.");
@@ -203,9 +203,8 @@ public class SQLDataStrategy extends DataStrategyBase {
 
                 String shadowCreateStmt = tableService.getCreateStatement(tableMirror, Environment.SHADOW);
                 ret.addSql(TableUtils.CREATE_SHADOW_DESC, shadowCreateStmt);
-//                 Repair Partitions
-                // TODO: Need to add ALTER partitions here if we know them.
-                if (let.getPartitioned()) {
+                // Repair Partitions, with the ones we know when we can.
+                if (let.getPartitioned() && !registerKnownPartitions(let, set, ret)) {
                     String shadowMSCKStmt = MessageFormat.format(MirrorConf.MSCK_REPAIR_TABLE, set.getName());
                     ret.addSql(TableUtils.REPAIR_DESC, shadowMSCKStmt);
                 }
@@ -269,13 +269,10 @@ public class SchemaOnlyDataStrategy extends DataStrategyBase implements DataStra
             if (config.loadMetadataDetails()) {
                 // TODO: Write out the SQL to build the partitions.  NOTE: We need to get the partition locations and modify them
                 //       to the new namespace.
-                String tableParts = getTranslatorService().buildPartitionAddStatement(ret);
-                // This will be empty when there's no data and we need to handle that.
-                if (!isBlank(tableParts)) {
-                    String addPartSql = MessageFormat.format(MirrorConf.ALTER_TABLE_PARTITION_ADD_LOCATION, ret.getName(), tableParts);
-                    ret.addSql(MirrorConf.ALTER_TABLE_PARTITION_ADD_LOCATION_DESC, addPartSql);
-                }
-            } else if (config.getCluster(Environment.RIGHT).getPartitionDiscovery().isInitMSCK()) {
+                buildPartitionAddSql(ret);
+            } else if (!registerKnownPartitions(let, ret, ret)
+                    && config.getCluster(Environment.RIGHT).getPartitionDiscovery().isInitMSCK()) {
+                // The MSCK is only needed when the partitions we know weren't registered.
                 String msckStmt = MessageFormat.format(MirrorConf.MSCK_REPAIR_TABLE, ret.getName());
                 // Add the MSCK repair to both initial and cleanup.
                 ret.addSql(TableUtils.REPAIR_DESC, msckStmt);
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.datastrategy;
+
+import com.cloudera.utils.hms.mirror.MirrorConf;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.HybridConfig;
+import com.cloudera.utils.hms.mirror.domain.support.DataStrategyEnum;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.HybridCostEstimate;
+import com.cloudera.utils.hms.mirror.domain.support.SerdeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Estimates the time to move a table with EXPORT_IMPORT and with SQL from its DATA_SIZE, FILE_COUNT and
+ * FILE_FORMAT statistics and the throughput settings in 'hybrid', and picks the cheaper one.
+ * <p>
+ * EXPORT_IMPORT copies the data twice (EXPORT to the export directory, then IMPORT into the table) and pays for
+ * every partition and file.  SQL pays a job launch per statement (one per chunk when the transfer is chunked) and
+ * is slower for row formats, which it has to parse and re-encode.  Data that crosses clusters that don't share
+ * storage is capped by 'hybrid->distcpThroughput'.
+ */
+@Component
+@Slf4j
+public class ThroughputHybridCostModel implements HybridCostModel {
+
+    private static final double MB = 1024 * 1024;
+
+    @Override
+    public HybridCostEstimate estimate(EnvironmentTable source, HmsMirrorConfig config) {
+        Map<String, Object> stats = source.getStatistics();
+        Long dataSize = toLong(stats.get(MirrorConf.DATA_SIZE));
+        if (isNull(dataSize)) {
+            return null;
+        }
+        HybridConfig hybrid = config.getHybrid();
+        Long fileCount = toLong(stats.get(MirrorConf.FILE_COUNT));
+        if (isNull(fileCount)) {
+            Long avgFileSize = toLong(stats.get(MirrorConf.AVG_FILE_SIZE));
+            fileCount = nonNull(avgFileSize) && avgFileSize > 0 ? dataSize / avgFileSize : 0L;
+        }
+        int partitions = source.getPartitioned() ? source.getPartitions().size() : 0;
+        boolean sharedStorage = isSharedStorage(config);
+        double mb = dataSize / MB;
+
+        HybridCostEstimate rtn = new HybridCostEstimate();
+
+        // EXPORT_IMPORT
+        double importThroughput = sharedStorage ? hybrid.getExportImportThroughput()
+                : Math.min(hybrid.getExportImportThroughput(), hybrid.getDistcpThroughput());
+        double exportImportCost = mb / hybrid.getExportImportThroughput() + mb / importThroughput
+                + partitions * hybrid.getExportImportPartitionOverhead()
+                + 2 * fileCount * hybrid.getFileOverhead();
+        rtn.setExportImportCost(exportImportCost);
+
+        // SQL
+        long jobs = 1;
+        boolean sqlAllowed = Boolean.TRUE;
+        if (partitions > hybrid.getSqlPartitionLimit() && hybrid.getSqlPartitionLimit() > 0) {
+            if (config.getOptimization().isChunkedSqlTransfer()) {
+                jobs = (partitions + hybrid.getSqlPartitionLimit() - 1) / hybrid.getSqlPartitionLimit();
+            } else {
+                sqlAllowed = Boolean.FALSE;
+            }
+        }
+        if (sqlAllowed) {
+            double sqlThroughput = hybrid.getSqlThroughput() / formatFactor(stats);
+            double crossThroughput = sharedStorage ? sqlThroughput
+                    : Math.min(sqlThroughput, hybrid.getDistcpThroughput());
+            // With intermediate storage, the data is written there by the LEFT cluster and read by the RIGHT.
+            int passes = isBlank(config.getTransfer().getIntermediateStorage()) ? 1 : 2;
+            double sqlCost = passes * jobs * hybrid.getSqlJobOverhead()
+                    + (passes - 1) * mb / sqlThroughput + mb / crossThroughput;
+            rtn.setSqlCost(sqlCost);
+        }
+
+        if (!sqlAllowed) {
+            rtn.setStrategy(DataStrategyEnum.EXPORT_IMPORT);
+            rtn.setReason("The number of partitions: " + partitions + " exceeds the SQL partition limit " +
+                    "(hybrid->sqlPartitionLimit) of " + hybrid.getSqlPartitionLimit() +
+                    " and 'optimization->chunkedSqlTransfer' is off.");
+        } else if (rtn.getSqlCost() < exportImportCost) {
+            rtn.setStrategy(DataStrategyEnum.SQL);
+            rtn.setReason("SQL is estimated to be faster for " + partitions + " partitions, " + fileCount +
+                    " files and " + dataSize + " bytes.");
+        } else {
+            rtn.setStrategy(DataStrategyEnum.EXPORT_IMPORT);
+            rtn.setReason("EXPORT_IMPORT is estimated to be faster for " + partitions + " partitions, " +
+                    fileCount + " files and " + dataSize + " bytes.");
+        }
+        log.debug("HYBRID cost estimate: {}", rtn);
+        return rtn;
+    }
+
+    /*
+    How much slower SQL is for the table's file format than for a columnar format.
+     */
+    protected double formatFactor(Map<String, Object> stats) {
+        Object format = stats.get(MirrorConf.FILE_FORMAT);
+        SerdeType serdeType = SerdeType.UNKNOWN;
+        if (nonNull(format)) {
+            try {
+                serdeType = SerdeType.valueOf(format.toString());
+            } catch (IllegalArgumentException iae) {
+                // Leave as UNKNOWN
+            }
+        }
+        switch (serdeType) {
+            case ORC:
+            case PARQUET:
+                return 1.0;
+            case AVRO:
+                return 1.5;
+            default:
+                return 2.0;
+        }
+    }
+
+    /*
+    The clusters share storage when they have the same namespace.
+     */
+    protected boolean isSharedStorage(HmsMirrorConfig config) {
+        if (isNull(config.getCluster(Environment.LEFT)) || isNull(config.getCluster(Environment.RIGHT))) {
+            return Boolean.FALSE;
+        }
+        String leftNamespace = config.getCluster(Environment.LEFT).getHcfsNamespace();
+        return !isBlank(leftNamespace) && leftNamespace.equals(config.getCluster(Environment.RIGHT).getHcfsNamespace());
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (nonNull(value)) {
+            try {
+                return Long.valueOf(value.toString());
+            } catch (NumberFormatException nfe) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+}
@@ -107,6 +107,11 @@ public class Cluster implements Comparable<Cluster>, Cloneable {
 
     @Schema(description = "Methods used to find/discover partitions during initialization and on-going.")
     private PartitionDiscovery partitionDiscovery = new PartitionDiscovery();
+
+    @Schema(description = "Limits on the calls made against this cluster's HiveServer2 and metastore, to protect a metastore shared with production workloads.")
+    private RateLimits rateLimits = new RateLimits();
+    @Schema(description = "Timeouts, retries and a circuit breaker for the SQL statements run against this cluster's HiveServer2.")
+    private Resilience resilience = new Resilience();
     private boolean enableAutoTableStats = Boolean.FALSE;
     private boolean enableAutoColumnStats = Boolean.FALSE;
 
@@ -165,6 +170,12 @@ public class Cluster implements Comparable<Cluster>, Cloneable {
                 PartitionDiscovery partitionDiscoveryClone = partitionDiscovery.clone();
                 clone.setPartitionDiscovery(partitionDiscoveryClone);
             }
+            if (nonNull(rateLimits)) {
+                clone.setRateLimits(rateLimits.clone());
+            }
+            if (nonNull(resilience)) {
+                clone.setResilience(resilience.clone());
+            }
             return clone;
         } catch (CloneNotSupportedException e) {
             throw new AssertionError();
@@ -20,6 +20,7 @@ package com.cloudera.utils.hms.mirror.domain;
 import com.cloudera.utils.hms.mirror.Pair;
 import com.cloudera.utils.hms.mirror.PhaseState;
 import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.MessageList;
 import com.cloudera.utils.hms.util.NamespaceUtils;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -86,7 +87,7 @@ public class DBMirror {
         String scrubbedIssue = issue.replace("\n", "<br/>");
         List<String> issuesList = issues.get(environment);
         if (isNull(issuesList)) {
-            issuesList = new ArrayList<>();
+            issuesList = new MessageList();
             issues.put(environment, issuesList);
         }
         issuesList.add(scrubbedIssue);
@@ -298,7 +299,7 @@ public class DBMirror {
 //            tableMirror.getIssues().clear();
 //            tableMirror.getSql().clear();
 //            tableMirror.getStatistics().clear();
-            tableMirror.getSteps().clear();
+            tableMirror.getStepLog().clear();
         }
     }
 
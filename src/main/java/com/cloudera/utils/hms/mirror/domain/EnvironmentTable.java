@@ -18,16 +18,22 @@
 package com.cloudera.utils.hms.mirror.domain;
 
 import com.cloudera.utils.hms.mirror.CreateStrategy;
+import com.cloudera.utils.hms.mirror.MessageCode;
 import com.cloudera.utils.hms.mirror.Pair;
+import com.cloudera.utils.hms.mirror.domain.support.MessageList;
+import com.cloudera.utils.hms.mirror.domain.support.SchemaFingerprint;
+import com.cloudera.utils.hms.mirror.domain.support.TransferChunk;
 import com.cloudera.utils.hms.util.TableUtils;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 @Getter
@@ -47,8 +53,37 @@ public class EnvironmentTable implements Cloneable {
 //    private List<String> actions = new ArrayList<>();
     private Map<String, String> addProperties = new TreeMap<>();
     private Map<String, Object> statistics = new HashMap<>();
-    private List<String> issues = new ArrayList<>();
-    private List<String> errors = new ArrayList<>();
+    /*
+    Plain and templated messages (see MessageList).  They read (and serialize) as plain lists of strings.
+     */
+    private MessageList issues = new MessageList();
+    private MessageList errors = new MessageList();
+    /*
+    The chunks of a partition-chunked data transfer.  Empty when the transfer is a single statement.
+     */
+    private List<TransferChunk> transferChunks = new ArrayList<>();
+    /*
+    The schema read from the metastore-direct tables in bulk, when they're available.  Used by '--sync' to find
+    the unchanged tables without fetching their definitions.
+     */
+    @JsonIgnore
+    private SchemaFingerprint metastoreFingerprint = null;
+    /*
+    The cached definition fingerprint and what it was computed from.  The definition is edited in place, so the
+    cache is checked against the list instance and its hash code, which is cheap since Strings cache theirs.
+     */
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String definitionFingerprint = null;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private List<String> fingerprintDefinition = null;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int fingerprintHash = 0;
     @JsonIgnore
     private TableMirror parent = null;
 
@@ -76,10 +111,33 @@ public class EnvironmentTable implements Cloneable {
         getIssues().add(issue);
     }
 
+    public void addIssue(MessageCode code, Object... args) {
+        getIssues().add(code, args);
+    }
+
     public void addError(String error) {
         getErrors().add(error);
     }
 
+    public void addError(MessageCode code, Object... args) {
+        getErrors().add(code, args);
+    }
+
+    public void setIssues(List<String> issues) {
+        this.issues = toMessageList(issues);
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = toMessageList(errors);
+    }
+
+    private static MessageList toMessageList(List<String> messages) {
+        if (isNull(messages)) {
+            return new MessageList();
+        }
+        return messages instanceof MessageList ? (MessageList) messages : new MessageList(messages);
+    }
+
     public void addProperty(String key, String value) {
         getAddProperties().put(key, value);
     }
@@ -107,6 +165,26 @@ public class EnvironmentTable implements Cloneable {
         return rtn;
     }
 
+    /**
+     * Fingerprint of the columns, partition keys and storage of the definition.  Computed once and cached until
+     * the definition changes.
+     *
+     * @return the fingerprint, or null when there's no definition.
+     */
+    @JsonIgnore
+    public synchronized String getFingerprint() {
+        if (isNull(definition)) {
+            return null;
+        }
+        int hash = definition.hashCode();
+        if (isNull(definitionFingerprint) || fingerprintDefinition != definition || fingerprintHash != hash) {
+            definitionFingerprint = TableUtils.tableFieldsFingerPrint(definition);
+            fingerprintDefinition = definition;
+            fingerprintHash = hash;
+        }
+        return definitionFingerprint;
+    }
+
     @JsonIgnore
     public boolean isDefined() {
         if (nonNull(definition) && !definition.isEmpty()) {
@@ -122,6 +200,7 @@ public class EnvironmentTable implements Cloneable {
         // /Clean up/detach the lists.
         clone.setSql(new ArrayList<>());
         clone.setCleanUpSql(new ArrayList<>());
+        clone.setTransferChunks(new ArrayList<>());
         clone.setAddProperties(new TreeMap<>());
 //         We don't want these to be cloned.
         clone.setStatistics(new HashMap<>());
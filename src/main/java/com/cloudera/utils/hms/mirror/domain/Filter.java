@@ -34,6 +34,11 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 @Getter
 @Setter
 public class Filter implements Cloneable {
+    /*
+    An alternative of a regular expression that can be used as a 'SHOW ... LIKE' pattern.
+     */
+    private static final Pattern SHOW_PATTERN_ALTERNATIVE = Pattern.compile("([A-Za-z0-9_]|\\.\\*)+");
+
     @JsonIgnore
     private Pattern dbFilterPattern = null;
 
@@ -134,6 +139,50 @@ public class Filter implements Cloneable {
         return tblExcludeFilterPattern;
     }
 
+    /*
+    The 'SHOW DATABASES LIKE' pattern that lists a superset of the databases the dbRegEx finds, so the rest aren't
+    returned by the server.  The dbRegEx is matched with 'find', so each alternative can be anywhere in the name.
+     */
+    @JsonIgnore
+    public String getDbShowPattern() {
+        return toShowPattern(dbRegEx, Boolean.FALSE);
+    }
+
+    /*
+    The 'SHOW TABLES LIKE' pattern that lists a superset of the tables the tblRegEx matches.
+     */
+    @JsonIgnore
+    public String getTblShowPattern() {
+        return toShowPattern(tblRegEx, Boolean.TRUE);
+    }
+
+    /*
+    Translate a regular expression into a Hive 'SHOW ... LIKE' pattern, where '*' is the only wildcard and '|'
+    separates the alternatives.  Only an expression made of names and '.*' can be translated, anything else returns
+    null and the listing isn't narrowed.  The regular expression is still applied to what the server returns.
+     */
+    protected static String toShowPattern(String regEx, boolean anchored) {
+        if (isBlank(regEx)) {
+            return null;
+        }
+        String[] alternatives = regEx.split("\\|", -1);
+        StringBuilder sb = new StringBuilder();
+        for (String alternative : alternatives) {
+            if (!SHOW_PATTERN_ALTERNATIVE.matcher(alternative).matches()) {
+                return null;
+            }
+            String pattern = alternative.replace(".*", "*");
+            if (!anchored) {
+                pattern = "*" + pattern + "*";
+            }
+            if (sb.length() > 0) {
+                sb.append("|");
+            }
+            sb.append(pattern.replaceAll("\\*+", "*"));
+        }
+        return sb.toString();
+    }
+
     @JsonIgnore
     public boolean isTableFiltering() {
         if (!isBlank(tblRegEx) || !isBlank(tblExcludeRegEx)) {
@@ -135,6 +135,12 @@ public class HmsMirrorConfig implements Cloneable {
     @JsonIgnore
     private String finalOutputDirectory = null;
 
+    /*
+    Set from the command line only, for the coordinator and worker processes of a sharded run.
+     */
+    @JsonIgnore
+    private Sharding sharding = new Sharding();
+
     private boolean encryptedPasswords = Boolean.FALSE;
 
     /* We do NOT persist this to file.  It's only used during session to decrypt at runtime. */
@@ -332,6 +338,15 @@ public class HmsMirrorConfig implements Cloneable {
         }
     }
 
+    /*
+    The partition names and locations are also needed to register the partitions in place of an MSCK.
+     */
+    @JsonIgnore
+    public Boolean loadPartitionMetadata() {
+        Cluster right = getCluster(Environment.RIGHT);
+        return loadMetadataDetails() || (nonNull(right) && right.getPartitionDiscovery().isRegisterPartitions());
+    }
+
     // No longer used.  Calling setupGSS in the EnvironmentService where
     // it will look at the Hadoop configs to determine if Kerberos is enabled.
 //    @JsonIgnore
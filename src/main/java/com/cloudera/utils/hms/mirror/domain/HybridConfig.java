@@ -26,6 +26,37 @@ public class HybridConfig implements Cloneable {
     private int exportImportPartitionLimit = 100;
     private int sqlPartitionLimit = 500;
     private long sqlSizeLimit = (1024 * 1024 * 1024); // 1Gb
+    /*
+    When set, the strategy for each table is picked by estimating the cost of EXPORT_IMPORT and SQL from the
+    table statistics (data size, file count, file format) instead of only by the 'exportImportPartitionLimit'.
+    The table statistics are required.  Tables without them fall back to the partition limit.
+     */
+    private boolean costBased = Boolean.FALSE;
+    /*
+    Throughput (MB/s) of the EXPORT and IMPORT copies of a table's data.
+     */
+    private double exportImportThroughput = 100;
+    /*
+    Throughput (MB/s) of a Tez SQL transfer (INSERT ... SELECT) of columnar data.  Row formats are slower.
+     */
+    private double sqlThroughput = 200;
+    /*
+    Throughput (MB/s) of a copy between clusters that don't share storage.  Caps the other throughputs when the
+    data has to cross clusters.
+     */
+    private double distcpThroughput = 400;
+    /*
+    Seconds of metadata work per partition for EXPORT and IMPORT.
+     */
+    private double exportImportPartitionOverhead = 2.0;
+    /*
+    Seconds per file copied by EXPORT and IMPORT.  Small files make the copy slower.
+     */
+    private double fileOverhead = 0.05;
+    /*
+    Seconds to launch a Tez SQL job.
+     */
+    private double sqlJobOverhead = 30;
 
     @Override
     public HybridConfig clone() {
@@ -47,6 +47,14 @@ public class IcebergConversion implements Cloneable {
     @Schema(description = "Where possible, migrate the table in place. The migration will be done in the catalog and not " +
             "through a transfer.")
     private boolean inplace = Boolean.FALSE;
+    @Schema(description = "For the ICEBERG_CONVERSION strategy.  Check which tables can be converted from the Metastore " +
+            "Direct connection (one query per database) before the table definitions are fetched.  The tables that can't " +
+            "be converted, or already have been, are skipped.  The rest are converted, the tables with the most partitions " +
+            "first, at most 'databaseConcurrency' at a time in each database.")
+    private boolean bulk = Boolean.FALSE;
+    @Schema(description = "With 'bulk', the most conversions run at the same time in a database.  Each conversion locks " +
+            "and rewrites the table's metadata in the metastore.  0 or less means no limit.  The default is 4.")
+    private int databaseConcurrency = 4;
 
     @JsonIgnore
     public void setPropertyOverridesStr(String[] overrides) {
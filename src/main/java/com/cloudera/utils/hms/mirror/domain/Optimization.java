@@ -17,6 +17,7 @@
 
 package com.cloudera.utils.hms.mirror.domain;
 
+import com.cloudera.utils.hms.mirror.domain.support.SchedulingPolicyEnum;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -43,6 +44,80 @@ public class Optimization implements Cloneable {
     private Overrides overrides = new Overrides();
     private boolean buildShadowStatistics = Boolean.FALSE;
 
+    /*
+    Rows fetched per round trip for the metastore-direct queries.  The queries are streamed, so this controls
+    memory use and round trips, not the size of the result.
+     */
+    private int metastoreDirectFetchSize = 5000;
+    /*
+    When greater than 0, metastore-direct queries that declare a 'pagination' key in metastoreDirect.yaml are
+    run as a series of keyset pages of this many rows.  Keeps each query against the metastore short.
+     */
+    private int metastoreDirectPageSize = 0;
+    /*
+    When a partitioned table is over the SQL partition limit (hybrid->sqlPartitionLimit or migrateACID->partitionLimit),
+    split the data transfer into chunks of at most that many partitions instead of failing the table.  Each chunk is
+    a separate INSERT over a subset of the partitions, so a failed chunk can be re-run on its own.
+     */
+    private boolean chunkedSqlTransfer = Boolean.FALSE;
+    /*
+    The number of a table's transfer chunks that are run at the same time.  The table's HS2 connection runs them with
+    up to this many less one other connections from the pool.
+     */
+    private int chunkedSqlTransferParallelism = 1;
+    /*
+    The order tables are submitted for metadata collection, build and execution.  LARGEST_FIRST starts the most
+    expensive tables (by DATA_SIZE and partition count) first, so a large table doesn't extend the run by starting
+    last.  NAME is the database/table name order.
+     */
+    private SchedulingPolicyEnum tableScheduling = SchedulingPolicyEnum.LARGEST_FIRST;
+    /*
+    With '--sync' and metastore-direct connections on both clusters, compare the LEFT and RIGHT schemas from the
+    metastore databases in bulk (one query per database) and skip the tables that haven't changed.  Those tables
+    aren't fetched over HS2 or built, and are reported with the tables that were filtered out.
+     */
+    private boolean skipUnchangedSyncTables = Boolean.FALSE;
+    /*
+    Cache the catalog lookups (SHOW DATABASES, DESCRIBE DATABASE, SHOW CREATE TABLE) so the run and the web pages
+    don't repeat them.  Table definitions are checked against the table's last DDL time when a metastore-direct
+    connection is configured.  Otherwise, entries are only used in the same session for 'catalogCacheTtlSeconds'.
+    Anything hms-mirror runs against a database or table drops its entries.
+     */
+    private boolean catalogCache = Boolean.TRUE;
+    private int catalogCacheTtlSeconds = 300;
+    /*
+    The most entries the catalog cache holds, for all the sessions.  When it's over, the oldest are dropped.  0 or
+    less means no limit.
+     */
+    private int catalogCacheMaxEntries = 100000;
+    /*
+    Save the versioned table definitions to the report directory at the end of the run, and start the next run with
+    the most recent ones found in the output directory.  A dry run followed by the execute run only fetches the tables
+    that changed in between.
+     */
+    private boolean persistCatalogCache = Boolean.FALSE;
+    /*
+    The partitions of a table built with their locations (SCHEMA_ONLY, COMMON, DUMP) are added with
+    'ALTER TABLE ... ADD PARTITION' statements of at most this many partitions and this many bytes.  Each statement
+    is run (and re-run) on its own.  0 or less means no limit.
+     */
+    private int partitionAddChunkSize = 500;
+    private long partitionAddMaxBytes = 1024 * 1024;
+    /*
+    The number of a table's partition add statements that are run at the same time.  Each runs on its own HS2
+    connection.
+     */
+    private int partitionAddParallelism = 1;
+    /*
+    Split the EXPORT/IMPORT of a partitioned (non-ACID) table into groups of at most 'exportImportPartitionGroupSize'
+    partitions, with an EXPORT ... PARTITION and IMPORT ... PARTITION for each partition.  The groups are run
+    'exportImportParallelism' at a time and a failed group is re-run from the partition that failed.  Tables over
+    the 'hybrid->exportImportPartitionLimit' are no longer rejected (or sent to SQL by HYBRID).
+     */
+    private boolean chunkedExportImport = Boolean.FALSE;
+    private int exportImportPartitionGroupSize = 100;
+    private int exportImportParallelism = 1;
+
     @Override
     public Optimization clone() {
         try {
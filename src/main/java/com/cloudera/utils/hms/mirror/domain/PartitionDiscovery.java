@@ -34,6 +34,13 @@ public class PartitionDiscovery implements Cloneable {
     using `auto`, to set the 'discovery'.  Make sure you activate and size the PartitionManagementTask process.
      */
     private boolean initMSCK = Boolean.TRUE;
+    /*
+    Instead of the MSCK, add the partitions collected from the LEFT table (with their locations moved under the new
+    table location) with ALTER TABLE ... ADD PARTITION.  MSCK lists the whole table tree, which on an object store
+    with a lot of partitions can take hours.  The partition metadata comes from the metastore direct connection, so
+    that needs to be configured.  When the partitions weren't collected, the MSCK is still used.
+     */
+    private boolean registerPartitions = Boolean.FALSE;
 
     @Override
     public PartitionDiscovery clone() {
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalTime;
+
+/*
+A time of day range that scales a cluster's rate limits.  IE: start "08:00", end "18:00", factor 0.25 runs at a
+quarter of the limits during business hours.  When 'end' is before 'start' the range wraps past midnight.
+ */
+@Getter
+@Setter
+public class RateLimitWindow implements Cloneable {
+
+    /*
+    Time of day, 'HH:mm'.  Inclusive.
+     */
+    private String start = "00:00";
+    /*
+    Time of day, 'HH:mm'.  Exclusive.
+     */
+    private String end = "00:00";
+    /*
+    Multiplier for the limits in this window.  0 pauses the limited operations until the window ends.
+     */
+    private double factor = 1.0;
+
+    public RateLimitWindow() {
+    }
+
+    public RateLimitWindow(String start, String end, double factor) {
+        this.start = start;
+        this.end = end;
+        this.factor = factor;
+    }
+
+    public boolean contains(LocalTime time) {
+        LocalTime startTime = LocalTime.parse(start);
+        LocalTime endTime = LocalTime.parse(end);
+        if (startTime.equals(endTime)) {
+            // The whole day.
+            return Boolean.TRUE;
+        }
+        if (startTime.isBefore(endTime)) {
+            return !time.isBefore(startTime) && time.isBefore(endTime);
+        }
+        return !time.isBefore(startTime) || time.isBefore(endTime);
+    }
+
+    @Override
+    public RateLimitWindow clone() {
+        try {
+            return (RateLimitWindow) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain;
+
+import com.cloudera.utils.hms.mirror.domain.support.RateLimitOperationEnum;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Limits, in calls per second, on the calls made against a cluster's HS2 and metastore database.  Calls over the
+limit wait for their turn.  They don't fail.  0 (the default) is no limit.
+ */
+@Slf4j
+@Getter
+@Setter
+public class RateLimits implements Cloneable {
+
+    private double catalogRead = 0;
+    private double partitionRead = 0;
+    private double ddlWrite = 0;
+    private double dataTransfer = 0;
+    /*
+    Optional time of day windows that scale the limits.  The first window that contains the current time is used.
+    Outside the windows the limits are used as is.
+     */
+    private List<RateLimitWindow> schedule = new ArrayList<>();
+
+    public double getRate(RateLimitOperationEnum operation) {
+        switch (operation) {
+            case CATALOG_READ:
+                return catalogRead;
+            case PARTITION_READ:
+                return partitionRead;
+            case DDL_WRITE:
+                return ddlWrite;
+            case DATA_TRANSFER:
+                return dataTransfer;
+            default:
+                return 0;
+        }
+    }
+
+    public double getFactor(LocalTime time) {
+        if (schedule != null) {
+            for (RateLimitWindow window : schedule) {
+                try {
+                    if (window.contains(time)) {
+                        return Math.max(0, window.getFactor());
+                    }
+                } catch (DateTimeParseException dtpe) {
+                    log.error("Invalid rate limit window: {} - {}", window.getStart(), window.getEnd());
+                }
+            }
+        }
+        return 1.0;
+    }
+
+    @Override
+    public RateLimits clone() {
+        try {
+            RateLimits clone = (RateLimits) super.clone();
+            List<RateLimitWindow> scheduleClone = new ArrayList<>();
+            if (schedule != null) {
+                schedule.forEach(window -> scheduleClone.add(window.clone()));
+            }
+            clone.setSchedule(scheduleClone);
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError();
+        }
+    }
+}
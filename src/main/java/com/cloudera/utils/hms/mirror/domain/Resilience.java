@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain;
+
+import com.cloudera.utils.hms.mirror.domain.support.RateLimitOperationEnum;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+
+/*
+How the SQL statements run against a cluster's HS2 are protected from a hung or unhealthy server: a timeout for
+each class of statement, retries with a backoff for the transient failures, and a circuit breaker that pauses the
+statements while the server keeps failing.
+ */
+@Getter
+@Setter
+public class Resilience implements Cloneable {
+
+    /*
+    Seconds a statement of each class can run before it's cancelled.  0 (the default) is no timeout.
+     */
+    private int catalogReadTimeout = 0;
+    private int partitionReadTimeout = 0;
+    private int ddlWriteTimeout = 0;
+    private int dataTransferTimeout = 0;
+    /*
+    Times a statement that failed with a transient error is run again.  'INSERT INTO' statements aren't, since
+    they may have added the data before the failure.  The wait between the tries starts at 'retryBackoffMillis'
+    and doubles, up to 'maxRetryBackoffMillis'.
+     */
+    private int retries = 2;
+    private long retryBackoffMillis = 1000;
+    private long maxRetryBackoffMillis = 30000;
+    /*
+    The SQLStates, or their prefixes, of the transient errors.  The JDBC transient and recoverable exceptions, and
+    the errors caused by a lost connection, are always transient.  The Hive driver uses '08S01' for failed queries
+    too, so it isn't in the default list.
+     */
+    private List<String> transientSqlStates = new ArrayList<>(Arrays.asList("08001", "08003", "08004", "08006",
+            "08007", "40001"));
+    /*
+    Transient failures in a row, across all the statements run against the cluster, that open the circuit breaker.
+    While it's open the statements wait for 'circuitBreakerPauseSeconds', then one is run to check the server.
+    0 turns the circuit breaker off.
+     */
+    private int circuitBreakerThreshold = 5;
+    private int circuitBreakerPauseSeconds = 60;
+
+    /**
+     * The timeout, in seconds, for a statement of the class.
+     *
+     * @param operation the class of the statement, null for session statements (SET, USE)
+     */
+    public int getTimeout(RateLimitOperationEnum operation) {
+        if (isNull(operation)) {
+            return 0;
+        }
+        switch (operation) {
+            case CATALOG_READ:
+                return catalogReadTimeout;
+            case PARTITION_READ:
+                return partitionReadTimeout;
+            case DDL_WRITE:
+                return ddlWriteTimeout;
+            case DATA_TRANSFER:
+                return dataTransferTimeout;
+            default:
+                return 0;
+        }
+    }
+
+    public boolean hasTimeouts() {
+        return catalogReadTimeout > 0 || partitionReadTimeout > 0 || ddlWriteTimeout > 0 || dataTransferTimeout > 0;
+    }
+
+    public boolean isTransientSqlState(String sqlState) {
+        if (isNull(sqlState) || isNull(transientSqlStates)) {
+            return false;
+        }
+        for (String transientSqlState : transientSqlStates) {
+            if (!isNull(transientSqlState) && !transientSqlState.isEmpty() && sqlState.startsWith(transientSqlState)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Resilience clone() {
+        try {
+            Resilience clone = (Resilience) super.clone();
+            clone.setTransientSqlStates(isNull(transientSqlStates) ? new ArrayList<>()
+                    : new ArrayList<>(transientSqlStates));
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError();
+        }
+    }
+}
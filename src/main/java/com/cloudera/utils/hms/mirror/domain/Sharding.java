@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain;
+
+import com.cloudera.utils.hms.mirror.domain.support.ShardByEnum;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+Splits a run across worker processes.  The coordinator ('count' > 1, no 'index') starts a worker for each shard,
+they write their reports under the 'workDirectory', and the coordinator merges them into one report.
+ */
+@Getter
+@Setter
+public class Sharding implements Cloneable {
+
+    /*
+    The number of shards.  1 is a normal, unsharded, run.
+     */
+    private int count = 1;
+    /*
+    The shard this worker runs, or -1 for the coordinator.
+     */
+    private int index = -1;
+    private ShardByEnum by = ShardByEnum.DATABASE;
+    /*
+    Where the workers write their reports.  Set by the coordinator.
+     */
+    private String workDirectory = null;
+
+    @JsonIgnore
+    public boolean isCoordinator() {
+        return count > 1 && index < 0;
+    }
+
+    @JsonIgnore
+    public boolean isWorker() {
+        return count > 1 && index >= 0;
+    }
+
+    @Override
+    public Sharding clone() {
+        try {
+            return (Sharding) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.cloudera.utils.hms.mirror.domain.support.TableType;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -35,35 +36,38 @@ public class SourceLocationMap implements Cloneable {
     The key is the table type and the Map is a map of locations(key) and tables(value.set).
 
      */
-    private Map<TableType, Map<String, Set<String>>> locations = new HashMap<>();
+    private Map<TableType, Map<String, Set<String>>> locations = new EnumMap<>(TableType.class);
 
     public Map<String, Set<String>> get(TableType type) {
-        if (locations.containsKey(type)) {
-            return locations.get(type);
-        } else {
-            Map<String, Set<String>> locationMap = new HashMap<>();
-            locations.put(type, locationMap);
-            return locationMap;
-        }
+        return locations.computeIfAbsent(type, k -> new HashMap<>());
     }
 
     public void addTableLocation(String table, TableType type, String location) {
-        Map<String, Set<String>> locationMap = get(type);
+        get(type).computeIfAbsent(location, k -> new HashSet<>()).add(table);
+    }
 
-        if (locationMap.containsKey(location)) {
-            locationMap.get(location).add(table);
-        } else {
-            Set<String> tables = new HashSet<>();
-            tables.add(table);
-            locationMap.put(location, tables);
+    /*
+    Fold the locations from another map into this one.  Used to combine the partial maps built for each
+    database when the sources are loaded in parallel.
+     */
+    public SourceLocationMap merge(SourceLocationMap other) {
+        if (other == null || other == this) {
+            return this;
+        }
+        for (Map.Entry<TableType, Map<String, Set<String>>> entry : other.getLocations().entrySet()) {
+            Map<String, Set<String>> locationMap = get(entry.getKey());
+            for (Map.Entry<String, Set<String>> location : entry.getValue().entrySet()) {
+                locationMap.computeIfAbsent(location.getKey(), k -> new HashSet<>()).addAll(location.getValue());
+            }
         }
+        return this;
     }
 
     @Override
     protected Object clone() throws CloneNotSupportedException {
         SourceLocationMap clone = (SourceLocationMap)super.clone();
         // deep copy
-        Map<TableType, Map<String, Set<String>>> newLocations = new HashMap<>();
+        Map<TableType, Map<String, Set<String>>> newLocations = new EnumMap<>(TableType.class);
 
         for (Map.Entry<TableType, Map<String, Set<String>>> entry : locations.entrySet()) {
             Map<String, Set<String>> newEntry = new HashMap<>();
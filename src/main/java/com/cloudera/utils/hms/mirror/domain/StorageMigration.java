@@ -55,6 +55,16 @@ public class StorageMigration implements Cloneable {
             "the migration will continue but the issues will be reported. This can lead to data movement issues.")
     private boolean strict = Boolean.FALSE;
 
+    @Schema(description = "When greater than 0, the distcp sources across all databases are bin-packed by data size and " +
+            "file count into this many balanced distcp jobs.  The per-job source lists and a runner script are written " +
+            "alongside the per-database distcp reports.  When 0, only the per-database reports are generated.")
+    private int distcpJobCount = 0;
+    @Schema(description = "Expected throughput (MB per second) of a single distcp job.  Used to estimate the job durations.")
+    private int distcpThroughputMBPerSecond = 500;
+    @Schema(description = "Expected number of files copied per second by a single distcp job.  Accounts for the per-file " +
+            "overhead of the copy when estimating the job durations.")
+    private int distcpFilesPerSecond = 100;
+
     @Override
     public StorageMigration clone() {
         try {
@@ -20,16 +20,17 @@ package com.cloudera.utils.hms.mirror.domain;
 import com.cloudera.utils.hms.mirror.*;
 import com.cloudera.utils.hms.mirror.domain.support.DataStrategyEnum;
 import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.CompactMessage;
+import com.cloudera.utils.hms.mirror.domain.support.StepLog;
 import com.cloudera.utils.hms.util.TableUtils;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonSetter;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
-import java.math.BigDecimal;
-import java.text.DecimalFormat;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -42,8 +43,11 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 @Setter
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class TableMirror {
-//    @JsonIgnore
-    private final List<Marker> steps = new ArrayList<Marker>();
+    /*
+    The steps are rendered as Markers (see getSteps) only when they're reported.
+     */
+    @JsonIgnore
+    private final StepLog stepLog = new StepLog();
     /*
     Use to indicate the tblMirror should be removed from processing, post setup.
      */
@@ -52,7 +56,6 @@ public class TableMirror {
     private String name;
     @JsonIgnore
     private DBMirror parent;
-    private Date start = new Date();
     @JsonIgnore
     private boolean remove = Boolean.FALSE;
     @JsonIgnore
@@ -110,13 +113,33 @@ public class TableMirror {
     }
 
     public void addStep(String key, Object value) {
-        Date now = new Date();
-        Long elapsed = now.getTime() - start.getTime();
-        start = now; // reset
-        BigDecimal secs = new BigDecimal(elapsed).divide(new BigDecimal(1000));///1000
-        DecimalFormat decf = new DecimalFormat("#,###.00");
-        String secStr = decf.format(secs);
-        steps.add(new Marker(secStr, key, value));
+        stepLog.add(key, value);
+    }
+
+    /*
+    A step from a template, like MirrorConf.SQL_RUN_COMPLETE_STEP, that's only filled in when it's reported.
+     */
+    public void addStep(String key, String template, Object... args) {
+        stepLog.add(key, CompactMessage.of(template, args));
+    }
+
+    public List<Marker> getSteps() {
+        return stepLog.getMarkers();
+    }
+
+    /*
+    Reports that are read back (EG: the shard reports that are merged) keep their steps.
+     */
+    @JsonSetter("steps")
+    public void setSteps(List<Marker> steps) {
+        stepLog.setMarkers(steps);
+    }
+
+    /*
+    When the last step was recorded.
+     */
+    public Date getStart() {
+        return Date.from(stepLog.getLastStepTime());
     }
 
 //    public void addTableAction(Environment environment, String action) {
@@ -308,11 +331,10 @@ public class TableMirror {
     }
 
     public boolean schemasEqual(Environment one, Environment two) {
-        List<String> schemaOne = getTableDefinition(one);
-        List<String> schemaTwo = getTableDefinition(two);
-        if (nonNull(schemaOne) && nonNull(schemaTwo)) {
-            String fpOne = TableUtils.tableFieldsFingerPrint(schemaOne);
-            String fpTwo = TableUtils.tableFieldsFingerPrint(schemaTwo);
+        // The fingerprints are cached on the environment tables.
+        String fpOne = getEnvironmentTable(one).getFingerprint();
+        String fpTwo = getEnvironmentTable(two).getFingerprint();
+        if (nonNull(fpOne) && nonNull(fpTwo)) {
             return fpOne.equals(fpTwo);
         }
         return false;
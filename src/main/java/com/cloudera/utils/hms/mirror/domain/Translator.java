@@ -28,6 +28,7 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -196,6 +197,48 @@ public class Translator implements Cloneable {
                 consolidationLevelBase, partitionLevelMismatch);
     }
 
+    /**
+     * Add a table source to a database's location map that's being built outside of the warehouse map.
+     * See {@link WarehouseMapBuilder#mergeSources(String, SourceLocationMap)}.
+     * @param locationMap              The database location map to add to.
+     * @param table                    Table name.
+     * @param tableType                Table type as string (converted to TableType enum).
+     * @param source                   Source path.
+     * @param consolidationLevelBase   Data consolidation/normalization level.
+     * @param partitionLevelMismatch   If partitioning levels mismatch.
+     */
+    public void addTableSource(SourceLocationMap locationMap, String table, String tableType, String source,
+                               int consolidationLevelBase, boolean partitionLevelMismatch) {
+        if (isNull(warehouseMapBuilder)) warehouseMapBuilder = new WarehouseMapBuilder();
+        try {
+            TableType type = TableType.valueOf(tableType);
+            warehouseMapBuilder.addSourceLocation(locationMap, table, type, null, source, null,
+                    consolidationLevelBase, partitionLevelMismatch);
+        } catch (IllegalArgumentException iae) {
+            log.info("Not a supported table type: {}", tableType);
+        }
+    }
+
+    /**
+     * Add a partition source to a database's location map that's being built outside of the warehouse map.
+     * @param locationMap            The database location map to add to.
+     * @param table                  Table name.
+     * @param tableType              Table type as string (converted to TableType enum).
+     * @param partitionSpec          Partition spec string.
+     * @param tableSource            Table-level source.
+     * @param partitionSource        Partition-level source.
+     * @param consolidationLevelBase Data consolidation/normalization level.
+     * @param partitionLevelMismatch If partitioning levels mismatch.
+     */
+    public void addPartitionSource(SourceLocationMap locationMap, String table, String tableType, String partitionSpec,
+                                   String tableSource, String partitionSource, int consolidationLevelBase,
+                                   boolean partitionLevelMismatch) {
+        if (isNull(warehouseMapBuilder)) warehouseMapBuilder = new WarehouseMapBuilder();
+        TableType type = TableType.valueOf(tableType);
+        warehouseMapBuilder.addSourceLocation(locationMap, table, type, partitionSpec, tableSource, partitionSource,
+                consolidationLevelBase, partitionLevelMismatch);
+    }
+
     /**
      * Remove a database and its mappings from the translation map.
      * @param database Database name.
@@ -234,6 +277,18 @@ public class Translator implements Cloneable {
         return envMap.getTranslationSet(environment);
     }
 
+    /**
+     * A copy of the translation map for a given database and environment, so it can be walked while other
+     * threads add to it.
+     *
+     * @param database   Database name.
+     * @param environment Environment type.
+     * @return Copy of the translation levels for the given environment.
+     */
+    public synchronized Set<EnvironmentMap.TranslationLevel> copyTranslationMap(String database, Environment environment) {
+        return new HashSet<>(getTranslationMap(database, environment));
+    }
+
     /**
      * Get the ordered global location map, building as necessary.
      * Sorted by key length to ensure the longest path matches occur first.
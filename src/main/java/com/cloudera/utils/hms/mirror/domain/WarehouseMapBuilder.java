@@ -20,12 +20,14 @@ package com.cloudera.utils.hms.mirror.domain;
 import com.cloudera.utils.hms.mirror.domain.support.TableType;
 import com.cloudera.utils.hms.mirror.domain.support.WarehouseSource;
 import com.cloudera.utils.hms.util.UrlUtils;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -42,7 +44,14 @@ public class WarehouseMapBuilder implements Cloneable {
     The key is the database name. The value is a map of 'location' and 'sources (list)'.
 
      */
-    private Map<String, SourceLocationMap> sources = new HashMap<>();
+    private Map<String, SourceLocationMap> sources = new ConcurrentHashMap<>();
+
+    /*
+    Single instances of the reduced locations and table names.  The same values come back for every partition
+    of a table (and often across databases), so only one copy is kept while the sources are being built.
+     */
+    @JsonIgnore
+    private final Map<String, String> stringPool = new ConcurrentHashMap<>();
 
     // Flag to track whether the sources have been reconciled and match the warehousePlans.
     private boolean inSync = Boolean.FALSE;
@@ -62,6 +71,7 @@ public class WarehouseMapBuilder implements Cloneable {
     public void reset() {
         if (nonNull(sources))
             sources.clear();
+        stringPool.clear();
         inSync = Boolean.FALSE;
     }
 
@@ -134,10 +144,24 @@ public class WarehouseMapBuilder implements Cloneable {
 
     public void addSourceLocation(String database, String table, TableType tableType, String partitionSpec, String tableLocation,
                                   String partLocation, int consolidationLevelBase, boolean partitionLevelMismatch) {
+        if (isBlank(database)) {
+            // No location to process.  Just return.
+            return;
+        }
         SourceLocationMap locationMap = sources.computeIfAbsent(database, k -> new SourceLocationMap());
+        addSourceLocation(locationMap, table, tableType, partitionSpec, tableLocation, partLocation,
+                consolidationLevelBase, partitionLevelMismatch);
+    }
 
+    /*
+    Add the source to a location map that isn't (yet) part of 'sources'.  Each database is loaded into its own
+    map, which is merged into 'sources' with 'mergeSources' once the database is complete.
+     */
+    public void addSourceLocation(SourceLocationMap locationMap, String table, TableType tableType, String partitionSpec,
+                                  String tableLocation, String partLocation, int consolidationLevelBase,
+                                  boolean partitionLevelMismatch) {
         String reducedLocation = null;
-        if (isBlank(database) || isBlank(table) || isBlank(tableLocation)) {
+        if (isBlank(table) || isBlank(tableLocation)) {
             // No location to process.  Just return.
             return;
         }
@@ -145,7 +169,6 @@ public class WarehouseMapBuilder implements Cloneable {
             // Process Table Source
             reducedLocation = UrlUtils.reduceUrlBy(tableLocation, consolidationLevelBase);
         } else {
-            String[] partsSpec = partitionSpec.split("\\/");
             // Need to see if the partition location is base on the table location.
             if (partLocation.startsWith(tableLocation)) {
                 // The partition location is based on the table location.
@@ -162,13 +185,60 @@ public class WarehouseMapBuilder implements Cloneable {
                 } else {
                     // The partition level mismatch is not set. We need to reduce the partition location
                     //    to the partition level.
-                    reducedLocation = UrlUtils.reduceUrlBy(partLocation, partsSpec.length + consolidationLevelBase);
+                    reducedLocation = UrlUtils.reduceUrlBy(partLocation,
+                            partitionDepth(partitionSpec) + consolidationLevelBase);
                 }
             }
         }
 
-        locationMap.addTableLocation(table, tableType, reducedLocation);
+        locationMap.addTableLocation(intern(table), tableType, intern(reducedLocation));
+
+    }
 
+    /*
+    Merge a database's location map into the sources.  Safe to call from the threads loading each database.
+     */
+    public void mergeSources(String database, SourceLocationMap locationMap) {
+        if (isBlank(database) || isNull(locationMap)) {
+            return;
+        }
+        synchronized (this) {
+            if (isNull(sources))
+                sources = new ConcurrentHashMap<>();
+            SourceLocationMap current = sources.get(database);
+            if (isNull(current)) {
+                sources.put(database, locationMap);
+            } else {
+                current.merge(locationMap);
+            }
+        }
+    }
+
+    public void clearStringPool() {
+        stringPool.clear();
+    }
+
+    protected String intern(String value) {
+        String current = stringPool.putIfAbsent(value, value);
+        return isNull(current) ? value : current;
+    }
+
+    /*
+    The number of directory levels in a partition spec.  IE: 'a=1/b=2' is 2.  Same as the length of
+    'split("/")' (trailing empty elements are dropped), without creating the array.
+     */
+    protected static int partitionDepth(String partitionSpec) {
+        int end = partitionSpec.length();
+        while (end > 0 && partitionSpec.charAt(end - 1) == '/')
+            end--;
+        if (end == 0)
+            return 0;
+        int depth = 1;
+        for (int i = 0; i < end; i++) {
+            if (partitionSpec.charAt(i) == '/')
+                depth++;
+        }
+        return depth;
     }
 
     @Override
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+How the catalog cache did for a run.  'stale' lookups found an entry whose version no longer matched the catalog,
+and count as misses too.
+ */
+@Getter
+public class CatalogCacheStatistics {
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong stale = new AtomicLong(0);
+    private final AtomicLong invalidations = new AtomicLong(0);
+    /*
+    Entries read from a previous run's cache file.
+     */
+    private final AtomicLong loaded = new AtomicLong(0);
+
+    public long incrementHits() {
+        return hits.incrementAndGet();
+    }
+
+    public long incrementMisses() {
+        return misses.incrementAndGet();
+    }
+
+    public long incrementStale() {
+        return stale.incrementAndGet();
+    }
+
+    public long addInvalidations(long count) {
+        return invalidations.addAndGet(count);
+    }
+
+    public long addLoaded(long count) {
+        return loaded.addAndGet(count);
+    }
+
+    public void reset() {
+        hits.set(0);
+        misses.set(0);
+        stale.set(0);
+        invalidations.set(0);
+        loaded.set(0);
+    }
+}
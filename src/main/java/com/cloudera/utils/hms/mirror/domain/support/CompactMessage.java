@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import com.cloudera.utils.hms.mirror.MessageCode;
+import com.cloudera.utils.hms.util.StringPool;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+/**
+ * A message kept as its template (a {@link MessageCode} description or another MessageFormat pattern) and its
+ * arguments, and only put together when it's read.  The template and the arguments (mostly database, table and
+ * location names, repeated across a table's messages) are pooled, see {@link StringPool}.
+ * <p>
+ * The arguments are kept as text, so numbers come out as they would with string concatenation (no grouping).
+ */
+public final class CompactMessage {
+
+    private static final String[] NO_ARGS = new String[0];
+
+    private final String template;
+    private final String[] args;
+
+    private CompactMessage(String template, String[] args) {
+        this.template = template;
+        this.args = args;
+    }
+
+    public static CompactMessage of(MessageCode code, Object... args) {
+        return of(code.getDesc(), args);
+    }
+
+    public static CompactMessage of(String template, Object... args) {
+        String[] values = NO_ARGS;
+        if (args != null && args.length > 0) {
+            values = new String[args.length];
+            for (int i = 0; i < args.length; i++) {
+                values[i] = StringPool.intern(String.valueOf(args[i]));
+            }
+        }
+        return new CompactMessage(StringPool.intern(template), values);
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    String[] getArgs() {
+        return args.clone();
+    }
+
+    @Override
+    public String toString() {
+        return args.length == 0 ? template : MessageFormat.format(template, (Object[]) args);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompactMessage)) {
+            return false;
+        }
+        CompactMessage that = (CompactMessage) o;
+        return template.equals(that.template) && Arrays.equals(args, that.args);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * template.hashCode() + Arrays.hashCode(args);
+    }
+
+}
@@ -451,7 +451,8 @@ public class Conversion {
                             sb.append("</td>\n");
                             sb.append("</tr>\n");
                         }
-                        if (entry.getValue().getPartitioned()) {
+                        if (entry.getValue().getPartitioned()
+                                && !entry.getValue().getStatistics().containsKey(MirrorConf.PARTITION_COUNT)) {
                             sb.append("<tr>\n");
                             sb.append("<td>");
                             sb.append(MirrorConf.PARTITION_COUNT);
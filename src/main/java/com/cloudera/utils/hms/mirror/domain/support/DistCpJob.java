@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A group of distcp sources that are run together as one balanced 'job'.  A job can cover several targets, each
+ * of which is a separate distcp command in the job.
+ */
+@Getter
+public class DistCpJob {
+
+    private final int id;
+    private final List<DistCpSource> sources = new ArrayList<>();
+    private long dataSize = 0L;
+    private long fileCount = 0L;
+    private double estimatedSeconds = 0d;
+
+    public DistCpJob(int id) {
+        this.id = id;
+    }
+
+    public void add(DistCpSource source, double seconds) {
+        sources.add(source);
+        dataSize += source.getDataSize();
+        fileCount += source.getFileCount();
+        estimatedSeconds += seconds;
+    }
+
+    /*
+    The sources in this job grouped by their target.  Ordered so the generated artifacts are stable.
+     */
+    public Map<String, Set<String>> getSourcesByTarget() {
+        Map<String, Set<String>> rtn = new TreeMap<>();
+        for (DistCpSource source : sources) {
+            rtn.computeIfAbsent(source.getTarget(), k -> new TreeSet<>()).add(source.getSource());
+        }
+        return rtn;
+    }
+
+    public boolean isSourceList(String target) {
+        for (DistCpSource source : sources) {
+            if (source.getTarget().equals(target)) {
+                return source.isSourceList();
+            }
+        }
+        return Boolean.FALSE;
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A single source path to be copied by distcp, along with the target it's copied to and its estimated size.
+ * These are the units the distcp plan optimizer packs into jobs.
+ */
+@Getter
+@Setter
+public class DistCpSource {
+
+    private final String database;
+    private final String target;
+    private final String source;
+    /*
+    When true, the target was built from more than one source and is copied with a source list ('distcp -f').
+    That has to be kept when the sources for the target are split across jobs, otherwise the layout of the
+    target directory would change.
+     */
+    private final boolean sourceList;
+    private long dataSize = 0L;
+    private long fileCount = 0L;
+    // True when the size came from the table statistics, false when it's an estimate.
+    private boolean sized = Boolean.FALSE;
+
+    public DistCpSource(String database, String target, String source, boolean sourceList) {
+        this.database = database;
+        this.target = target;
+        this.source = source;
+        this.sourceList = sourceList;
+    }
+
+}
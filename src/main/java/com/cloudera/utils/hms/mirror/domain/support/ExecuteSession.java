@@ -18,8 +18,10 @@
 package com.cloudera.utils.hms.mirror.domain.support;
 
 import com.cloudera.utils.hms.mirror.MessageCode;
+import com.cloudera.utils.hms.mirror.connections.ConnectionPools;
 import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
 import com.cloudera.utils.hms.mirror.exceptions.SessionException;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.jcabi.manifests.Manifests;
 import lombok.Getter;
 import lombok.Setter;
@@ -42,6 +44,16 @@ public class ExecuteSession implements Cloneable {
     private RunStatus runStatus;
     private HmsMirrorConfig config;
     private Conversion conversion;
+    /*
+    The session's own connection pools (see ConnectionPoolService), so sessions can run at the same time.
+     */
+    @JsonIgnore
+    private ConnectionPools connectionPools;
+    /*
+    The HS2 connections have been validated.
+     */
+    @JsonIgnore
+    private boolean hs2Connected = Boolean.FALSE;
     
     public void addError(MessageCode code) {
         getRunStatus().addError(code);
@@ -138,6 +150,9 @@ public class ExecuteSession implements Cloneable {
             if (nonNull(runStatus)) {
                 clone.runStatus = runStatus.clone();
             }
+            // The clone makes its own connections.
+            clone.connectionPools = null;
+            clone.hs2Connected = Boolean.FALSE;
 //            clone.cliEnvironment = cliEnvironment; // This isn't a cloneable object. Just establish the reference.
             // Don't clone the other parts: runStatus, cliEnvironment, conversion, runResults
             return clone;
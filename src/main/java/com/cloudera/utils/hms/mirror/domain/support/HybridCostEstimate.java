@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.text.MessageFormat;
+
+/**
+ * The estimated cost of moving a table with EXPORT_IMPORT and with SQL, and the strategy picked from them.
+ * Costs are in seconds.  A cost of -1 means the strategy can't be used for the table.
+ */
+@Getter
+@Setter
+public class HybridCostEstimate {
+
+    private DataStrategyEnum strategy;
+    private double exportImportCost = -1;
+    private double sqlCost = -1;
+    private String reason;
+
+    public HybridCostEstimate() {
+    }
+
+    public HybridCostEstimate(DataStrategyEnum strategy, String reason) {
+        this.strategy = strategy;
+        this.reason = reason;
+    }
+
+    @Override
+    public String toString() {
+        return MessageFormat.format("{0} (EXPORT_IMPORT: {1}s, SQL: {2}s) {3}", strategy,
+                exportImportCost < 0 ? "n/a" : String.format("%.1f", exportImportCost),
+                sqlCost < 0 ? "n/a" : String.format("%.1f", sqlCost), reason);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import com.cloudera.utils.hms.mirror.MessageCode;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * The issues or errors of a table or database.  Templated messages are kept as a {@link CompactMessage} until
+ * they're read, so the text they repeat across tables is held once.  To everything reading it (reports, the API,
+ * the saved YAML) it's a plain list of strings.
+ */
+public class MessageList extends AbstractList<String> implements RandomAccess {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    // A String or a CompactMessage.
+    private Object[] entries = EMPTY;
+    private int size = 0;
+
+    public MessageList() {
+    }
+
+    public MessageList(Collection<String> messages) {
+        addAll(messages);
+    }
+
+    public void add(MessageCode code, Object... args) {
+        addEntry(size, CompactMessage.of(code, args));
+    }
+
+    @Override
+    public String get(int index) {
+        checkIndex(index);
+        return entries[index].toString();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String set(int index, String element) {
+        checkIndex(index);
+        String rtn = entries[index].toString();
+        entries[index] = element;
+        return rtn;
+    }
+
+    @Override
+    public void add(int index, String element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        addEntry(index, element);
+    }
+
+    @Override
+    public String remove(int index) {
+        checkIndex(index);
+        String rtn = entries[index].toString();
+        System.arraycopy(entries, index + 1, entries, index, size - index - 1);
+        entries[--size] = null;
+        modCount++;
+        return rtn;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(entries, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    private void addEntry(int index, Object entry) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(4, size * 2));
+        }
+        System.arraycopy(entries, index, entries, index + 1, size - index);
+        entries[index] = entry;
+        size++;
+        modCount++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+}
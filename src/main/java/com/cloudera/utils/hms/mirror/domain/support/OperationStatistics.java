@@ -27,6 +27,7 @@ public class OperationStatistics implements Cloneable{
     private final OperationStatistic issues = new OperationStatistic();
     private final OperationStatistic failures = new OperationStatistic();
     private final OperationStatistic successes = new OperationStatistic();
+    private final CatalogCacheStatistics catalogCache = new CatalogCacheStatistics();
 
     @Override
     public OperationStatistics clone() {
@@ -44,6 +45,7 @@ public class OperationStatistics implements Cloneable{
         issues.reset();
         failures.reset();
         successes.reset();
+        catalogCache.reset();
     }
 
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+/*
+The classes of calls against a cluster's HS2 and metastore that can be rate limited separately.
+ */
+public enum RateLimitOperationEnum {
+    /*
+    SHOW DATABASES/TABLES, DESCRIBE DATABASE, SHOW CREATE TABLE and the metastore-direct location queries.
+     */
+    CATALOG_READ,
+    /*
+    SHOW PARTITIONS and the metastore-direct partition queries.  The heaviest reads on the metastore database.
+     */
+    PARTITION_READ,
+    /*
+    CREATE/ALTER/DROP and the other statements that change the metastore.
+     */
+    DDL_WRITE,
+    /*
+    The SQL statements that move data (INSERT ... SELECT, EXPORT, IMPORT).
+     */
+    DATA_TRANSFER;
+
+    /**
+     * The class of a SQL statement run against HS2.
+     *
+     * @return the class, or null for session statements (SET, USE) that aren't limited
+     */
+    public static RateLimitOperationEnum forStatement(String sql) {
+        String statement = sql.trim().toUpperCase();
+        if (statement.startsWith("SET ") || statement.startsWith("USE ")) {
+            return null;
+        }
+        if (statement.startsWith("INSERT ") || statement.startsWith("FROM ") || statement.startsWith("EXPORT ")
+                || statement.startsWith("IMPORT ")) {
+            return DATA_TRANSFER;
+        }
+        if (statement.startsWith("SHOW PARTITIONS ")) {
+            return PARTITION_READ;
+        }
+        if (statement.startsWith("SHOW ") || statement.startsWith("DESCRIBE ")) {
+            return CATALOG_READ;
+        }
+        return DDL_WRITE;
+    }
+}
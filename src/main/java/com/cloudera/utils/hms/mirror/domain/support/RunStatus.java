@@ -20,6 +20,7 @@ package com.cloudera.utils.hms.mirror.domain.support;
 import com.cloudera.utils.hms.mirror.MessageCode;
 import com.cloudera.utils.hms.mirror.domain.Messages;
 import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.cloudera.utils.hms.util.CircuitBreaker;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -37,6 +38,7 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 
 import static java.util.Objects.isNull;
@@ -72,6 +74,12 @@ public class RunStatus implements Comparable<RunStatus>, Cloneable {
 
     private List<TableMirror> inProgressTables = new ArrayList<>();
 
+    /*
+    The state of each environment's circuit breaker, once it's been used.  Statements against an environment that
+    isn't CLOSED wait until its server is back.
+     */
+    private Map<Environment, CircuitBreaker.State> circuitBreakers = new ConcurrentHashMap<>();
+
     /*
     Maintain statistics on the operation.
      */
@@ -213,6 +221,7 @@ public class RunStatus implements Comparable<RunStatus>, Cloneable {
             end = null;
             if (nonNull(inProgressTables))
                 inProgressTables.clear();
+            circuitBreakers.clear();
         } else {
             rtn = Boolean.FALSE;
         }
@@ -384,6 +393,7 @@ public class RunStatus implements Comparable<RunStatus>, Cloneable {
         clone.configMessages = new TreeSet<>(configMessages);
         clone.stages = new LinkedHashMap<>(stages);
         clone.inProgressTables = new ArrayList<>(inProgressTables);
+        clone.circuitBreakers = new ConcurrentHashMap<>(circuitBreakers);
         clone.operationStatistics = operationStatistics.clone();
         return clone;
     }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+import static java.util.Objects.isNull;
+
+/**
+ * The order tables are handed to the job thread pool.  The pool runs them first in, first out, so this decides
+ * which tables start first.
+ */
+public enum SchedulingPolicyEnum {
+
+    /*
+    Database, then table name.  The order the tables were collected in.
+     */
+    NAME {
+        @Override
+        public List<TableMirror> order(Collection<TableMirror> tables, ToLongFunction<TableMirror> cost) {
+            List<TableMirror> rtn = new ArrayList<>(tables);
+            rtn.sort(BY_NAME);
+            return rtn;
+        }
+    },
+    /*
+    Most expensive table first.  The long tables start right away, so the run isn't held up by a large table
+    that happens to start late.
+     */
+    LARGEST_FIRST {
+        @Override
+        public List<TableMirror> order(Collection<TableMirror> tables, ToLongFunction<TableMirror> cost) {
+            return byCost(tables, cost, Boolean.TRUE);
+        }
+    },
+    /*
+    Least expensive table first.  The most tables finish early, at the cost of a longer run.
+     */
+    SHORTEST_FIRST {
+        @Override
+        public List<TableMirror> order(Collection<TableMirror> tables, ToLongFunction<TableMirror> cost) {
+            return byCost(tables, cost, Boolean.FALSE);
+        }
+    },
+    /*
+    One table from each database in turn, the most expensive of each database first.  Spreads the load over the
+    databases, so one large database doesn't hold back the others.
+     */
+    DATABASE_ROUND_ROBIN {
+        @Override
+        public List<TableMirror> order(Collection<TableMirror> tables, ToLongFunction<TableMirror> cost) {
+            Map<String, List<TableMirror>> byDatabase = new TreeMap<>();
+            for (TableMirror tableMirror : byCost(tables, cost, Boolean.TRUE)) {
+                byDatabase.computeIfAbsent(databaseName(tableMirror), k -> new ArrayList<>()).add(tableMirror);
+            }
+            List<Iterator<TableMirror>> iterators = new ArrayList<>();
+            byDatabase.values().forEach(list -> iterators.add(list.iterator()));
+            List<TableMirror> rtn = new ArrayList<>(tables.size());
+            while (!iterators.isEmpty()) {
+                Iterator<Iterator<TableMirror>> it = iterators.iterator();
+                while (it.hasNext()) {
+                    Iterator<TableMirror> dbTables = it.next();
+                    rtn.add(dbTables.next());
+                    if (!dbTables.hasNext()) {
+                        it.remove();
+                    }
+                }
+            }
+            return rtn;
+        }
+    };
+
+    private static final Comparator<TableMirror> BY_NAME = Comparator
+            .comparing(SchedulingPolicyEnum::databaseName)
+            .thenComparing(tableMirror -> isNull(tableMirror.getName()) ? "" : tableMirror.getName());
+
+    /**
+     * @param tables the tables to run
+     * @param cost   the estimated cost of a table.  Called once per table.
+     * @return the tables in the order they should be run
+     */
+    public abstract List<TableMirror> order(Collection<TableMirror> tables, ToLongFunction<TableMirror> cost);
+
+    private static List<TableMirror> byCost(Collection<TableMirror> tables, ToLongFunction<TableMirror> cost,
+                                            boolean descending) {
+        Map<TableMirror, Long> costs = new IdentityHashMap<>();
+        for (TableMirror tableMirror : tables) {
+            costs.put(tableMirror, cost.applyAsLong(tableMirror));
+        }
+        Comparator<TableMirror> byCost = Comparator.comparingLong(costs::get);
+        if (descending) {
+            byCost = byCost.reversed();
+        }
+        List<TableMirror> rtn = new ArrayList<>(tables);
+        // Ties keep the name order, so the order is the same from run to run.
+        rtn.sort(byCost.thenComparing(BY_NAME));
+        return rtn;
+    }
+
+    private static String databaseName(TableMirror tableMirror) {
+        return isNull(tableMirror.getParent()) || isNull(tableMirror.getParent().getName()) ? ""
+                : tableMirror.getParent().getName();
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import com.cloudera.utils.hms.util.TableUtils;
+import lombok.Getter;
+
+import java.util.Locale;
+import java.util.TreeSet;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * The schema of a table as read from the metastore-direct tables (the 'database_table_schemas' query): columns,
+ * partition keys, serde and its parameters, input/output formats, bucketing, sorting, skew columns and the
+ * table properties that show up in the DDL before the LOCATION.
+ * <p>
+ * The parts are kept sorted, so the fingerprint doesn't depend on the order the rows are read in.  It is only
+ * comparable with other metastore fingerprints, not with the definition fingerprints.
+ */
+public class SchemaFingerprint {
+
+    public static final String TYPE = "TYPE";
+    public static final String PARTITION_KEY = "PARTITION_KEY";
+    public static final String VIRTUAL_VIEW = "VIRTUAL_VIEW";
+
+    private final TreeSet<String> parts = new TreeSet<>();
+    @Getter
+    private boolean view = Boolean.FALSE;
+    @Getter
+    private boolean partitioned = Boolean.FALSE;
+    private String fingerprint = null;
+
+    /**
+     * Add a row of the 'database_table_schemas' query.
+     *
+     * @param kind    the part of the schema, IE: COLUMN, PARTITION_KEY, SERDE_PARAM.
+     * @param index   the position for the ordered parts (columns, keys), 0 for the others.
+     * @param name    the column, key or parameter name.
+     * @param value   the type or value.
+     * @param comment the column or key comment, if any.
+     */
+    public synchronized void add(String kind, int index, String name, String value, String comment) {
+        if (TYPE.equals(kind)) {
+            // The table type (MANAGED/EXTERNAL) is left out, like the CREATE line of the definition fingerprint.
+            view = VIRTUAL_VIEW.equalsIgnoreCase(name);
+            return;
+        }
+        if (PARTITION_KEY.equals(kind)) {
+            partitioned = Boolean.TRUE;
+        }
+        parts.add(kind + "|" + index + "|" + normalize(name) + "|" + (isBlank(value) ? "" : value.trim())
+                + "|" + (isBlank(comment) ? "" : comment.trim()));
+        fingerprint = null;
+    }
+
+    public synchronized String getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = TableUtils.fingerprint(String.join("\n", parts));
+        }
+        return fingerprint;
+    }
+
+    /*
+    Views are compared on their text, which isn't part of this, so they never match.
+     */
+    public boolean matches(SchemaFingerprint other) {
+        return other != null && !view && !other.isView() && getFingerprint().equals(other.getFingerprint());
+    }
+
+    private static String normalize(String name) {
+        return isBlank(name) ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+}
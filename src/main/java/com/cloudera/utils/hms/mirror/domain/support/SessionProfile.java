@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import com.cloudera.utils.hms.mirror.Pair;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The session settings for a table's migration SQL: the 'SET' statements, already formatted, and the issues that
+ * explain them.
+ * <p>
+ * The settings only depend on the cluster config and a few values from the table statistics (the file format,
+ * small files and the partition load), so most tables share a profile.  It's immutable, so it can be.
+ */
+public final class SessionProfile {
+
+    private final List<String> issues;
+    private final List<String> descriptions;
+    private final List<String> statements;
+
+    private SessionProfile(Builder builder) {
+        this.issues = Collections.unmodifiableList(new ArrayList<>(builder.issues));
+        this.descriptions = Collections.unmodifiableList(new ArrayList<>(builder.descriptions));
+        this.statements = Collections.unmodifiableList(new ArrayList<>(builder.statements));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public List<String> getIssues() {
+        return issues;
+    }
+
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Add the issues and the 'SET' statements to the table.  The statements are new pairs, so the table's SQL
+     * doesn't share anything with the other tables on the profile.
+     */
+    public void applyTo(EnvironmentTable environmentTable) {
+        for (String issue : issues) {
+            environmentTable.addIssue(issue);
+        }
+        for (int i = 0; i < statements.size(); i++) {
+            environmentTable.addSql(new Pair(descriptions.get(i), statements.get(i)));
+        }
+    }
+
+    public static class Builder {
+        private final List<String> issues = new ArrayList<>();
+        private final List<String> descriptions = new ArrayList<>();
+        private final List<String> statements = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder issue(String issue) {
+            issues.add(issue);
+            return this;
+        }
+
+        public Builder statement(String description, String statement) {
+            descriptions.add(description);
+            statements.add(statement);
+            return this;
+        }
+
+        public SessionProfile build() {
+            return new SessionProfile(this);
+        }
+    }
+
+}
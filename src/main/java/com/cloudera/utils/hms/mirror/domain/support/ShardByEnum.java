@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+/*
+How the work of a sharded run is split across the worker processes.
+ */
+public enum ShardByEnum {
+    /*
+    Each database goes to one worker.  No database is built by more than one worker.
+     */
+    DATABASE,
+    /*
+    Each table goes to one worker, for runs with a few very large databases.  Every worker builds the databases.
+     */
+    TABLE
+}
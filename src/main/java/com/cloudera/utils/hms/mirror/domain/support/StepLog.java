@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import com.cloudera.utils.hms.mirror.Marker;
+import com.cloudera.utils.hms.util.StringPool;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.ParsePosition;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The steps recorded for a table.  Each step is kept as a nanosecond timestamp with its key and value, in arrays
+ * that grow as needed.  The keys and the text values are pooled (see {@link StringPool}), and the other values
+ * kept as a {@link CompactMessage}.  The {@link Marker}s, with the seconds since the step before, are only built
+ * when a report asks for them.
+ * <p>
+ * Steps are added from the worker threads of the table (see TableService.runTransferChunks), so the methods are
+ * synchronized.
+ */
+public class StepLog {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // DecimalFormat isn't thread safe.
+    private static final ThreadLocal<DecimalFormat> SECONDS_FORMAT = ThreadLocal.withInitial(() -> {
+        DecimalFormat rtn = new DecimalFormat("#,###.00");
+        rtn.setParseBigDecimal(true);
+        return rtn;
+    });
+
+    /*
+    The wall clock and nano time of the start, to place the steps in time.
+     */
+    private long originMillis;
+    private long originNanos;
+    private long[] times = new long[INITIAL_CAPACITY];
+    private String[] keys = new String[INITIAL_CAPACITY];
+    // Text, or a CompactMessage that's put together when the markers are built.
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int size = 0;
+
+    public StepLog() {
+        reset();
+    }
+
+    public synchronized void add(String key, Object value) {
+        if (size == times.length) {
+            int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        times[size] = System.nanoTime();
+        keys[size] = StringPool.intern(key);
+        if (value instanceof CompactMessage) {
+            values[size] = value;
+        } else {
+            values[size] = value == null ? "" : StringPool.intern(value.toString());
+        }
+        size++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        reset();
+    }
+
+    /**
+     * The nanosecond timestamp (System.nanoTime) of each step, in the order they were added.
+     */
+    public synchronized long[] getTimes() {
+        return Arrays.copyOf(times, size);
+    }
+
+    /**
+     * When the last step was added, or the start when there are none.
+     */
+    public synchronized Instant getLastStepTime() {
+        long nanos = size == 0 ? originNanos : times[size - 1];
+        return Instant.ofEpochMilli(originMillis).plusNanos(nanos - originNanos);
+    }
+
+    public synchronized List<Marker> getMarkers() {
+        List<Marker> rtn = new ArrayList<>(size);
+        long previous = originNanos;
+        for (int i = 0; i < size; i++) {
+            rtn.add(new Marker(formatSeconds(times[i] - previous), keys[i], values[i].toString()));
+            previous = times[i];
+        }
+        return rtn;
+    }
+
+    /**
+     * Replaces the steps with the markers of a report that was read back, keeping the seconds between them.
+     */
+    public synchronized void setMarkers(List<Marker> markers) {
+        clear();
+        if (markers == null) {
+            return;
+        }
+        long time = originNanos;
+        for (Marker marker : markers) {
+            time += parseSeconds(marker.getMark());
+            add(marker.getDescription(), marker.getAction());
+            times[size - 1] = time;
+        }
+    }
+
+    /**
+     * Seconds, as the steps have always been reported: DecimalFormat("#,###.00") of the milliseconds, so half a
+     * second is ".50" and the hundredths are rounded HALF_EVEN.  EG: 1,234.50
+     */
+    public static String formatSeconds(long nanos) {
+        BigDecimal seconds = BigDecimal.valueOf(Math.max(0, nanos) / 1_000_000L, 3);
+        return SECONDS_FORMAT.get().format(seconds);
+    }
+
+    /**
+     * The nanoseconds of seconds made by {@link #formatSeconds(long)}, or 0 when they can't be read.
+     */
+    public static long parseSeconds(String seconds) {
+        if (seconds == null) {
+            return 0;
+        }
+        ParsePosition position = new ParsePosition(0);
+        String text = seconds.trim();
+        Number number = SECONDS_FORMAT.get().parse(text, position);
+        if (number == null || position.getIndex() != text.length()) {
+            return 0;
+        }
+        return ((BigDecimal) number).movePointRight(9).longValue();
+    }
+
+    private void reset() {
+        originMillis = System.currentTimeMillis();
+        originNanos = System.nanoTime();
+    }
+
+}
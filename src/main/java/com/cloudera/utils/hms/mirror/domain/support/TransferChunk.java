@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import com.cloudera.utils.hms.mirror.Pair;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One slice of a partition-chunked SQL data transfer, partition add or EXPORT/IMPORT.  Each chunk is a separate
+ * statement (or run of statements) over a subset of the partitions, so it can be run (and re-run) on its own.
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TransferChunk {
+
+    private int id;
+    private int total;
+    private int partitionCount;
+    private long dataSize;
+    private String firstPartition;
+    private String lastPartition;
+    private ProgressEnum status = ProgressEnum.INITIALIZED;
+    private String error = null;
+    /*
+    The number of the group's chunks to run at the same time.  0 uses 'chunkedSqlTransferParallelism'.
+     */
+    @JsonIgnore
+    private int parallelism = 0;
+    /*
+    The statements of this chunk, run in order.  They're also in the table's sql list, where they're run in order.
+     */
+    @JsonIgnore
+    private List<Pair> statements = new ArrayList<>();
+    /*
+    The statements that have completed.  A re-run of the chunk picks up at the next one.
+     */
+    private int completedStatements = 0;
+
+    public TransferChunk() {
+    }
+
+    public TransferChunk(int id, int total) {
+        this.id = id;
+        this.total = total;
+    }
+
+    /**
+     * The first (usually the only) statement of the chunk.
+     */
+    @JsonIgnore
+    public Pair getSql() {
+        return statements.isEmpty() ? null : statements.get(0);
+    }
+
+    @JsonIgnore
+    public void setSql(Pair sql) {
+        statements.clear();
+        statements.add(sql);
+    }
+
+    public void addSql(Pair sql) {
+        statements.add(sql);
+    }
+
+    public String getSqlStatement() {
+        if (statements.isEmpty()) {
+            return null;
+        }
+        StringBuilder rtn = new StringBuilder();
+        for (Pair statement : statements) {
+            if (rtn.length() > 0) {
+                rtn.append(";\n");
+            }
+            rtn.append(statement.getAction());
+        }
+        return rtn.toString();
+    }
+
+}
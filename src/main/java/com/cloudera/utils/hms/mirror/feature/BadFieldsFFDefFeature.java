@@ -20,29 +20,43 @@ package com.cloudera.utils.hms.mirror.feature;
 import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 @Slf4j
-public class BadFieldsFFDefFeature extends BaseFeature implements Feature {
+public class BadFieldsFFDefFeature extends BaseFeature implements IndexedFeature {
     private final String FTB = "FIELDS TERMINATED BY";
     private final Pattern FIELDS_TERMINATED_BY = Pattern.compile(FTB + " '(.*)'");
 
+    private final Set<Pattern> PATTERNS = Collections.singleton(FIELDS_TERMINATED_BY);
+
     @Override
     public Boolean applicable(EnvironmentTable envTable) {
         return applicable(envTable.getDefinition());
     }
 
+    @Override
+    public Boolean applicable(List<String> schema) {
+        return applicable(new DefinitionIndex(schema, this));
+    }
+
+    @Override
+    public Set<Pattern> getPatterns() {
+        return PATTERNS;
+    }
+
     @Override
     /*
     check if '\f' is used in FIELDS TERMINATED BY.
      */
-    public Boolean applicable(List<String> schema) {
+    public Boolean applicable(DefinitionIndex index) {
         Boolean rtn = Boolean.FALSE;
 
-        String v = getGroupFor(FIELDS_TERMINATED_BY, schema);
+        String v = index.getGroupFor(FIELDS_TERMINATED_BY);
         try {
             if (!isBlank(v) && 'f' == v.charAt(1)) {
                 rtn = Boolean.TRUE;
@@ -62,6 +76,12 @@ public class BadFieldsFFDefFeature extends BaseFeature implements Feature {
         return fixSchema(envTable.getDefinition());
     }
 
+    @Override
+    public Boolean fixSchema(List<String> schema) {
+        DefinitionIndex index = new DefinitionIndex(schema, this);
+        return applicable(index) ? fixSchema(index) : Boolean.FALSE;
+    }
+
     @Override
     /*
      ROW FORMAT DELIMITED
@@ -70,42 +90,23 @@ public class BadFieldsFFDefFeature extends BaseFeature implements Feature {
      The '\f' won't translate in schemas that are replayed.  It needs to be converted
      to '\014' and then hive will translate it to '\f'.
      */
-    public Boolean fixSchema(List<String> schema) {
-        if (applicable(schema)) {
-            log.debug("Checking if table has Bad Fields definition");
-            // find the index of the ROW_FORMAT_DELIMITED
-
-            String v = getGroupFor(FIELDS_TERMINATED_BY, schema);
-
-
-            Boolean badDef = Boolean.FALSE;
-            try {
-                if (!isBlank(v) && 'f' == v.charAt(1)) {
-                    badDef = Boolean.TRUE;
-                }
-            } catch (Throwable t) {
-                // skip
+    public Boolean fixSchema(DefinitionIndex index) {
+        log.debug("Table has Bad Fields definition");
+        List<String> schema = index.getDefinition();
+        // Find location.
+        int loc = -1;
+        Boolean found = Boolean.FALSE;
+        for (String line : schema) {
+            loc++;
+            if (line.trim().startsWith(FTB)) {
+                found = Boolean.TRUE;
+                break;
             }
-
-            if (badDef) {
-                // Find location.
-                int loc = -1;
-                Boolean found = Boolean.FALSE;
-                for (String line : schema) {
-                    loc++;
-                    if (line.trim().startsWith(FTB)) {
-                        found = Boolean.TRUE;
-                        break;
-                    }
-                }
-                if (found) {
-                    schema.set(loc, FTB + " '\\014'");
-                }
-            }
-            return Boolean.TRUE;
-        } else {
-            return Boolean.FALSE;
         }
+        if (found) {
+            schema.set(loc, FTB + " '\\014'");
+        }
+        return Boolean.TRUE;
     }
 
     public String getDescription() {
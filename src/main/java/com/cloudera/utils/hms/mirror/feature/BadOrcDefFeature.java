@@ -20,10 +20,13 @@ package com.cloudera.utils.hms.mirror.feature;
 import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
-public class BadOrcDefFeature extends BaseFeature implements Feature {
+public class BadOrcDefFeature extends BaseFeature implements IndexedFeature {
     private final String ROW_FORMAT_DELIMITED = "ROW FORMAT DELIMITED";
     private final String STORED_AS_INPUTFORMAT = "STORED AS INPUTFORMAT";
     private final String OUTPUTFORMAT = "OUTPUTFORMAT";
@@ -35,6 +38,9 @@ public class BadOrcDefFeature extends BaseFeature implements Feature {
 
     private final String STORED_AS_ORC = "STORED AS ORC";
 
+    private final Set<String> PREFIXES = new HashSet<>(Arrays.asList(ROW_FORMAT_DELIMITED, STORED_AS_INPUTFORMAT,
+            OUTPUTFORMAT));
+
     @Override
     public Boolean applicable(EnvironmentTable envTable) {
         return applicable(envTable.getDefinition());
@@ -42,17 +48,27 @@ public class BadOrcDefFeature extends BaseFeature implements Feature {
 
     @Override
     public Boolean applicable(List<String> schema) {
+        return applicable(new DefinitionIndex(schema, this));
+    }
+
+    @Override
+    public Set<String> getPrefixes() {
+        return PREFIXES;
+    }
+
+    @Override
+    public Boolean applicable(DefinitionIndex index) {
         Boolean rtn = Boolean.FALSE;
 
-        int rfdIdx = indexOf(schema, ROW_FORMAT_DELIMITED);
+        int rfdIdx = index.indexOf(ROW_FORMAT_DELIMITED);
         if (rfdIdx > 0) {
             // Find the "STORED AS INPUTFORMAT" index
-            int saiIdx = indexOf(schema, STORED_AS_INPUTFORMAT);
+            int saiIdx = index.indexOf(STORED_AS_INPUTFORMAT);
             if (saiIdx > rfdIdx) {
-                if (schema.get(saiIdx + 1).trim().equals(INPUT_FORMAT_CLASS)) {
-                    int of = indexOf(schema, OUTPUTFORMAT);
+                if (index.get(saiIdx + 1).trim().equals(INPUT_FORMAT_CLASS)) {
+                    int of = index.indexOf(OUTPUTFORMAT);
                     if (of > saiIdx + 1) {
-                        if (schema.get(of + 1).trim().equals(OUTPUT_FORMAT_CLASS)) {
+                        if (index.get(of + 1).trim().equals(OUTPUT_FORMAT_CLASS)) {
                             rtn = Boolean.TRUE;
                         }
                     }
@@ -68,6 +84,12 @@ public class BadOrcDefFeature extends BaseFeature implements Feature {
         return fixSchema(envTable.getDefinition());
     }
 
+    @Override
+    public Boolean fixSchema(List<String> schema) {
+        DefinitionIndex index = new DefinitionIndex(schema, this);
+        return applicable(index) ? fixSchema(index) : Boolean.FALSE;
+    }
+
     @Override
     /*
      * ROW FORMAT DELIMITED
@@ -78,33 +100,15 @@ public class BadOrcDefFeature extends BaseFeature implements Feature {
      * OUTPUTFORMAT
      *   'org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat'
      */
-    public Boolean fixSchema(List<String> schema) {
-        if (applicable(schema)) {
-//            schema = addEscaped(schema);
-            log.debug("Checking if table has bad ORC definition");
-            // find the index of the ROW_FORMAT_DELIMITED
-            int rfdIdx = indexOf(schema, ROW_FORMAT_DELIMITED);
-            if (rfdIdx > 0) {
-                // Find the "STORED AS INPUTFORMAT" index
-                int saiIdx = indexOf(schema, STORED_AS_INPUTFORMAT);
-                if (saiIdx > rfdIdx) {
-                    if (schema.get(saiIdx + 1).trim().equals("'org.apache.hadoop.hive.ql.io.orc.OrcInputFormat'")) {
-                        int of = indexOf(schema, OUTPUTFORMAT);
-                        if (of > saiIdx + 1) {
-                            if (schema.get(of + 1).trim().equals("'org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat'")) {
-                                log.debug("BAD ORC definition found. Correcting...");
-                                // All matches.  Need to replace with serde
-                                removeRange(rfdIdx, of + 2, schema);
-                                schema.add(rfdIdx, STORED_AS_ORC);
-                            }
-                        }
-                    }
-                }
-            }
-            return Boolean.TRUE;
-        } else {
-            return Boolean.FALSE;
-        }
+    public Boolean fixSchema(DefinitionIndex index) {
+        log.debug("BAD ORC definition found. Correcting...");
+        List<String> schema = index.getDefinition();
+        int rfdIdx = index.indexOf(ROW_FORMAT_DELIMITED);
+        int of = index.indexOf(OUTPUTFORMAT);
+        // All matches (see applicable).  Need to replace with serde
+        removeRange(rfdIdx, of + 2, schema);
+        schema.add(rfdIdx, STORED_AS_ORC);
+        return Boolean.TRUE;
     }
 
     public String getDescription() {
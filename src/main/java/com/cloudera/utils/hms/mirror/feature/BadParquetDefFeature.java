@@ -20,10 +20,13 @@ package com.cloudera.utils.hms.mirror.feature;
 import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
-public class BadParquetDefFeature extends BaseFeature implements Feature {
+public class BadParquetDefFeature extends BaseFeature implements IndexedFeature {
     private final String ROW_FORMAT_DELIMITED = "ROW FORMAT DELIMITED";
     private final String STORED_AS_INPUTFORMAT = "STORED AS INPUTFORMAT";
     private final String OUTPUTFORMAT = "OUTPUTFORMAT";
@@ -33,6 +36,9 @@ public class BadParquetDefFeature extends BaseFeature implements Feature {
     private final String OUTPUT_FORMAT_CLASS = "'org.apache.hadoop.hive.ql.io.parquet.MapredParquetOutputFormat'";
     private final String STORED_AS_PARQUET = "STORED AS PARQUET";
 
+    private final Set<String> PREFIXES = new HashSet<>(Arrays.asList(STORED_AS_INPUTFORMAT, OUTPUTFORMAT,
+            ROW_FORMAT_SERDE));
+
     @Override
     public Boolean applicable(EnvironmentTable envTable) {
         return applicable(envTable.getDefinition());
@@ -40,24 +46,34 @@ public class BadParquetDefFeature extends BaseFeature implements Feature {
 
     @Override
     public Boolean applicable(List<String> schema) {
+        return applicable(new DefinitionIndex(schema, this));
+    }
+
+    @Override
+    public Set<String> getPrefixes() {
+        return PREFIXES;
+    }
+
+    @Override
+    public Boolean applicable(DefinitionIndex index) {
         Boolean rtn = Boolean.FALSE;
 
-        int saiIdx = indexOf(schema, STORED_AS_INPUTFORMAT);
+        int saiIdx = index.indexOf(STORED_AS_INPUTFORMAT);
         if (saiIdx > 0) {
             // Find the "STORED AS INPUTFORMAT" index
-            if (schema.get(saiIdx + 1).trim().equals(INPUT_FORMAT_CLASS)) {
-                int of = indexOf(schema, OUTPUTFORMAT);
+            if (index.get(saiIdx + 1).trim().equals(INPUT_FORMAT_CLASS)) {
+                int of = index.indexOf(OUTPUTFORMAT);
                 if (of > saiIdx + 1) {
                     // Now check for OUTPUT class match
-                    if (schema.get(of + 1).trim().equals(OUTPUT_FORMAT_CLASS)) {
+                    if (index.get(of + 1).trim().equals(OUTPUT_FORMAT_CLASS)) {
                         // Need to check for proper spark defined ROW_FORMAT_SERDE
                         // When present, don't fix this.  It breaks Spark SQL.
-                        int rfsIdx = indexOf(schema, ROW_FORMAT_SERDE);
+                        int rfsIdx = index.indexOf(ROW_FORMAT_SERDE);
                         if (rfsIdx == -1) {
                             // Missing ROW FORMAT SERDE, so we need to fix it.
                             rtn = Boolean.TRUE;
                         } else if (rfsIdx > 0) {
-                            if (!schema.get(rfsIdx + 1).trim().equals(ROW_FORMAT_SERDE_CLASS)) {
+                            if (!index.get(rfsIdx + 1).trim().equals(ROW_FORMAT_SERDE_CLASS)) {
                                 rtn = Boolean.TRUE;
                             }
                         }
@@ -74,6 +90,12 @@ public class BadParquetDefFeature extends BaseFeature implements Feature {
         return fixSchema(envTable.getDefinition());
     }
 
+    @Override
+    public Boolean fixSchema(List<String> schema) {
+        DefinitionIndex index = new DefinitionIndex(schema, this);
+        return applicable(index) ? fixSchema(index) : Boolean.FALSE;
+    }
+
     @Override
     /*
      STORED AS INPUTFORMAT
@@ -81,47 +103,43 @@ public class BadParquetDefFeature extends BaseFeature implements Feature {
      OUTPUTFORMAT
      'org.apache.hadoop.hive.ql.io.parquet.MapredParquetOutputFormat'
      */
-    public Boolean fixSchema(List<String> schema) {
-        if (applicable(schema)) {
-//            schema = addEscaped(schema);
-            log.debug("Checking if table has bad PARQUET definition");
-            // find the index of the ROW_FORMAT_DELIMITED
-
-            int startRange = -1;
-            int endRange = -1;
-            int rfdIdx = indexOf(schema, ROW_FORMAT_DELIMITED);
-            if (rfdIdx > 0) {
-                startRange = rfdIdx;
-            }
+    public Boolean fixSchema(DefinitionIndex index) {
+        log.debug("Checking if table has bad PARQUET definition");
+        List<String> schema = index.getDefinition();
+        // find the index of the ROW_FORMAT_DELIMITED
+
+        int startRange = -1;
+        int endRange = -1;
+        int rfdIdx = index.indexOf(ROW_FORMAT_DELIMITED);
+        if (rfdIdx > 0) {
+            startRange = rfdIdx;
+        }
 
-            if (startRange == -1) {
-                int rfsIdx = indexOf(schema, ROW_FORMAT_SERDE);
-                if (rfsIdx > 0) {
-                    startRange = rfsIdx;
-                }
+        if (startRange == -1) {
+            int rfsIdx = index.indexOf(ROW_FORMAT_SERDE);
+            if (rfsIdx > 0) {
+                startRange = rfsIdx;
             }
+        }
 
-            if (startRange == -1) {
-                int saiIdx = indexOf(schema, STORED_AS_INPUTFORMAT);
-                if (saiIdx > 0) {
-                    startRange = saiIdx;
-                }
+        if (startRange == -1) {
+            int saiIdx = index.indexOf(STORED_AS_INPUTFORMAT);
+            if (saiIdx > 0) {
+                startRange = saiIdx;
             }
+        }
 
-            int of = indexOf(schema, OUTPUTFORMAT);
-            if (of > 0) {
-                endRange = of + 2;
-            }
+        int of = index.indexOf(OUTPUTFORMAT);
+        if (of > 0) {
+            endRange = of + 2;
+        }
 
-            if ((startRange < endRange) & (startRange > 0)) {
-                log.debug("BAD PARQUET definition found. Correcting...");
-                removeRange(startRange, endRange, schema);
-                schema.add(startRange, STORED_AS_PARQUET);
-            }
-            return Boolean.TRUE;
-        } else {
-            return Boolean.FALSE;
+        if ((startRange < endRange) & (startRange > 0)) {
+            log.debug("BAD PARQUET definition found. Correcting...");
+            removeRange(startRange, endRange, schema);
+            schema.add(startRange, STORED_AS_PARQUET);
         }
+        return Boolean.TRUE;
     }
 
     public String getDescription() {
@@ -20,11 +20,14 @@ package com.cloudera.utils.hms.mirror.feature;
 import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 @Slf4j
-public class BadTextFileDefFeature extends BaseFeature implements Feature {
+public class BadTextFileDefFeature extends BaseFeature implements IndexedFeature {
     private final String ROW_FORMAT_DELIMITED = "ROW FORMAT DELIMITED";
     private final Pattern FIELDS_TERMINATED_BY = Pattern.compile("FIELDS TERMINATED BY (.*)");
     private final Pattern LINES_TERMINATED_BY = Pattern.compile("LINES TERMINATED BY (.*)");
@@ -33,6 +36,8 @@ public class BadTextFileDefFeature extends BaseFeature implements Feature {
     private final String ROW_FORMAT_SERDE = "ROW FORMAT SERDE";
     private final String LAZY_SERDE = "'org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe'";
 
+    private final Set<String> PREFIXES = new HashSet<>(Arrays.asList(ROW_FORMAT_DELIMITED, WITH_SERDEPROPERTIES));
+
     @Override
     public Boolean applicable(EnvironmentTable envTable) {
         return applicable(envTable.getDefinition());
@@ -40,8 +45,18 @@ public class BadTextFileDefFeature extends BaseFeature implements Feature {
 
     @Override
     public Boolean applicable(List<String> schema) {
+        return applicable(new DefinitionIndex(schema, this));
+    }
+
+    @Override
+    public Set<String> getPrefixes() {
+        return PREFIXES;
+    }
+
+    @Override
+    public Boolean applicable(DefinitionIndex index) {
         Boolean rtn = Boolean.FALSE;
-        if (contains(ROW_FORMAT_DELIMITED, schema) && contains(WITH_SERDEPROPERTIES, schema)) {
+        if (index.contains(ROW_FORMAT_DELIMITED) && index.contains(WITH_SERDEPROPERTIES)) {
             rtn = Boolean.TRUE;
         }
         return rtn;
@@ -52,6 +67,12 @@ public class BadTextFileDefFeature extends BaseFeature implements Feature {
         return fixSchema(envTable.getDefinition());
     }
 
+    @Override
+    public Boolean fixSchema(List<String> schema) {
+        DefinitionIndex index = new DefinitionIndex(schema, this);
+        return applicable(index) ? fixSchema(index) : Boolean.FALSE;
+    }
+
     @Override
     /*
      ROW FORMAT DELIMITED
@@ -64,40 +85,33 @@ public class BadTextFileDefFeature extends BaseFeature implements Feature {
      OUTPUTFORMAT
      'org.apache.hadoop.hive.ql.io.HiveIgnoreKeyTextOutputFormat'
      */
-    public Boolean fixSchema(List<String> schema) {
-        if (applicable(schema)) {
-//            schema = addEscaped(schema);
-            log.debug("Checking if table has OLD TEXTFILE definition");
-            // find the index of the ROW_FORMAT_DELIMITED
-            if (contains(ROW_FORMAT_DELIMITED, schema) && contains(WITH_SERDEPROPERTIES, schema)) {
-                // Bad Definition.
-                // Get the value for FIELDS_TERMINATED_BY
-                String ftb = getGroupFor(FIELDS_TERMINATED_BY, schema);
-                if (ftb.equals("\f")) {
-                    // Convert to O
-                    ftb = "\014";
-                }
-                // Get the value for LINES_TERMINATED_BY
-                String ltb = getGroupFor(LINES_TERMINATED_BY, schema);
-                // Remove bad elements
-                int RFD = indexOf(schema, ROW_FORMAT_DELIMITED);
-                int WS = indexOf(schema, WITH_SERDEPROPERTIES);
-                removeRange(RFD, WS, schema);
-
-                schema.add(RFD++, ROW_FORMAT_SERDE);
-                schema.add(RFD++, LAZY_SERDE);
-                RFD++;
-                if (ftb != null) {
-                    schema.add(RFD++, "'field.delim'=" + ftb + ",");
-                }
-                if (ltb != null) {
-                    schema.add(RFD++, "'line.delim'=" + ltb + ",");
-                }
-            }
-            return Boolean.TRUE;
-        } else {
-            return Boolean.FALSE;
+    public Boolean fixSchema(DefinitionIndex index) {
+        log.debug("Table has OLD TEXTFILE definition");
+        List<String> schema = index.getDefinition();
+        // Bad Definition (see applicable).
+        // Get the value for FIELDS_TERMINATED_BY
+        String ftb = index.getGroupFor(FIELDS_TERMINATED_BY);
+        if (ftb.equals("\f")) {
+            // Convert to O
+            ftb = "\014";
+        }
+        // Get the value for LINES_TERMINATED_BY
+        String ltb = index.getGroupFor(LINES_TERMINATED_BY);
+        // Remove bad elements
+        int RFD = index.indexOf(ROW_FORMAT_DELIMITED);
+        int WS = index.indexOf(WITH_SERDEPROPERTIES);
+        removeRange(RFD, WS, schema);
+
+        schema.add(RFD++, ROW_FORMAT_SERDE);
+        schema.add(RFD++, LAZY_SERDE);
+        RFD++;
+        if (ftb != null) {
+            schema.add(RFD++, "'field.delim'=" + ftb + ",");
+        }
+        if (ltb != null) {
+            schema.add(RFD++, "'line.delim'=" + ltb + ",");
         }
+        return Boolean.TRUE;
     }
 
     public String getDescription() {
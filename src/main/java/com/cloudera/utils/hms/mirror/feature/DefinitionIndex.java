@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.feature;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The lookups the features make on a table definition, answered from a single pass over the lines.
+ * <p>
+ * The prefixes, patterns and tokens to index are given up front (see {@link IndexedFeature}).  A lookup for
+ * one that wasn't indexed falls back to scanning the definition, so the answers are always the same as the
+ * {@link BaseFeature} helpers.  The index is a snapshot: build a new one after the definition is changed.
+ */
+public class DefinitionIndex {
+
+    private final List<String> definition;
+    /*
+    First line that starts with the prefix (trimmed, case-insensitive), keyed by the upper case prefix.
+     */
+    private final Map<String, Integer> firstIndexes = new HashMap<>();
+    /*
+    The prefixes that were part of the pass, to tell the ones that weren't found from the ones not asked for.
+     */
+    private final Set<String> indexedPrefixes = new HashSet<>();
+    /*
+    Group 1 of the last line the pattern was found in.  Patterns don't override equals, so this is by instance.
+     */
+    private final Map<Pattern, String> lastGroups = new HashMap<>();
+    /*
+    Lines that contain the token (lower case), in order.
+     */
+    private final Map<String, List<Integer>> tokenLines = new HashMap<>();
+
+    public DefinitionIndex(List<String> definition, IndexedFeature feature) {
+        this(definition, feature.getPrefixes(), feature.getPatterns(), feature.getTokens());
+    }
+
+    public DefinitionIndex(List<String> definition, Collection<String> prefixes, Collection<Pattern> patterns,
+                           Collection<String> tokens) {
+        this.definition = definition;
+        prefixes.forEach(p -> indexedPrefixes.add(p.toUpperCase(Locale.ROOT)));
+        String[] upperPrefixes = indexedPrefixes.toArray(new String[0]);
+        String[] lowerTokens = tokens.stream().map(t -> t.toLowerCase(Locale.ROOT)).distinct()
+                .toArray(String[]::new);
+        Pattern[] indexPatterns = patterns.toArray(new Pattern[0]);
+        for (String token : lowerTokens) {
+            tokenLines.put(token, new ArrayList<>());
+        }
+        for (Pattern pattern : indexPatterns) {
+            lastGroups.put(pattern, null);
+        }
+
+        for (int i = 0; i < definition.size(); i++) {
+            String line = definition.get(i);
+            if (upperPrefixes.length > 0 && firstIndexes.size() < upperPrefixes.length) {
+                String normalized = line.trim().toUpperCase(Locale.ROOT);
+                for (String prefix : upperPrefixes) {
+                    if (normalized.startsWith(prefix)) {
+                        firstIndexes.putIfAbsent(prefix, i);
+                    }
+                }
+            }
+            if (lowerTokens.length > 0) {
+                String lower = line.toLowerCase(Locale.ROOT);
+                for (String token : lowerTokens) {
+                    if (lower.contains(token)) {
+                        tokenLines.get(token).add(i);
+                    }
+                }
+            }
+            for (Pattern pattern : indexPatterns) {
+                Matcher m = pattern.matcher(line);
+                if (m.find()) {
+                    lastGroups.put(pattern, m.group(1));
+                }
+            }
+        }
+    }
+
+    public List<String> getDefinition() {
+        return definition;
+    }
+
+    public String get(int index) {
+        return definition.get(index);
+    }
+
+    public int size() {
+        return definition.size();
+    }
+
+    /**
+     * The first line that starts with the prefix, ignoring case and leading whitespace.
+     *
+     * @return the line index, or -1 when there isn't one
+     */
+    public int indexOf(String prefix) {
+        String upperPrefix = prefix.toUpperCase(Locale.ROOT);
+        Integer rtn = firstIndexes.get(upperPrefix);
+        if (rtn != null) {
+            return rtn;
+        }
+        // Not found in the pass, or not indexed.  Only scan for the latter.
+        if (indexedPrefixes.contains(upperPrefix)) {
+            return -1;
+        }
+        for (int i = 0; i < definition.size(); i++) {
+            if (definition.get(i).trim().toUpperCase(Locale.ROOT).startsWith(upperPrefix)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(String prefix) {
+        return indexOf(prefix) > -1;
+    }
+
+    /**
+     * Group 1 of the last line the pattern is found in.
+     */
+    public String getGroupFor(Pattern pattern) {
+        if (lastGroups.containsKey(pattern)) {
+            return lastGroups.get(pattern);
+        }
+        String rtn = null;
+        for (String line : definition) {
+            Matcher m = pattern.matcher(line);
+            if (m.find()) {
+                rtn = m.group(1);
+            }
+        }
+        return rtn;
+    }
+
+    /**
+     * The lines that contain the token, ignoring case.
+     */
+    public List<Integer> linesContaining(String token) {
+        String lowerToken = token.toLowerCase(Locale.ROOT);
+        List<Integer> rtn = tokenLines.get(lowerToken);
+        if (rtn == null) {
+            rtn = new ArrayList<>();
+            for (int i = 0; i < definition.size(); i++) {
+                if (definition.get(i).toLowerCase(Locale.ROOT).contains(lowerToken)) {
+                    rtn.add(i);
+                }
+            }
+        }
+        return Collections.unmodifiableList(rtn);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.feature;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the features over a table definition with one pass for the checks.
+ * <p>
+ * The prefixes, patterns and tokens of all the {@link IndexedFeature}s are gathered when the engine is built, and a
+ * single {@link DefinitionIndex} answers all their checks.  The fixes of the applicable features are applied in
+ * the feature order, and are given the index the check was made on, so they don't check the definition again.
+ * A fix changes the definition, so the index is rebuilt only after one is applied.  That keeps the results the
+ * same as checking and fixing each feature in turn, which is what the common case (no feature applies) costs one
+ * pass for.
+ * <p>
+ * Features that don't implement {@link IndexedFeature} still run, in order, with their own checks.
+ */
+@Slf4j
+public class FeatureEngine {
+
+    private static FeatureEngine defaultEngine = null;
+
+    private final Map<String, Feature> features;
+    private final Set<String> prefixes = new HashSet<>();
+    private final Set<Pattern> patterns = new HashSet<>();
+    private final Set<String> tokens = new HashSet<>();
+
+    /**
+     * @param features the features by name, in the order to apply them
+     */
+    public FeatureEngine(Map<String, Feature> features) {
+        this.features = new LinkedHashMap<>(features);
+        for (Feature feature : this.features.values()) {
+            if (feature instanceof IndexedFeature) {
+                IndexedFeature indexedFeature = (IndexedFeature) feature;
+                prefixes.addAll(indexedFeature.getPrefixes());
+                patterns.addAll(indexedFeature.getPatterns());
+                tokens.addAll(indexedFeature.getTokens());
+            }
+        }
+    }
+
+    /**
+     * The {@link FeaturesEnum} features, followed by any registered through the {@link ServiceLoader} for
+     * {@link Feature}.
+     */
+    public static synchronized FeatureEngine getDefault() {
+        if (defaultEngine == null) {
+            Map<String, Feature> features = new LinkedHashMap<>();
+            for (FeaturesEnum featuresEnum : FeaturesEnum.values()) {
+                features.put(featuresEnum.toString(), featuresEnum.getFeature());
+            }
+            for (Feature feature : ServiceLoader.load(Feature.class)) {
+                log.info("Registering custom feature: {}", feature.getClass().getName());
+                features.putIfAbsent(feature.getClass().getSimpleName(), feature);
+            }
+            defaultEngine = new FeatureEngine(features);
+        }
+        return defaultEngine;
+    }
+
+    public Map<String, Feature> getFeatures() {
+        return Collections.unmodifiableMap(features);
+    }
+
+    public DefinitionIndex index(List<String> definition) {
+        return new DefinitionIndex(definition, prefixes, patterns, tokens);
+    }
+
+    /**
+     * Check the definition against the features and apply the fixes of those that are applicable.
+     *
+     * @return the applied features by name, in the order they were applied
+     */
+    public Map<String, Feature> apply(List<String> definition) {
+        Map<String, Feature> rtn = new LinkedHashMap<>();
+        DefinitionIndex index = index(definition);
+        for (Map.Entry<String, Feature> entry : features.entrySet()) {
+            Feature feature = entry.getValue();
+            boolean fixed;
+            if (feature instanceof IndexedFeature) {
+                IndexedFeature indexedFeature = (IndexedFeature) feature;
+                fixed = indexedFeature.applicable(index) && indexedFeature.fixSchema(index);
+            } else {
+                fixed = feature.fixSchema(definition);
+            }
+            if (fixed) {
+                log.debug("Feature applied: {}", entry.getKey());
+                rtn.put(entry.getKey(), feature);
+                index = index(definition);
+            }
+        }
+        return rtn;
+    }
+
+}
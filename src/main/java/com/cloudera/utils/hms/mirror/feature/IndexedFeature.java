@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.feature;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link Feature} that can check a definition from a shared {@link DefinitionIndex}, so the {@link FeatureEngine}
+ * checks all the features in one pass over the definition.
+ * <p>
+ * Declare the line prefixes, patterns and tokens the check looks up.  Custom features can implement this and
+ * register with the engine through 'META-INF/services/com.cloudera.utils.hms.mirror.feature.Feature'.
+ */
+public interface IndexedFeature extends Feature {
+
+    /**
+     * Line prefixes (see {@link DefinitionIndex#indexOf(String)}) the check looks up.
+     */
+    default Set<String> getPrefixes() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Patterns (see {@link DefinitionIndex#getGroupFor(Pattern)}) the check looks up.
+     */
+    default Set<Pattern> getPatterns() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Tokens (see {@link DefinitionIndex#linesContaining(String)}) the check looks up.
+     */
+    default Set<String> getTokens() {
+        return Collections.emptySet();
+    }
+
+    Boolean applicable(DefinitionIndex index);
+
+    /**
+     * Apply the fix to the index's definition, once {@link #applicable(DefinitionIndex)} has passed on the same
+     * index, so the check isn't made again.  The default runs {@link #fixSchema(java.util.List)}, which checks the
+     * definition again before fixing it.
+     */
+    default Boolean fixSchema(DefinitionIndex index) {
+        return fixSchema(index.getDefinition());
+    }
+
+}
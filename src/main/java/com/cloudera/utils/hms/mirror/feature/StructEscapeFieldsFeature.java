@@ -20,7 +20,11 @@ package com.cloudera.utils.hms.mirror.feature;
 import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /*
 Review the fields of a table for "key/reserved" words.  If they are present, check to see if they've been
@@ -28,7 +32,7 @@ escaped and if not escape the field name and post a WARNING that a reserved work
 field definition.
  */
 @Slf4j
-public class StructEscapeFieldsFeature extends BaseFeature implements Feature {
+public class StructEscapeFieldsFeature extends BaseFeature implements IndexedFeature {
     private final String CREATE = "CREATE";
     private final String PARTITIONED_BY = "PARTITIONED BY";
     private final String CLUSTERED_BY = "CLUSTERED BY";
@@ -38,6 +42,11 @@ public class StructEscapeFieldsFeature extends BaseFeature implements Feature {
     private final String ESCAPE = "`";
     private final String STRUCT = ".*?struct.*";
 
+    private final Set<String> PREFIXES = new HashSet<>(Arrays.asList(CREATE, PARTITIONED_BY, CLUSTERED_BY, SKEWED_BY,
+            ROW_FORMAT, STORED_AS));
+    // Lines with a struct type have to contain this.
+    private final Set<String> TOKENS = Collections.singleton("struct");
+
     @Override
     public Boolean applicable(EnvironmentTable envTable) {
         return applicable(envTable.getDefinition());
@@ -45,20 +54,41 @@ public class StructEscapeFieldsFeature extends BaseFeature implements Feature {
 
     @Override
     public Boolean applicable(List<String> schema) {
+        return applicable(new DefinitionIndex(schema, this));
+    }
+
+    @Override
+    public Set<String> getPrefixes() {
+        return PREFIXES;
+    }
+
+    @Override
+    public Set<String> getTokens() {
+        return TOKENS;
+    }
+
+    @Override
+    public Boolean applicable(DefinitionIndex index) {
         Boolean rtn = Boolean.FALSE;
-        int cIdx = indexOf(schema, CREATE);
-        int eIdx = indexOf(schema, PARTITIONED_BY);
+        int cIdx = index.indexOf(CREATE);
+        int eIdx = index.indexOf(PARTITIONED_BY);
         if (eIdx == -1)
-            eIdx = indexOf(schema, CLUSTERED_BY);
+            eIdx = index.indexOf(CLUSTERED_BY);
         if (eIdx == -1)
-            eIdx = indexOf(schema, SKEWED_BY);
+            eIdx = index.indexOf(SKEWED_BY);
         if (eIdx == -1)
-            eIdx = indexOf(schema, ROW_FORMAT);
+            eIdx = index.indexOf(ROW_FORMAT);
         if (eIdx == -1)
-            eIdx = indexOf(schema, STORED_AS);
+            eIdx = index.indexOf(STORED_AS);
 
-        for (int i = cIdx + 1; i < eIdx; i++) {
-            String checkValue = schema.get(i).toLowerCase();
+        for (int i : index.linesContaining("struct")) {
+            if (i <= cIdx) {
+                continue;
+            }
+            if (i >= eIdx) {
+                break;
+            }
+            String checkValue = index.get(i).toLowerCase();
             if (checkValue.matches(STRUCT)) {
                 // Found a Struct Type.
                 rtn = Boolean.TRUE;
@@ -70,33 +100,43 @@ public class StructEscapeFieldsFeature extends BaseFeature implements Feature {
 
     @Override
     public Boolean fixSchema(List<String> schema) {
-        if (applicable(schema)) {
-            int cIdx = indexOf(schema, CREATE);
-            int eIdx = indexOf(schema, PARTITIONED_BY);
-            if (eIdx == -1)
-                eIdx = indexOf(schema, CLUSTERED_BY);
-            if (eIdx == -1)
-                eIdx = indexOf(schema, SKEWED_BY);
-            if (eIdx == -1)
-                eIdx = indexOf(schema, ROW_FORMAT);
-            if (eIdx == -1)
-                eIdx = indexOf(schema, STORED_AS);
-
-            for (int i = cIdx + 1; i < eIdx; i++) {
-                if (schema.get(i).toLowerCase().matches(STRUCT)) {
-                    // Found a Struct Type.
-                    String[] fieldParts = schema.get(i).trim().split(" ");
-                    if (fieldParts.length == 2) {
-                        //
-                        String correctedType = fixStruct(fieldParts[1]);
-                        schema.set(i, fieldParts[0] + " " + correctedType);
-                    }
+        DefinitionIndex index = new DefinitionIndex(schema, this);
+        return applicable(index) ? fixSchema(index) : Boolean.FALSE;
+    }
+
+    @Override
+    public Boolean fixSchema(DefinitionIndex index) {
+        List<String> schema = index.getDefinition();
+        int cIdx = index.indexOf(CREATE);
+        int eIdx = index.indexOf(PARTITIONED_BY);
+        if (eIdx == -1)
+            eIdx = index.indexOf(CLUSTERED_BY);
+        if (eIdx == -1)
+            eIdx = index.indexOf(SKEWED_BY);
+        if (eIdx == -1)
+            eIdx = index.indexOf(ROW_FORMAT);
+        if (eIdx == -1)
+            eIdx = index.indexOf(STORED_AS);
+
+        // Only the lines with the token can be a struct.  Fixing one doesn't move the others.
+        for (int i : index.linesContaining("struct")) {
+            if (i <= cIdx) {
+                continue;
+            }
+            if (i >= eIdx) {
+                break;
+            }
+            if (schema.get(i).toLowerCase().matches(STRUCT)) {
+                // Found a Struct Type.
+                String[] fieldParts = schema.get(i).trim().split(" ");
+                if (fieldParts.length == 2) {
+                    //
+                    String correctedType = fixStruct(fieldParts[1]);
+                    schema.set(i, fieldParts[0] + " " + correctedType);
                 }
             }
-            return Boolean.TRUE;
-        } else {
-            return Boolean.FALSE;
         }
+        return Boolean.TRUE;
     }
 
     @Override
@@ -0,0 +1,505 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hive.config.QueryDefinitions;
+import com.cloudera.utils.hms.mirror.domain.Cluster;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.cloudera.utils.hms.mirror.domain.TransferConfig;
+import com.cloudera.utils.hms.mirror.domain.support.*;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/*
+Caches the catalog lookups that are repeated in a run, from the web pages and from one run to the next.
+
+- Table definitions (SHOW CREATE TABLE) are versioned with the table's 'transient_lastDdlTime' from the
+  metastore-direct connection (one query per database).  They're used for as long as the version matches, and can
+  be saved with the reports for the next run.
+- Databases (SHOW DATABASES) and database properties (DESCRIBE DATABASE), and table definitions without a
+  metastore-direct connection, aren't versioned.  They're only used in the session that loaded them, for the
+  'catalogCacheTtlSeconds'.
+- Anything hms-mirror runs against a table or database drops its entries (see the 'invalidate' methods).
+
+The unversioned entries of a session are dropped when it finishes, and the cache holds at most
+'catalogCacheMaxEntries' (the oldest go first), so a long running web service doesn't keep every session's lookups.
+
+Entries are keyed by the environment and its HS2 URI, so sessions for different clusters don't share them.
+ */
+@Service
+@Slf4j
+@Getter
+@Setter
+public class CatalogCacheService {
+
+    public static final String TABLE_DDL_TIMES_QUERY = "database_table_ddl_times";
+    public static final String CACHE_FILE = "catalog-cache.yaml";
+
+    private static final String DATABASES = "databases";
+    private static final String DATABASE = "database";
+    private static final String TABLE = "table";
+
+    /*
+    Loads the value when it isn't cached.
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    private final ConfigService configService;
+    private final ExecuteSessionService executeSessionService;
+    private final QueryDefinitionsService queryDefinitionsService;
+    private final ObjectMapper yamlMapper;
+
+    private final Map<String, CatalogCacheEntry> entries = new ConcurrentHashMap<>();
+    /*
+    The last DDL time of the tables in a database, loaded once per session.  Keyed by the session and the
+    database key.
+     */
+    private final Map<String, Map<String, String>> tableVersions = new ConcurrentHashMap<>();
+
+    private Clock clock = Clock.systemUTC();
+
+    public CatalogCacheService(ConfigService configService,
+                               ExecuteSessionService executeSessionService,
+                               QueryDefinitionsService queryDefinitionsService,
+                               ObjectMapper yamlMapper) {
+        this.configService = configService;
+        this.executeSessionService = executeSessionService;
+        this.queryDefinitionsService = queryDefinitionsService;
+        this.yamlMapper = yamlMapper;
+    }
+
+    protected boolean isEnabled(ExecuteSession session) {
+        HmsMirrorConfig config = isNull(session) ? null : session.getConfig();
+        return nonNull(config) && nonNull(config.getOptimization()) && config.getOptimization().isCatalogCache()
+                && !config.isLoadingTestData();
+    }
+
+    protected CatalogCacheStatistics getStatistics(ExecuteSession session) {
+        RunStatus runStatus = session.getRunStatus();
+        // Not counted without a run status to count them on.
+        return isNull(runStatus) ? new CatalogCacheStatistics() : runStatus.getOperationStatistics().getCatalogCache();
+    }
+
+    protected String environmentKey(HmsMirrorConfig config, Environment environment) {
+        Cluster cluster = config.getCluster(environment);
+        String uri = (nonNull(cluster) && nonNull(cluster.getHiveServer2()))
+                ? cluster.getHiveServer2().getUri() : null;
+        return environment + "|" + (isNull(uri) ? "" : uri);
+    }
+
+    protected String databaseKey(HmsMirrorConfig config, Environment environment, String database) {
+        return environmentKey(config, environment) + "|" + DATABASE + "|" + database.toLowerCase(Locale.ROOT);
+    }
+
+    protected String tableKey(HmsMirrorConfig config, Environment environment, String database, String table) {
+        return environmentKey(config, environment) + "|" + TABLE + "|" + database.toLowerCase(Locale.ROOT)
+                + "." + table.toLowerCase(Locale.ROOT);
+    }
+
+    public List<String> getDatabases(Environment environment, Loader<List<String>> loader) throws SQLException {
+        ExecuteSession session = executeSessionService.getSession();
+        if (!isEnabled(session)) {
+            return loader.load();
+        }
+        String key = environmentKey(session.getConfig(), environment) + "|" + DATABASES;
+        CatalogCacheEntry entry = lookup(session, key, null);
+        if (nonNull(entry)) {
+            return new ArrayList<>(entry.getLines());
+        }
+        List<String> rtn = loader.load();
+        // There's always at least the 'default' database, so an empty list is a failed lookup.
+        if (nonNull(rtn) && !rtn.isEmpty()) {
+            CatalogCacheEntry newEntry = newEntry(session, null);
+            newEntry.setLines(new ArrayList<>(rtn));
+            put(session, key, newEntry);
+        }
+        return rtn;
+    }
+
+    public Map<String, String> getDatabaseProperties(Environment environment, String database,
+                                                     Loader<Map<String, String>> loader) throws SQLException {
+        ExecuteSession session = executeSessionService.getSession();
+        if (!isEnabled(session)) {
+            return loader.load();
+        }
+        String key = databaseKey(session.getConfig(), environment, database);
+        CatalogCacheEntry entry = lookup(session, key, null);
+        if (nonNull(entry)) {
+            return new TreeMap<>(entry.getProperties());
+        }
+        Map<String, String> rtn = loader.load();
+        // Null when the database doesn't exist (yet).
+        if (nonNull(rtn)) {
+            CatalogCacheEntry newEntry = newEntry(session, null);
+            newEntry.setProperties(new TreeMap<>(rtn));
+            put(session, key, newEntry);
+        }
+        return rtn;
+    }
+
+    public List<String> getTableDefinition(Environment environment, String database, String table,
+                                           Loader<List<String>> loader) throws SQLException {
+        ExecuteSession session = executeSessionService.getSession();
+        if (!isEnabled(session)) {
+            return loader.load();
+        }
+        String key = tableKey(session.getConfig(), environment, database, table);
+        String version = getTableVersion(session, environment, database, table);
+        CatalogCacheEntry entry = lookup(session, key, version);
+        if (nonNull(entry)) {
+            return new ArrayList<>(entry.getLines());
+        }
+        List<String> rtn = loader.load();
+        // An empty definition is a failed fetch, not something to reuse.
+        if (nonNull(rtn) && !rtn.isEmpty()) {
+            CatalogCacheEntry newEntry = newEntry(session, version);
+            newEntry.setLines(new ArrayList<>(rtn));
+            put(session, key, newEntry);
+        }
+        return rtn;
+    }
+
+    protected void put(ExecuteSession session, String key, CatalogCacheEntry entry) {
+        entries.put(key, entry);
+        trim(session);
+    }
+
+    /*
+    Over 'catalogCacheMaxEntries', drop the oldest entries down to 90% of it, so this doesn't sort on every put.
+     */
+    protected synchronized void trim(ExecuteSession session) {
+        int max = session.getConfig().getOptimization().getCatalogCacheMaxEntries();
+        if (max <= 0 || entries.size() <= max) {
+            return;
+        }
+        List<Map.Entry<String, CatalogCacheEntry>> oldest = new ArrayList<>(entries.entrySet());
+        oldest.sort(Comparator.comparingLong(e -> e.getValue().getCreated()));
+        int drop = oldest.size() - (max - max / 10);
+        long count = 0;
+        for (int i = 0; i < drop; i++) {
+            if (entries.remove(oldest.get(i).getKey(), oldest.get(i).getValue())) {
+                count++;
+            }
+        }
+        log.debug("Dropped the {} oldest catalog cache entries", count);
+    }
+
+    protected CatalogCacheEntry newEntry(ExecuteSession session, String version) {
+        CatalogCacheEntry rtn = new CatalogCacheEntry();
+        rtn.setSessionId(session.getSessionId());
+        rtn.setCreated(clock.millis());
+        rtn.setVersion(version);
+        return rtn;
+    }
+
+    /*
+    The entry, if it's still good.  With a version, it has to match.  Without one, it has to be from this session
+    and inside the time to live.
+     */
+    protected CatalogCacheEntry lookup(ExecuteSession session, String key, String version) {
+        CatalogCacheStatistics statistics = getStatistics(session);
+        CatalogCacheEntry entry = entries.get(key);
+        if (isNull(entry)) {
+            statistics.incrementMisses();
+            return null;
+        }
+        boolean current;
+        if (nonNull(version) && nonNull(entry.getVersion())) {
+            current = version.equals(entry.getVersion());
+        } else {
+            long ttl = session.getConfig().getOptimization().getCatalogCacheTtlSeconds() * 1000L;
+            current = Objects.equals(session.getSessionId(), entry.getSessionId())
+                    && clock.millis() - entry.getCreated() < ttl;
+        }
+        if (!current) {
+            entries.remove(key, entry);
+            statistics.incrementStale();
+            statistics.incrementMisses();
+            return null;
+        }
+        statistics.incrementHits();
+        return entry;
+    }
+
+    /*
+    The table's last DDL time, from the metastore-direct connection.  Null when there isn't one to check against.
+     */
+    protected String getTableVersion(ExecuteSession session, Environment environment, String database, String table) {
+        if (!configService.isMetastoreDirectConfigured(session, environment)) {
+            return null;
+        }
+        String versionsKey = session.getSessionId() + "|" + databaseKey(session.getConfig(), environment, database);
+        Map<String, String> versions = tableVersions.computeIfAbsent(versionsKey,
+                k -> loadTableVersions(environment, database));
+        return versions.get(table.toLowerCase(Locale.ROOT));
+    }
+
+    protected Map<String, String> loadTableVersions(Environment environment, String database) {
+        Map<String, String> rtn = new ConcurrentHashMap<>();
+        QueryDefinitions queryDefinitions = queryDefinitionsService.getQueryDefinitions(environment);
+        if (isNull(queryDefinitions) || isNull(queryDefinitions.getQueryDefinition(TABLE_DDL_TIMES_QUERY))) {
+            log.info("No '{}' query for {}.  Table definitions won't be versioned.", TABLE_DDL_TIMES_QUERY, environment);
+            return rtn;
+        }
+        try {
+            queryDefinitionsService.queryDatabaseAttributesDirect(environment, database, TABLE_DDL_TIMES_QUERY,
+                    resultSet -> {
+                        String version = resultSet.getString(2);
+                        if (nonNull(version)) {
+                            rtn.put(resultSet.getString(1).toLowerCase(Locale.ROOT), version);
+                        }
+                    });
+            log.debug("Loaded {} table versions for {}:{}", rtn.size(), environment, database);
+        } catch (SQLException throwables) {
+            log.error("Issue loading table versions from Metastore Direct Connection. {}:{}", environment, database,
+                    throwables);
+        }
+        return rtn;
+    }
+
+    public void invalidateTable(Environment environment, TableMirror tableMirror) {
+        ExecuteSession session = executeSessionService.getSession();
+        if (!isEnabled(session) || isNull(tableMirror.getParent())) {
+            return;
+        }
+        String database = (environment == Environment.LEFT)
+                ? tableMirror.getParent().getName()
+                : HmsMirrorConfigUtil.getResolvedDB(tableMirror.getParent().getName(), session.getConfig());
+        invalidateTable(environment, database, tableMirror.getName());
+    }
+
+    /*
+    Something was run against the table.  Drops its definition, and those of the tables named after it (see
+    getWorkingTableNames).  Their versions are dropped too, so the new definitions are only
+    kept for this session.
+     */
+    public void invalidateTable(Environment environment, String database, String table) {
+        ExecuteSession session = executeSessionService.getSession();
+        if (!isEnabled(session)) {
+            return;
+        }
+        HmsMirrorConfig config = session.getConfig();
+        String tablePrefix = environmentKey(config, environment) + "|" + TABLE + "|"
+                + database.toLowerCase(Locale.ROOT) + ".";
+        Set<String> names = getWorkingTableNames(config, table);
+        long count = 0;
+        for (String name : names) {
+            if (nonNull(entries.remove(tablePrefix + name))) {
+                count++;
+            }
+        }
+        Map<String, String> versions = tableVersions.get(session.getSessionId() + "|"
+                + databaseKey(config, environment, database));
+        if (nonNull(versions)) {
+            versions.keySet().removeIf(names::contains);
+        }
+        getStatistics(session).addInvalidations(count);
+    }
+
+    /*
+    The table and the tables named after it: the transfer and shadow tables, the storage migration table and the
+    archive left by the in-place and export/import strategies.  Lower case, like the keys.
+     */
+    protected static Set<String> getWorkingTableNames(HmsMirrorConfig config, String table) {
+        String name = table.toLowerCase(Locale.ROOT);
+        Set<String> rtn = new HashSet<>();
+        rtn.add(name);
+        rtn.add(name + "_archive");
+        TransferConfig transfer = config.getTransfer();
+        if (nonNull(transfer)) {
+            if (nonNull(transfer.getTransferPrefix())) {
+                rtn.add(transfer.getTransferPrefix().toLowerCase(Locale.ROOT) + name);
+            }
+            if (nonNull(transfer.getShadowPrefix())) {
+                rtn.add(transfer.getShadowPrefix().toLowerCase(Locale.ROOT) + name);
+            }
+            if (nonNull(transfer.getStorageMigrationPostfix())) {
+                rtn.add(name + transfer.getStorageMigrationPostfix().toLowerCase(Locale.ROOT));
+            }
+        }
+        return rtn;
+    }
+
+    /*
+    Something was run against the database.  Drops its properties and the list of databases, and its tables when
+    the database was dropped.
+     */
+    public void invalidateDatabase(Environment environment, String database, boolean tables) {
+        ExecuteSession session = executeSessionService.getSession();
+        if (!isEnabled(session)) {
+            return;
+        }
+        HmsMirrorConfig config = session.getConfig();
+        String databaseKey = databaseKey(config, environment, database);
+        String databasesKey = environmentKey(config, environment) + "|" + DATABASES;
+        String tablePrefix = environmentKey(config, environment) + "|" + TABLE + "|"
+                + database.toLowerCase(Locale.ROOT) + ".";
+        long count = 0;
+        Iterator<String> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (key.equals(databaseKey) || key.equals(databasesKey) || (tables && key.startsWith(tablePrefix))) {
+                keys.remove();
+                count++;
+            }
+        }
+        if (tables) {
+            tableVersions.remove(session.getSessionId() + "|" + databaseKey);
+        }
+        getStatistics(session).addInvalidations(count);
+    }
+
+    public void invalidateAll() {
+        ExecuteSession session = executeSessionService.getSession();
+        long count = entries.size();
+        entries.clear();
+        tableVersions.clear();
+        if (isEnabled(session)) {
+            getStatistics(session).addInvalidations(count);
+        }
+    }
+
+    /*
+    At the end of a run.  Saves the cache when asked to, and lets go of the session's table versions and the
+    entries no other session can use.
+     */
+    public void finish() {
+        ExecuteSession session = executeSessionService.getSession();
+        if (!isEnabled(session)) {
+            return;
+        }
+        CatalogCacheStatistics statistics = getStatistics(session);
+        log.info("Catalog cache: {} hits, {} misses ({} stale), {} invalidations, {} loaded",
+                statistics.getHits(), statistics.getMisses(), statistics.getStale(), statistics.getInvalidations(),
+                statistics.getLoaded());
+        persist();
+        String sessionId = session.getSessionId();
+        entries.values().removeIf(entry -> isNull(entry.getVersion())
+                && Objects.equals(sessionId, entry.getSessionId()));
+        String prefix = sessionId + "|";
+        tableVersions.keySet().removeIf(k -> k.startsWith(prefix));
+    }
+
+    /*
+    Save the versioned entries with the reports.  The others can't be checked by the next run.
+     */
+    public void persist() {
+        ExecuteSession session = executeSessionService.getSession();
+        HmsMirrorConfig config = session.getConfig();
+        if (!isEnabled(session) || !config.getOptimization().isPersistCatalogCache()
+                || isNull(config.getFinalOutputDirectory())) {
+            return;
+        }
+        Map<String, CatalogCacheEntry> versioned = new TreeMap<>();
+        entries.forEach((k, v) -> {
+            if (nonNull(v.getVersion())) {
+                versioned.put(k, v);
+            }
+        });
+        File cacheFile = new File(config.getFinalOutputDirectory(), CACHE_FILE);
+        try {
+            yamlMapper.writeValue(cacheFile, versioned);
+            log.info("Saved {} catalog cache entries to {}", versioned.size(), cacheFile);
+        } catch (IOException e) {
+            log.error("Issue saving the catalog cache to {}", cacheFile, e);
+        }
+    }
+
+    /*
+    Start with the entries saved by the most recent run in the output directory.
+     */
+    public void load() {
+        ExecuteSession session = executeSessionService.getSession();
+        HmsMirrorConfig config = session.getConfig();
+        if (!isEnabled(session) || !config.getOptimization().isPersistCatalogCache()
+                || isNull(config.getOutputDirectory())) {
+            return;
+        }
+        File cacheFile = findLatestCacheFile(new File(config.getOutputDirectory()));
+        if (isNull(cacheFile)) {
+            log.info("No saved catalog cache found in {}", config.getOutputDirectory());
+            return;
+        }
+        try {
+            Map<String, CatalogCacheEntry> saved = yamlMapper.readValue(cacheFile,
+                    new TypeReference<Map<String, CatalogCacheEntry>>() {
+                    });
+            long count = 0;
+            for (Map.Entry<String, CatalogCacheEntry> entry : saved.entrySet()) {
+                if (nonNull(entry.getValue().getVersion()) && isNull(entries.putIfAbsent(entry.getKey(), entry.getValue()))) {
+                    count++;
+                }
+            }
+            getStatistics(session).addLoaded(count);
+            trim(session);
+            log.info("Loaded {} catalog cache entries from {}", count, cacheFile);
+        } catch (IOException e) {
+            log.error("Issue loading the catalog cache from {}", cacheFile, e);
+        }
+    }
+
+    /*
+    The report directories are the output directory itself (when set by the user, with '_n' siblings for the runs
+    after the first) or the session directories in it.
+     */
+    protected File findLatestCacheFile(File outputDirectory) {
+        List<File> candidates = new ArrayList<>();
+        candidates.add(new File(outputDirectory, CACHE_FILE));
+        File[] sessionDirs = outputDirectory.listFiles(File::isDirectory);
+        if (nonNull(sessionDirs)) {
+            for (File dir : sessionDirs) {
+                candidates.add(new File(dir, CACHE_FILE));
+            }
+        }
+        File parent = outputDirectory.getParentFile();
+        if (nonNull(parent)) {
+            File[] siblings = parent.listFiles(f -> f.isDirectory()
+                    && f.getName().startsWith(outputDirectory.getName() + "_"));
+            if (nonNull(siblings)) {
+                for (File dir : siblings) {
+                    candidates.add(new File(dir, CACHE_FILE));
+                }
+            }
+        }
+        File rtn = null;
+        for (File candidate : candidates) {
+            if (candidate.isFile() && (isNull(rtn) || candidate.lastModified() > rtn.lastModified())) {
+                rtn = candidate;
+            }
+        }
+        return rtn;
+    }
+}
@@ -32,6 +32,8 @@ import com.cloudera.utils.hms.mirror.domain.support.*;
 import com.cloudera.utils.hms.mirror.exceptions.EncryptionException;
 import com.cloudera.utils.hms.mirror.exceptions.SessionException;
 import com.cloudera.utils.hms.util.ConfigUtils;
+import com.cloudera.utils.hms.util.DriverUtils;
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -57,10 +59,11 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 @Slf4j
 public class ConnectionPoolService {
 
-    private boolean connected = false;
-
+    /*
+    The session for the threads that aren't bound to one (see SessionContext).  The connection pools are kept on
+    each session, so sessions running at the same time don't share them.
+     */
     private ExecuteSession executeSession;
-    private ConnectionPools connectionPools = null;
     private final EnvironmentService environmentService;
     private final CliEnvironment cliEnvironment;
     private final ConfigService configService;
@@ -92,42 +95,84 @@ public class ConnectionPoolService {
     }
 
     public ExecuteSession getExecuteSession() throws SessionException {
+        ExecuteSession bound = SessionContext.current();
+        if (nonNull(bound)) {
+            return bound;
+        }
         if (isNull(executeSession)) {
             throw new SessionException("Session hasn't been set in ConnectionPoolService");// = executeSessionService.getSession();
         }
         return executeSession;
     }
 
+    /*
+    The HS2 connections of the session have been validated.
+     */
+    public boolean isConnected() {
+        try {
+            return getExecuteSession().isHs2Connected();
+        } catch (SessionException e) {
+            return false;
+        }
+    }
+
     public void close() {
+        ExecuteSession session;
+        try {
+            session = getExecuteSession();
+        } catch (SessionException e) {
+            return;
+        }
+        ConnectionPools connectionPools = session.getConnectionPools();
         if (nonNull(connectionPools)) {
             // Set State of Connection.
-            connected = false;
-            getConnectionPools().close();
-            try {
-                getExecuteSession().setConnected(Boolean.FALSE);
-            } catch (SessionException e) {
-                throw new RuntimeException(e);
-            }
+            session.setHs2Connected(Boolean.FALSE);
+            connectionPools.close();
+            session.setConnected(Boolean.FALSE);
             // Set to null to allow for reset.
-            connectionPools = null;
+            session.setConnectionPools(null);
+        }
+    }
+
+    /*
+    App shutdown.  Close the pools and then the cached JDBC driver classloaders, which nothing can use anymore.
+     */
+    @PreDestroy
+    public void shutdown() {
+        close();
+        evictUnusedDrivers();
+    }
+
+    /*
+    Drop the cached JDBC driver classloaders that no connection pool holds.  Only called once the pools that
+    replace a closed set have taken their drivers, so an unchanged jar/driver config keeps its classloader.
+     */
+    protected void evictUnusedDrivers() {
+        int evicted = DriverUtils.evictUnusedDrivers();
+        if (evicted > 0) {
+            log.info("Evicted {} unused JDBC driver classloader(s)", evicted);
         }
     }
 
     public ConnectionPools getConnectionPools() {
-        if (isNull(connectionPools)) {
-            try {
-                connectionPools = getConnectionPoolsImpl();
-            } catch (SQLException | SessionException e) {
-                log.error("Error creating connections pools", e);
-//                throw new RuntimeException(e);
+        try {
+            ExecuteSession session = getExecuteSession();
+            synchronized (session) {
+                if (isNull(session.getConnectionPools())) {
+                    session.setConnectionPools(getConnectionPoolsImpl(session));
+                }
+                return session.getConnectionPools();
             }
+        } catch (SQLException | SessionException e) {
+            log.error("Error creating connections pools", e);
+//                throw new RuntimeException(e);
         }
-        return connectionPools;
+        return null;
     }
 
-    private ConnectionPools getConnectionPoolsImpl() throws SQLException, SessionException {
+    private ConnectionPools getConnectionPoolsImpl(ExecuteSession executeSession) throws SQLException, SessionException {
         ConnectionPools rtn = null;
-        HmsMirrorConfig config = getExecuteSession().getConfig();
+        HmsMirrorConfig config = executeSession.getConfig();
 
         if (isNull(config)) {
             log.error("Configuration not set.  Connections can't be established.");
@@ -225,6 +270,8 @@ public class ConnectionPoolService {
 //        getConnectionPools().init();
 
         rtn = initHS2();
+        // The previous pools were closed above and the new ones hold their drivers now.
+        evictUnusedDrivers();
         boolean msRtn = initMetastoreDirect();
         boolean nsRtn = initHcfsNamespaces();
 
@@ -431,7 +478,7 @@ public class ConnectionPoolService {
 
         HmsMirrorConfig config = session.getConfig();
 
-        RunStatus runStatus = executeSession.getRunStatus();
+        RunStatus runStatus = session.getRunStatus();
 
         try {
             Environment[] hs2Envs = {Environment.LEFT, Environment.RIGHT};
@@ -519,7 +566,7 @@ public class ConnectionPoolService {
         }
 
         // Set state of connections.
-        connected = rtn;
+        session.setHs2Connected(rtn);
         return rtn;
     }
 
@@ -35,6 +35,8 @@ import com.cloudera.utils.hms.util.NamespaceUtils;
 import com.cloudera.utils.hms.util.TableUtils;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.net.URISyntaxException;
@@ -42,6 +44,8 @@ import java.sql.*;
 import java.sql.Connection;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
@@ -68,6 +72,10 @@ public class DatabaseService {
     private final QueryDefinitionsService queryDefinitionsService;
     private final WarehouseService warehouseService;
     private final ConfigService configService;
+    private final RateLimiterService rateLimiterService;
+    private final SqlResilienceService sqlResilienceService;
+    private final CatalogCacheService catalogCacheService;
+    private final TaskExecutor metadataThreadPool;
 
     public static final Set<String> skipList = new HashSet<String>(Arrays.asList(DB_LOCATION, DB_MANAGED_LOCATION, COMMENT, DB_NAME, OWNER_NAME, OWNER_TYPE));
 
@@ -79,17 +87,29 @@ public class DatabaseService {
      * @param connectionPoolService   Service for managing connection pools
      * @param queryDefinitionsService Service for query definitions
      * @param warehouseService        Service for warehouse operations
+     * @param rateLimiterService      Service for rate limiting the catalog calls
+     * @param sqlResilienceService    Service for the timeouts, retries and circuit breaking of the HS2 statements
+     * @param catalogCacheService     Service for caching the catalog lookups
+     * @param metadataThreadPool      The pool the database sources are loaded on
      */
     public DatabaseService(ConfigService configService,
                            ExecuteSessionService executeSessionService,
                            ConnectionPoolService connectionPoolService,
                            QueryDefinitionsService queryDefinitionsService,
-                           WarehouseService warehouseService) {
+                           WarehouseService warehouseService,
+                           RateLimiterService rateLimiterService,
+                           SqlResilienceService sqlResilienceService,
+                           CatalogCacheService catalogCacheService,
+                           @Qualifier("metadataThreadPool") TaskExecutor metadataThreadPool) {
         this.configService = configService;
         this.executeSessionService = executeSessionService;
         this.connectionPoolService = connectionPoolService;
         this.queryDefinitionsService = queryDefinitionsService;
         this.warehouseService = warehouseService;
+        this.rateLimiterService = rateLimiterService;
+        this.sqlResilienceService = sqlResilienceService;
+        this.catalogCacheService = catalogCacheService;
+        this.metadataThreadPool = metadataThreadPool;
         log.debug("DatabaseService initialized");
     }
 
@@ -125,16 +145,50 @@ public class DatabaseService {
 //                throw new RequiredConfigurationException("The 'evaluatePartitionLocation' setting must be set to 'true' to build out the database sources.");
 //            }
 
-            for (String database : warehouseMapBuilder.getWarehousePlans().keySet()) {
+            // Each database is loaded into its own location map on the metadata pool, by up to the session
+            // concurrency of its threads.  The maps are merged into the warehouse map builder, in order, as they
+            // complete.
+            List<String> databases = new ArrayList<>(warehouseMapBuilder.getWarehousePlans().keySet());
+            int threads = Math.max(1, Math.min(executeSessionService.getSession().getConcurrency(), databases.size()));
+            Map<String, CompletableFuture<SourceLocationMap>> databaseSources = new LinkedHashMap<>();
+            for (String database : databases) {
                 // Reset the database in the translation map.
                 config.getTranslator().removeDatabaseFromTranslationMap(database);
-                // Load the database locations.
-                if (!config.isLoadingTestData()) {
-                    loadDatabaseLocationMetadataDirect(database, Environment.LEFT, consolidationLevelBase, partitionLevelMismatch);
-                } else {
-                    // Parse test data for sources.
-                    loadDatabaseLocationMetadataFromTestData(database, Environment.LEFT, consolidationLevelBase, partitionLevelMismatch);
+                databaseSources.put(database, new CompletableFuture<>());
+            }
+            Queue<String> pending = new ConcurrentLinkedQueue<>(databases);
+            try {
+                for (int i = 0; i < threads; i++) {
+                    // The pool runs it for this session.
+                    metadataThreadPool.execute(() -> {
+                        String database;
+                        while ((database = pending.poll()) != null) {
+                            CompletableFuture<SourceLocationMap> databaseSource = databaseSources.get(database);
+                            try {
+                                SourceLocationMap locationMap = new SourceLocationMap();
+                                // Load the database locations.
+                                if (!config.isLoadingTestData()) {
+                                    loadDatabaseLocationMetadataDirect(database, Environment.LEFT, locationMap,
+                                            consolidationLevelBase, partitionLevelMismatch);
+                                } else {
+                                    // Parse test data for sources.
+                                    loadDatabaseLocationMetadataFromTestData(database, Environment.LEFT, locationMap,
+                                            consolidationLevelBase, partitionLevelMismatch);
+                                }
+                                databaseSource.complete(locationMap);
+                            } catch (Throwable t) {
+                                databaseSource.completeExceptionally(t);
+                            }
+                        }
+                    });
+                }
+                for (Map.Entry<String, CompletableFuture<SourceLocationMap>> entry : databaseSources.entrySet()) {
+                    warehouseMapBuilder.mergeSources(entry.getKey(), entry.getValue().join());
                 }
+            } finally {
+                // Whatever hasn't been started isn't needed.
+                pending.clear();
+                warehouseMapBuilder.clearStringPool();
             }
             warehouseMapBuilder.setInSync(Boolean.TRUE);
         }
@@ -148,6 +202,7 @@ public class DatabaseService {
 
     // Load sources from the test data set.
     protected void loadDatabaseLocationMetadataFromTestData(String database, Environment environment,
+                                                            SourceLocationMap locationMap,
                                                             int consolidationLevelBase,
                                                             boolean partitionLevelMismatch) {
         ExecuteSession session = executeSessionService.getSession();
@@ -164,10 +219,10 @@ public class DatabaseService {
 //                    String partitionSpec = et.getPartitionSpec();
 //                    String partitionLocation = et.getPartitionLocation(
                     // config.getTranslator().addPartitionSource(database, table, tableType, partitionSpec, tableLocation, partitionLocation, consolidationLevelBase, partitionLevelMismatch);
-                    config.getTranslator().addPartitionSource(database, tableName, tableType, null,
+                    config.getTranslator().addPartitionSource(locationMap, tableName, tableType, null,
                             tableLocation, null, consolidationLevelBase, partitionLevelMismatch);
                     tableMirror.getPartitionDefinition(environment).forEach((partSpec, partLoc) -> {
-                        config.getTranslator().addPartitionSource(database, tableName, tableType, partSpec,
+                        config.getTranslator().addPartitionSource(locationMap, tableName, tableType, partSpec,
                                 tableLocation, partLoc, consolidationLevelBase, partitionLevelMismatch);
                     });
                 }
@@ -176,6 +231,7 @@ public class DatabaseService {
     }
 
     protected void loadDatabaseLocationMetadataDirect(String database, Environment environment,
+                                                      SourceLocationMap locationMap,
                                                       int consolidationLevelBase,
                                                       boolean partitionLevelMismatch) {
         /*
@@ -186,8 +242,6 @@ public class DatabaseService {
         5. Load Partition Data
          */
         Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet resultSet = null;
         ExecuteSession session = executeSessionService.getSession();
         HmsMirrorConfig config = session.getConfig();
         RunStatus runStatus = session.getRunStatus();
@@ -204,11 +258,10 @@ public class DatabaseService {
             log.info("Loading Partitions from Metastore Direct Connection {}:{}", environment, database);
             QueryDefinitions queryDefinitions = getQueryDefinitionsService().getQueryDefinitions(environment);
             if (nonNull(queryDefinitions)) {
-                String dbTableLocationQuery = queryDefinitions.getQueryDefinition("database_table_locations").getStatement();
-                pstmt = conn.prepareStatement(dbTableLocationQuery);
-                pstmt.setString(1, database);
-                resultSet = pstmt.executeQuery();
-                while (resultSet.next()) {
+                // Results are streamed, so rows are added to the translator as they are read.
+                rateLimiterService.acquire(environment, RateLimitOperationEnum.CATALOG_READ);
+                long tableCount = getQueryDefinitionsService().executeQuery(environment, conn,
+                        "database_table_locations", resultSet -> {
                     String tableName = resultSet.getString(1);
                     String tableType = resultSet.getString(2);
                     String location = resultSet.getString(3);
@@ -221,34 +274,30 @@ public class DatabaseService {
                                 "'transferPrefix' to something more unique.", database, tableName);
                     } else {
                         if (isBlank(config.getFilter().getTblRegEx()) && isBlank(config.getFilter().getTblExcludeRegEx())) {
-                            config.getTranslator().addTableSource(database, tableName, tableType, location, consolidationLevelBase,
+                            config.getTranslator().addTableSource(locationMap, tableName, tableType, location, consolidationLevelBase,
                                     partitionLevelMismatch);
                         } else if (!isBlank(config.getFilter().getTblRegEx())) {
                             // Filter Tables
                             assert (config.getFilter().getTblFilterPattern() != null);
                             Matcher matcher = config.getFilter().getTblFilterPattern().matcher(tableName);
                             if (matcher.matches()) {
-                                config.getTranslator().addTableSource(database, tableName, tableType, location, consolidationLevelBase,
+                                config.getTranslator().addTableSource(locationMap, tableName, tableType, location, consolidationLevelBase,
                                         partitionLevelMismatch);
                             }
                         } else if (config.getFilter().getTblExcludeRegEx() != null) {
                             assert (config.getFilter().getTblExcludeFilterPattern() != null);
                             Matcher matcher = config.getFilter().getTblExcludeFilterPattern().matcher(tableName);
                             if (!matcher.matches()) { // ANTI-MATCH
-                                config.getTranslator().addTableSource(database, tableName, tableType, location, consolidationLevelBase,
+                                config.getTranslator().addTableSource(locationMap, tableName, tableType, location, consolidationLevelBase,
                                         partitionLevelMismatch);
                             }
                         }
                     }
-                }
-                resultSet.close();
-                pstmt.close();
+                }, database);
                 // Get the Partition Locations
-                String dbPartitionLocationQuery = queryDefinitions.getQueryDefinition("database_partition_locations").getStatement();
-                pstmt = conn.prepareStatement(dbPartitionLocationQuery);
-                pstmt.setString(1, database);
-                resultSet = pstmt.executeQuery();
-                while (resultSet.next()) {
+                rateLimiterService.acquire(environment, RateLimitOperationEnum.PARTITION_READ);
+                long partitionCount = getQueryDefinitionsService().executeQuery(environment, conn,
+                        "database_partition_locations", resultSet -> {
                     String tableName = resultSet.getString(1);
                     String tableType = resultSet.getString(2);
                     String partitionSpec = resultSet.getString(3);
@@ -256,25 +305,27 @@ public class DatabaseService {
                     String partitionLocation = resultSet.getString(5);
 
                     if (isBlank(config.getFilter().getTblRegEx()) && isBlank(config.getFilter().getTblExcludeRegEx())) {
-                        config.getTranslator().addPartitionSource(database, tableName, tableType, partitionSpec,
+                        config.getTranslator().addPartitionSource(locationMap, tableName, tableType, partitionSpec,
                                 tableLocation, partitionLocation, consolidationLevelBase, partitionLevelMismatch);
                     } else if (!isBlank(config.getFilter().getTblRegEx())) {
                         // Filter Tables
                         assert (config.getFilter().getTblFilterPattern() != null);
                         Matcher matcher = config.getFilter().getTblFilterPattern().matcher(tableName);
                         if (matcher.matches()) {
-                            config.getTranslator().addPartitionSource(database, tableName, tableType, partitionSpec,
+                            config.getTranslator().addPartitionSource(locationMap, tableName, tableType, partitionSpec,
                                     tableLocation, partitionLocation, consolidationLevelBase, partitionLevelMismatch);
                         }
                     } else if (config.getFilter().getTblExcludeRegEx() != null) {
                         assert (config.getFilter().getTblExcludeFilterPattern() != null);
                         Matcher matcher = config.getFilter().getTblExcludeFilterPattern().matcher(tableName);
                         if (!matcher.matches()) { // ANTI-MATCH
-                            config.getTranslator().addPartitionSource(database, tableName, tableType, partitionSpec,
+                            config.getTranslator().addPartitionSource(locationMap, tableName, tableType, partitionSpec,
                                     tableLocation, partitionLocation, consolidationLevelBase, partitionLevelMismatch);
                         }
                     }
-                }
+                }, database);
+                log.debug("Streamed {} table and {} partition locations for {}:{}", tableCount, partitionCount,
+                        environment, database);
             }
 
 
@@ -338,6 +389,16 @@ public class DatabaseService {
     }
 
     public List<String> listAvailableDatabases(Environment environment) {
+        try {
+            return catalogCacheService.getDatabases(environment, () -> loadAvailableDatabases(environment));
+        } catch (SQLException se) {
+            // Not thrown by the loader.
+            log.error("Issue getting database list", se);
+            return new ArrayList<>();
+        }
+    }
+
+    protected List<String> loadAvailableDatabases(Environment environment) {
         List<String> dbs = new ArrayList<>();
         Connection conn = null;
         try {
@@ -347,7 +408,7 @@ public class DatabaseService {
                 ResultSet resultSet = null;
                 try {
                     stmt = conn.createStatement();
-                    resultSet = stmt.executeQuery(SHOW_DATABASES);
+                    resultSet = sqlResilienceService.executeQuery(environment, stmt, SHOW_DATABASES);
                     while (resultSet.next()) {
                         dbs.add(resultSet.getString(1));
                     }
@@ -1050,7 +1111,7 @@ public class DatabaseService {
                                 log.info("{}:{}", environment, sql);
                                 try {
                                     log.info("Checking {}:{}", environment, sql);
-                                    stmt.execute(sql);
+                                    sqlResilienceService.execute(environment, stmt, sql);
                                 } catch (SQLException throwables) {
                                     log.error("Failed SQL {}:{} - {}", environment, sql, throwables.getMessage());
                                     dbMirror.addProblemSQL(environment, sql, throwables.getMessage());
@@ -1123,22 +1184,36 @@ public class DatabaseService {
     }
 
     public Boolean getDatabase(DBMirror dbMirror, Environment environment) throws SQLException {
-        Boolean rtn = Boolean.FALSE;
-        Connection conn = null;
         HmsMirrorConfig config = executeSessionService.getSession().getConfig();
+        String database = (environment == Environment.LEFT ? dbMirror.getName() : HmsMirrorConfigUtil.getResolvedDB(dbMirror.getName(), config));
+        Map<String, String> dbProps = catalogCacheService.getDatabaseProperties(environment, database,
+                () -> describeDatabase(environment, database));
+        if (nonNull(dbProps)) {
+            dbMirror.setProperty(environment, dbProps);
+            return Boolean.TRUE;
+        } else {
+            return Boolean.FALSE;
+        }
+    }
+
+    /*
+    The database properties from DESCRIBE DATABASE EXTENDED, or null when it doesn't exist.
+     */
+    protected Map<String, String> describeDatabase(Environment environment, String database) throws SQLException {
+        Map<String, String> rtn = null;
+        Connection conn = null;
 
         try {
             conn = connectionPoolService.getHS2EnvironmentConnection(environment);//getConnection();
             if (conn != null) {
 
-                String database = (environment == Environment.LEFT ? dbMirror.getName() : HmsMirrorConfigUtil.getResolvedDB(dbMirror.getName(), config));
-
                 Statement stmt = null;
                 ResultSet resultSet = null;
                 try {
                     stmt = conn.createStatement();
                     log.info("{}:{}: Loading Database Definition", environment, database);
-                    resultSet = stmt.executeQuery(MessageFormat.format(DESCRIBE_DB, database));
+                    resultSet = sqlResilienceService.executeQuery(environment, stmt,
+                            MessageFormat.format(DESCRIBE_DB, database));
                     //Retrieving the ResultSetMetaData object
                     ResultSetMetaData rsmd = resultSet.getMetaData();
                     //getting the column type
@@ -1162,7 +1237,7 @@ public class DatabaseService {
                             }
                         }
                     }
-                    dbMirror.setProperty(environment, dbProps);
+                    rtn = dbProps;
 
                     /* With the extend describe above, we get the 'parameters' column with all the DBPROPERTIES.
                     // Run the SHOW CREATE DATABASE command to pull DBPROPERTIES.
@@ -1190,7 +1265,6 @@ public class DatabaseService {
                     }
                     */
 
-                    rtn = Boolean.TRUE;
                 } catch (SQLException sql) {
                     // DB Doesn't Exists.
                     log.error("{}:{}: Failed to loading Database Definition", environment, database);
@@ -1293,7 +1367,8 @@ public class DatabaseService {
                                     continue;
                                 } else {
                                     log.info("{}:{}:{}", environment, dbSqlPair.getDescription(), dbSqlPair.getAction());
-                                    stmt.execute(dbSqlPair.getAction());
+                                    sqlResilienceService.execute(environment, stmt, dbSqlPair.getAction());
+                                    invalidateCatalogCache(dbMirror, environment, action);
                                 }
                             } catch (SQLException throwables) {
                                 log.error("{}:{}:", environment, dbSqlPair.getDescription(), throwables);
@@ -1338,6 +1413,16 @@ public class DatabaseService {
         return rtn;
     }
 
+    /*
+    Drop the cached lookups the database statement changed.
+     */
+    protected void invalidateCatalogCache(DBMirror dbMirror, Environment environment, String action) {
+        HmsMirrorConfig config = executeSessionService.getSession().getConfig();
+        String database = (environment == Environment.LEFT ? dbMirror.getName() : HmsMirrorConfigUtil.getResolvedDB(dbMirror.getName(), config));
+        boolean dropped = action.trim().toUpperCase(Locale.ROOT).startsWith("DROP DATABASE");
+        catalogCacheService.invalidateDatabase(environment, database, dropped);
+    }
+
     public Map<String, Number> getEnvironmentSummaryStatistics(DBMirror dbMirror, Environment environment) {
         Map<String, Number> stats = new TreeMap<>();
 
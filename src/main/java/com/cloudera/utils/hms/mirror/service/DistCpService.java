@@ -18,23 +18,36 @@
 package com.cloudera.utils.hms.mirror.service;
 
 import com.cloudera.utils.hms.mirror.EnvironmentMap;
+import com.cloudera.utils.hms.mirror.MirrorConf;
 import com.cloudera.utils.hms.mirror.domain.DBMirror;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
 import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.StorageMigration;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
 import com.cloudera.utils.hms.mirror.domain.support.Conversion;
+import com.cloudera.utils.hms.mirror.domain.support.DistCpJob;
+import com.cloudera.utils.hms.mirror.domain.support.DistCpSource;
 import com.cloudera.utils.hms.mirror.domain.support.Environment;
 import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
-import com.cloudera.utils.hms.mirror.domain.support.HmsMirrorConfigUtil;
 import com.cloudera.utils.hms.util.NamespaceUtils;
+import com.cloudera.utils.hms.util.TableUtils;
 import com.cloudera.utils.hms.util.UrlUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 /**
@@ -51,20 +64,27 @@ import static java.util.Objects.nonNull;
  *   <li>DistCp source files containing the list of paths to be copied</li>
  * </ul>
  * </p>
+ *
+ * <p>When 'distcpJobCount' is set on the storage migration config, the sources for all the databases are also
+ * bin-packed (by the DATA_SIZE and FILE_COUNT table statistics) into that many balanced jobs, with a runner
+ * script that has the estimated duration of each job.</p>
  */
 @Component
 @Slf4j
 public class DistCpService {
 
     private final ObjectMapper yamlMapper;
+    private final TaskExecutor metadataThreadPool;
 
     /**
      * Constructor for DistCpService.
      *
-     * @param yamlMapper The ObjectMapper configured for YAML serialization
+     * @param yamlMapper         The ObjectMapper configured for YAML serialization
+     * @param metadataThreadPool The pool the reports are built on
      */
-    public DistCpService(ObjectMapper yamlMapper) {
+    public DistCpService(ObjectMapper yamlMapper, @Qualifier("metadataThreadPool") TaskExecutor metadataThreadPool) {
         this.yamlMapper = yamlMapper;
+        this.metadataThreadPool = metadataThreadPool;
     }
 
     /**
@@ -78,168 +98,453 @@ public class DistCpService {
      * </ul>
      * </p>
      *
+     * <p>The files for each database and environment are independent, so they're built in parallel on the metadata
+     * thread pool (up to the session concurrency).  The sources for the balanced jobs are gathered back in the database order, so the
+     * jobs are the same as a sequential run.</p>
+     *
      * @param session The execution session containing configuration and conversion data
      * @param outputDir The directory where the generated files will be written
      */
     public void buildAllDistCpReports(ExecuteSession session, String outputDir) {
         HmsMirrorConfig config = session.getConfig();
         Conversion conversion = session.getConversion();
+        StorageMigration storageMigration = config.getTransfer().getStorageMigration();
+
+        Environment[] environments = null;
+        switch (config.getDataStrategy()) {
+            case DUMP:
+            case STORAGE_MIGRATION:
+                environments = new Environment[]{Environment.LEFT};
+                break;
+            default:
+                environments = new Environment[]{Environment.LEFT, Environment.RIGHT};
+                break;
+        }
 
-        for (Map.Entry<String, DBMirror> dbEntry : conversion.getDatabases().entrySet()) {
-            String database = HmsMirrorConfigUtil.getResolvedDB(dbEntry.getKey(), config);
-            String originalDatabase = dbEntry.getKey();
-
-            try {
-                Environment[] environments = null;
-                switch (config.getDataStrategy()) {
-                    case DUMP:
-                    case STORAGE_MIGRATION:
-                        environments = new Environment[]{Environment.LEFT};
-                        break;
-                    default:
-                        environments = new Environment[]{Environment.LEFT, Environment.RIGHT};
-                        break;
-                }
+        // Sources for the balanced jobs, collected across all the databases.
+        Map<Environment, List<DistCpSource>> jobSources = new TreeMap<>();
 
-                for (Environment distcpEnv : environments) {
-                    boolean dcFound = Boolean.FALSE;
-
-                    StringBuilder distcpWorkbookSb = new StringBuilder();
-                    StringBuilder distcpScriptSb = new StringBuilder();
-
-                    distcpScriptSb.append("#!/usr/bin/env sh").append("\n");
-                    distcpScriptSb.append("\n");
-                    distcpScriptSb.append("# 1. Copy the source '*_distcp_source.txt' files to the distributed filesystem.").append("\n");
-                    distcpScriptSb.append("# 2. Export an env var 'HCFS_BASE_DIR' that represents where these files where placed.").append("\n");
-                    distcpScriptSb.append("#      NOTE: ${HCFS_BASE_DIR} must be available to the user running 'distcp'").append("\n");
-                    distcpScriptSb.append("# 3. Export an env var 'DISTCP_OPTS' with any special settings needed to run the job.").append("\n");
-                    distcpScriptSb.append("#      For large jobs, you may need to adjust memory settings.").append("\n");
-                    distcpScriptSb.append("# 4. Run the following in an order or framework that is appropriate for your environment.").append("\n");
-                    distcpScriptSb.append("#       These aren't necessarily expected to run in this shell script as is in production.").append("\n");
-                    distcpScriptSb.append("\n");
-                    distcpScriptSb.append("\n");
-                    distcpScriptSb.append("if [ -z ${HCFS_BASE_DIR+x} ]; then").append("\n");
-                    distcpScriptSb.append("  echo \"HCFS_BASE_DIR is unset\"").append("\n");
-                    distcpScriptSb.append("  echo \"What is the 'HCFS_BASE_DIR':\"").append("\n");
-                    distcpScriptSb.append("  read HCFS_BASE_DIR").append("\n");
-                    distcpScriptSb.append("  echo \"HCFS_BASE_DIR is set to '$HCFS_BASE_DIR'\"").append("\n");
-                    distcpScriptSb.append("else").append("\n");
-                    distcpScriptSb.append("  echo \"HCFS_BASE_DIR is set to '$HCFS_BASE_DIR'\"").append("\n");
-                    distcpScriptSb.append("fi").append("\n");
-                    distcpScriptSb.append("\n");
-                    distcpScriptSb.append("echo \"Creating HCFS directory: $HCFS_BASE_DIR\"").append("\n");
-                    distcpScriptSb.append("hdfs dfs -mkdir -p $HCFS_BASE_DIR").append("\n");
-                    distcpScriptSb.append("\n");
-
-                    // WARNING ABOUT 'distcp' and 'table alignment'
-                    distcpWorkbookSb.append("## WARNING\n");
-//                            distcpWorkbookSb.append(MessageCode.RDL_DC_WARNING_TABLE_ALIGNMENT.getDesc()).append("\n\n");
-
-                    distcpWorkbookSb.append("| Database | Target | Sources |\n");
-                    distcpWorkbookSb.append("|:---|:---|:---|\n");
-
-                    FileWriter distcpSourceFW = null;
-
-                    Map<String, Map<String, Set<String>>> distcpPlans = buildDistcpListForDatabase(
-                            config, originalDatabase, distcpEnv, 1, 
-                            config.getTransfer().getStorageMigration().isConsolidateTablesForDistcp());
-                    
-                    if (!distcpPlans.isEmpty()) {
-                        String distcpPlansFile = outputDir + File.separator + originalDatabase + "_" + 
-                                distcpEnv.toString() + "_distcp_plans.yaml";
-                        FileWriter distcpPlansFW = new FileWriter(distcpPlansFile);
-                        String planYaml = yamlMapper.writeValueAsString(distcpPlans);
-                        distcpPlansFW.write(planYaml);
-                        distcpPlansFW.close();
+        // Report i is for the database i / environments.length and the environment i % environments.length.
+        List<String> databases = new ArrayList<>(conversion.getDatabases().keySet());
+        Environment[] reportEnvironments = environments;
+        int reportCount = databases.size() * environments.length;
+        List<CompletableFuture<List<DistCpSource>>> reports = new ArrayList<>(reportCount);
+        for (int i = 0; i < reportCount; i++) {
+            reports.add(new CompletableFuture<>());
+        }
+        // Up to the session concurrency of the metadata pool's threads take the reports in turn.
+        int threads = Math.max(1, Math.min(session.getConcurrency(), reportCount));
+        AtomicInteger next = new AtomicInteger();
+        try {
+            for (int t = 0; t < threads && reportCount > 0; t++) {
+                // The pool runs it for this session.
+                metadataThreadPool.execute(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < reportCount) {
+                        try {
+                            String originalDatabase = databases.get(i / reportEnvironments.length);
+                            Environment distcpEnv = reportEnvironments[i % reportEnvironments.length];
+                            reports.get(i).complete(buildDistCpReport(config, originalDatabase, distcpEnv, outputDir));
+                        } catch (Throwable th) {
+                            reports.get(i).completeExceptionally(th);
+                        }
                     }
+                });
+            }
+            for (int i = 0; i < reports.size(); i++) {
+                List<DistCpSource> sources = reports.get(i).join();
+                if (!sources.isEmpty()) {
+                    jobSources.computeIfAbsent(environments[i % environments.length], k -> new ArrayList<>())
+                            .addAll(sources);
+                }
+            }
+        } finally {
+            // Whatever hasn't been started isn't needed.
+            next.set(reportCount);
+        }
 
-                    for (Map.Entry<String, Map<String, Set<String>>> entry : distcpPlans.entrySet()) {
-                        distcpWorkbookSb.append("| ").append(entry.getKey()).append(" | | |\n");
-                        Map<String, Set<String>> value = entry.getValue();
-                        int i = 1;
-                        
-                        for (Map.Entry<String, Set<String>> dbMap : value.entrySet()) {
-                            if (dbMap.getValue().size() > 1) {
-                                String distcpSourceFile = entry.getKey() + "_" + distcpEnv + "_" + i++ + "_distcp_source.txt";
-                                String distcpSourceFileFull = outputDir + File.separator + distcpSourceFile;
-                                distcpSourceFW = new FileWriter(distcpSourceFileFull);
+        if (storageMigration.getDistcpJobCount() > 0) {
+            for (Map.Entry<Environment, List<DistCpSource>> entry : jobSources.entrySet()) {
+                try {
+                    sizeDistCpSources(conversion, entry.getValue());
+                    List<DistCpJob> jobs = optimizeDistCpJobs(entry.getValue(), storageMigration.getDistcpJobCount(),
+                            storageMigration.getDistcpThroughputMBPerSecond(), storageMigration.getDistcpFilesPerSecond());
+                    writeDistCpJobs(jobs, entry.getKey(), outputDir);
+                } catch (IOException ioe) {
+                    log.error("Issue writing distcp jobs for {}", entry.getKey(), ioe);
+                }
+            }
+        }
+    }
 
-                                StringBuilder line = new StringBuilder();
-                                line.append("| | ").append(dbMap.getKey()).append(" | ");
+    /**
+     * Writes the plan, workbook, script and source lists for a database and environment.
+     *
+     * <p>The workbook, script and source lists are written as the plan is walked, rather than built up in
+     * memory first.</p>
+     *
+     * @param config           The HmsMirrorConfig
+     * @param originalDatabase The database name, as it is on the LEFT
+     * @param distcpEnv        The environment (LEFT or RIGHT)
+     * @param outputDir        The directory where the generated files will be written
+     * @return The sources for the balanced jobs.  Those written before a failure are still returned.
+     */
+    protected List<DistCpSource> buildDistCpReport(HmsMirrorConfig config, String originalDatabase,
+                                                   Environment distcpEnv, String outputDir) {
+        List<DistCpSource> rtn = new ArrayList<>();
+        boolean consolidateTablesForDistcp = config.getTransfer().getStorageMigration().isConsolidateTablesForDistcp();
 
-                                for (String source : dbMap.getValue()) {
-                                    line.append(source).append("<br>");
-                                    distcpSourceFW.append(source).append("\n");
-                                }
-                                line.append(" | ").append("\n");
-                                distcpWorkbookSb.append(line);
-
-                                distcpScriptSb.append("\n");
-                                distcpScriptSb.append("echo \"Copying 'distcp' source file to $HCFS_BASE_DIR\"").append("\n");
-                                distcpScriptSb.append("\n");
-                                distcpScriptSb.append("hdfs dfs -copyFromLocal -f ").append(distcpSourceFile).append(" ${HCFS_BASE_DIR}").append("\n");
-                                distcpScriptSb.append("\n");
-                                distcpScriptSb.append("echo \"Running 'distcp'\"").append("\n");
-                                // Adding -skipcrccheck to avoid failures with distcp between different protocols.
-                                distcpScriptSb.append("hadoop distcp ${DISTCP_OPTS} -skipcrccheck -f ${HCFS_BASE_DIR}/").append(distcpSourceFile).append(" ").append(dbMap.getKey()).append("\n").append("\n");
-
-                                distcpSourceFW.close();
-                            } else {
-                                // Only 1 entry, so we can skip the file and just use the source directly.
-                                String source = dbMap.getValue().iterator().next();
-                                // Get last path element
-                                String lastPathElement = UrlUtils.getLastDirFromUrl(source);
+        Map<String, Map<String, Set<String>>> distcpPlans = buildDistcpListForDatabase(
+                config, originalDatabase, distcpEnv, 1, consolidateTablesForDistcp);
 
-                                distcpScriptSb.append("echo \"Only one element in path.\"").append("\n");
+        // Every database in the plans has at least one target, so there's nothing to write without one.
+        if (distcpPlans.isEmpty()) {
+            return rtn;
+        }
 
-                                String target = dbMap.getKey();
+        try {
+            try (Writer distcpPlansW = newWriter(outputDir, originalDatabase + "_" + distcpEnv + "_distcp_plans.yaml")) {
+                distcpPlansW.write(yamlMapper.writeValueAsString(distcpPlans));
+            }
 
-                                if (config.getTransfer().getStorageMigration().isConsolidateTablesForDistcp()) {
-                                    // Reduce the target by 1 level
-                                    target = UrlUtils.reduceUrlBy(target, 1);
+            try (Writer distcpWorkbookW = newWriter(outputDir, originalDatabase + "_" + distcpEnv + "_distcp_workbook.md");
+                 Writer distcpScriptW = newWriter(outputDir, originalDatabase + "_" + distcpEnv + "_distcp_script.sh")) {
+
+                distcpScriptW.append("#!/usr/bin/env sh").append("\n");
+                distcpScriptW.append("\n");
+                distcpScriptW.append("# 1. Copy the source '*_distcp_source.txt' files to the distributed filesystem.").append("\n");
+                distcpScriptW.append("# 2. Export an env var 'HCFS_BASE_DIR' that represents where these files where placed.").append("\n");
+                distcpScriptW.append("#      NOTE: ${HCFS_BASE_DIR} must be available to the user running 'distcp'").append("\n");
+                distcpScriptW.append("# 3. Export an env var 'DISTCP_OPTS' with any special settings needed to run the job.").append("\n");
+                distcpScriptW.append("#      For large jobs, you may need to adjust memory settings.").append("\n");
+                distcpScriptW.append("# 4. Run the following in an order or framework that is appropriate for your environment.").append("\n");
+                distcpScriptW.append("#       These aren't necessarily expected to run in this shell script as is in production.").append("\n");
+                distcpScriptW.append("\n");
+                distcpScriptW.append("\n");
+                distcpScriptW.append("if [ -z ${HCFS_BASE_DIR+x} ]; then").append("\n");
+                distcpScriptW.append("  echo \"HCFS_BASE_DIR is unset\"").append("\n");
+                distcpScriptW.append("  echo \"What is the 'HCFS_BASE_DIR':\"").append("\n");
+                distcpScriptW.append("  read HCFS_BASE_DIR").append("\n");
+                distcpScriptW.append("  echo \"HCFS_BASE_DIR is set to '$HCFS_BASE_DIR'\"").append("\n");
+                distcpScriptW.append("else").append("\n");
+                distcpScriptW.append("  echo \"HCFS_BASE_DIR is set to '$HCFS_BASE_DIR'\"").append("\n");
+                distcpScriptW.append("fi").append("\n");
+                distcpScriptW.append("\n");
+                distcpScriptW.append("echo \"Creating HCFS directory: $HCFS_BASE_DIR\"").append("\n");
+                distcpScriptW.append("hdfs dfs -mkdir -p $HCFS_BASE_DIR").append("\n");
+                distcpScriptW.append("\n");
+
+                // WARNING ABOUT 'distcp' and 'table alignment'
+                distcpWorkbookW.append("## WARNING\n");
+//                distcpWorkbookW.append(MessageCode.RDL_DC_WARNING_TABLE_ALIGNMENT.getDesc()).append("\n\n");
+
+                distcpWorkbookW.append("| Database | Target | Sources |\n");
+                distcpWorkbookW.append("|:---|:---|:---|\n");
+
+                for (Map.Entry<String, Map<String, Set<String>>> entry : distcpPlans.entrySet()) {
+                    distcpWorkbookW.append("| ").append(entry.getKey()).append(" | | |\n");
+                    Map<String, Set<String>> value = entry.getValue();
+                    int i = 1;
+
+                    for (Map.Entry<String, Set<String>> dbMap : value.entrySet()) {
+                        if (dbMap.getValue().size() > 1) {
+                            String distcpSourceFile = entry.getKey() + "_" + distcpEnv + "_" + i++ + "_distcp_source.txt";
+
+                            distcpWorkbookW.append("| | ").append(dbMap.getKey()).append(" | ");
+                            try (Writer distcpSourceW = newWriter(outputDir, distcpSourceFile)) {
+                                for (String source : dbMap.getValue()) {
+                                    distcpWorkbookW.append(source).append("<br>");
+                                    distcpSourceW.append(source).append("\n");
+                                    rtn.add(new DistCpSource(entry.getKey(), dbMap.getKey(), source, Boolean.TRUE));
                                 }
+                            }
+                            distcpWorkbookW.append(" | ").append("\n");
+
+                            distcpScriptW.append("\n");
+                            distcpScriptW.append("echo \"Copying 'distcp' source file to $HCFS_BASE_DIR\"").append("\n");
+                            distcpScriptW.append("\n");
+                            distcpScriptW.append("hdfs dfs -copyFromLocal -f ").append(distcpSourceFile).append(" ${HCFS_BASE_DIR}").append("\n");
+                            distcpScriptW.append("\n");
+                            distcpScriptW.append("echo \"Running 'distcp'\"").append("\n");
+                            // Adding -skipcrccheck to avoid failures with distcp between different protocols.
+                            distcpScriptW.append("hadoop distcp ${DISTCP_OPTS} -skipcrccheck -f ${HCFS_BASE_DIR}/").append(distcpSourceFile).append(" ").append(dbMap.getKey()).append("\n").append("\n");
+                        } else {
+                            // Only 1 entry, so we can skip the file and just use the source directly.
+                            String source = dbMap.getValue().iterator().next();
+
+                            distcpScriptW.append("echo \"Only one element in path.\"").append("\n");
+
+                            String target = dbMap.getKey();
+
+                            if (consolidateTablesForDistcp) {
+                                // Reduce the target by 1 level
+                                target = UrlUtils.reduceUrlBy(target, 1);
+                            }
 
-                                String line = "| | " + target + " | " + source + " |\n";
-                                distcpWorkbookSb.append(line);
+                            rtn.add(new DistCpSource(entry.getKey(), target, source, Boolean.FALSE));
 
-                                distcpScriptSb.append("echo \"Running 'distcp'\"").append("\n");
+                            distcpWorkbookW.append("| | ").append(target).append(" | ").append(source).append(" |\n");
 
-                                String sourceProtocol = NamespaceUtils.getProtocol(source);
-                                String targetProtocol = NamespaceUtils.getProtocol(target);
+                            distcpScriptW.append("echo \"Running 'distcp'\"").append("\n");
 
-                                if (nonNull(sourceProtocol) && nonNull(targetProtocol) && !sourceProtocol.equals(targetProtocol)) {
-                                    distcpScriptSb.append("#  Source and target protocols are different. This may cause issues with 'distcp' is -skipcrccheck isn't set.");
-                                    // Add -skipcrccheck to the distcp command
-                                    distcpScriptSb.append("hadoop distcp ${DISTCP_OPTS} -skipcrccheck ").append(source).append(" ").append(target).append("\n").append("\n");
-                                } else {
-                                    distcpScriptSb.append("hadoop distcp ${DISTCP_OPTS} ").append(source).append(" ").append(target).append("\n").append("\n");
-                                }
-                            }
+                            String sourceProtocol = NamespaceUtils.getProtocol(source);
+                            String targetProtocol = NamespaceUtils.getProtocol(target);
 
-                            dcFound = Boolean.TRUE;
+                            if (nonNull(sourceProtocol) && nonNull(targetProtocol) && !sourceProtocol.equals(targetProtocol)) {
+                                distcpScriptW.append("#  Source and target protocols are different. This may cause issues with 'distcp' is -skipcrccheck isn't set.");
+                                // Add -skipcrccheck to the distcp command
+                                distcpScriptW.append("hadoop distcp ${DISTCP_OPTS} -skipcrccheck ").append(source).append(" ").append(target).append("\n").append("\n");
+                            } else {
+                                distcpScriptW.append("hadoop distcp ${DISTCP_OPTS} ").append(source).append(" ").append(target).append("\n").append("\n");
+                            }
                         }
                     }
+                }
+            }
+        } catch (IOException ioe) {
+            log.error("Issue writing distcp workbook", ioe);
+        }
+        return rtn;
+    }
+
+    /**
+     * Sets the data size and file count of each source from the DATA_SIZE and FILE_COUNT statistics of the
+     * LEFT tables that live under it.  A table is only counted against the deepest source that contains it.
+     *
+     * <p>Sources without any statistics get the average of the sources that have them, so they're still spread
+     * across the jobs.</p>
+     *
+     * @param conversion The conversion with the table statistics
+     * @param sources    The distcp sources to size
+     */
+    public void sizeDistCpSources(Conversion conversion, List<DistCpSource> sources) {
+        Map<String, List<DistCpSource>> sourcesByDatabase = new HashMap<>();
+        for (DistCpSource source : sources) {
+            sourcesByDatabase.computeIfAbsent(source.getDatabase(), k -> new ArrayList<>()).add(source);
+        }
+
+        for (Map.Entry<String, List<DistCpSource>> entry : sourcesByDatabase.entrySet()) {
+            DBMirror dbMirror = conversion.getDatabases().get(entry.getKey());
+            if (isNull(dbMirror))
+                continue;
+            for (TableMirror tableMirror : dbMirror.getTableMirrors().values()) {
+                EnvironmentTable et = tableMirror.getEnvironments().get(Environment.LEFT);
+                if (isNull(et) || isNull(et.getDefinition()) || et.getDefinition().isEmpty())
+                    continue;
+                String location = TableUtils.getLocation(et.getName(), et.getDefinition());
+                Object dataSize = et.getStatistics().get(MirrorConf.DATA_SIZE);
+                if (isNull(location) || !(dataSize instanceof Number))
+                    continue;
+                DistCpSource owner = null;
+                for (DistCpSource source : entry.getValue()) {
+                    if (isUnder(location, source.getSource())
+                            && (isNull(owner) || source.getSource().length() > owner.getSource().length())) {
+                        owner = source;
+                    }
+                }
+                if (nonNull(owner)) {
+                    Object fileCount = et.getStatistics().get(MirrorConf.FILE_COUNT);
+                    owner.setDataSize(owner.getDataSize() + ((Number) dataSize).longValue());
+                    owner.setFileCount(owner.getFileCount()
+                            + (fileCount instanceof Number ? ((Number) fileCount).longValue() : 1L));
+                    owner.setSized(Boolean.TRUE);
+                }
+            }
+        }
 
-                    if (dcFound) {
-                        String distcpWorkbookFile = outputDir + File.separator + originalDatabase +
-                                "_" + distcpEnv + "_distcp_workbook.md";
-                        String distcpScriptFile = outputDir + File.separator + originalDatabase +
-                                "_" + distcpEnv + "_distcp_script.sh";
+        long sizedCount = 0L;
+        long totalSize = 0L;
+        long totalFiles = 0L;
+        for (DistCpSource source : sources) {
+            if (source.isSized()) {
+                sizedCount++;
+                totalSize += source.getDataSize();
+                totalFiles += source.getFileCount();
+            }
+        }
+        for (DistCpSource source : sources) {
+            if (!source.isSized()) {
+                source.setDataSize(sizedCount > 0 ? totalSize / sizedCount : 0L);
+                source.setFileCount(sizedCount > 0 ? Math.max(totalFiles / sizedCount, 1L) : 1L);
+            }
+        }
+    }
 
-                        FileWriter distcpWorkbookFW = new FileWriter(distcpWorkbookFile);
-                        FileWriter distcpScriptFW = new FileWriter(distcpScriptFile);
+    /**
+     * Bin-packs the sources into (at most) 'jobCount' jobs with about the same estimated run time.
+     *
+     * <p>Sources are placed largest first, each on the job with the least estimated time so far.  Sources
+     * are never split, so a single source larger than the rest combined will still be a job of its own.</p>
+     *
+     * @param sources               The sized distcp sources
+     * @param jobCount              The number of jobs to pack into
+     * @param throughputMBPerSecond The expected throughput of a job
+     * @param filesPerSecond        The expected files copied per second by a job
+     * @return The jobs, ordered by id
+     */
+    public List<DistCpJob> optimizeDistCpJobs(List<DistCpSource> sources, int jobCount,
+                                              int throughputMBPerSecond, int filesPerSecond) {
+        List<DistCpSource> ordered = new ArrayList<>(sources);
+        Map<DistCpSource, Double> estimates = new IdentityHashMap<>();
+        for (DistCpSource source : ordered) {
+            estimates.put(source, estimateSeconds(source.getDataSize(), source.getFileCount(),
+                    throughputMBPerSecond, filesPerSecond));
+        }
+        ordered.sort(Comparator.comparing((DistCpSource source) -> estimates.get(source)).reversed()
+                .thenComparing(DistCpSource::getTarget)
+                .thenComparing(DistCpSource::getSource));
+
+        int lclJobCount = Math.max(1, Math.min(jobCount, ordered.size()));
+        PriorityQueue<DistCpJob> queue = new PriorityQueue<>(Comparator.comparingDouble(DistCpJob::getEstimatedSeconds)
+                .thenComparingInt(job -> job.getSources().size())
+                .thenComparingInt(DistCpJob::getId));
+        List<DistCpJob> rtn = new ArrayList<>();
+        for (int i = 1; i <= lclJobCount; i++) {
+            DistCpJob job = new DistCpJob(i);
+            queue.add(job);
+            rtn.add(job);
+        }
+        for (DistCpSource source : ordered) {
+            DistCpJob job = queue.poll();
+            job.add(source, estimates.get(source));
+            queue.add(job);
+        }
+        rtn.removeIf(job -> job.getSources().isEmpty());
+        return rtn;
+    }
 
-                        distcpScriptFW.write(distcpScriptSb.toString());
-                        distcpWorkbookFW.write(distcpWorkbookSb.toString());
+    protected static double estimateSeconds(long dataSize, long fileCount, int throughputMBPerSecond,
+                                             int filesPerSecond) {
+        double seconds = 0d;
+        if (throughputMBPerSecond > 0)
+            seconds += (double) dataSize / (throughputMBPerSecond * 1024d * 1024d);
+        if (filesPerSecond > 0)
+            seconds += (double) fileCount / filesPerSecond;
+        return seconds;
+    }
 
-                        distcpScriptFW.close();
-                        distcpWorkbookFW.close();
+    protected static boolean isUnder(String location, String source) {
+        return location.equals(source)
+                || (location.startsWith(source) && (source.endsWith("/") || location.charAt(source.length()) == '/'));
+    }
+
+    /*
+    Writes the source lists for each job, a plan summary and the runner script.
+     */
+    protected void writeDistCpJobs(List<DistCpJob> jobs, Environment environment, String outputDir) throws IOException {
+        if (jobs.isEmpty())
+            return;
+
+        StringBuilder runnerSb = new StringBuilder();
+        runnerSb.append("#!/usr/bin/env sh").append("\n");
+        runnerSb.append("\n");
+        runnerSb.append("# Balanced 'distcp' jobs for ").append(environment).append(".").append("\n");
+        runnerSb.append("# The sources for all the databases were packed into ").append(jobs.size())
+                .append(" jobs by the table DATA_SIZE and FILE_COUNT statistics.").append("\n");
+        runnerSb.append("#").append("\n");
+        runnerSb.append("# Usage: ").append(environment).append("_distcp_jobs_runner.sh [job id ...]").append("\n");
+        runnerSb.append("#   With no job ids, all the jobs are started together and the script waits for them to finish.").append("\n");
+        runnerSb.append("#").append("\n");
+        runnerSb.append("# | Job | Sources | Data Size | Files | Estimated Duration |").append("\n");
+        for (DistCpJob job : jobs) {
+            runnerSb.append("# | ").append(job.getId()).append(" | ").append(job.getSources().size()).append(" | ")
+                    .append(formatSize(job.getDataSize())).append(" | ").append(job.getFileCount()).append(" | ")
+                    .append(formatDuration(job.getEstimatedSeconds())).append(" |").append("\n");
+        }
+        runnerSb.append("\n");
+        runnerSb.append("if [ -z ${HCFS_BASE_DIR+x} ]; then").append("\n");
+        runnerSb.append("  echo \"HCFS_BASE_DIR is unset\"").append("\n");
+        runnerSb.append("  echo \"What is the 'HCFS_BASE_DIR':\"").append("\n");
+        runnerSb.append("  read HCFS_BASE_DIR").append("\n");
+        runnerSb.append("fi").append("\n");
+        runnerSb.append("echo \"HCFS_BASE_DIR is set to '$HCFS_BASE_DIR'\"").append("\n");
+        runnerSb.append("hdfs dfs -mkdir -p $HCFS_BASE_DIR").append("\n");
+
+        for (DistCpJob job : jobs) {
+            runnerSb.append("\n");
+            runnerSb.append("# Job ").append(job.getId()).append(": ").append(formatSize(job.getDataSize()))
+                    .append(", ").append(job.getFileCount()).append(" files. Estimated duration: ")
+                    .append(formatDuration(job.getEstimatedSeconds())).append("\n");
+            runnerSb.append("job_").append(job.getId()).append("() {").append("\n");
+            int i = 1;
+            for (Map.Entry<String, Set<String>> targetEntry : job.getSourcesByTarget().entrySet()) {
+                String target = targetEntry.getKey();
+                if (job.isSourceList(target)) {
+                    String distcpSourceFile = environment + "_distcp_job_" + job.getId() + "_" + i++ + "_source.txt";
+                    try (Writer distcpSourceW = newWriter(outputDir, distcpSourceFile)) {
+                        for (String source : targetEntry.getValue()) {
+                            distcpSourceW.append(source).append("\n");
+                        }
+                    }
+                    runnerSb.append("  hdfs dfs -copyFromLocal -f ").append(distcpSourceFile).append(" ${HCFS_BASE_DIR}").append("\n");
+                    runnerSb.append("  hadoop distcp ${DISTCP_OPTS} -skipcrccheck -f ${HCFS_BASE_DIR}/").append(distcpSourceFile)
+                            .append(" ").append(target).append("\n");
+                } else {
+                    for (String source : targetEntry.getValue()) {
+                        String sourceProtocol = NamespaceUtils.getProtocol(source);
+                        String targetProtocol = NamespaceUtils.getProtocol(target);
+                        runnerSb.append("  hadoop distcp ${DISTCP_OPTS} ");
+                        if (nonNull(sourceProtocol) && nonNull(targetProtocol) && !sourceProtocol.equals(targetProtocol)) {
+                            runnerSb.append("-skipcrccheck ");
+                        }
+                        runnerSb.append(source).append(" ").append(target).append("\n");
                     }
                 }
-            } catch (IOException ioe) {
-                log.error("Issue writing distcp workbook", ioe);
             }
+            runnerSb.append("}").append("\n");
+        }
+
+        runnerSb.append("\n");
+        runnerSb.append("if [ $# -eq 0 ]; then").append("\n");
+        runnerSb.append("  set --");
+        for (DistCpJob job : jobs) {
+            runnerSb.append(" ").append(job.getId());
+        }
+        runnerSb.append("\n");
+        runnerSb.append("fi").append("\n");
+        runnerSb.append("for JOB in \"$@\"; do").append("\n");
+        runnerSb.append("  echo \"Starting 'distcp' job $JOB\"").append("\n");
+        runnerSb.append("  job_$JOB > ").append(environment).append("_distcp_job_${JOB}.log 2>&1 &").append("\n");
+        runnerSb.append("done").append("\n");
+        runnerSb.append("wait").append("\n");
+
+        try (Writer runnerW = newWriter(outputDir, environment + "_distcp_jobs_runner.sh")) {
+            runnerW.write(runnerSb.toString());
         }
+
+        List<Map<String, Object>> plan = new ArrayList<>();
+        for (DistCpJob job : jobs) {
+            Map<String, Object> jobPlan = new LinkedHashMap<>();
+            jobPlan.put("job", job.getId());
+            jobPlan.put("dataSize", job.getDataSize());
+            jobPlan.put("fileCount", job.getFileCount());
+            jobPlan.put("estimatedDuration", formatDuration(job.getEstimatedSeconds()));
+            jobPlan.put("targets", job.getSourcesByTarget());
+            plan.add(jobPlan);
+        }
+        try (Writer planW = newWriter(outputDir, environment + "_distcp_jobs_plan.yaml")) {
+            planW.write(yamlMapper.writeValueAsString(plan));
+        }
+    }
+
+    /*
+    Buffered, over a file channel.  Same (default) charset the reports have always been written in.
+     */
+    protected static Writer newWriter(String outputDir, String fileName) throws IOException {
+        return Files.newBufferedWriter(Paths.get(outputDir, fileName), Charset.defaultCharset());
+    }
+
+    protected static String formatDuration(double seconds) {
+        long total = (long) Math.ceil(seconds);
+        return String.format("%02d:%02d:%02d", total / 3600, (total % 3600) / 60, total % 60);
+    }
+
+    protected static String formatSize(long bytes) {
+        if (bytes < 1024L * 1024L * 1024L)
+            return String.format("%.1f MB", bytes / (1024d * 1024d));
+        if (bytes < 1024L * 1024L * 1024L * 1024L)
+            return String.format("%.1f GB", bytes / (1024d * 1024d * 1024d));
+        return String.format("%.1f TB", bytes / (1024d * 1024d * 1024d * 1024d));
     }
 
     /**
@@ -255,14 +560,14 @@ public class DistCpService {
      * @param consolidateTablesForDistcp Whether to consolidate tables for DistCp
      * @return A map of database names to maps of target locations to sets of source locations
      */
-    public synchronized Map<String, Map<String, Set<String>>> buildDistcpListForDatabase(
+    public Map<String, Map<String, Set<String>>> buildDistcpListForDatabase(
             HmsMirrorConfig config, String database, Environment environment, 
             int consolidationLevel, boolean consolidateTablesForDistcp) {
         Map<String, Map<String, Set<String>>> rtn = new TreeMap<>();
 
         // Get a static view of set to avoid concurrent modification.
         Set<EnvironmentMap.TranslationLevel> dbTranslationLevel =
-                new HashSet<>(config.getTranslator().getTranslationMap(database, environment));
+                config.getTranslator().copyTranslationMap(database, environment);
 
         Map<String, String> dbLocationMap = new TreeMap<>();
 
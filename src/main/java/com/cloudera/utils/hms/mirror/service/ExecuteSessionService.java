@@ -28,13 +28,12 @@ import com.jcabi.manifests.Manifests;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.cloudera.utils.hms.mirror.MessageCode.ENCRYPTED_PASSWORD_CHANGE_ATTEMPT;
@@ -48,6 +47,10 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 public class ExecuteSessionService {
 
     public static final String DEFAULT = "default.yaml";
+    /*
+    The finished sessions kept for their status, beyond the ones still running.
+     */
+    public static final int MAX_SESSION_HISTORY = 20;
 
     private final CliEnvironment cliEnvironment;
     private final ConfigService configService;
@@ -66,10 +69,17 @@ public class ExecuteSessionService {
 
     private boolean amendSessionIdToReportDir = Boolean.TRUE;
 
+    /*
+    The number of sessions that can run at the same time.  Each has its own connection pools, conversion,
+    run status and report directory.
+     */
+    private int maxConcurrentSessions = 1;
+
     /**
-     * Used to limit the number of sessionHistory that are retained in memory.
+     * The started sessions, by session id, oldest first.  Used to limit the number of sessionHistory that are
+     * retained in memory.
      */
-    private final Map<String, ExecuteSession> sessionHistory = new HashMap<>();
+    private final Map<String, ExecuteSession> sessionHistory = Collections.synchronizedMap(new LinkedHashMap<>());
 
     /**
      * Constructor for ExecuteSessionService.
@@ -87,6 +97,11 @@ public class ExecuteSessionService {
         log.debug("ExecuteSessionService initialized");
     }
 
+    @Value("${hms-mirror.concurrency.max-sessions:1}")
+    public void setMaxConcurrentSessions(int maxConcurrentSessions) {
+        this.maxConcurrentSessions = Math.max(1, maxConcurrentSessions);
+    }
+
     public void setReportOutputDirectory(String reportOutputDirectory, boolean amendSessionIdToReportDir) {
         this.amendSessionIdToReportDir = amendSessionIdToReportDir;
         this.reportOutputDirectory = reportOutputDirectory;
@@ -208,27 +223,51 @@ public class ExecuteSessionService {
         // No-op for now, but keeping method for future implementation
     }
 
+    /**
+     * The session bound to this thread (see {@link SessionContext}) when it's working for a running session,
+     * otherwise the 'current' session.
+     */
     public ExecuteSession getSession() {
-        return session;
+        ExecuteSession bound = SessionContext.current();
+        return nonNull(bound) ? bound : session;
     }
 
     public ExecuteSession getSession(String sessionId) {
         if (isBlank(sessionId)) {
-            if (isNull(session)) {
+            if (isNull(getSession())) {
                 log.error("No session loaded");
                 return null;
             }
-            return session;
+            return getSession();
         }
         
-        if (sessionHistory.containsKey(sessionId)) {
-            return sessionHistory.get(sessionId);
+        ExecuteSession historic = sessionHistory.get(sessionId);
+        if (nonNull(historic)) {
+            return historic;
+        }
+        if (nonNull(session) && sessionId.equals(session.getSessionId())) {
+            return session;
         }
         
         log.error("Session not found: {}", sessionId);
         return null;
     }
 
+    /**
+     * The sessions that are running now.
+     */
+    public List<ExecuteSession> getRunningSessions() {
+        List<ExecuteSession> rtn = new ArrayList<>();
+        synchronized (sessionHistory) {
+            for (ExecuteSession historic : sessionHistory.values()) {
+                if (historic.isRunning()) {
+                    rtn.add(historic);
+                }
+            }
+        }
+        return rtn;
+    }
+
     /*
       Look at the 'activeSession' and if it is not null, check that it is not running.
         If it is not running, then clone the session and add it to the 'executeSessionQueue'.
@@ -238,33 +277,45 @@ public class ExecuteSessionService {
         This allow us to keep the current and active sessionHistory separate.  The active session is the
         one that will be referenced during the run.
      */
-    public Boolean startSession(Integer concurrency) throws SessionException {
+    public synchronized Boolean startSession(Integer concurrency) throws SessionException {
         Boolean rtn = Boolean.TRUE;
 
         ExecuteSession session = getSession();
-        // Set the concurrency.
-        session.setConcurrency(concurrency);
-
-        if (!isNull(session) && session.isRunning()) {
-            throw new SessionException("Session is still running.  Cannot transition to active.");
-        }
 
         // This should get the loaded session and clone it.
         if (isNull(session)) {
             throw new SessionException("No session loaded.");
         }
 
+        if (session.isRunning()) {
+            throw new SessionException("Session is still running.  Cannot transition to active.");
+        }
+
+        int running = getRunningSessions().size();
+        if (running >= maxConcurrentSessions) {
+            throw new SessionException("There are " + running + " sessions running, the maximum " +
+                    "(hms-mirror.concurrency.max-sessions).  Wait for one to finish before starting another.");
+        }
+
+        // Set the concurrency.
+        session.setConcurrency(concurrency);
+
         // Will create new RunStatus and set version info.
         RunStatus runStatus = new RunStatus();
         runStatus.setConcurrency(concurrency);
-        // Link the RunStatus to the session so users know what session details to retrieve.
-        runStatus.setSessionId(session.getSessionId());
         runStatus.setProgress(ProgressEnum.STARTED);
 
         // Reset for each transition.
         // Set the active session id to the current date and time.
         DateFormat dtf = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
-        session.setSessionId(dtf.format(new Date()));
+        String sessionId = dtf.format(new Date());
+        // Sessions started in the same second need their own id (and report directory).
+        for (int i = 1; sessionHistory.containsKey(sessionId); i++) {
+            sessionId = dtf.format(new Date()) + "_" + i;
+        }
+        session.setSessionId(sessionId);
+        // Link the RunStatus to the session so users know what session details to retrieve.
+        runStatus.setSessionId(sessionId);
 
         // If it's connected (Active Session), don't go through all this again.
         log.debug("Configure and setup Session");
@@ -286,7 +337,27 @@ public class ExecuteSessionService {
         // New Conversion object for each run.
         session.setConversion(new Conversion());
 
+        addToHistory(session);
+
         return rtn;
     }
 
+    /*
+    Keep the running sessions and the latest of the finished ones.
+     */
+    private void addToHistory(ExecuteSession session) {
+        synchronized (sessionHistory) {
+            // A session that's run again only has the status of the new run.
+            sessionHistory.values().removeIf(historic -> historic == session);
+            sessionHistory.put(session.getSessionId(), session);
+            Iterator<ExecuteSession> sessions = sessionHistory.values().iterator();
+            while (sessionHistory.size() > MAX_SESSION_HISTORY && sessions.hasNext()) {
+                ExecuteSession historic = sessions.next();
+                if (!historic.isRunning() && historic != session) {
+                    sessions.remove();
+                }
+            }
+        }
+    }
+
 }
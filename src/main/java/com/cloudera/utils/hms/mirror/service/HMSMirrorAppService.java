@@ -40,6 +40,7 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.text.MessageFormat;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -64,6 +65,7 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
  * - executeSessionService: Controls execution sessions for the application.
  * - reportWriterService: Handles generating and writing reports.
  * - tableService: Manages interactions related to database tables.
+ * - tableSchedulerService: Orders the table work submitted to the thread pools.
  * - translatorService: Executes data translation or mapping logic.
  * - transferService: Responsible for managing data transfer operations.
  * - log: Used for logging information or events related to the application.
@@ -73,13 +75,16 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 @Slf4j
 public class HMSMirrorAppService {
 
+    private final CatalogCacheService catalogCacheService;
     private final ConfigService configService;
     private final ConnectionPoolService connectionPoolService;
     private final DatabaseService databaseService;
     private final EnvironmentService environmentService;
     private final ExecuteSessionService executeSessionService;
     private final ReportWriterService reportWriterService;
+    private final ShardService shardService;
     private final TableService tableService;
+    private final TableSchedulerService tableSchedulerService;
     private final TranslatorService translatorService;
     private final TransferService transferService;
 
@@ -91,7 +96,10 @@ public class HMSMirrorAppService {
                                TranslatorService translatorService,
                                TransferService transferService,
                                ConfigService configService,
-                               EnvironmentService environmentService) {
+                               EnvironmentService environmentService,
+                               TableSchedulerService tableSchedulerService,
+                               ShardService shardService,
+                               CatalogCacheService catalogCacheService) {
         this.executeSessionService = executeSessionService;
         this.connectionPoolService = connectionPoolService;
         this.databaseService = databaseService;
@@ -101,6 +109,9 @@ public class HMSMirrorAppService {
         this.transferService = transferService;
         this.configService = configService;
         this.environmentService = environmentService;
+        this.tableSchedulerService = tableSchedulerService;
+        this.shardService = shardService;
+        this.catalogCacheService = catalogCacheService;
     }
 
     public long getReturnCode() {
@@ -236,6 +247,8 @@ public class HMSMirrorAppService {
 
         log.info("Starting Application Workflow");
         runStatus.setProgress(ProgressEnum.IN_PROGRESS);
+        // Pick up the table definitions saved by the last run, when asked to.
+        catalogCacheService.load();
 
         Date startTime = new Date();
         runStatus.setStage(StageEnum.GATHERING_DATABASES, CollectionEnum.IN_PROGRESS);
@@ -262,7 +275,12 @@ public class HMSMirrorAppService {
                 if (nonNull(conn)) {
                     log.info("Retrieved LEFT Cluster Connection");
                     stmt = conn.createStatement();
-                    ResultSet rs = stmt.executeQuery(MirrorConf.SHOW_DATABASES);
+                    // Narrow the listing on the server when the dbRegEx can be expressed as a pattern.
+                    String showPattern = config.getFilter().getDbShowPattern();
+                    String showDatabases = isNull(showPattern) ? MirrorConf.SHOW_DATABASES
+                            : MessageFormat.format(MirrorConf.SHOW_DATABASES_LIKE, showPattern);
+                    log.debug("Listing databases with: {}", showDatabases);
+                    ResultSet rs = stmt.executeQuery(showDatabases);
                     while (rs.next()) {
                         String db = rs.getString(1);
                         Matcher matcher = config.getFilter().getDbFilterPattern().matcher(db);
@@ -294,6 +312,8 @@ public class HMSMirrorAppService {
                 }
             }
         }
+        // A worker of a sharded run only processes its share of the databases.
+        shardService.applyDatabaseShard(config, conversion);
         runStatus.setStage(StageEnum.GATHERING_DATABASES, CollectionEnum.COMPLETED);
         log.info("Start Processing for databases: {}", String.join(",", config.getDatabases()));
 
@@ -313,6 +333,19 @@ public class HMSMirrorAppService {
             runStatus.setStage(StageEnum.ENVIRONMENT_VARS, CollectionEnum.SKIPPED);
         }
 
+        if ((isNull(config.getDatabases()) || config.getDatabases().isEmpty()) && config.getSharding().isWorker()) {
+            // All the databases hashed to the other shards.  Nothing to do isn't a failure.
+            log.info("Shard {} of {} has no databases.", config.getSharding().getIndex(),
+                    config.getSharding().getCount());
+            runStatus.setStage(StageEnum.SAVING_REPORTS, CollectionEnum.IN_PROGRESS);
+            runStatus.setEnd(new Date());
+            runStatus.setProgress(ProgressEnum.COMPLETED);
+            reportWriterService.wrapup();
+            runStatus.setStage(StageEnum.SAVING_REPORTS, CollectionEnum.COMPLETED);
+            connectionPoolService.close();
+            return CompletableFuture.completedFuture(Boolean.TRUE);
+        }
+
         if (isNull(config.getDatabases()) || config.getDatabases().isEmpty()) {
             log.error("No databases specified OR found if you used dbRegEx");
             runStatus.addError(MISC_ERROR, "No databases specified OR found if you used dbRegEx");
@@ -477,15 +510,18 @@ public class HMSMirrorAppService {
             // ========================================
             List<CompletableFuture<ReturnStatus>> migrationFuture = new ArrayList<>();
 
+            // A 'TABLE' worker of a sharded run only processes its share of the tables.
+            shardService.applyTableShard(config, conversion);
+
             runStatus.setStage(StageEnum.LOAD_TABLE_METADATA, CollectionEnum.IN_PROGRESS);
             if (rtn) {
+                List<TableMirror> metadataTables = new ArrayList<>();
                 for (String database : collectedDbs) {
                     DBMirror dbMirror = conversion.getDatabase(database);
-                    Set<String> tables = dbMirror.getTableMirrors().keySet();
-                    for (String table : tables) {
-                        TableMirror tableMirror = dbMirror.getTableMirrors().get(table);
-                        gtf.add(tableService.getTableMetadata(tableMirror));
-                    }
+                    metadataTables.addAll(dbMirror.getTableMirrors().values());
+                }
+                for (TableMirror tableMirror : tableSchedulerService.schedule(metadataTables)) {
+                    gtf.add(tableService.getTableMetadata(tableMirror));
                 }
 
                 runStatus.setStage(StageEnum.BUILDING_TABLES, CollectionEnum.IN_PROGRESS);
@@ -497,6 +533,8 @@ public class HMSMirrorAppService {
                 // move on to the NEXTSTEP and actual do the transfer.
                 // ========================================
                 CompletableFuture.allOf(gtf.toArray(new CompletableFuture[0])).join();
+                // The tables to build, submitted once their statistics are known so they can be scheduled.
+                List<TableMirror> buildTables = new ArrayList<>();
                 // Check that all the CompletableFutures in 'gtf' passed with ReturnStatus.Status.SUCCESS.
                 for (CompletableFuture<ReturnStatus> sf : gtf) {
                     try {
@@ -511,7 +549,7 @@ public class HMSMirrorAppService {
                                     // Launch the next step, which is the transfer.
                                     runStatus.getOperationStatistics().getSuccesses().incrementTables();
 
-                                    migrationFuture.add(getTransferService().build(sf.get().getTableMirror()));
+                                    buildTables.add(sf.get().getTableMirror());
                                     break;
                                 case ERROR:
                                     runStatus.getOperationStatistics().getCounts().incrementTables();
@@ -538,6 +576,9 @@ public class HMSMirrorAppService {
                         rtn = Boolean.FALSE;
                     }
                 }
+                for (TableMirror tableMirror : tableSchedulerService.schedule(buildTables)) {
+                    migrationFuture.add(getTransferService().build(tableMirror));
+                }
 
                 if (rtn) {
                     runStatus.setStage(StageEnum.LOAD_TABLE_METADATA, CollectionEnum.COMPLETED);
@@ -655,7 +696,7 @@ public class HMSMirrorAppService {
             if (rtn) {
                 if (config.isExecute()) {
                     // Using the migrationExecute List, create futures for the table executions.
-                    for (TableMirror tableMirror : migrationExecutions) {
+                    for (TableMirror tableMirror : tableSchedulerService.schedule(migrationExecutions)) {
                         migrationFuture.add(getTransferService().execute(tableMirror));
                     }
 
@@ -732,6 +773,8 @@ public class HMSMirrorAppService {
         try {
             runStatus.setStage(StageEnum.SAVING_REPORTS, CollectionEnum.COMPLETED);
             reportWriterService.wrapup();
+            // After the reports, so the cache is saved in the report directory.
+            catalogCacheService.finish();
         } catch (RuntimeException rte) {
             log.error("Issue saving reports", rte);
             runStatus.addError(MISC_ERROR, rte.getMessage());
@@ -21,7 +21,13 @@ import com.cloudera.utils.hive.config.DBStore;
 import com.cloudera.utils.hive.config.QueryDefinitions;
 import com.cloudera.utils.hms.mirror.domain.Cluster;
 import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.Optimization;
 import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.RateLimitOperationEnum;
+import com.cloudera.utils.hms.util.QueryPagination;
+import com.cloudera.utils.hms.util.StreamingQueryExecutor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
@@ -29,33 +35,53 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * The QueryDefinitionsService class is responsible for managing and providing access to
  * query definitions associated with different environments. It utilizes an execute session
  * service to retrieve configuration details necessary for loading query definitions from
  * external resources.
+ * <p>
+ * All the metastore-direct queries should be run through {@link #executeQuery}, which streams the results
+ * with the fetch settings for the metastore database type and applies any 'pagination' declared for the
+ * query in metastoreDirect.yaml.
  */
 @Service
 @Slf4j
 public class QueryDefinitionsService {
 
     private final ExecuteSessionService executeSessionService;
-    private final Map<Environment, QueryDefinitions> queryDefinitionsMap = new HashMap<>();
+    private final ConnectionPoolService connectionPoolService;
+    private final RateLimiterService rateLimiterService;
+    private final Map<Environment, QueryDefinitions> queryDefinitionsMap = new ConcurrentHashMap<>();
+    private final Map<Environment, Map<String, QueryPagination>> paginationMap = new ConcurrentHashMap<>();
 
     /**
      * Constructor for QueryDefinitionsService.
      *
      * @param executeSessionService Service for executing sessions
+     * @param connectionPoolService Service for the metastore-direct connections
+     * @param rateLimiterService    Service for the catalog read permits
      */
-    public QueryDefinitionsService(ExecuteSessionService executeSessionService) {
+    public QueryDefinitionsService(ExecuteSessionService executeSessionService,
+                                   ConnectionPoolService connectionPoolService,
+                                   RateLimiterService rateLimiterService) {
         this.executeSessionService = executeSessionService;
+        this.connectionPoolService = connectionPoolService;
+        this.rateLimiterService = rateLimiterService;
         log.debug("QueryDefinitionsService initialized");
     }
 
@@ -71,6 +97,8 @@ public class QueryDefinitionsService {
 
                 ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
                 mapper.enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+                // The 'pagination' elements are loaded separately.
+                mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
 
                 try {
                     String dbQueryDefReference = "/" + dbType.toString() + "/metastoreDirect.yaml";
@@ -82,6 +110,7 @@ public class QueryDefinitionsService {
                         }
                         String yamlConfigDefinition = IOUtils.toString(configURL, StandardCharsets.UTF_8);
                         queryDefinitions = mapper.readerFor(QueryDefinitions.class).readValue(yamlConfigDefinition);
+                        paginationMap.put(environment, loadPagination(mapper, yamlConfigDefinition));
                         queryDefinitionsMap.put(environment, queryDefinitions);
                     } catch (Exception e) {
                         log.error("Missing resource file: {}", dbQueryDefReference, e);
@@ -97,4 +126,104 @@ public class QueryDefinitionsService {
         return queryDefinitions;
     }
 
+    /**
+     * The keyset pagination declared for the query, if any.
+     *
+     * @param environment the environment the query will run against
+     * @param queryName   the name of the query in metastoreDirect.yaml
+     * @return the pagination or null when the query doesn't declare one.
+     */
+    public QueryPagination getPagination(Environment environment, String queryName) {
+        // Make sure the definitions have been loaded.
+        if (isNull(getQueryDefinitions(environment))) {
+            return null;
+        }
+        Map<String, QueryPagination> paginations = paginationMap.get(environment);
+        return nonNull(paginations) ? paginations.get(queryName) : null;
+    }
+
+    /**
+     * Run a metastore-direct query, streaming each row to the handler.
+     *
+     * @param environment the environment the connection belongs to
+     * @param conn        metastore-direct connection. The caller is responsible for closing it.
+     * @param queryName   the name of the query in metastoreDirect.yaml
+     * @param handler     called for each row
+     * @param parameters  the positional parameters for the query
+     * @return the number of rows processed
+     */
+    public long executeQuery(Environment environment, Connection conn, String queryName,
+                             StreamingQueryExecutor.RowHandler handler, Object... parameters) throws SQLException {
+        QueryDefinitions queryDefinitions = getQueryDefinitions(environment);
+        if (isNull(queryDefinitions) || isNull(queryDefinitions.getQueryDefinition(queryName))) {
+            throw new SQLException("No metastore direct query definition for: " + queryName);
+        }
+        String statement = queryDefinitions.getQueryDefinition(queryName).getStatement();
+        return getStreamingQueryExecutor(environment).execute(conn, statement,
+                getPagination(environment, queryName), handler, parameters);
+    }
+
+    /**
+     * Run one of the per database metastore-direct queries, where every parameter is the database name, on a
+     * connection of its own.  The connection is closed when it's done.
+     *
+     * @param environment the environment to run the query against
+     * @param database    the database, bound to every parameter of the query
+     * @param queryName   the name of the query in metastoreDirect.yaml
+     * @param handler     called for each row
+     * @return the number of rows processed
+     */
+    public long queryDatabaseAttributesDirect(Environment environment, String database, String queryName,
+                                              StreamingQueryExecutor.RowHandler handler) throws SQLException {
+        QueryDefinitions queryDefinitions = getQueryDefinitions(environment);
+        if (isNull(queryDefinitions) || isNull(queryDefinitions.getQueryDefinition(queryName))) {
+            throw new SQLException("No metastore direct query definition for: " + queryName);
+        }
+        String statement = queryDefinitions.getQueryDefinition(queryName).getStatement();
+        Object[] parameters = Collections.nCopies((int) statement.chars().filter(c -> c == '?').count(),
+                database).toArray();
+        Connection conn = connectionPoolService.getMetastoreDirectEnvironmentConnection(environment);
+        try {
+            rateLimiterService.acquire(environment, RateLimitOperationEnum.CATALOG_READ);
+            return executeQuery(environment, conn, queryName, handler, parameters);
+        } finally {
+            if (nonNull(conn)) {
+                try {
+                    conn.close();
+                } catch (SQLException throwables) {
+                    log.warn("Issue closing the Metastore Direct Connection. {}:{}", environment, database,
+                            throwables);
+                }
+            }
+        }
+    }
+
+    protected StreamingQueryExecutor getStreamingQueryExecutor(Environment environment) {
+        HmsMirrorConfig config = executeSessionService.getSession().getConfig();
+        DBStore.DB_TYPE dbType = config.getCluster(environment).getMetastoreDirect().getType();
+        Optimization optimization = config.getOptimization();
+        return new StreamingQueryExecutor(dbType, optimization.getMetastoreDirectFetchSize(),
+                optimization.getMetastoreDirectPageSize());
+    }
+
+    protected Map<String, QueryPagination> loadPagination(ObjectMapper mapper, String yamlConfigDefinition)
+            throws IOException {
+        Map<String, QueryPagination> rtn = new HashMap<>();
+        JsonNode definitions = mapper.readTree(yamlConfigDefinition).path("query_definitions");
+        Iterator<Map.Entry<String, JsonNode>> fields = definitions.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            JsonNode paginationNode = entry.getValue().get("pagination");
+            if (nonNull(paginationNode)) {
+                QueryPagination pagination = mapper.treeToValue(paginationNode, QueryPagination.class);
+                if (pagination.isValid()) {
+                    rtn.put(entry.getKey(), pagination);
+                } else {
+                    log.warn("Ignoring incomplete 'pagination' definition for query: {}", entry.getKey());
+                }
+            }
+        }
+        return rtn;
+    }
+
 }
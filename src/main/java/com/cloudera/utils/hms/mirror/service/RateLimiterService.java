@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.domain.Cluster;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.RateLimits;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.RateLimitOperationEnum;
+import com.cloudera.utils.hms.util.TokenBucket;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Holds the calls made against each cluster's HS2 and metastore to the 'rateLimits' set on the cluster, with a
+ * token bucket per environment and operation class.  Calls over the limit wait (back-pressure), they never fail.
+ * <p>
+ * The limits are scaled by the cluster's time of day 'schedule', checked on every call, so a long run picks up
+ * the change when a window opens or closes.
+ */
+@Service
+@Slf4j
+@Getter
+@Setter
+public class RateLimiterService {
+
+    private final ExecuteSessionService executeSessionService;
+
+    private Clock clock = Clock.systemDefaultZone();
+    private TokenBucket.Sleeper sleeper = TokenBucket.THREAD_SLEEPER;
+
+    /*
+    The buckets of each session config.  A new session config starts new buckets, and sessions running at the
+    same time each keep to their own limits.  Weak, so the configs of finished sessions are let go.
+     */
+    private final Map<HmsMirrorConfig, Map<String, TokenBucket>> buckets = new WeakHashMap<>();
+
+    public RateLimiterService(ExecuteSessionService executeSessionService) {
+        this.executeSessionService = executeSessionService;
+    }
+
+    /**
+     * Wait, when needed, until the call is allowed by the environment's limit for the operation.
+     */
+    public void acquire(Environment environment, RateLimitOperationEnum operation) {
+        ExecuteSession session = executeSessionService.getSession();
+        if (isNull(session) || isNull(session.getConfig())) {
+            return;
+        }
+        HmsMirrorConfig config = session.getConfig();
+        Cluster cluster = config.getCluster(environment);
+        if (isNull(cluster) || isNull(cluster.getRateLimits())) {
+            return;
+        }
+        RateLimits rateLimits = cluster.getRateLimits();
+        double limit = rateLimits.getRate(operation);
+        if (limit <= 0) {
+            return;
+        }
+        TokenBucket bucket = getBucket(config, environment, operation, limit);
+        bucket.setRate(limit * rateLimits.getFactor(LocalTime.now(clock)));
+        try {
+            long waited = bucket.acquire();
+            if (waited > 0) {
+                log.trace("{}:{} waited {}ms for the rate limit", environment, operation,
+                        TimeUnit.NANOSECONDS.toMillis(waited));
+            }
+        } catch (InterruptedException e) {
+            log.warn("Interrupted waiting for the {}:{} rate limit", environment, operation);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private TokenBucket getBucket(HmsMirrorConfig config, Environment environment,
+                                  RateLimitOperationEnum operation, double limit) {
+        synchronized (buckets) {
+            return buckets.computeIfAbsent(config, k -> new HashMap<>())
+                    .computeIfAbsent(environment + ":" + operation, k -> new TokenBucket(limit, clock, sleeper));
+        }
+    }
+
+}
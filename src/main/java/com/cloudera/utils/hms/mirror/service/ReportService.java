@@ -20,7 +20,6 @@ package com.cloudera.utils.hms.mirror.service;
 import com.cloudera.utils.hms.mirror.domain.DBMirror;
 import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
 import com.cloudera.utils.hms.mirror.domain.support.RunStatus;
-import com.cloudera.utils.hms.util.NamespaceUtils;
 import com.cloudera.utils.hms.util.UrlUtils;
 import lombok.Getter;
 import lombok.Setter;
@@ -29,22 +28,23 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.DirectoryFileFilter;
 import org.apache.commons.io.filefilter.NotFileFilter;
 import org.apache.commons.io.filefilter.TrueFileFilter;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.http.HttpEntity;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
+import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipException;
 import java.util.zip.ZipOutputStream;
 
 import static com.cloudera.utils.hms.mirror.web.controller.ControllerReferences.*;
@@ -71,45 +71,83 @@ public class ReportService {
         this.executeSessionService = executeSessionService;
     }
 
+    /*
+    Buffer for copying the report files into the zip.  A download holds one of these (and the one in front of the
+    response), no matter how big the report directory is.
+     */
+    public static final int ZIP_BUFFER_SIZE = 64 * 1024;
+    public static final String DB_REPORT_SUFFIX = "_hms-mirror.yaml";
+
     /**
-     * Creates a ZIP file from all files in the specified directory.
+     * Writes a ZIP of the files in the directory to the output stream, as they are read.  Nothing is staged on
+     * disk or in memory.  Subdirectories are included with their relative paths.
      *
-     * @param zipFileName   the name of the ZIP file to be created
      * @param baseDirectory the path to the directory whose files will be added to the ZIP
-     * @throws IOException if an I/O error occurs while creating or writing the ZIP file
+     * @param out           where the ZIP is written.  It's finished, but not closed.
+     * @param databases     when not empty, only the files for these databases (and the session files) are included
+     * @param fileTypes     when not empty, only the files with these extensions (ie: 'yaml', 'sql') are included
+     * @throws IOException if an I/O error occurs while reading the files or writing the ZIP
      */
-    private void createZipFromDirectory(String zipFileName, String baseDirectory) throws IOException {
-        final FileOutputStream fos = new FileOutputStream(zipFileName);
-        ZipOutputStream zipOut = new ZipOutputStream(fos);
-        File sessionDirectory = new File(baseDirectory);
-        String[] files = sessionDirectory.list();
-        for (String srcFile : files) {
-            System.out.println("Adding file: " + srcFile);
-            String absolutePath = baseDirectory + File.separator + srcFile;
-            File fileToZip = new File(absolutePath);
-            if (fileToZip.exists()) {
-                FileInputStream fis = null;
-                try {
-                    fis = new FileInputStream(fileToZip);
-                    ZipEntry zipEntry = new ZipEntry(srcFile);
-                    zipOut.putNextEntry(zipEntry);
-                    byte[] bytes = new byte[1024];
-                    int length;
-                    while ((length = fis.read(bytes)) >= 0) {
-                        zipOut.write(bytes, 0, length);
-                    }
-                } catch (ZipException ze) {
-                    log.error(ze.getMessage(), ze);
-                } finally {
-                    assert fis != null;
-                    fis.close();
+    protected void writeZipFromDirectory(String baseDirectory, OutputStream out, Set<String> databases,
+                                         Set<String> fileTypes) throws IOException {
+        Path basePath = Paths.get(baseDirectory);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(basePath)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        // The databases in the report, to tell their files from the session files.
+        Set<String> reportDatabases = new TreeSet<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(DB_REPORT_SUFFIX)) {
+                reportDatabases.add(name.substring(0, name.length() - DB_REPORT_SUFFIX.length()));
+            }
+        }
+
+        ZipOutputStream zipOut = new ZipOutputStream(new BufferedOutputStream(out, ZIP_BUFFER_SIZE));
+        byte[] buffer = new byte[ZIP_BUFFER_SIZE];
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (!includeInZip(name, reportDatabases, databases, fileTypes)) {
+                continue;
+            }
+            String entryName = basePath.relativize(file).toString().replace(File.separatorChar, '/');
+            log.debug("Adding file: {}", entryName);
+            zipOut.putNextEntry(new ZipEntry(entryName));
+            try (InputStream fis = Files.newInputStream(file)) {
+                int length;
+                while ((length = fis.read(buffer)) >= 0) {
+                    zipOut.write(buffer, 0, length);
                 }
-            } else {
-                System.out.println("File not found: " + srcFile);
             }
+            zipOut.closeEntry();
         }
-        zipOut.close();
-        fos.close();
+        // Writes the central directory and flushes, but leaves the response open for the container.
+        zipOut.finish();
+        zipOut.flush();
+    }
+
+    protected boolean includeInZip(String name, Set<String> reportDatabases, Set<String> databases,
+                                   Set<String> fileTypes) {
+        if (nonNull(fileTypes) && !fileTypes.isEmpty()) {
+            int dot = name.lastIndexOf('.');
+            String type = dot < 0 ? "" : name.substring(dot + 1);
+            if (!fileTypes.contains(type.toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        if (nonNull(databases) && !databases.isEmpty()) {
+            // Use the longest database name that prefixes the file, so 'sales' doesn't pick up 'sales_archive'.
+            String owner = null;
+            for (String database : reportDatabases) {
+                if (name.startsWith(database + "_") && (isNull(owner) || database.length() > owner.length())) {
+                    owner = database;
+                }
+            }
+            // Files that don't belong to a database are for the session, and are always included.
+            return isNull(owner) || databases.contains(owner);
+        }
+        return true;
     }
 
     /**
@@ -165,8 +203,8 @@ public class ReportService {
         String[] files = sessionDirectory.list();
 
         for (String srcFile : files) {
-            if (srcFile.endsWith("_hms-mirror.yaml")) {
-                String databaseName = srcFile.substring(0, srcFile.indexOf("_hms-mirror.yaml"));
+            if (srcFile.endsWith(DB_REPORT_SUFFIX)) {
+                String databaseName = srcFile.substring(0, srcFile.indexOf(DB_REPORT_SUFFIX));
 
                 List<String> databases = artifacts.get(DATABASES);//.add(databaseName);
                 if (isNull(databases)) {
@@ -195,7 +233,7 @@ public class ReportService {
 
     public String getDatabaseFile(String sessionId, String database) {
         String reportDirectory = executeSessionService.getReportOutputDirectory();
-        return reportDirectory + File.separator + sessionId + File.separator + database + "_hms-mirror.yaml";
+        return reportDirectory + File.separator + sessionId + File.separator + database + DB_REPORT_SUFFIX;
     }
 
     public String getReportFile(String sessionId, String reportFile) {
@@ -268,40 +306,51 @@ public class ReportService {
         return asString;
     }
 
+    public ResponseEntity<StreamingResponseBody> getZippedReport(String id) throws IOException {
+        return getZippedReport(id, null, null);
+    }
+
     /**
-     * Generates a ZIP archive containing the reports for a given session ID and returns it as an HTTP entity.
-     * The method locates the session directory based on the `id`, compresses its contents into a ZIP file,
-     * and prepares it for download with relevant HTTP headers.
+     * Streams a ZIP archive of the reports for a session ID straight to the HTTP response.  The files are zipped
+     * as the response is written, so memory use doesn't grow with the size of the report directory.
      *
-     * @param id the unique identifier of the session whose reports are to be zipped
-     * @return an HTTP entity containing the ZIP archive of the session reports as a byte array resource
-     * @throws IOException if the session directory does not exist, is not a directory, or there is an error during file processing
+     * @param id        the unique identifier of the session whose reports are to be zipped
+     * @param databases optional, limits the archive to the files of these databases (plus the session files)
+     * @param fileTypes optional, limits the archive to the files with these extensions
+     * @return a response entity that writes the ZIP archive of the session reports
+     * @throws IOException if the session directory does not exist or is not a directory
      */
-    public HttpEntity<ByteArrayResource> getZippedReport(String id) throws IOException {
+    public ResponseEntity<StreamingResponseBody> getZippedReport(String id, Set<String> databases,
+                                                                 Set<String> fileTypes) throws IOException {
         // Using the 'id', get the reports for the session.
         String reportDirectory = executeSessionService.getReportOutputDirectory();
         // List directories in the report directory.
         String sessionDirectoryName = reportDirectory + File.separator + id;
         File sessionDirectory = new File(sessionDirectoryName);
-        // Ensure it exists and is a directory.
+        // Ensure it exists and is a directory.  Checked now, before the response starts.
         if (!sessionDirectory.exists() || !sessionDirectory.isDirectory()) {
             throw new IOException("Session reports not found.");
         }
 
-        String lastDir = NamespaceUtils.getLastDirectory(id);
-        // Zip the files in the report directory and return the zip file.
-        String zipFileName = System.getProperty("java.io.tmpdir") + File.separator + lastDir + ".zip";
+        Set<String> types = null;
+        if (nonNull(fileTypes)) {
+            types = new TreeSet<>();
+            for (String fileType : fileTypes) {
+                types.add(StringUtils.removeStart(fileType.trim(), ".").toLowerCase(Locale.ROOT));
+            }
+        }
+        final Set<String> zipTypes = types;
 
-        createZipFromDirectory(zipFileName, sessionDirectoryName);
+        StreamingResponseBody body = out -> writeZipFromDirectory(sessionDirectoryName, out, databases, zipTypes);
 
-        // Package and return the zip file.
+        // Package and return the zip stream.
         HttpHeaders header = new HttpHeaders();
         header.setContentType(new MediaType("application", "force-download"));
 
         String downloadFilename = id + ".zip";
         header.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + downloadFilename);
 
-        return new HttpEntity<>(new ByteArrayResource(Files.readAllBytes(Paths.get(zipFileName))), header);
+        return new ResponseEntity<>(body, header, HttpStatus.OK);
     }
 
     /**
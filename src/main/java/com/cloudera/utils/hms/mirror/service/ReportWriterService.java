@@ -168,6 +168,11 @@ public class ReportWriterService {
             log.error("Problem 'writing' run status", ioe);
         }
 
+        // The distcp files cover all the databases, so they're only built once.
+        if (configService.canDeriveDistcpPlan(session)) {
+            distCpService.buildAllDistCpReports(session, reportOutputDir);
+        }
+
         for (Map.Entry<String, DBMirror> dbEntry : conversion.getDatabases().entrySet()) {
             String database = HmsMirrorConfigUtil.getResolvedDB(dbEntry.getKey(), config);
             String originalDatabase = dbEntry.getKey();
@@ -184,11 +189,6 @@ public class ReportWriterService {
                 boolean dcLeft = Boolean.FALSE;
                 boolean dcRight = Boolean.FALSE;
 
-                if (configService.canDeriveDistcpPlan(session)) {
-                    distCpService.buildAllDistCpReports(session, reportOutputDir);
-                }
-
-
                 FileWriter runbookFile = new FileWriter(dbRunbookFile);
                 runbookFile.write("# Runbook for database: " + originalDatabase);
                 runbookFile.write("\n\nYou'll find the **run report** in the file:\n\n`" + dbReportOutputFile + ".md|html` " +
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+
+/**
+ * The session a thread is working for, so several sessions can run at the same time in one service.
+ * <p>
+ * A running session is bound to the thread that runs it, and follows its work onto the other threads: the
+ * Spring pools wrap their tasks (see ThreadPoolConfigurator) and the local executors use {@link #wrap}.  A
+ * thread that isn't bound (IE: a web request) works with the 'current' session of the ExecuteSessionService.
+ */
+public final class SessionContext {
+
+    private static final ThreadLocal<ExecuteSession> BOUND_SESSION = new ThreadLocal<>();
+
+    private SessionContext() {
+    }
+
+    /**
+     * The session bound to this thread, or null.
+     */
+    public static ExecuteSession current() {
+        return BOUND_SESSION.get();
+    }
+
+    /**
+     * Bind the session to this thread.
+     *
+     * @return the session that was bound before, to hand back to {@link #restore}.
+     */
+    public static ExecuteSession bind(ExecuteSession session) {
+        ExecuteSession previous = BOUND_SESSION.get();
+        BOUND_SESSION.set(session);
+        return previous;
+    }
+
+    public static void restore(ExecuteSession previous) {
+        if (isNull(previous)) {
+            BOUND_SESSION.remove();
+        } else {
+            BOUND_SESSION.set(previous);
+        }
+    }
+
+    /**
+     * Carry the session bound to the calling thread over to the thread that runs the task.
+     */
+    public static Runnable wrap(Runnable task) {
+        ExecuteSession session = current();
+        if (isNull(session)) {
+            return task;
+        }
+        return () -> {
+            ExecuteSession previous = bind(session);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        ExecuteSession session = current();
+        if (isNull(session)) {
+            return task;
+        }
+        return () -> {
+            ExecuteSession previous = bind(session);
+            try {
+                return task.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+}
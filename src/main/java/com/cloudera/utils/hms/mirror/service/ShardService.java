@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.domain.DBMirror;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.Sharding;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.cloudera.utils.hms.mirror.domain.support.Conversion;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.ShardByEnum;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+import static com.cloudera.utils.hms.mirror.MessageCode.SHARD_FAILED;
+import static com.cloudera.utils.hms.mirror.MessageCode.SHARD_REPORT_ISSUE;
+import static com.cloudera.utils.hms.mirror.service.ReportService.DB_REPORT_SUFFIX;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/*
+Splits a run across worker processes.  The coordinator starts a worker for each shard with its own command line
+plus the shard index, waits for them, and merges the database reports they write into its own conversion.  The
+workers use the same config and keep only the databases (or tables) that hash to their shard.
+ */
+@Service
+@Slf4j
+@Getter
+public class ShardService {
+
+    public static final String SHARD_DIRECTORY_PREFIX = "shard-";
+
+    // Set by the coordinator for each worker.
+    private static final Set<String> WORKER_OPTIONS = new HashSet<>(Arrays.asList("-shi", "--shard-index",
+            "-shw", "--shard-work-dir"));
+
+    private final ExecuteSessionService executeSessionService;
+    private final ObjectMapper yamlMapper;
+
+    public ShardService(ExecuteSessionService executeSessionService,
+                        ObjectMapper yamlMapper) {
+        this.executeSessionService = executeSessionService;
+        this.yamlMapper = yamlMapper;
+    }
+
+    /*
+    A stable assignment, so every worker (and a rerun) agrees on where a database or table goes.
+     */
+    public static int shardOf(String key, int count) {
+        CRC32 crc = new CRC32();
+        crc.update(key.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % count);
+    }
+
+    /*
+    For a DATABASE worker, drop the databases that belong to the other shards.
+     */
+    public void applyDatabaseShard(HmsMirrorConfig config, Conversion conversion) {
+        Sharding sharding = config.getSharding();
+        if (!sharding.isWorker() || sharding.getBy() != ShardByEnum.DATABASE) {
+            return;
+        }
+        Set<String> databases = new TreeSet<>();
+        for (String database : config.getDatabases()) {
+            if (shardOf(database, sharding.getCount()) == sharding.getIndex()) {
+                databases.add(database);
+            }
+        }
+        log.info("Shard {} of {} has databases: {}", sharding.getIndex(), sharding.getCount(),
+                String.join(",", databases));
+        config.setDatabases(databases);
+        conversion.getDatabases().keySet().retainAll(databases);
+    }
+
+    /*
+    For a TABLE worker, drop the tables that belong to the other shards.  Every worker keeps the databases, so
+    their reports can be merged.
+     */
+    public void applyTableShard(HmsMirrorConfig config, Conversion conversion) {
+        Sharding sharding = config.getSharding();
+        if (!sharding.isWorker() || sharding.getBy() != ShardByEnum.TABLE) {
+            return;
+        }
+        int kept = 0;
+        for (DBMirror dbMirror : conversion.getDatabases().values()) {
+            Iterator<String> tables = dbMirror.getTableMirrors().keySet().iterator();
+            while (tables.hasNext()) {
+                String table = tables.next();
+                if (shardOf(dbMirror.getName() + "." + table, sharding.getCount()) != sharding.getIndex()) {
+                    tables.remove();
+                } else {
+                    kept++;
+                }
+            }
+        }
+        log.info("Shard {} of {} has {} tables", sharding.getIndex(), sharding.getCount(), kept);
+    }
+
+    /*
+    The coordinator's command with the worker's shard.  A 'shard-index' or 'shard-work-dir' already on it (with its
+    value) is replaced, not repeated.
+     */
+    public List<String> workerCommand(List<String> baseCommand, String workDirectory, int index) {
+        List<String> rtn = new ArrayList<>();
+        Iterator<String> args = baseCommand.iterator();
+        while (args.hasNext()) {
+            String arg = args.next();
+            if (WORKER_OPTIONS.contains(arg)) {
+                // And its value.
+                if (args.hasNext()) {
+                    args.next();
+                }
+            } else if (!arg.startsWith("--shard-index=") && !arg.startsWith("--shard-work-dir=")) {
+                rtn.add(arg);
+            }
+        }
+        rtn.add("--shard-index");
+        rtn.add(Integer.toString(index));
+        rtn.add("--shard-work-dir");
+        rtn.add(workDirectory);
+        return rtn;
+    }
+
+    /*
+    The command line of this process, to start the workers with the same options.
+     */
+    public List<String> currentProcessCommand() {
+        ProcessHandle.Info info = ProcessHandle.current().info();
+        List<String> rtn = new ArrayList<>();
+        rtn.add(info.command().orElseThrow(() ->
+                new IllegalStateException("Unable to determine the command for this process.")));
+        info.arguments().ifPresent(args -> rtn.addAll(Arrays.asList(args)));
+        return rtn;
+    }
+
+    /*
+    Run the workers and merge their reports into the current session.
+     */
+    public boolean coordinate(List<String> command) {
+        ExecuteSession session = executeSessionService.getSession();
+        HmsMirrorConfig config = session.getConfig();
+        Sharding sharding = config.getSharding();
+        String workDirectory = sharding.getWorkDirectory();
+        if (isNull(workDirectory)) {
+            workDirectory = config.getOutputDirectory() + File.separator + "shards_" + session.getSessionId();
+            sharding.setWorkDirectory(workDirectory);
+        }
+        new File(workDirectory).mkdirs();
+
+        boolean rtn = Boolean.TRUE;
+        List<Process> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < sharding.getCount(); i++) {
+                File logFile = new File(workDirectory, SHARD_DIRECTORY_PREFIX + i + ".log");
+                ProcessBuilder pb = new ProcessBuilder(workerCommand(command, workDirectory, i));
+                pb.redirectErrorStream(true);
+                pb.redirectOutput(logFile);
+                log.info("Starting shard {} of {}.  Log: {}", i, sharding.getCount(), logFile);
+                workers.add(pb.start());
+            }
+            for (int i = 0; i < workers.size(); i++) {
+                int exitCode = workers.get(i).waitFor();
+                log.info("Shard {} finished with exit code {}", i, exitCode);
+                if (exitCode != 0) {
+                    // A non-zero exit is also how a run reports unsuccessful tables, so keep what it wrote.
+                    session.addWarning(SHARD_FAILED, i, exitCode,
+                            new File(workDirectory, SHARD_DIRECTORY_PREFIX + i + ".log").getPath());
+                }
+            }
+        } catch (IOException e) {
+            log.error("Issue starting the shard workers", e);
+            session.addError(SHARD_FAILED, workers.size(), -1, workDirectory);
+            rtn = Boolean.FALSE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rtn = Boolean.FALSE;
+        } finally {
+            if (!rtn) {
+                workers.forEach(Process::destroy);
+            }
+        }
+
+        Map<String, DBMirror> merged = mergeShardReports(workDirectory, sharding.getCount());
+        Conversion conversion = session.getConversion();
+        conversion.getDatabases().clear();
+        conversion.getDatabases().putAll(merged);
+        config.setDatabases(new TreeSet<>(merged.keySet()));
+        return rtn;
+    }
+
+    /*
+    Read the database reports the workers wrote and combine them.  In TABLE mode each database shows up once per
+    worker, with that worker's tables.
+     */
+    public Map<String, DBMirror> mergeShardReports(String workDirectory, int count) {
+        Map<String, DBMirror> rtn = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            File shardDir = new File(workDirectory, SHARD_DIRECTORY_PREFIX + i);
+            File[] reports = shardDir.listFiles((dir, name) -> name.endsWith(DB_REPORT_SUFFIX));
+            if (isNull(reports)) {
+                log.warn("No reports found for shard {} in {}", i, shardDir);
+                continue;
+            }
+            Arrays.sort(reports);
+            for (File report : reports) {
+                try {
+                    DBMirror dbMirror = yamlMapper.readerFor(DBMirror.class).readValue(report);
+                    // Reattach the tables to their database.
+                    dbMirror.setTableMirrors(dbMirror.getTableMirrors());
+                    DBMirror existing = rtn.get(dbMirror.getName());
+                    if (isNull(existing)) {
+                        rtn.put(dbMirror.getName(), dbMirror);
+                    } else {
+                        merge(existing, dbMirror);
+                    }
+                } catch (IOException e) {
+                    log.error("Issue reading shard report {}", report, e);
+                    executeSessionService.getSession().addError(SHARD_REPORT_ISSUE, report.getPath());
+                }
+            }
+        }
+        return rtn;
+    }
+
+    protected void merge(DBMirror target, DBMirror source) {
+        for (Map.Entry<String, TableMirror> entry : source.getTableMirrors().entrySet()) {
+            entry.getValue().setParent(target);
+            target.getTableMirrors().put(entry.getKey(), entry.getValue());
+        }
+        target.getFilteredOut().putAll(source.getFilteredOut());
+        for (Map.Entry<Environment, List<String>> entry : source.getIssues().entrySet()) {
+            List<String> issues = target.getIssues().computeIfAbsent(entry.getKey(), k -> new ArrayList<>());
+            for (String issue : entry.getValue()) {
+                if (!issues.contains(issue)) {
+                    issues.add(issue);
+                }
+            }
+        }
+        for (Map.Entry<Environment, Map<String, String>> entry : source.getProblemSQL().entrySet()) {
+            target.getProblemSQL().computeIfAbsent(entry.getKey(), k -> new TreeMap<>()).putAll(entry.getValue());
+        }
+        if (nonNull(source.getEnvironmentStatistics())) {
+            source.getEnvironmentStatistics().forEach((env, stats) ->
+                    target.getEnvironmentStatistics().putIfAbsent(env, stats));
+        }
+    }
+}
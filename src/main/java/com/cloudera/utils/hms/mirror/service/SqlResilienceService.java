@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.domain.Cluster;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.Resilience;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.RateLimitOperationEnum;
+import com.cloudera.utils.hms.mirror.domain.support.RunStatus;
+import com.cloudera.utils.hms.util.CircuitBreaker;
+import com.cloudera.utils.hms.util.CopiedResultSet;
+import com.cloudera.utils.hms.util.SessionSettings;
+import com.cloudera.utils.hms.util.TokenBucket;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.sql.*;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static com.cloudera.utils.hms.mirror.MessageCode.CIRCUIT_BREAKER_OPENED;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Runs the SQL statements against a cluster's HS2 with the cluster's 'resilience' settings: the timeout of the
+ * statement's class, retries with an exponential backoff when the failure is transient, and a circuit breaker per
+ * environment that holds the statements while the server keeps failing.  The rate limits are applied to each try.
+ * <p>
+ * Failures that aren't transient (IE: a semantic error) are thrown right away.  They show the server is up, so
+ * they don't count against the circuit breaker.
+ * <p>
+ * The 'SET' values run on each connection are kept (see {@link SessionSettings}), so the callers can skip a 'SET'
+ * the connection's session already has, and a retry can carry on the session on a new connection when the failure
+ * took the statement's connection with it.
+ */
+@Service
+@Slf4j
+@Getter
+@Setter
+public class SqlResilienceService {
+
+    public interface SqlCall<T> {
+        T call(Statement stmt) throws SQLException;
+    }
+
+    /*
+    How long to wait for a connection to answer, when checking if it can be retried on.
+     */
+    private static final int VALID_TIMEOUT_SECONDS = 5;
+
+    private final ExecuteSessionService executeSessionService;
+    private final RateLimiterService rateLimiterService;
+    private final ConnectionPoolService connectionPoolService;
+
+    private Clock clock = Clock.systemDefaultZone();
+    private TokenBucket.Sleeper sleeper = TokenBucket.THREAD_SLEEPER;
+
+    /*
+    The circuit breakers of each session config, like the rate limit buckets.
+     */
+    private final Map<HmsMirrorConfig, Map<Environment, CircuitBreaker>> breakers = new WeakHashMap<>();
+    private final SessionSettings sessionSettings = new SessionSettings();
+
+    public SqlResilienceService(ExecuteSessionService executeSessionService, RateLimiterService rateLimiterService,
+                                ConnectionPoolService connectionPoolService) {
+        this.executeSessionService = executeSessionService;
+        this.rateLimiterService = rateLimiterService;
+        this.connectionPoolService = connectionPoolService;
+    }
+
+    public boolean execute(Environment environment, Statement stmt, String sql) throws SQLException {
+        return run(environment, stmt, sql, s -> s.execute(sql));
+    }
+
+    public ResultSet executeQuery(Environment environment, Statement stmt, String sql) throws SQLException {
+        return run(environment, stmt, sql, s -> s.executeQuery(sql));
+    }
+
+    /**
+     * Whether the statement is a 'SET' to the value the session of the statement's connection already has.
+     */
+    public boolean isSessionValue(Statement stmt, String sql) {
+        return sessionSettings.isCurrent(connectionOf(stmt), sql);
+    }
+
+    protected <T> T run(Environment environment, Statement stmt, String sql, SqlCall<T> call) throws SQLException {
+        Connection connection = connectionOf(stmt);
+        T rtn;
+        try {
+            rtn = runResilient(environment, stmt, sql, call);
+        } catch (SQLException se) {
+            // Can't be sure what's left of the session (it may be gone with the connection), so start over.
+            sessionSettings.forget(connection);
+            throw se;
+        }
+        // Even when it was retried on another connection, it's the session the caller is carrying on.
+        sessionSettings.record(connection, sql);
+        return rtn;
+    }
+
+    /*
+    A retry runs on the statement's connection while it's still good.  When the failure took the connection with it,
+    the retry runs on a new connection from the pool, set up with the 'USE' and 'SET's of the statement's session.
+    The result of a query on the new connection is copied, so the connection can go back to the pool.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T runResilient(Environment environment, Statement stmt, String sql, SqlCall<T> call)
+            throws SQLException {
+        RateLimitOperationEnum operation = RateLimitOperationEnum.forStatement(sql);
+        ExecuteSession session = executeSessionService.getSession();
+        HmsMirrorConfig config = isNull(session) ? null : session.getConfig();
+        Cluster cluster = isNull(config) ? null : config.getCluster(environment);
+        Resilience resilience = isNull(cluster) ? null : cluster.getResilience();
+        if (isNull(resilience)) {
+            rateLimit(environment, operation);
+            return call.call(stmt);
+        }
+        setTimeout(environment, stmt, resilience, operation);
+        CircuitBreaker breaker = getBreaker(config, session.getRunStatus(), environment, resilience);
+        long backoff = TimeUnit.MILLISECONDS.toNanos(Math.max(0, resilience.getRetryBackoffMillis()));
+        long maxBackoff = TimeUnit.MILLISECONDS.toNanos(Math.max(0, resilience.getMaxRetryBackoffMillis()));
+        int attempt = 0;
+        Statement current = stmt;
+        Connection replacement = null;
+        boolean replace = false;
+        try {
+            while (true) {
+                try {
+                    long waited = breaker.acquire();
+                    if (waited > 0) {
+                        log.info("{}: Waited {}s for the circuit breaker", environment,
+                                TimeUnit.NANOSECONDS.toSeconds(waited));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted waiting for the " + environment + " circuit breaker", e);
+                }
+                boolean reported = false;
+                try {
+                    if (replace) {
+                        replace = false;
+                        close(replacement);
+                        replacement = null;
+                        replacement = connectionPoolService.getHS2EnvironmentConnection(environment);
+                        if (isNull(replacement)) {
+                            throw new SQLTransientConnectionException("No connection available for " + environment);
+                        }
+                        current = replacement.createStatement();
+                        setTimeout(environment, current, resilience, operation);
+                        for (String setup : sessionSettings.getSetup(connectionOf(stmt))) {
+                            current.execute(setup);
+                            sessionSettings.record(replacement, setup);
+                        }
+                    }
+                    rateLimit(environment, operation);
+                    T rtn = call.call(current);
+                    if (nonNull(replacement)) {
+                        sessionSettings.record(replacement, sql);
+                        if (rtn instanceof ResultSet) {
+                            rtn = (T) CopiedResultSet.copyOf((ResultSet) rtn);
+                        }
+                    }
+                    breaker.success();
+                    reported = true;
+                    return rtn;
+                } catch (SQLException se) {
+                    if (nonNull(replacement)) {
+                        // Can't be sure what's left of its session.
+                        sessionSettings.forget(replacement);
+                    }
+                    if (!isTransient(se, resilience)) {
+                        breaker.success();
+                        reported = true;
+                        throw se;
+                    }
+                    breaker.failure();
+                    reported = true;
+                    if (attempt >= resilience.getRetries() || !isRetryable(sql) || isClosed(stmt)) {
+                        throw se;
+                    }
+                    attempt++;
+                    replace = !isUsable(current);
+                    log.warn("{}: Transient failure ({}), try {} of {} in {}ms{}: {}", environment, se.getSQLState(),
+                            attempt + 1, resilience.getRetries() + 1, TimeUnit.NANOSECONDS.toMillis(backoff),
+                            replace ? " on a new connection" : "", se.getMessage());
+                    try {
+                        sleeper.sleep(backoff);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw se;
+                    }
+                    backoff = Math.min(backoff * 2, maxBackoff);
+                } finally {
+                    if (!reported) {
+                        breaker.release();
+                    }
+                }
+            }
+        } finally {
+            close(replacement);
+        }
+    }
+
+    /**
+     * Whether the failure is likely to pass: the JDBC transient and recoverable exceptions, a configured SQLState,
+     * or a lost connection anywhere in the causes.
+     */
+    public static boolean isTransient(SQLException se, Resilience resilience) {
+        if (se instanceof SQLTransientException || se instanceof SQLRecoverableException) {
+            return true;
+        }
+        if (nonNull(resilience) && resilience.isTransientSqlState(se.getSQLState())) {
+            return true;
+        }
+        for (Throwable cause = se.getCause(); nonNull(cause) && cause != cause.getCause(); cause = cause.getCause()) {
+            if (cause instanceof SocketException || cause instanceof SocketTimeoutException
+                    || cause.getClass().getName().endsWith("TTransportException")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+    The statements that leave the same result when they're run again after a try that may have gone through: reads,
+    session statements, the DDL that creates, drops or sets something, and inserts that only overwrite.  A second
+    CREATE or DROP (without IF [NOT] EXISTS) fails instead of doing it twice.  Anything else (EG: INSERT INTO,
+    ALTER TABLE ... RENAME TO, EXPORT, IMPORT, LOAD) isn't retried.
+     */
+    private static final List<Pattern> IDEMPOTENT = Arrays.asList(
+            Pattern.compile("^(SELECT|SHOW|DESCRIBE|DESC|EXPLAIN|USE|SET|RESET|MSCK|ANALYZE|TRUNCATE|CREATE|DROP)\\b"),
+            Pattern.compile("^ALTER\\s+(TABLE|VIEW|DATABASE|SCHEMA)\\s+\\S+(\\s+PARTITION\\s*\\(.*?\\))?\\s+(SET|UNSET)\\s",
+                    Pattern.DOTALL),
+            Pattern.compile("^ALTER\\s+TABLE\\s+\\S+\\s+" +
+                    "(ADD\\s+IF\\s+NOT\\s+EXISTS|DROP\\s+IF\\s+EXISTS|RECOVER\\s+PARTITIONS)\\b"),
+            Pattern.compile("^WITH\\b(?!.*\\bINSERT\\b)", Pattern.DOTALL),
+            Pattern.compile("^(FROM|WITH|INSERT)\\b(?!.*\\bINSERT\\s+INTO\\b).*\\bINSERT\\s+OVERWRITE\\b",
+                    Pattern.DOTALL)
+    );
+
+    protected static boolean isRetryable(String sql) {
+        String statement = sql.trim().toUpperCase(Locale.ROOT);
+        for (Pattern idempotent : IDEMPOTENT) {
+            if (idempotent.matcher(statement).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Connection connectionOf(Statement stmt) {
+        try {
+            return stmt.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /*
+    The statement's connection still answers.  A driver that can't tell is trusted while the statement is open.
+     */
+    private static boolean isUsable(Statement stmt) {
+        if (isClosed(stmt)) {
+            return false;
+        }
+        Connection connection = connectionOf(stmt);
+        if (isNull(connection)) {
+            return true;
+        }
+        try {
+            return connection.isValid(VALID_TIMEOUT_SECONDS);
+        } catch (SQLFeatureNotSupportedException e) {
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void setTimeout(Environment environment, Statement stmt, Resilience resilience,
+                            RateLimitOperationEnum operation) {
+        if (resilience.hasTimeouts()) {
+            // The statements are reused, so the timeout is set for every statement, even to 0.
+            try {
+                stmt.setQueryTimeout(resilience.getTimeout(operation));
+            } catch (SQLException se) {
+                log.debug("{}: The driver doesn't support query timeouts. {}", environment, se.getMessage());
+            }
+        }
+    }
+
+    private static void close(Connection connection) {
+        if (nonNull(connection)) {
+            try {
+                connection.close();
+            } catch (SQLException se) {
+                log.warn("Issue closing the retry connection: {}", se.getMessage());
+            }
+        }
+    }
+
+    private static boolean isClosed(Statement stmt) {
+        try {
+            return stmt.isClosed();
+        } catch (SQLException se) {
+            return true;
+        }
+    }
+
+    private void rateLimit(Environment environment, RateLimitOperationEnum operation) {
+        if (nonNull(operation)) {
+            rateLimiterService.acquire(environment, operation);
+        }
+    }
+
+    protected CircuitBreaker getBreaker(HmsMirrorConfig config, RunStatus runStatus, Environment environment,
+                                        Resilience resilience) {
+        CircuitBreaker breaker;
+        synchronized (breakers) {
+            breaker = breakers.computeIfAbsent(config, k -> new HashMap<>()).computeIfAbsent(environment, k -> {
+                CircuitBreaker rtn = new CircuitBreaker(resilience.getCircuitBreakerThreshold(),
+                        TimeUnit.SECONDS.toNanos(resilience.getCircuitBreakerPauseSeconds()), clock, sleeper);
+                rtn.setListener((state, failures) -> {
+                    if (state == CircuitBreaker.State.OPEN) {
+                        log.warn("{}: Circuit breaker OPEN after {} transient failures in a row.  Pausing the " +
+                                "statements for {}s.", environment, failures, resilience.getCircuitBreakerPauseSeconds());
+                        if (nonNull(runStatus)) {
+                            runStatus.addWarning(CIRCUIT_BREAKER_OPENED, environment, failures);
+                        }
+                    } else {
+                        log.info("{}: Circuit breaker {}", environment, state);
+                    }
+                    if (nonNull(runStatus)) {
+                        runStatus.getCircuitBreakers().put(environment, state);
+                    }
+                });
+                if (nonNull(runStatus)) {
+                    runStatus.getCircuitBreakers().put(environment, rtn.getState());
+                }
+                return rtn;
+            });
+        }
+        // Pick up changes to the settings.
+        breaker.setThreshold(resilience.getCircuitBreakerThreshold());
+        breaker.setPauseNanos(TimeUnit.SECONDS.toNanos(resilience.getCircuitBreakerPauseSeconds()));
+        return breaker;
+    }
+
+}
@@ -22,13 +22,18 @@ import com.cloudera.utils.hms.mirror.domain.Cluster;
 import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
 import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
 import com.cloudera.utils.hms.mirror.domain.support.SerdeType;
+import com.cloudera.utils.hms.mirror.domain.support.SessionProfile;
 import com.cloudera.utils.hms.util.TableUtils;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.cloudera.utils.hms.mirror.SessionVars.*;
 import static java.util.Objects.isNull;
@@ -64,6 +69,11 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 public class StatsCalculatorService {
     private final ExecuteSessionService executeSessionService;
 
+    /*
+    The session profiles of each session config, keyed by the values they set.
+     */
+    private final Map<HmsMirrorConfig, Map<List<Object>, SessionProfile>> sessionProfiles = new WeakHashMap<>();
+
     public StatsCalculatorService(ExecuteSessionService executeSessionService) {
         this.executeSessionService = executeSessionService;
     }
@@ -174,6 +184,9 @@ public class StatsCalculatorService {
      * small file handling, partition count, compression, and auto-stats gathering
      * based on the provided environment and cluster settings.
      *
+     * <p>The settings come from the table's {@link SessionProfile}, which is shared with the other tables that
+     * have the same settings, so they're only worked out and formatted once.</p>
+     *
      * @param cluster the cluster instance representing the current execution context,
      *                including settings that influence statistics and optimization behavior.
      * @param controlEnv the environment table that provides control or source-side statistics
@@ -186,69 +199,98 @@ public class StatsCalculatorService {
         // Skip if no stats collection.
         if (hmsMirrorConfig.getOptimization().isSkipStatsCollection())
             return;
+        getSessionProfile(hmsMirrorConfig, cluster, controlEnv).applyTo(applyEnv);
+    }
+
+    /**
+     * The session profile for a table.  The values of the settings are worked out from the statistics, and the
+     * profile for those values is reused when another table already needed it.
+     *
+     * @param hmsMirrorConfig the session config
+     * @param cluster         the cluster the settings are applied on
+     * @param controlEnv      the environment table with the statistics
+     * @return the shared profile
+     */
+    protected SessionProfile getSessionProfile(HmsMirrorConfig hmsMirrorConfig, Cluster cluster,
+                                               EnvironmentTable controlEnv) {
         // Small File Checks
         SerdeType serdeType = serdeFromStats(controlEnv.getStatistics());
-        // TODO: Trying to figure out if making this setting will bleed over to other sessions while reusing a connections.
-        if (nonNull(controlEnv.getStatistics().get(MirrorConf.AVG_FILE_SIZE))) {
-            Double avgFileSize = (Double) controlEnv.getStatistics().get(MirrorConf.AVG_FILE_SIZE);
-            // If not 50% of target size.
-            if (avgFileSize < serdeType.getTargetSize() * .5) {
-                applyEnv.addIssue("Setting " + TEZ_GROUP_MAX_SIZE + " to account for the sources 'small files'");
-                // Set the tez group max size.
-                Long maxGrouping = getTezMaxGrouping(controlEnv);
-                applyEnv.addSql("Setting the " + TEZ_GROUP_MAX_SIZE,
-                        MessageFormat.format(SET_SESSION_VALUE_INT, TEZ_GROUP_MAX_SIZE, maxGrouping));
-            }
-        }
+        Double avgFileSize = (Double) controlEnv.getStatistics().get(MirrorConf.AVG_FILE_SIZE);
+        // If not 50% of target size.
+        Long tezMaxGrouping = nonNull(avgFileSize) && avgFileSize < serdeType.getTargetSize() * .5
+                ? getTezMaxGrouping(controlEnv) : null;
         // Check the partition count.
-        if (controlEnv.getPartitioned()) {
-            // MAX DYN PARTS: 1000 is the Apache default.  CDP is 5000.  Regardless, we'll set this to +20%
-            // Also check MAX REDUCERS
-            if (controlEnv.getPartitions().size() > 1000) {
-                applyEnv.addIssue("Setting " + HIVE_MAX_DYNAMIC_PARTITIONS);
-                applyEnv.addSql("Setting " + HIVE_MAX_DYNAMIC_PARTITIONS,
-                        MessageFormat.format(SET_SESSION_VALUE_INT, HIVE_MAX_DYNAMIC_PARTITIONS,
-                                (int) (controlEnv.getPartitions().size() * 1.2)));
-                applyEnv.addIssue("Adjusting " + HIVE_MAX_REDUCERS + " to handle partition load");
-                int ratio = getPartitionDistributionRatio(controlEnv).intValue();
-                if (ratio >= 1) {
-                    applyEnv.addSql("Setting " + HIVE_MAX_REDUCERS,
-                            MessageFormat.format(SET_SESSION_VALUE_INT, HIVE_MAX_REDUCERS,
-                                    (ratio * controlEnv.getPartitions().size()) + 20));
-                } else {
-                    applyEnv.addSql("Setting " + HIVE_MAX_REDUCERS,
-                            MessageFormat.format(SET_SESSION_VALUE_INT, HIVE_MAX_REDUCERS,
-                                    (int) (controlEnv.getPartitions().size() * 1.2)));
-                }
-            }
-        }
+        // MAX DYN PARTS: 1000 is the Apache default.  CDP is 5000.  Regardless, we'll set this to +20%
+        // Also check MAX REDUCERS
+        int partitionCount = controlEnv.getPartitioned() ? controlEnv.getPartitions().size() : 0;
+        Integer maxDynamicPartitions = partitionCount > 1000 ? (int) (partitionCount * 1.2) : null;
+        Integer maxReducers = partitionCount > 1000 ? getMaxReducers(controlEnv, partitionCount) : null;
         // Compression Settings.
-        if (serdeType == SerdeType.TEXT) {
-            if (hmsMirrorConfig.getOptimization().isCompressTextOutput()) {
-                applyEnv.addIssue("Setting " + HIVE_COMPRESS_OUTPUT + " because you've setting that optimization");
-                applyEnv.addSql("Setting: " + HIVE_COMPRESS_OUTPUT, MessageFormat.format(SET_SESSION_VALUE_STRING, HIVE_COMPRESS_OUTPUT, "true"));
-            } else {
-                applyEnv.addIssue("Setting " + HIVE_COMPRESS_OUTPUT + " because you HAVEN'T set that optimization");
-                applyEnv.addSql("Setting: " + HIVE_COMPRESS_OUTPUT, MessageFormat.format(SET_SESSION_VALUE_STRING, HIVE_COMPRESS_OUTPUT, "false"));
-            }
+        Boolean compressTextOutput = serdeType == SerdeType.TEXT
+                ? hmsMirrorConfig.getOptimization().isCompressTextOutput() : null;
+        // Handle Auto Stats Gathering.
+        Boolean autoTableStats = cluster.isLegacyHive() ? null : cluster.isEnableAutoTableStats();
+        Boolean autoColumnStats = cluster.isLegacyHive() ? null : cluster.isEnableAutoColumnStats();
+
+        List<Object> key = Arrays.asList(tezMaxGrouping, maxDynamicPartitions, maxReducers, compressTextOutput,
+                autoTableStats, autoColumnStats);
+        Map<List<Object>, SessionProfile> profiles;
+        synchronized (sessionProfiles) {
+            profiles = sessionProfiles.computeIfAbsent(hmsMirrorConfig, k -> new ConcurrentHashMap<>());
         }
+        return profiles.computeIfAbsent(key, k -> buildSessionProfile(tezMaxGrouping, maxDynamicPartitions,
+                maxReducers, compressTextOutput, autoTableStats, autoColumnStats));
+    }
 
-        // Handle Auto Stats Gathering.
-        if (!cluster.isLegacyHive()) {
-            if (cluster.isEnableAutoTableStats()) {
-                applyEnv.addIssue("Setting " + HIVE_AUTO_TABLE_STATS + " because you've set that optimization");
-                applyEnv.addSql("Setting: " + HIVE_AUTO_TABLE_STATS, MessageFormat.format(SET_SESSION_VALUE_STRING, HIVE_AUTO_TABLE_STATS, "true"));
-            } else {
-                applyEnv.addIssue("Setting " + HIVE_AUTO_TABLE_STATS + " because you've set that optimization");
-                applyEnv.addSql("Setting: " + HIVE_AUTO_TABLE_STATS, MessageFormat.format(SET_SESSION_VALUE_STRING, HIVE_AUTO_TABLE_STATS, "false"));
-            }
-            if (cluster.isEnableAutoColumnStats()) {
-                applyEnv.addIssue("Setting " + HIVE_AUTO_COLUMN_STATS + " because you've set that optimization");
-                applyEnv.addSql("Setting: " + HIVE_AUTO_COLUMN_STATS, MessageFormat.format(SET_SESSION_VALUE_STRING, HIVE_AUTO_COLUMN_STATS, "true"));
+    private int getMaxReducers(EnvironmentTable controlEnv, int partitionCount) {
+        int ratio = getPartitionDistributionRatio(controlEnv).intValue();
+        if (ratio >= 1) {
+            return (ratio * partitionCount) + 20;
+        } else {
+            return (int) (partitionCount * 1.2);
+        }
+    }
+
+    /*
+    The issues and 'SET' statements for the values.  A null value isn't set.
+     */
+    protected static SessionProfile buildSessionProfile(Long tezMaxGrouping, Integer maxDynamicPartitions,
+                                                        Integer maxReducers, Boolean compressTextOutput,
+                                                        Boolean autoTableStats, Boolean autoColumnStats) {
+        SessionProfile.Builder builder = SessionProfile.builder();
+        if (nonNull(tezMaxGrouping)) {
+            builder.issue("Setting " + TEZ_GROUP_MAX_SIZE + " to account for the sources 'small files'");
+            // Set the tez group max size.
+            builder.statement("Setting the " + TEZ_GROUP_MAX_SIZE,
+                    MessageFormat.format(SET_SESSION_VALUE_INT, TEZ_GROUP_MAX_SIZE, tezMaxGrouping));
+        }
+        if (nonNull(maxDynamicPartitions)) {
+            builder.issue("Setting " + HIVE_MAX_DYNAMIC_PARTITIONS);
+            builder.statement("Setting " + HIVE_MAX_DYNAMIC_PARTITIONS,
+                    MessageFormat.format(SET_SESSION_VALUE_INT, HIVE_MAX_DYNAMIC_PARTITIONS, maxDynamicPartitions));
+            builder.issue("Adjusting " + HIVE_MAX_REDUCERS + " to handle partition load");
+            builder.statement("Setting " + HIVE_MAX_REDUCERS,
+                    MessageFormat.format(SET_SESSION_VALUE_INT, HIVE_MAX_REDUCERS, maxReducers));
+        }
+        if (nonNull(compressTextOutput)) {
+            if (compressTextOutput) {
+                builder.issue("Setting " + HIVE_COMPRESS_OUTPUT + " because you've setting that optimization");
             } else {
-                applyEnv.addIssue("Setting " + HIVE_AUTO_COLUMN_STATS + " because you've set that optimization");
-                applyEnv.addSql("Setting: " + HIVE_AUTO_COLUMN_STATS, MessageFormat.format(SET_SESSION_VALUE_STRING, HIVE_AUTO_COLUMN_STATS, "false"));
+                builder.issue("Setting " + HIVE_COMPRESS_OUTPUT + " because you HAVEN'T set that optimization");
             }
+            builder.statement("Setting: " + HIVE_COMPRESS_OUTPUT,
+                    MessageFormat.format(SET_SESSION_VALUE_STRING, HIVE_COMPRESS_OUTPUT, compressTextOutput.toString()));
+        }
+        if (nonNull(autoTableStats)) {
+            builder.issue("Setting " + HIVE_AUTO_TABLE_STATS + " because you've set that optimization");
+            builder.statement("Setting: " + HIVE_AUTO_TABLE_STATS,
+                    MessageFormat.format(SET_SESSION_VALUE_STRING, HIVE_AUTO_TABLE_STATS, autoTableStats.toString()));
+        }
+        if (nonNull(autoColumnStats)) {
+            builder.issue("Setting " + HIVE_AUTO_COLUMN_STATS + " because you've set that optimization");
+            builder.statement("Setting: " + HIVE_AUTO_COLUMN_STATS,
+                    MessageFormat.format(SET_SESSION_VALUE_STRING, HIVE_AUTO_COLUMN_STATS, autoColumnStats.toString()));
         }
+        return builder.build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.MirrorConf;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.cloudera.utils.hms.mirror.domain.support.DataStrategyEnum;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.SchedulingPolicyEnum;
+import com.cloudera.utils.hms.util.TableUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Orders the table work (metadata collection, build and execute) before it's handed to the thread pools, by the
+ * 'optimization->tableScheduling' policy.
+ * <p>
+ * A table's cost is its DATA_SIZE plus a fixed amount per partition for the partition metadata work.  Tables
+ * without the DATA_SIZE statistic are estimated from their partition count and definition.
+ */
+@Service
+@Slf4j
+@Getter
+public class TableSchedulerService {
+
+    /*
+    Size assumed for a partition (or an unpartitioned table) without the DATA_SIZE statistic.
+     */
+    public static final long ASSUMED_PARTITION_SIZE = 256L * 1024 * 1024;
+    /*
+    The partition metadata work (add/alter partition, export/import metadata), in bytes of data moved.
+     */
+    public static final long PARTITION_OVERHEAD = 32L * 1024 * 1024;
+    public static final long VIEW_COST = 1L;
+
+    private final ExecuteSessionService executeSessionService;
+
+    public TableSchedulerService(ExecuteSessionService executeSessionService) {
+        this.executeSessionService = executeSessionService;
+    }
+
+    /**
+     * @return the tables in the order they should be submitted
+     */
+    public List<TableMirror> schedule(Collection<TableMirror> tables) {
+        HmsMirrorConfig config = executeSessionService.getSession().getConfig();
+        SchedulingPolicyEnum policy = config.getOptimization().getTableScheduling();
+        if (isNull(policy)) {
+            policy = SchedulingPolicyEnum.NAME;
+        }
+        log.debug("Scheduling {} tables with the {} policy", tables.size(), policy);
+        return policy.order(tables, this::estimateCost);
+    }
+
+    /**
+     * Estimate the relative cost of migrating the table, from its LEFT statistics, partitions and definition.
+     */
+    public long estimateCost(TableMirror tableMirror) {
+        EnvironmentTable let = tableMirror.getEnvironments().get(Environment.LEFT);
+        if (isNull(let)) {
+            return ASSUMED_PARTITION_SIZE;
+        }
+        if (nonNull(let.getDefinition()) && TableUtils.isView(let)) {
+            return VIEW_COST;
+        }
+        int partitions = let.getPartitions().size();
+        // Counted by a metastore-direct scan, before the partitions are loaded.
+        Object partitionCount = let.getStatistics().get(MirrorConf.PARTITION_COUNT);
+        if (partitions == 0 && partitionCount instanceof Number) {
+            partitions = ((Number) partitionCount).intValue();
+        }
+        // An in-place Iceberg conversion doesn't move data.  It rewrites the metadata of each partition.
+        HmsMirrorConfig config = executeSessionService.getSession().getConfig();
+        if (config.getDataStrategy() == DataStrategyEnum.ICEBERG_CONVERSION) {
+            return Math.max(1, partitions) * PARTITION_OVERHEAD;
+        }
+        long rtn;
+        Object dataSize = let.getStatistics().get(MirrorConf.DATA_SIZE);
+        if (dataSize instanceof Number) {
+            rtn = ((Number) dataSize).longValue();
+        } else {
+            rtn = Math.max(1, partitions) * ASSUMED_PARTITION_SIZE;
+            // Partitioned, but the partitions haven't been loaded.
+            if (partitions == 0 && nonNull(let.getDefinition()) && TableUtils.isPartitioned(let)) {
+                rtn *= 4;
+            }
+        }
+        rtn += partitions * PARTITION_OVERHEAD;
+        // ACID tables go through a transfer or shadow table.
+        if (nonNull(let.getDefinition()) && TableUtils.isACID(let)) {
+            rtn *= 2;
+        }
+        return rtn;
+    }
+
+}
@@ -27,29 +27,39 @@ import com.cloudera.utils.hms.mirror.MirrorConf;
 import com.cloudera.utils.hms.mirror.Pair;
 import com.cloudera.utils.hms.mirror.domain.*;
 import com.cloudera.utils.hms.mirror.domain.support.*;
+import com.cloudera.utils.hms.mirror.feature.IcebergState;
 import com.cloudera.utils.hms.stage.ReturnStatus;
 import com.cloudera.utils.hms.util.TableUtils;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.sql.*;
 import java.sql.Connection;
-import java.text.DateFormat;
 import java.text.MessageFormat;
-import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 
 import static com.cloudera.utils.hms.mirror.MessageCode.METASTORE_PARTITION_LOCATIONS_NOT_FETCHED;
 import static com.cloudera.utils.hms.mirror.MirrorConf.*;
 import static com.cloudera.utils.hms.mirror.TablePropertyVars.HMS_STORAGE_MIGRATION_FLAG;
+import static com.cloudera.utils.hms.mirror.TablePropertyVars.TRANSACTIONAL;
 import static com.cloudera.utils.hms.mirror.domain.support.DataStrategyEnum.DUMP;
+import static com.cloudera.utils.hms.mirror.domain.support.DataStrategyEnum.ICEBERG_CONVERSION;
 import static com.cloudera.utils.hms.mirror.domain.support.DataStrategyEnum.STORAGE_MIGRATION;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -60,8 +70,6 @@ import static org.apache.commons.lang3.ObjectUtils.isEmpty;
 @Setter
 @Slf4j
 public class TableService {
-    private final DateFormat df = new SimpleDateFormat("yyyyMMddHHmmss");
-    private final DateFormat tdf = new SimpleDateFormat("HH:mm:ss.SSS");
 
     private final ConfigService configService;
     private final ExecuteSessionService executeSessionService;
@@ -69,6 +77,26 @@ public class TableService {
     private final QueryDefinitionsService queryDefinitionsService;
     private final TranslatorService translatorService;
     private final StatsCalculatorService statsCalculatorService;
+    private final RateLimiterService rateLimiterService;
+    private final SqlResilienceService sqlResilienceService;
+    private final CatalogCacheService catalogCacheService;
+    /*
+    The table SQL runs here, and so do the extra connections of a chunked transfer.
+     */
+    private final TaskExecutor jobThreadPool;
+
+    /*
+    The metastore-direct query for the table schemas of a database.
+     */
+    public static final String TABLE_SCHEMAS_QUERY = "database_table_schemas";
+    /*
+    The metastore-direct query for the attributes that decide if a database's tables can be converted to Iceberg.
+     */
+    public static final String ICEBERG_ELIGIBILITY_QUERY = "database_iceberg_eligibility";
+    /*
+    The metastore-direct query for the attributes the table filters are checked against.
+     */
+    public static final String TABLE_FILTER_QUERY = "database_table_filter_attributes";
 
     // Assuming your logger is already defined, e.g.
     // private static final Logger log = LoggerFactory.getLogger(TableService.class);
@@ -79,7 +107,11 @@ public class TableService {
             ConnectionPoolService connectionPoolService,
             QueryDefinitionsService queryDefinitionsService,
             TranslatorService translatorService,
-            StatsCalculatorService statsCalculatorService
+            StatsCalculatorService statsCalculatorService,
+            RateLimiterService rateLimiterService,
+            SqlResilienceService sqlResilienceService,
+            CatalogCacheService catalogCacheService,
+            @Qualifier("jobThreadPool") TaskExecutor jobThreadPool
     ) {
         log.debug("Initializing TableService with provided service dependencies");
         this.configService = configService;
@@ -88,6 +120,10 @@ public class TableService {
         this.queryDefinitionsService = queryDefinitionsService;
         this.translatorService = translatorService;
         this.statsCalculatorService = statsCalculatorService;
+        this.rateLimiterService = rateLimiterService;
+        this.sqlResilienceService = sqlResilienceService;
+        this.catalogCacheService = catalogCacheService;
+        this.jobThreadPool = jobThreadPool;
     }
 
     /**
@@ -246,7 +282,7 @@ public class TableService {
         if (environment == Environment.LEFT && partitioned
                 && !tableMirror.isRemove() && !config.isLoadingTestData()) {
             log.debug("Table is partitioned. Checking metadata details for {}", tableId);
-            if (config.loadMetadataDetails()) {
+            if (config.loadPartitionMetadata()) {
                 log.debug("Loading partition metadata directly for {}", tableId);
                 loadTablePartitionMetadataDirect(tableMirror, environment);
             }
@@ -302,10 +338,17 @@ public class TableService {
         ReturnStatus rtn = new ReturnStatus();
         // Preset and overwrite the status when an issue or anomoly occurs.
         rtn.setStatus(ReturnStatus.Status.SUCCESS);
-        return CompletableFuture.supplyAsync(() -> {
+        return CompletableFuture.supplyAsync(SessionContext.wrap(() -> {
             try {
                 // ...logic...
                 rtn.setTableMirror(tableMirror);
+                if (tableMirror.isRemove()) {
+                    // Already removed (IE: unchanged in '--sync'), so there's no need for the definitions.
+                    log.debug("Skipping metadata for removed table: {}. Reason: {}", tableMirror.getName(),
+                            tableMirror.getRemoveReason());
+                    rtn.setStatus(ReturnStatus.Status.SKIP);
+                    return rtn;
+                }
                 HmsMirrorConfig hmsMirrorConfig = executeSessionService.getSession().getConfig();
                 RunStatus runStatus = executeSessionService.getSession().getRunStatus();
                 EnvironmentTable leftEnvTable = tableMirror.getEnvironmentTable(Environment.LEFT);
@@ -365,13 +408,13 @@ public class TableService {
                 rtn.setException(e);
                 return rtn;
             }
-        });
+        }));
     }
 
     @Async("metadataThreadPool")
     public CompletableFuture<ReturnStatus> getTables(DBMirror dbMirror) {
         log.info("Fetching tables asynchronously for DBMirror: {}", dbMirror.getName());
-        return CompletableFuture.supplyAsync(() -> {
+        return CompletableFuture.supplyAsync(SessionContext.wrap(() -> {
             ReturnStatus rtn = new ReturnStatus();
             try {
                 // ...logic...
@@ -381,6 +424,10 @@ public class TableService {
                 log.debug("Getting tables for Database {}", dbMirror.getName());
                 try {
                     getTables(dbMirror, Environment.LEFT);
+                    scanTableFilters(dbMirror);
+                    if (config.getDataStrategy() == ICEBERG_CONVERSION && config.getIcebergConversion().isBulk()) {
+                        scanIcebergEligibility(dbMirror);
+                    }
                     if (config.isSync()) {
                         // Get the tables on the RIGHT side.  Used to determine if a table has been dropped on the LEFT
                         // and later needs to be removed on the RIGHT.
@@ -389,6 +436,9 @@ public class TableService {
                         } catch (SQLException se) {
                             // OK, if the db doesn't exist yet.
                         }
+                        if (config.getOptimization().isSkipUnchangedSyncTables()) {
+                            skipUnchangedTables(dbMirror);
+                        }
                     }
                     rtn.setStatus(ReturnStatus.Status.SUCCESS);
                 } catch (SQLException throwables) {
@@ -407,7 +457,7 @@ public class TableService {
                 rtn.setException(e);
                 return rtn;
             }
-        });
+        }));
     }
 
     public void getTables(DBMirror dbMirror, Environment environment) throws SQLException {
@@ -434,10 +484,10 @@ public class TableService {
             List<String> showStatements = buildShowStatements(config, environment);
 
             try (Statement stmt = conn.createStatement()) { // try-with-resources for Statement
-                setDatabaseContext(stmt, database);
+                setDatabaseContext(environment, stmt, database);
                 for (String show : showStatements) {
                     log.debug("Executing show statement: {}", show);
-                    try (ResultSet rs = stmt.executeQuery(show)) { // try-with-resources for ResultSet
+                    try (ResultSet rs = sqlResilienceService.executeQuery(environment, stmt, show)) { // try-with-resources for ResultSet
                         while (rs.next()) {
                             String tableName = rs.getString(1);
                             handleTableName(dbMirror, config, database, tableName);
@@ -458,25 +508,302 @@ public class TableService {
         }
     }
 
-    private List<String> buildShowStatements(HmsMirrorConfig config, Environment environment) {
+    /*
+    With '--sync', skip the tables whose LEFT and RIGHT schemas match in the metastore databases.  The schemas are
+    read in bulk, one query per database on each side, so the unchanged tables are never fetched over HS2 or built.
+    Only for the strategies that leave a table with a matching schema alone.
+     */
+    protected void skipUnchangedTables(DBMirror dbMirror) {
+        ExecuteSession session = executeSessionService.getSession();
+        HmsMirrorConfig config = session.getConfig();
+        switch (config.getDataStrategy()) {
+            case SCHEMA_ONLY:
+            case LINKED:
+            case COMMON:
+                break;
+            default:
+                log.debug("Schema fingerprints aren't used to skip tables for {}", config.getDataStrategy());
+                return;
+        }
+        if (!configService.isMetastoreDirectConfigured(session, Environment.LEFT)
+                || !configService.isMetastoreDirectConfigured(session, Environment.RIGHT)) {
+            log.info("Metastore Direct Connections are needed on both clusters to skip unchanged tables.  Skipping.");
+            return;
+        }
+        if (!loadSchemaFingerprintsDirect(dbMirror, Environment.LEFT)
+                || !loadSchemaFingerprintsDirect(dbMirror, Environment.RIGHT)) {
+            return;
+        }
+        int skipped = 0;
+        for (TableMirror tableMirror : dbMirror.getTableMirrors().values()) {
+            if (tableMirror.isRemove()) {
+                continue;
+            }
+            SchemaFingerprint left = tableMirror.getEnvironmentTable(Environment.LEFT).getMetastoreFingerprint();
+            SchemaFingerprint right = tableMirror.getEnvironmentTable(Environment.RIGHT).getMetastoreFingerprint();
+            if (nonNull(left) && left.matches(right)) {
+                if (left.isPartitioned() && config.loadMetadataDetails()) {
+                    // The partitions still need to be synced.
+                    continue;
+                }
+                tableMirror.setRemove(Boolean.TRUE);
+                tableMirror.setRemoveReason("Schema unchanged since the last sync (metastore schema fingerprints match).");
+                skipped++;
+            }
+        }
+        log.info("{}: Skipped {} unchanged tables by schema fingerprint", dbMirror.getName(), skipped);
+    }
+
+    /*
+    Read the schemas of the database's tables from the metastore-direct connection and set their fingerprints on
+    the environment tables.
+     */
+    protected boolean loadSchemaFingerprintsDirect(DBMirror dbMirror, Environment environment) {
+        HmsMirrorConfig config = executeSessionService.getSession().getConfig();
+        String database = (environment == Environment.LEFT)
+                ? dbMirror.getName()
+                : HmsMirrorConfigUtil.getResolvedDB(dbMirror.getName(), config);
+        QueryDefinitions queryDefinitions = getQueryDefinitionsService().getQueryDefinitions(environment);
+        if (isNull(queryDefinitions) || isNull(queryDefinitions.getQueryDefinition(TABLE_SCHEMAS_QUERY))) {
+            log.info("No '{}' query for {}.  Skipping the schema fingerprints.", TABLE_SCHEMAS_QUERY, environment);
+            return false;
+        }
+        Map<String, SchemaFingerprint> fingerprints = new HashMap<>();
+        try {
+            long rows = queryDefinitionsService.queryDatabaseAttributesDirect(environment, database,
+                    TABLE_SCHEMAS_QUERY,
+                    resultSet -> fingerprints.computeIfAbsent(resultSet.getString(1), k -> new SchemaFingerprint())
+                            .add(resultSet.getString(2), resultSet.getInt(3), resultSet.getString(4),
+                                    resultSet.getString(5), resultSet.getString(6)));
+            log.info("Loaded schema fingerprints for {} tables ({} rows) from Metastore Direct Connection {}:{}",
+                    fingerprints.size(), rows, environment, database);
+        } catch (SQLException throwables) {
+            log.error("Issue loading schema fingerprints from Metastore Direct Connection. {}:{}", environment,
+                    database, throwables);
+            return false;
+        }
+        for (TableMirror tableMirror : dbMirror.getTableMirrors().values()) {
+            tableMirror.getEnvironmentTable(environment).setMetastoreFingerprint(
+                    fingerprints.get(tableMirror.getName()));
+        }
+        return true;
+    }
+
+    /*
+    For a bulk Iceberg conversion, check which of the database's tables can be converted, from the metastore-direct
+    connection in one query.  The tables that can't be, or already have been, are skipped before their definitions
+    are fetched.  The partition counts of the rest are kept, so the tables with the most partitions are scheduled
+    first.
+     */
+    protected void scanIcebergEligibility(DBMirror dbMirror) {
+        ExecuteSession session = executeSessionService.getSession();
+        if (!configService.isMetastoreDirectConfigured(session, Environment.LEFT)) {
+            log.info("A Metastore Direct Connection is needed on the LEFT to check the tables for Iceberg conversion " +
+                    "in bulk.  Skipping.");
+            return;
+        }
+        QueryDefinitions queryDefinitions = getQueryDefinitionsService().getQueryDefinitions(Environment.LEFT);
+        if (isNull(queryDefinitions) || isNull(queryDefinitions.getQueryDefinition(ICEBERG_ELIGIBILITY_QUERY))) {
+            log.info("No '{}' query for {}.  Skipping the Iceberg eligibility scan.", ICEBERG_ELIGIBILITY_QUERY,
+                    Environment.LEFT);
+            return;
+        }
+        // Table name -> attribute -> value.
+        Map<String, Map<String, String>> attributes = new HashMap<>();
+        try {
+            queryDefinitionsService.queryDatabaseAttributesDirect(Environment.LEFT, dbMirror.getName(),
+                    ICEBERG_ELIGIBILITY_QUERY,
+                    resultSet -> attributes.computeIfAbsent(resultSet.getString(1), k -> new HashMap<>())
+                            .put(resultSet.getString(2), resultSet.getString(3)));
+        } catch (SQLException throwables) {
+            log.error("Issue checking the tables for Iceberg conversion from Metastore Direct Connection. {}:{}",
+                    Environment.LEFT, dbMirror.getName(), throwables);
+            return;
+        }
+        int skipped = 0;
+        for (TableMirror tableMirror : dbMirror.getTableMirrors().values()) {
+            Map<String, String> tableAttributes = attributes.get(tableMirror.getName());
+            if (tableMirror.isRemove() || isNull(tableAttributes)) {
+                continue;
+            }
+            IcebergState state = TableUtils.getIcebergConversionState(tableAttributes.get("TYPE"),
+                    tableAttributes.get("SERDE"), tableAttributes.get("INPUT_FORMAT"),
+                    tableAttributes.get("table_type"), tableAttributes.get("storage_handler"),
+                    tableAttributes.get("format-version"));
+            switch (state) {
+                case CONVERTABLE:
+                    String partitions = tableAttributes.get("PARTITIONS");
+                    if (!isBlank(partitions)) {
+                        tableMirror.getEnvironmentTable(Environment.LEFT).getStatistics()
+                                .put(PARTITION_COUNT, Integer.valueOf(partitions.trim()));
+                    }
+                    break;
+                case NOT_CONVERTABLE:
+                    tableMirror.setRemove(Boolean.TRUE);
+                    tableMirror.setRemoveReason("Not compatible with Iceberg conversion (" +
+                            tableAttributes.get("TYPE") + ", " + tableAttributes.get("INPUT_FORMAT") + ").");
+                    skipped++;
+                    break;
+                default:
+                    tableMirror.setRemove(Boolean.TRUE);
+                    tableMirror.setRemoveReason("Already converted to Iceberg (" + state + ").");
+                    skipped++;
+            }
+        }
+        log.info("{}: Skipped {} tables that can't be converted to Iceberg", dbMirror.getName(), skipped);
+    }
+
+    /*
+    Check the table filters of the database's tables against their metastore attributes, from the metastore-direct
+    connection in one query.  The tables the filters exclude are removed before their definitions are fetched.
+    Where the attributes can't decide, the filters are checked again once the definition is loaded.
+     */
+    protected void scanTableFilters(DBMirror dbMirror) {
+        ExecuteSession session = executeSessionService.getSession();
+        HmsMirrorConfig config = session.getConfig();
+        if (config.isLoadingTestData() || !configService.isMetastoreDirectConfigured(session, Environment.LEFT)) {
+            log.debug("No Metastore Direct Connection on the LEFT.  The table filters are checked with the definitions.");
+            return;
+        }
+        QueryDefinitions queryDefinitions = getQueryDefinitionsService().getQueryDefinitions(Environment.LEFT);
+        if (isNull(queryDefinitions) || isNull(queryDefinitions.getQueryDefinition(TABLE_FILTER_QUERY))) {
+            log.info("No '{}' query for {}.  Skipping the table filter scan.", TABLE_FILTER_QUERY, Environment.LEFT);
+            return;
+        }
+        // Table name -> attribute -> value.
+        Map<String, Map<String, String>> attributes = new HashMap<>();
+        try {
+            queryDefinitionsService.queryDatabaseAttributesDirect(Environment.LEFT, dbMirror.getName(),
+                    TABLE_FILTER_QUERY,
+                    resultSet -> attributes.computeIfAbsent(resultSet.getString(1), k -> new HashMap<>())
+                            .put(resultSet.getString(2), resultSet.getString(3)));
+        } catch (SQLException throwables) {
+            log.error("Issue checking the table filters from Metastore Direct Connection. {}:{}",
+                    Environment.LEFT, dbMirror.getName(), throwables);
+            return;
+        }
+        int skipped = 0;
+        for (TableMirror tableMirror : dbMirror.getTableMirrors().values()) {
+            Map<String, String> tableAttributes = attributes.get(tableMirror.getName());
+            if (tableMirror.isRemove() || isNull(tableAttributes)) {
+                continue;
+            }
+            String reason = getTableFilterRemoveReason(config, tableAttributes);
+            if (nonNull(reason)) {
+                tableMirror.setRemove(Boolean.TRUE);
+                tableMirror.setRemoveReason(reason);
+                skipped++;
+            } else if (!isBlank(tableAttributes.get("PARTITIONS"))) {
+                tableMirror.getEnvironmentTable(Environment.LEFT).getStatistics()
+                        .put(PARTITION_COUNT, Integer.valueOf(tableAttributes.get("PARTITIONS").trim()));
+            }
+        }
+        log.info("{}: Skipped {} tables excluded by the table filters", dbMirror.getName(), skipped);
+    }
+
+    /*
+    The reason the table filters exclude a table, from its metastore attributes: 'TYPE' (TBLS.TBL_TYPE), the
+    'transactional', 'storage_handler', 'totalSize' and storage migration flag table parameters and the
+    'PARTITIONS' count.  Null when the table is kept, or the attributes aren't enough to tell.  The same rules
+    as checkTableFilter and the partition limit check of getTableDefinition.
+     */
+    protected static String getTableFilterRemoveReason(HmsMirrorConfig config, Map<String, String> attributes) {
+        String tableType = attributes.get("TYPE");
+        if (isBlank(tableType)) {
+            return null;
+        }
+        tableType = tableType.trim();
+        boolean view = "VIRTUAL_VIEW".equalsIgnoreCase(tableType);
+        String storageHandler = attributes.get("storage_handler");
+        if (config.getMigrateVIEW().isOn() && config.getDataStrategy() != DUMP) {
+            if (!view) {
+                return "VIEW's only processing selected.";
+            }
+        } else if ("MANAGED_TABLE".equalsIgnoreCase(tableType)) {
+            if (!isBlank(attributes.get(TRANSACTIONAL))
+                    && Boolean.parseBoolean(attributes.get(TRANSACTIONAL).trim())) {
+                if (!config.getMigrateACID().isOn()) {
+                    return "ACID table and ACID processing not selected (-ma|-mao).";
+                }
+            } else if (config.getMigrateACID().isOnly()) {
+                return "Non-ACID table and ACID only processing selected `-mao`";
+            }
+        } else if (view) {
+            if (config.getDataStrategy() != DUMP) {
+                return "This is a VIEW and VIEW processing wasn't selected.";
+            }
+        } else if ("EXTERNAL_TABLE".equalsIgnoreCase(tableType)) {
+            if (isBlank(storageHandler)) {
+                if (config.getMigrateACID().isOnly()) {
+                    return "Non-ACID table and ACID only processing selected `-mao`";
+                }
+            } else if (!storageHandler.contains("Iceberg") && !config.isMigrateNonNative()) {
+                // Iceberg tables have a location, so they're left to the definition check.
+                return "This is a Non-Native hive table and non-native process wasn't selected.";
+            }
+        }
+
+        if (config.getDataStrategy() == STORAGE_MIGRATION) {
+            String smFlag = attributes.get(HMS_STORAGE_MIGRATION_FLAG);
+            if (smFlag != null) {
+                return "The table has already gone through the STORAGE_MIGRATION process on " +
+                        smFlag + " If this isn't correct, remove the TBLPROPERTY '" + HMS_STORAGE_MIGRATION_FLAG + "' " +
+                        "from the table and try again.";
+            }
+        }
+
+        // The table level 'totalSize' isn't kept for partitioned tables.
+        Long sizeLimit = config.getFilter().getTblSizeLimit();
+        String totalSize = attributes.get("totalSize");
+        if (sizeLimit != null && sizeLimit > 0 && !isBlank(totalSize) && isBlank(attributes.get("PARTITIONS"))) {
+            try {
+                long dataSize = Long.parseLong(totalSize.trim());
+                if (sizeLimit * (1024 * 1024) < dataSize) {
+                    return "The table dataset size exceeds the specified table filter size limit: " +
+                            sizeLimit + "Mb < " + dataSize;
+                }
+            } catch (NumberFormatException nfe) {
+                // Left to the definition check.
+            }
+        }
+
+        Integer partLimit = config.getFilter().getTblPartitionLimit();
+        String partitions = attributes.get("PARTITIONS");
+        if (partLimit != null && partLimit > 0 && !isBlank(partitions)) {
+            int partitionCount = Integer.parseInt(partitions.trim());
+            if (partitionCount > partLimit) {
+                return "The table partition count exceeds the specified table filter partition limit: " +
+                        partLimit + " < " + partitionCount;
+            }
+        }
+        return null;
+    }
+
+    protected List<String> buildShowStatements(HmsMirrorConfig config, Environment environment) {
         List<String> shows = new ArrayList<>();
+        // When the tblRegEx can be expressed as a pattern, the server only lists the tables that can match it.
+        String showPattern = isNull(config.getFilter()) ? null : config.getFilter().getTblShowPattern();
+        String showTables = isNull(showPattern) ? MirrorConf.SHOW_TABLES
+                : MessageFormat.format(MirrorConf.SHOW_TABLES_LIKE, showPattern);
+        String showViews = isNull(showPattern) ? MirrorConf.SHOW_VIEWS
+                : MessageFormat.format(MirrorConf.SHOW_VIEWS_LIKE, showPattern);
         if (!config.getCluster(environment).isLegacyHive()) {
             if (config.getMigrateVIEW().isOn()) {
-                shows.add(MirrorConf.SHOW_VIEWS);
+                shows.add(showViews);
                 if (config.getDataStrategy() == DUMP) {
-                    shows.add(MirrorConf.SHOW_TABLES);
+                    shows.add(showTables);
                 }
             } else {
-                shows.add(MirrorConf.SHOW_TABLES);
+                shows.add(showTables);
             }
         } else {
-            shows.add(MirrorConf.SHOW_TABLES);
+            shows.add(showTables);
         }
         return shows;
     }
 
-    private void setDatabaseContext(Statement stmt, String database) throws SQLException {
-        stmt.execute(MessageFormat.format(MirrorConf.USE, database));
+    private void setDatabaseContext(Environment environment, Statement stmt, String database) throws SQLException {
+        sqlResilienceService.execute(environment, stmt, MessageFormat.format(MirrorConf.USE, database));
         log.debug("Set Hive DB Session Context to {}", database);
     }
 
@@ -561,18 +888,19 @@ public class TableService {
         EnvironmentTable environmentTable = tableMirror.getEnvironmentTable(environment);
         HmsMirrorConfig config = executeSessionService.getSession().getConfig();
 
-        try (Connection connection = getConnectionPoolService().getHS2EnvironmentConnection(environment)) {
-            if (connection == null) return;
-
-            try (Statement statement = connection.createStatement()) {
-                useDatabase(statement, database);
-                List<String> tableDefinition = fetchTableDefinition(statement, tableMirror, database, environment);
-                environmentTable.setDefinition(tableDefinition);
-                environmentTable.setName(tableMirror.getName());
-                environmentTable.setExists(Boolean.TRUE);
-                tableMirror.addStep(environment.toString(), "Fetched Schema");
-
-                if (config.getOwnershipTransfer().isTable()) {
+        List<String> tableDefinition = catalogCacheService.getTableDefinition(environment, database,
+                tableMirror.getName(), () -> fetchTableDefinition(tableMirror, database, environment));
+        if (isNull(tableDefinition)) return;
+        environmentTable.setDefinition(tableDefinition);
+        environmentTable.setName(tableMirror.getName());
+        environmentTable.setExists(Boolean.TRUE);
+        tableMirror.addStep(environment.toString(), "Fetched Schema");
+
+        if (config.getOwnershipTransfer().isTable()) {
+            try (Connection connection = getConnectionPoolService().getHS2EnvironmentConnection(environment)) {
+                if (connection == null) return;
+                try (Statement statement = connection.createStatement()) {
+                    useDatabase(environment, statement, database);
                     String owner = fetchTableOwner(statement, tableMirror, database, environment);
                     if (owner != null) {
                         environmentTable.setOwner(owner);
@@ -594,11 +922,24 @@ public class TableService {
         }
     }
 
-    private void useDatabase(Statement statement, String database) throws SQLException {
+    private void useDatabase(Environment environment, Statement statement, String database) throws SQLException {
         log.trace("Executing USE database statement: {}", database);
         // ...logic...
         String useStatement = MessageFormat.format(MirrorConf.USE, database);
-        statement.execute(useStatement);
+        sqlResilienceService.execute(environment, statement, useStatement);
+    }
+
+    /*
+    The SHOW CREATE TABLE on its own connection, or null when there isn't one.
+     */
+    private List<String> fetchTableDefinition(TableMirror tableMirror, String database, Environment environment) throws SQLException {
+        try (Connection connection = getConnectionPoolService().getHS2EnvironmentConnection(environment)) {
+            if (connection == null) return null;
+            try (Statement statement = connection.createStatement()) {
+                useDatabase(environment, statement, database);
+                return fetchTableDefinition(statement, tableMirror, database, environment);
+            }
+        }
     }
 
     private List<String> fetchTableDefinition(Statement statement, TableMirror tableMirror, String database, Environment environment) throws SQLException {
@@ -606,7 +947,7 @@ public class TableService {
         // ...logic...
         String showStatement = MessageFormat.format(MirrorConf.SHOW_CREATE_TABLE, tableMirror.getName());
         List<String> tableDefinition = new ArrayList<>();
-        try (ResultSet resultSet = statement.executeQuery(showStatement)) {
+        try (ResultSet resultSet = sqlResilienceService.executeQuery(environment, statement, showStatement)) {
             ResultSetMetaData metaData = resultSet.getMetaData();
             if (metaData.getColumnCount() >= 1) {
                 while (resultSet.next()) {
@@ -630,7 +971,7 @@ public class TableService {
         log.debug("Fetching owner for table: {} in database: {}", tableMirror, database);
         // ...logic...
         String ownerStatement = MessageFormat.format(MirrorConf.SHOW_TABLE_EXTENDED, tableMirror.getName());
-        try (ResultSet resultSet = statement.executeQuery(ownerStatement)) {
+        try (ResultSet resultSet = sqlResilienceService.executeQuery(environment, statement, ownerStatement)) {
             while (resultSet.next()) {
                 String value = resultSet.getString(1);
                 if (value != null && value.startsWith(OWNER_PREFIX)) {
@@ -679,7 +1020,7 @@ public class TableService {
 
                     try {
                         String ownerStatement = MessageFormat.format(MirrorConf.SHOW_TABLE_EXTENDED, tableMirror.getName());
-                        resultSet = stmt.executeQuery(ownerStatement);
+                        resultSet = sqlResilienceService.executeQuery(environment, stmt, ownerStatement);
                         String owner = null;
                         while (resultSet.next()) {
 
@@ -750,7 +1091,8 @@ public class TableService {
                 stmt = conn.createStatement();
                 log.debug("{}:{}.{}: Loading Partitions", environment, database, et.getName());
 
-                resultSet = stmt.executeQuery(MessageFormat.format(MirrorConf.SHOW_PARTITIONS, database, et.getName()));
+                resultSet = sqlResilienceService.executeQuery(environment, stmt,
+                        MessageFormat.format(MirrorConf.SHOW_PARTITIONS, database, et.getName()));
                 Map<String, String> partDef = new HashMap<String, String>();
                 while (resultSet.next()) {
                     partDef.put(resultSet.getString(1), NOT_SET);
@@ -794,8 +1136,6 @@ public class TableService {
         5. Load Partition Data
          */
         Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet resultSet = null;
         ExecuteSession session = executeSessionService.getSession();
         RunStatus runStatus = session.getRunStatus();
         HmsMirrorConfig config = session.getConfig();
@@ -814,15 +1154,11 @@ public class TableService {
             log.info("Loading Partitions from Metastore Direct Connection {}:{}.{}", environment, database, et.getName());
             QueryDefinitions queryDefinitions = getQueryDefinitionsService().getQueryDefinitions(environment);
             if (queryDefinitions != null) {
-                String partLocationQuery = queryDefinitions.getQueryDefinition("part_locations").getStatement();
-                pstmt = conn.prepareStatement(partLocationQuery);
-                pstmt.setString(1, database);
-                pstmt.setString(2, et.getName());
-                resultSet = pstmt.executeQuery();
                 Map<String, String> partDef = new HashMap<String, String>();
-                while (resultSet.next()) {
-                    partDef.put(resultSet.getString(1), resultSet.getString(2));
-                }
+                rateLimiterService.acquire(environment, RateLimitOperationEnum.PARTITION_READ);
+                getQueryDefinitionsService().executeQuery(environment, conn, "part_locations",
+                        resultSet -> partDef.put(resultSet.getString(1), resultSet.getString(2)),
+                        database, et.getName());
                 et.setPartitions(partDef);
             }
             log.info("Loaded Partitions from Metastore Direct Connection {}:{}.{}", environment, database, et.getName());
@@ -944,39 +1280,76 @@ public class TableService {
                         }
 
                         if (rtn && nonNull(conn)) {
+                            // Chunks of a partition-chunked transfer are run as a group.
+                            Map<Pair, TransferChunk> transferChunks = new IdentityHashMap<>();
+                            for (TransferChunk transferChunk : tblMirror.getEnvironmentTable(environment).getTransferChunks()) {
+                                for (Pair statement : transferChunk.getStatements()) {
+                                    transferChunks.put(statement, transferChunk);
+                                }
+                            }
                             try (Statement stmt = conn.createStatement()) {
-                                for (Pair pair : sqlList) {
+                                for (int i = 0; i < sqlList.size(); i++) {
+                                    Pair pair = sqlList.get(i);
                                     String action = pair.getAction();
                                     if (action.trim().isEmpty() || action.trim().startsWith("--")) {
                                         continue;
+                                    } else if (transferChunks.containsKey(pair)) {
+                                        List<Pair> sessionSetup = getSessionSetup(sqlList.subList(0, i));
+                                        List<TransferChunk> chunkGroup = new ArrayList<>();
+                                        int j = i;
+                                        while (j < sqlList.size() && transferChunks.containsKey(sqlList.get(j))) {
+                                            TransferChunk transferChunk = transferChunks.get(sqlList.get(j));
+                                            // A chunk with more than one statement has them next to each other.
+                                            if (chunkGroup.isEmpty() || chunkGroup.get(chunkGroup.size() - 1) != transferChunk) {
+                                                chunkGroup.add(transferChunk);
+                                            }
+                                            j++;
+                                        }
+                                        i = j - 1;
+                                        if (config.isExecute()) {
+                                            if (!runTransferChunks(chunkGroup, sessionSetup, tblMirror, environment, stmt)) {
+                                                // Don't run anything that depends on the transfer.
+                                                rtn = Boolean.FALSE;
+                                                break;
+                                            }
+                                        } else {
+                                            for (TransferChunk transferChunk : chunkGroup) {
+                                                tblMirror.addStep(environment.toString(), SQL_RUN_SKIPPED_STEP, transferChunk.getSql().getDescription());
+                                            }
+                                        }
                                     } else {
                                         log.debug("{}:SQL:{}:{}", environment, pair.getDescription(), pair.getAction());
                                         tblMirror.setMigrationStageMessage("Executing SQL: " + pair.getDescription());
                                         if (config.isExecute()) {
                                             // Log the Return of 'set' commands.
                                             if (pair.getAction().trim().toLowerCase().startsWith("set")) {
-                                                stmt.execute(pair.getAction());
+                                                if (sqlResilienceService.isSessionValue(stmt, pair.getAction())) {
+                                                    // The connection's session already has it (IE: from the last table with the same profile).
+                                                    tblMirror.addStep(environment.toString(), SQL_RUN_UNCHANGED_STEP, pair.getDescription());
+                                                    continue;
+                                                }
+                                                sqlResilienceService.execute(environment, stmt, pair.getAction());
                                                 try {
                                                     // Check for a result set and print result if present.
                                                     ResultSet resultSet = stmt.getResultSet();
                                                     if (!isNull(resultSet)) {
                                                         while (resultSet.next()) {
-                                                            tblMirror.addStep(environment.toString(), "Sql Run Complete for: " + pair.getDescription() + " : " + resultSet.getString(1));
+                                                            tblMirror.addStep(environment.toString(), SQL_RUN_COMPLETE_RESULT_STEP, pair.getDescription(), resultSet.getString(1));
                                                             log.info("{}:{}", pair.getAction(), resultSet.getString(1));
                                                         }
                                                     } else {
-                                                        tblMirror.addStep(environment.toString(), "Sql Run Complete for: " + pair.getDescription());
+                                                        tblMirror.addStep(environment.toString(), SQL_RUN_COMPLETE_STEP, pair.getDescription());
                                                     }
                                                 } catch (SQLException se) {
                                                     // Otherwise, just log command.
-                                                    tblMirror.addStep(environment.toString(), "Sql Run Complete for: " + pair.getDescription());
+                                                    tblMirror.addStep(environment.toString(), SQL_RUN_COMPLETE_STEP, pair.getDescription());
                                                 }
                                             } else {
-                                                stmt.execute(pair.getAction());
-                                                tblMirror.addStep(environment.toString(), "Sql Run Complete for: " + pair.getDescription());
+                                                sqlResilienceService.execute(environment, stmt, pair.getAction());
+                                                tblMirror.addStep(environment.toString(), SQL_RUN_COMPLETE_STEP, pair.getDescription());
                                             }
                                         } else {
-                                            tblMirror.addStep(environment.toString(), "Sql Run SKIPPED (DRY-RUN) for: " + pair.getDescription());
+                                            tblMirror.addStep(environment.toString(), SQL_RUN_SKIPPED_STEP, pair.getDescription());
                                         }
                                     }
                                 }
@@ -993,6 +1366,10 @@ public class TableService {
                                 tblMirror.getEnvironmentTable(environment).addError(message);
                                 rtn = Boolean.FALSE;
                             }
+                            if (config.isExecute()) {
+                                // Even a failed run may have changed the table (or its transfer/shadow tables).
+                                catalogCacheService.invalidateTable(environment, tblMirror);
+                            }
                         }
                     } catch (SQLException throwables) {
                         tblMirror.getEnvironmentTable(environment).addError("Connecting: " + throwables.getMessage());
@@ -1004,4 +1381,185 @@ public class TableService {
         }
         return rtn;
     }
+
+    /*
+    The 'set' and 'use' statements that need to be replayed on another connection to match the session of the
+    main connection.
+     */
+    protected List<Pair> getSessionSetup(List<Pair> sqlList) {
+        List<Pair> rtn = new ArrayList<>();
+        for (Pair pair : sqlList) {
+            String action = pair.getAction().trim().toLowerCase(Locale.ROOT);
+            if (action.startsWith("set ") || action.startsWith("use ")) {
+                rtn.add(pair);
+            }
+        }
+        return rtn;
+    }
+
+    /**
+     * Run the chunks of a partition-chunked transfer.  Chunks that have already COMPLETED are skipped, so calling
+     * this again only re-runs the chunks that failed.
+     * <p>
+     * With 'optimization->chunkedSqlTransferParallelism' greater than 1, the chunks are taken in turn by the
+     * table's connection and by up to that many less one other connections, set up with the session 'set' and
+     * 'use' statements that came before them.  The table's connection already holds one from the same pool, so
+     * it never waits for the others: once it runs out of chunks, the connections that haven't been handed out by
+     * the pool are given up.  The other connections run on the job thread pool, where this already runs, and the
+     * same goes for those still waiting for a thread.  Every chunk is run, even when one fails.
+     *
+     * @return true when all the chunks have completed.
+     */
+    public Boolean runTransferChunks(List<TransferChunk> chunks, List<Pair> sessionSetup, TableMirror tblMirror,
+                                     Environment environment, Statement stmt) {
+        HmsMirrorConfig config = executeSessionService.getSession().getConfig();
+        Queue<TransferChunk> pending = new ConcurrentLinkedQueue<>();
+        for (TransferChunk chunk : chunks) {
+            if (chunk.getStatus() != ProgressEnum.COMPLETED) {
+                pending.add(chunk);
+            }
+        }
+        int configured = chunks.get(0).getParallelism() > 0 ? chunks.get(0).getParallelism()
+                : config.getOptimization().getChunkedSqlTransferParallelism();
+        int parallelism = Math.min(Math.max(1, configured), pending.size());
+        if (parallelism <= 1) {
+            runTransferChunks(pending, stmt, tblMirror, environment);
+        } else {
+            log.info("{}:{}: Running {} transfer chunks, {} at a time", environment, tblMirror.getName(),
+                    pending.size(), parallelism);
+            List<ChunkLane> lanes = new ArrayList<>();
+            for (int i = 1; i < parallelism; i++) {
+                ChunkLane lane = new ChunkLane();
+                FutureTask<Void> task = new FutureTask<>(() ->
+                        runChunkLane(lane, pending, sessionSetup, tblMirror, environment), null);
+                try {
+                    // The pool runs it for this session.
+                    jobThreadPool.execute(task);
+                } catch (TaskRejectedException tre) {
+                    log.warn("{}:{}: No room in the job pool for another transfer chunk connection",
+                            environment, tblMirror.getName());
+                    break;
+                }
+                lane.future = task;
+                lanes.add(lane);
+            }
+            runTransferChunks(pending, stmt, tblMirror, environment);
+            for (ChunkLane lane : lanes) {
+                // Still waiting for a connection (or for a thread of the pool), so there's nothing left for it.
+                if (lane.state.compareAndSet(ChunkLane.WAITING, ChunkLane.ABANDONED)) {
+                    lane.future.cancel(true);
+                }
+            }
+            for (ChunkLane lane : lanes) {
+                try {
+                    lane.future.get();
+                } catch (CancellationException ce) {
+                    // Given up while waiting for a connection.
+                } catch (ExecutionException ee) {
+                    log.error("{}:{}: Transfer chunk lane failed", environment, tblMirror.getName(), ee.getCause());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        int failed = 0;
+        for (TransferChunk chunk : chunks) {
+            if (chunk.getStatus() != ProgressEnum.COMPLETED) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            tblMirror.getEnvironmentTable(environment).addError(failed + " of " + chunks.size() + " transfer chunks " +
+                    "failed.  The SQL for each chunk, with its status, is in 'transferChunks'.  Re-run the failed " +
+                    "chunks before continuing.");
+            return Boolean.FALSE;
+        }
+        return Boolean.TRUE;
+    }
+
+    /*
+    A connection, other than the table's, that takes transfer chunks.  It's only interrupted while it's WAITING for
+    the pool, never while it's running a chunk.
+     */
+    private static class ChunkLane {
+        static final int WAITING = 0;
+        static final int WORKING = 1;
+        static final int ABANDONED = 2;
+
+        final AtomicInteger state = new AtomicInteger(WAITING);
+        Future<?> future;
+    }
+
+    private void runChunkLane(ChunkLane lane, Queue<TransferChunk> pending, List<Pair> sessionSetup,
+                              TableMirror tblMirror, Environment environment) {
+        try (Connection chunkConn = getConnectionPoolService().getHS2EnvironmentConnection(environment)) {
+            if (isNull(chunkConn) || !lane.state.compareAndSet(ChunkLane.WAITING, ChunkLane.WORKING)) {
+                // Given up on, or no connection.  The table's connection runs the chunks.
+                return;
+            }
+            try (Statement chunkStmt = chunkConn.createStatement()) {
+                for (Pair setup : sessionSetup) {
+                    if (!sqlResilienceService.isSessionValue(chunkStmt, setup.getAction())) {
+                        sqlResilienceService.execute(environment, chunkStmt, setup.getAction());
+                    }
+                }
+                runTransferChunks(pending, chunkStmt, tblMirror, environment);
+            }
+        } catch (SQLException se) {
+            if (lane.state.get() != ChunkLane.ABANDONED) {
+                // The chunks it didn't take are left for the table's connection.
+                log.warn("{}:{}: A transfer chunk connection failed: {}", environment, tblMirror.getName(),
+                        se.getMessage());
+            }
+        }
+    }
+
+    private void runTransferChunks(Queue<TransferChunk> pending, Statement stmt, TableMirror tblMirror,
+                                   Environment environment) {
+        TransferChunk chunk;
+        while ((chunk = pending.poll()) != null) {
+            runTransferChunk(chunk, stmt, tblMirror, environment);
+        }
+    }
+
+    private void runTransferChunk(TransferChunk chunk, Statement stmt, TableMirror tblMirror, Environment environment) {
+        if (chunk.getStatus() == ProgressEnum.COMPLETED) {
+            return;
+        }
+        chunk.setStatus(ProgressEnum.IN_PROGRESS);
+        chunk.setError(null);
+        try {
+            // Pick up after the statements that completed in an earlier run.
+            List<Pair> statements = chunk.getStatements();
+            for (int i = chunk.getCompletedStatements(); i < statements.size(); i++) {
+                Pair statement = statements.get(i);
+                String description = statement.getDescription();
+                log.debug("{}:SQL:{}:{}", environment, description, statement.getAction());
+                synchronized (tblMirror) {
+                    tblMirror.setMigrationStageMessage("Executing SQL: " + description);
+                }
+                sqlResilienceService.execute(environment, stmt, statement.getAction());
+                chunk.setCompletedStatements(i + 1);
+                synchronized (tblMirror) {
+                    tblMirror.addStep(environment.toString(), SQL_RUN_COMPLETE_STEP, description);
+                }
+            }
+            chunk.setStatus(ProgressEnum.COMPLETED);
+        } catch (SQLException se) {
+            log.error("{}:{}: Transfer chunk {} of {} failed", environment, tblMirror.getName(), chunk.getId(),
+                    chunk.getTotal(), se);
+            failTransferChunk(chunk, se.getMessage(), tblMirror, environment);
+        }
+    }
+
+    private void failTransferChunk(TransferChunk chunk, String message, TableMirror tblMirror, Environment environment) {
+        chunk.setStatus(ProgressEnum.FAILED);
+        chunk.setError(message);
+        synchronized (tblMirror) {
+            tblMirror.getEnvironmentTable(environment).addError("Transfer chunk " + chunk.getId() + " of "
+                    + chunk.getTotal() + " (" + chunk.getFirstPartition() + " to " + chunk.getLastPartition()
+                    + ") failed: " + message);
+        }
+    }
 }
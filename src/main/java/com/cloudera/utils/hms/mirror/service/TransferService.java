@@ -40,8 +40,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
@@ -57,8 +55,6 @@ public class TransferService {
     public static Pattern protocolNSPattern = Pattern.compile("(^.*://)([a-zA-Z0-9](?:(?:[a-zA-Z0-9-]*|(?<!-)\\.(?![-.]))*[a-zA-Z0-9]+)?)(:\\d{4})?");
     // Pattern to find the value of the last directory in a url.
     public static Pattern lastDirPattern = Pattern.compile(".*/([^/?]+).*");
-    private final DateFormat df = new SimpleDateFormat("yyyyMMddHHmmss");
-    private final DateFormat tdf = new SimpleDateFormat("HH:mm:ss.SSS");
     private final ConfigService configService;
     private final ExecuteSessionService executeSessionService;
     private final TableService tableService;
@@ -17,6 +17,7 @@
 
 package com.cloudera.utils.hms.mirror.service;
 
+import com.cloudera.utils.hms.mirror.Pair;
 import com.cloudera.utils.hms.mirror.PhaseState;
 import com.cloudera.utils.hms.mirror.domain.*;
 import com.cloudera.utils.hms.mirror.domain.support.*;
@@ -33,7 +34,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.text.MessageFormat;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -65,26 +68,128 @@ public class TranslatorService {
     }
 
     /**
-     * Builds a SQL statement for adding partitions to a table based on the given
-     * environment table's partition specifications and locations.
+     * Builds the statements that add a table's partitions, with their locations.  The partitions are split into
+     * statements of at most 'partitionAddChunkSize' partitions and 'partitionAddMaxBytes' bytes, so a table with
+     * a lot of partitions doesn't end up with one statement that's too big for HS2 to run.
      *
      * @param environmentTable the environment table containing partition details
      *                         and their respective locations
-     * @return a string representing the partition addition SQL statement
+     * @return the chunks, in partition order, each with its statement.  The statement's text is put together
+     * each time it's asked for.  Empty when there aren't any partitions.
      */
-    public String buildPartitionAddStatement(EnvironmentTable environmentTable) {
-        StringBuilder sbPartitionDetails = new StringBuilder();
-        Map<String, String> partitions = new HashMap<String, String>();
+    public List<TransferChunk> buildPartitionAddChunks(EnvironmentTable environmentTable) {
+        Optimization optimization = executeSessionService.getSession().getConfig().getOptimization();
+        return buildPartitionAddChunks(environmentTable, optimization.getPartitionAddChunkSize(),
+                optimization.getPartitionAddMaxBytes());
+    }
+
+    /**
+     * @param maxPartitions the most partitions in a statement.  0 or less means no limit.
+     * @param maxBytes      the most bytes (characters) in a statement.  0 or less means no limit.  A single
+     *                      partition that's over the limit still gets a statement of its own.
+     * @see #buildPartitionAddChunks(EnvironmentTable)
+     */
+    public List<TransferChunk> buildPartitionAddChunks(EnvironmentTable environmentTable, int maxPartitions,
+                                                       long maxBytes) {
+        return buildPartitionAddChunks(environmentTable.getName(), environmentTable.getPartitions(), maxPartitions,
+                maxBytes);
+    }
+
+    /**
+     * For partitions that aren't the table's own, like the known partitions of the LEFT table registered on a
+     * shadow table.
+     *
+     * @param partitions partition name to location
+     * @see #buildPartitionAddChunks(EnvironmentTable, int, long)
+     */
+    public List<TransferChunk> buildPartitionAddChunks(String tableName, Map<String, String> partitions,
+                                                       int maxPartitions, long maxBytes) {
+        List<TransferChunk> rtn = new ArrayList<>();
+        if (partitions.isEmpty()) {
+            return rtn;
+        }
+        // Sorted, so each statement covers a contiguous range and the output is the same from run to run.
+        List<String> partitionNames = new ArrayList<>(partitions.keySet());
+        Collections.sort(partitionNames);
+
+        String header = MessageFormat.format(ALTER_TABLE_PARTITION_ADD_LOCATION, tableName, "");
+        // Only the boundaries are worked out here.  The statements are put together when they're run (or written).
+        long chunkBytes = header.length();
+        int chunkStart = 0;
+        for (int i = 0; i < partitionNames.size(); i++) {
+            long partitionBytes = maxBytes > 0
+                    ? partitionDetail(partitionNames.get(i), partitions.get(partitionNames.get(i))).length() : 0L;
+            int chunkPartitions = i - chunkStart;
+            if (chunkPartitions > 0 && ((maxPartitions > 0 && chunkPartitions >= maxPartitions)
+                    || (maxBytes > 0 && chunkBytes + partitionBytes > maxBytes))) {
+                rtn.add(newPartitionAddChunk(rtn.size() + 1, header, partitionNames.subList(chunkStart, i),
+                        partitions));
+                chunkStart = i;
+                chunkBytes = header.length();
+            }
+            chunkBytes += partitionBytes;
+        }
+        rtn.add(newPartitionAddChunk(rtn.size() + 1, header,
+                partitionNames.subList(chunkStart, partitionNames.size()), partitions));
+
+        // Now that the number of chunks is known.
+        for (TransferChunk chunk : rtn) {
+            chunk.setTotal(rtn.size());
+            chunk.getSql().setDescription(rtn.size() == 1 ? ALTER_TABLE_PARTITION_ADD_LOCATION_DESC
+                    : MessageFormat.format(ALTER_TABLE_PARTITION_ADD_LOCATION_CHUNK_DESC, chunk.getId(), rtn.size(),
+                    chunk.getFirstPartition(), chunk.getLastPartition()));
+        }
+        return rtn;
+    }
+
+    private TransferChunk newPartitionAddChunk(int id, String header, List<String> partitionNames,
+                                               Map<String, String> partitions) {
+        TransferChunk rtn = new TransferChunk(id, 0);
+        rtn.setFirstPartition(partitionNames.get(0));
+        rtn.setLastPartition(partitionNames.get(partitionNames.size() - 1));
+        rtn.setPartitionCount(partitionNames.size());
+        String[] names = partitionNames.toArray(new String[0]);
+        String[] locations = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            locations[i] = partitions.get(names[i]);
+        }
+        rtn.setSql(new PartitionAddSql(header, names, locations));
+        return rtn;
+    }
+
+    private static String partitionDetail(String partitionName, String location) {
         // Fix formatting of partition names.
-        for (Map.Entry<String, String> item : environmentTable.getPartitions().entrySet()) {
-            String partitionName = item.getKey();
-            String partSpec = TableUtils.toPartitionSpec(partitionName);
-            partitions.put(partSpec, item.getValue());
+        return "\tPARTITION (" + TableUtils.toPartitionSpec(partitionName) + ") LOCATION '" + location + "' \n";
+    }
+
+    /*
+    A partition add statement that's only put together when it's asked for, so a table with a lot of partitions
+    doesn't hold all of its statements from when it's translated until they're run.  It keeps the partition names
+    and locations it covers.
+     */
+    private static class PartitionAddSql extends Pair {
+        private final String header;
+        private final String[] partitionNames;
+        private final String[] locations;
+
+        PartitionAddSql(String header, String[] partitionNames, String[] locations) {
+            this.header = header;
+            this.partitionNames = partitionNames;
+            this.locations = locations;
+        }
+
+        @Override
+        public String getAction() {
+            // Set explicitly, it replaces the one built here.
+            if (nonNull(super.getAction())) {
+                return super.getAction();
+            }
+            StringBuilder rtn = new StringBuilder(header);
+            for (int i = 0; i < partitionNames.length; i++) {
+                rtn.append(partitionDetail(partitionNames[i], locations[i]));
+            }
+            return rtn.toString();
         }
-        // Transfer partitions map to a string using streaming
-        partitions.entrySet().stream().forEach(e -> sbPartitionDetails.append("\tPARTITION (")
-                .append(e.getKey()).append(") LOCATION '").append(e.getValue()).append("' \n"));
-        return sbPartitionDetails.toString();
     }
 
     @Getter
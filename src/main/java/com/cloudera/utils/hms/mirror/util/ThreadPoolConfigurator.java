@@ -18,6 +18,7 @@
 package com.cloudera.utils.hms.mirror.util;
 
 import com.cloudera.utils.hms.mirror.service.ExecuteSessionService;
+import com.cloudera.utils.hms.mirror.service.SessionContext;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -41,6 +42,8 @@ public class ThreadPoolConfigurator {
         executor.setMaxPoolSize(maxPoolSize);
         executor.setQueueCapacity(DEFAULT_QUEUE_CAPACITY);
         executor.setThreadNamePrefix(threadNamePrefix);
+        // The tasks run for the session of the thread that submitted them.
+        executor.setTaskDecorator(SessionContext::wrap);
         executor.initialize();
         return executor;
     }
@@ -70,10 +73,15 @@ public class ThreadPoolConfigurator {
         return createThreadPool("reporting-", SINGLE_THREAD_POOL_SIZE, SINGLE_THREAD_POOL_SIZE);
     }
 
+    /*
+    One thread per session that can run at the same time.  The job and metadata pools are shared by the running
+    sessions, so 'max-threads' is the concurrency budget across them.
+     */
     @Bean("executionThreadPool")
     @Order(ORDER)
-    public TaskExecutor executionThreadPool() {
-        log.info("Setting up executionThreadPool with max threads: {}", SINGLE_THREAD_POOL_SIZE);
-        return createThreadPool("execution-", SINGLE_THREAD_POOL_SIZE, SINGLE_THREAD_POOL_SIZE);
+    public TaskExecutor executionThreadPool(@Value("${hms-mirror.concurrency.max-sessions:1}") Integer value) {
+        int sessions = Math.max(SINGLE_THREAD_POOL_SIZE, value);
+        log.info("Setting up executionThreadPool with max threads: {}", sessions);
+        return createThreadPool("execution-", sessions, sessions);
     }
 }
@@ -27,16 +27,15 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -178,13 +177,13 @@ public class ReportsMVController implements ControllerReferences {
     public void doDownloadReport(@RequestParam(value = REPORT_ID, required = true) String report_id,
                                  HttpServletResponse response) {
         try {
-            HttpEntity<ByteArrayResource> entity = reportService.getZippedReport(report_id);
+            ResponseEntity<StreamingResponseBody> entity = reportService.getZippedReport(report_id);
             response.setContentType("application/zip");
             // Translate headers
             entity.getHeaders().forEach((k, v) -> response.setHeader(k, v.get(0)));
             response.setHeader("Content-Disposition", "attachment; filename=\"" + report_id + ".zip\"");
-            InputStream is = Objects.requireNonNull(entity.getBody()).getInputStream();
-            org.apache.commons.io.IOUtils.copy(is, response.getOutputStream());
+            // Zipped as it's written to the response.
+            Objects.requireNonNull(entity.getBody()).writeTo(response.getOutputStream());
             response.flushBuffer();
         } catch (IOException e) {
             log.error("Error while downloading report: {}", report_id, e);
@@ -28,6 +28,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @CrossOrigin
 @RestController
 @Slf4j
@@ -57,4 +59,16 @@ public class RunStatusController {
     public RunStatus getRunStatus(@RequestParam(name = "sessionId", required = false) String sessionId) {
         return runStatusService.getRunStatus(sessionId);
     }
+
+    @Operation(summary = "Get the RunStatus of the running sessions")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "RunStatus by session id",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class))})
+    })
+    @ResponseBody
+    @RequestMapping(method = RequestMethod.GET, value = "/running")
+    public Map<String, RunStatus> getRunningStatuses() {
+        return runStatusService.getRunningStatuses();
+    }
 }
\ No newline at end of file
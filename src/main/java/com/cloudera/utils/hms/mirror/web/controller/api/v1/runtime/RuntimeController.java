@@ -17,6 +17,7 @@
 
 package com.cloudera.utils.hms.mirror.web.controller.api.v1.runtime;
 
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
 import com.cloudera.utils.hms.mirror.domain.support.RunStatus;
 import com.cloudera.utils.hms.mirror.exceptions.EncryptionException;
 import com.cloudera.utils.hms.mirror.exceptions.MismatchException;
@@ -32,14 +33,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.constraints.NotNull;
 import java.io.IOException;
 import java.util.Set;
 
+import static java.util.Objects.isNull;
+
 @CrossOrigin
 @RestController
 @Slf4j
@@ -84,8 +87,14 @@ public class RuntimeController {
     })
     @ResponseBody
     @RequestMapping(method = RequestMethod.POST, value = "/cancel")
-    public RunStatus cancel() {
-        RunStatus runStatus = executeSessionService.getSession().getRunStatus();
+    public RunStatus cancel(@RequestParam(name = "sessionId", required = false) String sessionId)
+            throws SessionException {
+        // The 'current' session when no id is given.
+        ExecuteSession session = executeSessionService.getSession(sessionId);
+        if (isNull(session)) {
+            throw new SessionException("Session not found: " + sessionId);
+        }
+        RunStatus runStatus = session.getRunStatus();
         runStatus.cancel();
         return runStatus;
     }
@@ -94,16 +103,18 @@ public class RuntimeController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Reports retrieved successfully",
                     content = {@Content(mediaType = "application/zip",
-                            schema = @Schema(implementation = HttpEntity.class))})
+                            schema = @Schema(implementation = StreamingResponseBody.class))})
     })
     @ResponseBody
     @RequestMapping(method = RequestMethod.GET, value = "/reports/latest/download")
-    public HttpEntity<ByteArrayResource> downloadLatestSessionReport() throws IOException {
+    public ResponseEntity<StreamingResponseBody> downloadLatestSessionReport(
+            @RequestParam(value = "databases", required = false) Set<String> databases,
+            @RequestParam(value = "fileTypes", required = false) Set<String> fileTypes) throws IOException {
         Set<String> availableReports = reportService.getAvailableReports();
         if (availableReports.isEmpty()) {
             throw new IOException("No reports available");
         } else {
-            return reportService.getZippedReport(availableReports.iterator().next());
+            return reportService.getZippedReport(availableReports.iterator().next(), databases, fileTypes);
         }
     }
 
@@ -111,12 +122,15 @@ public class RuntimeController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Reports retrieved successfully",
                     content = {@Content(mediaType = "application/zip",
-                            schema = @Schema(implementation = HttpEntity.class))})
+                            schema = @Schema(implementation = StreamingResponseBody.class))})
     })
     @ResponseBody
     @RequestMapping(method = RequestMethod.GET, value = "/reports/{id}/download")
-    public HttpEntity<ByteArrayResource> downloadSessionReport(@PathVariable @NotNull String id) throws IOException {
-        return reportService.getZippedReport(id);
+    public ResponseEntity<StreamingResponseBody> downloadSessionReport(
+            @PathVariable @NotNull String id,
+            @RequestParam(value = "databases", required = false) Set<String> databases,
+            @RequestParam(value = "fileTypes", required = false) Set<String> fileTypes) throws IOException {
+        return reportService.getZippedReport(id, databases, fileTypes);
     }
 
     @Operation(summary = "Available Reports")
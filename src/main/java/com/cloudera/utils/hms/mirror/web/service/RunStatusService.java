@@ -19,19 +19,17 @@ package com.cloudera.utils.hms.mirror.web.service;
 import com.cloudera.utils.hms.mirror.PhaseState;
 import com.cloudera.utils.hms.mirror.domain.TableMirror;
 import com.cloudera.utils.hms.mirror.domain.support.Conversion;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
 import com.cloudera.utils.hms.mirror.domain.support.RunStatus;
 import com.cloudera.utils.hms.mirror.service.ExecuteSessionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.ConcurrentModificationException;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 import java.util.stream.Collectors;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
-import static org.apache.commons.lang3.StringUtils.isBlank;
 
 @Service
 @Slf4j
@@ -44,18 +42,34 @@ public class RunStatusService {
     }
 
     public RunStatus getRunStatus(String sessionId) {
-        RunStatus runStatus;
-        if (isBlank(sessionId)) {
-            runStatus = executeSessionService.getSession().getRunStatus();
-        } else {
-            runStatus = executeSessionService.getSession(sessionId).getRunStatus();
+        // The 'current' session when the id is blank.
+        ExecuteSession session = executeSessionService.getSession(sessionId);
+        if (isNull(session)) {
+            return null;
         }
-        updateProgress(runStatus);
+        RunStatus runStatus = session.getRunStatus();
+        updateProgress(runStatus, session.getConversion());
         return runStatus;
     }
 
-    public synchronized void updateProgress(RunStatus runStatus) {
-        Conversion conversion = executeSessionService.getSession().getConversion();
+    /**
+     * The status of each session that's running now, by session id.
+     */
+    public Map<String, RunStatus> getRunningStatuses() {
+        Map<String, RunStatus> rtn = new TreeMap<>();
+        for (ExecuteSession session : executeSessionService.getRunningSessions()) {
+            RunStatus runStatus = session.getRunStatus();
+            updateProgress(runStatus, session.getConversion());
+            rtn.put(session.getSessionId(), runStatus);
+        }
+        return rtn;
+    }
+
+    public void updateProgress(RunStatus runStatus) {
+        updateProgress(runStatus, executeSessionService.getSession().getConversion());
+    }
+
+    public synchronized void updateProgress(RunStatus runStatus, Conversion conversion) {
         if (nonNull(conversion)) {
             // Reset the inProgressTables with what's currently working.
             runStatus.getInProgressTables().clear();
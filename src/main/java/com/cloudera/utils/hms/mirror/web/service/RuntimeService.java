@@ -66,11 +66,17 @@ public class RuntimeService {
             runStatus = session.getRunStatus();
 //            if (configService.validate(session, executeSessionService.getCliEnvironment())) {
                 if (runStatus.reset()) {
-                    executeSessionService.getSession().getConfig().setExecute(!dryrun);
-                    // Start job in a separate thread.
-                    CompletableFuture<Boolean> runningTask = hmsMirrorAppService.run();
-                    // Set the running task reference in the RunStatus.
-                    runStatus.setRunningTask(runningTask);
+                    session.getConfig().setExecute(!dryrun);
+                    // Start job in a separate thread, bound to this session.  Other sessions can be loaded and
+                    // started while it runs.
+                    ExecuteSession previous = SessionContext.bind(session);
+                    try {
+                        CompletableFuture<Boolean> runningTask = hmsMirrorAppService.run();
+                        // Set the running task reference in the RunStatus.
+                        runStatus.setRunningTask(runningTask);
+                    } finally {
+                        SessionContext.restore(previous);
+                    }
                 }
 //            } else {
 //                runStatus.addError(MessageCode.CONFIG_INVALID);
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.util;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Clock;
+import java.time.Instant;
+
+/**
+ * A circuit breaker for the calls against a service.  After 'threshold' failures in a row it OPENs and holds the
+ * callers for the pause.  Then one caller is let through to try the service (HALF_OPEN).  When that call succeeds
+ * the breaker CLOSEs again, when it fails the breaker OPENs for another pause.  The other callers wait until it's
+ * decided.
+ * <p>
+ * A threshold of 0 never opens the breaker.  The clock and the sleep are pluggable, so the timing can be tested
+ * without waiting.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    public interface Listener {
+        void stateChanged(State state, int failures);
+    }
+
+    private final Clock clock;
+    private final TokenBucket.Sleeper sleeper;
+    @Getter
+    @Setter
+    private volatile int threshold;
+    @Getter
+    @Setter
+    private volatile long pauseNanos;
+    @Setter
+    private Listener listener;
+
+    @Getter
+    private State state = State.CLOSED;
+    /*
+    Failures in a row.
+     */
+    @Getter
+    private int failures = 0;
+    private long openUntil = 0;
+    /*
+    Whether the HALF_OPEN trial call has been let through.
+     */
+    private boolean trial = false;
+
+    public CircuitBreaker(int threshold, long pauseNanos, Clock clock, TokenBucket.Sleeper sleeper) {
+        this.threshold = threshold;
+        this.pauseNanos = pauseNanos;
+        this.clock = clock;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Wait, when the breaker is open, until a call is allowed.  Every call that's let through has to report
+     * back with {@link #success()}, {@link #failure()} or {@link #release()}.
+     *
+     * @return the nanoseconds spent waiting
+     */
+    public long acquire() throws InterruptedException {
+        long waited = 0;
+        while (true) {
+            long wait;
+            synchronized (this) {
+                if (state == State.OPEN) {
+                    long now = nanos();
+                    if (now >= openUntil) {
+                        setState(State.HALF_OPEN);
+                    }
+                }
+                switch (state) {
+                    case CLOSED:
+                        return waited;
+                    case HALF_OPEN:
+                        if (!trial) {
+                            trial = true;
+                            return waited;
+                        }
+                        wait = TokenBucket.PAUSED_RECHECK_NANOS;
+                        break;
+                    default:
+                        wait = Math.max(1, openUntil - nanos());
+                }
+            }
+            sleeper.sleep(wait);
+            waited += wait;
+        }
+    }
+
+    /**
+     * The call reached the service.
+     */
+    public synchronized void success() {
+        failures = 0;
+        if (state == State.HALF_OPEN) {
+            trial = false;
+            setState(State.CLOSED);
+        }
+    }
+
+    /**
+     * The call failed in a way that says the service isn't healthy.
+     */
+    public synchronized void failure() {
+        failures++;
+        if (state == State.HALF_OPEN) {
+            trial = false;
+            open();
+        } else if (state == State.CLOSED && threshold > 0 && failures >= threshold) {
+            open();
+        }
+    }
+
+    /**
+     * The call ended without saying anything about the service.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            trial = false;
+        }
+    }
+
+    private void open() {
+        openUntil = nanos() + pauseNanos;
+        setState(State.OPEN);
+    }
+
+    private void setState(State state) {
+        if (this.state != state) {
+            this.state = state;
+            if (listener != null) {
+                listener.stateChanged(state, failures);
+            }
+        }
+    }
+
+    private long nanos() {
+        Instant instant = clock.instant();
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+}
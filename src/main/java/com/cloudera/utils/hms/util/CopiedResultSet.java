@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.util;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The rows of a result set, copied so the statement and connection it came from can be closed.  Only reading the
+ * rows in order, by column, is supported, which is all the catalog queries do.
+ */
+public final class CopiedResultSet {
+
+    private CopiedResultSet() {
+    }
+
+    /**
+     * Reads the rows and closes the result set.
+     */
+    public static ResultSet copyOf(ResultSet resultSet) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        ResultSetMetaData metaData;
+        try (ResultSet rs = resultSet) {
+            metaData = rs.getMetaData();
+            int columns = metaData.getColumnCount();
+            while (rs.next()) {
+                Object[] row = new Object[columns];
+                for (int i = 0; i < columns; i++) {
+                    row[i] = rs.getObject(i + 1);
+                }
+                rows.add(row);
+            }
+        }
+        int[] current = {-1};
+        Object[] last = {null};
+        boolean[] closed = {false};
+        return (ResultSet) Proxy.newProxyInstance(CopiedResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    int argCount = args == null ? 0 : args.length;
+                    switch (name) {
+                        case "next":
+                            current[0] = Math.min(current[0] + 1, rows.size());
+                            return current[0] < rows.size();
+                        case "getString":
+                        case "getObject":
+                            if (argCount == 1) {
+                                if (current[0] < 0 || current[0] >= rows.size()) {
+                                    throw new SQLException("Not on a row");
+                                }
+                                int column = args[0] instanceof Integer ? (Integer) args[0]
+                                        : findColumn(metaData, (String) args[0]);
+                                last[0] = rows.get(current[0])[column - 1];
+                                return "getString".equals(name) && last[0] != null ? last[0].toString() : last[0];
+                            }
+                            break;
+                        case "findColumn":
+                            return findColumn(metaData, (String) args[0]);
+                        case "wasNull":
+                            return last[0] == null;
+                        case "getMetaData":
+                            return metaData;
+                        case "close":
+                            closed[0] = true;
+                            return null;
+                        case "isClosed":
+                            return closed[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "CopiedResultSet(" + rows.size() + " rows)";
+                        default:
+                            break;
+                    }
+                    throw new SQLFeatureNotSupportedException(name);
+                });
+    }
+
+    private static int findColumn(ResultSetMetaData metaData, String label) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (label.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                return i;
+            }
+        }
+        throw new SQLException("No column: " + label);
+    }
+
+}
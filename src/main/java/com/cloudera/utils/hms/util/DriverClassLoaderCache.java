@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.util;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.zip.CRC32;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Process wide cache of the classloaders (and driver instances) built over the JDBC jar files.
+ * <p>
+ * The jdbc jars can be very large (100MB+ 'standalone' jars) and building a new classloader for them every time
+ * the connection pools are initialized re-reads and re-indexes the jars and leaves the old classloader (and all
+ * its classes) in metaspace.
+ * <p>
+ * Entries are keyed by the set of jar files and a checksum of their size and modification time, so a jar that's
+ * replaced on disk gets a new entry.  Each 'acquire' must be matched with a 'release'.  Entries that are no longer
+ * referenced stay cached (so the next session start can reuse them) until 'evictUnused' is called, which closes
+ * their classloaders.
+ * <p>
+ * Each driver is registered with the DriverManager once, when it's loaded, and deregistered when its entry is
+ * evicted.  The pools connect through the driver they're given (see {@link DriverDataSource}), so the drivers of
+ * both clusters can be registered at the same time.
+ */
+@Slf4j
+public class DriverClassLoaderCache {
+
+    private static final DriverClassLoaderCache INSTANCE = new DriverClassLoaderCache();
+
+    @Getter
+    public static class CachedDriver {
+        private final String key;
+        private final Driver driver;
+        private final String version;
+
+        private CachedDriver(String key, Driver driver, String version) {
+            this.key = key;
+            this.driver = driver;
+            this.version = version;
+        }
+    }
+
+    private static class Entry {
+        private final URLClassLoader classLoader;
+        // Driver class name to the driver (shim) instance.
+        private final Map<String, CachedDriver> drivers = new HashMap<>();
+        private int references = 0;
+
+        private Entry(URLClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    // Lookup of the entry for a driver instance, for 'release'.
+    private final Map<Driver, Entry> driverEntries = new IdentityHashMap<>();
+
+    public static DriverClassLoaderCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the driver from the cached classloader for the jar files, building the classloader and driver if needed.
+     * The returned driver is wrapped in a {@link DriverShim}.
+     *
+     * @param jarFiles        the jar files for the classloader
+     * @param driverClassName the driver class to load
+     * @param parent          parent classloader, used when the classloader is built
+     * @return the cached driver
+     */
+    public synchronized CachedDriver acquire(File[] jarFiles, String driverClassName, ClassLoader parent)
+            throws IOException, ReflectiveOperationException {
+        String key = buildKey(jarFiles);
+        Entry entry = entries.get(key);
+        if (isNull(entry)) {
+            URL[] urls = new URL[jarFiles.length];
+            for (int i = 0; i < jarFiles.length; i++) {
+                urls[i] = jarFiles[i].toURI().toURL();
+            }
+            log.info("Building Classloader to isolate JDBC Library for: {}", key);
+            entry = new Entry(URLClassLoader.newInstance(urls, parent));
+            entries.put(key, entry);
+        } else {
+            log.debug("Reusing cached Classloader for: {}", key);
+        }
+
+        CachedDriver cachedDriver = entry.drivers.get(driverClassName);
+        if (isNull(cachedDriver)) {
+            try {
+                Class<?> classToLoad = entry.classLoader.loadClass(driverClassName);
+                Package aPackage = classToLoad.getPackage();
+                String implementationVersion = nonNull(aPackage) ? aPackage.getImplementationVersion() : null;
+                Driver driver = (Driver) classToLoad.getDeclaredConstructor().newInstance();
+                cachedDriver = new CachedDriver(key, new DriverShim(driver), implementationVersion);
+                DriverManager.registerDriver(cachedDriver.getDriver());
+            } catch (ReflectiveOperationException | SQLException | RuntimeException | LinkageError e) {
+                // Don't hold on to a classloader that couldn't provide the driver.
+                if (entry.references == 0 && entry.drivers.isEmpty()) {
+                    entries.remove(key);
+                    close(key, entry);
+                }
+                if (e instanceof ReflectiveOperationException) {
+                    throw (ReflectiveOperationException) e;
+                }
+                throw new ClassNotFoundException("Unable to load " + driverClassName + " from " + key, e);
+            }
+            entry.drivers.put(driverClassName, cachedDriver);
+            driverEntries.put(cachedDriver.getDriver(), entry);
+        }
+        entry.references++;
+        return cachedDriver;
+    }
+
+    /**
+     * Release a driver returned by 'acquire'.  Drivers that didn't come from the cache are ignored.
+     *
+     * @param driver the driver to release
+     */
+    public synchronized void release(Driver driver) {
+        Entry entry = driverEntries.get(driver);
+        if (nonNull(entry) && entry.references > 0) {
+            entry.references--;
+        }
+    }
+
+    /**
+     * Close and remove the classloaders that aren't referenced by any connection pools.
+     *
+     * @return the number of classloaders evicted
+     */
+    public synchronized int evictUnused() {
+        int evicted = 0;
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> mapEntry = iterator.next();
+            if (mapEntry.getValue().references == 0) {
+                iterator.remove();
+                close(mapEntry.getKey(), mapEntry.getValue());
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized int getReferences(String key) {
+        Entry entry = entries.get(key);
+        return nonNull(entry) ? entry.references : 0;
+    }
+
+    /*
+    The sorted (canonical) jar paths and a checksum of their sizes and modification times.  The jars aren't read,
+    that's what we're trying to avoid.
+     */
+    protected static String buildKey(File[] jarFiles) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (File jarFile : jarFiles) {
+            files.add(jarFile.getCanonicalFile());
+        }
+        files.sort(Comparator.comparing(File::getPath));
+        CRC32 crc = new CRC32();
+        StringBuilder sb = new StringBuilder();
+        for (File file : files) {
+            if (sb.length() > 0)
+                sb.append(File.pathSeparator);
+            sb.append(file.getPath());
+            crc.update(file.getPath().getBytes(StandardCharsets.UTF_8));
+            crc.update(Long.toString(file.length()).getBytes(StandardCharsets.UTF_8));
+            crc.update(Long.toString(file.lastModified()).getBytes(StandardCharsets.UTF_8));
+        }
+        return sb.append("#").append(Long.toHexString(crc.getValue())).toString();
+    }
+
+    private void close(String key, Entry entry) {
+        for (CachedDriver cachedDriver : entry.drivers.values()) {
+            driverEntries.remove(cachedDriver.getDriver());
+            try {
+                DriverManager.deregisterDriver(cachedDriver.getDriver());
+            } catch (SQLException e) {
+                log.error("Issue deregistering the driver for: {}", key, e);
+            }
+        }
+        try {
+            log.info("Closing cached JDBC Classloader for: {}", key);
+            entry.classLoader.close();
+        } catch (IOException e) {
+            log.error("Issue closing Classloader for: {}", key, e);
+        }
+    }
+
+}
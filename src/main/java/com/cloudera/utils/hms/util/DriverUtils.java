@@ -23,11 +23,9 @@ import com.cloudera.utils.hms.mirror.exceptions.SessionException;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
-import java.lang.reflect.InvocationTargetException;
-import java.net.MalformedURLException;
+import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.net.URLClassLoader;
 import java.nio.file.Paths;
 import java.sql.Driver;
 import java.sql.DriverManager;
@@ -40,7 +38,9 @@ public class DriverUtils {
 //    private static final Logger log = LoggerFactory.getLogger(DriverUtils.class);
 
     // This is a shim process that allows us to load a Hive Driver from
-    // a jar File, via a new ClassLoader.
+    // a jar File, via a new ClassLoader.  The ClassLoader and Driver are cached (see DriverClassLoaderCache)
+    // and the driver must be returned with 'releaseDriver' when it's no longer used.  The cache registers the
+    // driver with the DriverManager.  A driver from the classpath registered itself when its class was loaded.
     @SuppressWarnings("unchecked")
     public static Driver getDriver(HiveServer2Config hs2Config, Environment environment) throws SessionException {
         Driver hiveShim = null;
@@ -48,7 +48,6 @@ public class DriverUtils {
             String jarFile = hs2Config.getJarFile();
             if (!isBlank(jarFile)) {
                 String[] files = jarFile.split(":");
-                URL[] urls = new URL[files.length];
                 File[] jarFiles = new File[files.length];
                 for (int i = 0; i < files.length; i++) {
                     jarFiles[i] = new File(files[i]);
@@ -56,21 +55,15 @@ public class DriverUtils {
                         log.error("Jarfile: " + files[i] + " can't be located.");
                         throw new SessionException("Jarfile: " + files[i] + " can't be located.");
                     }
-                    urls[i] = jarFiles[i].toURI().toURL();
                 }
 
-                log.trace("Building Classloader to isolate JDBC Library for: {}", jarFile);
-                URLClassLoader hive3ClassLoader = URLClassLoader.newInstance(urls, environment.getClass().getClassLoader());
-                log.trace("Loading Hive JDBC Driver");
-                Class<?> classToLoad = hive3ClassLoader.loadClass(hs2Config.getDriverClassName());
-                Package aPackage = classToLoad.getPackage();
-                String implementationVersion = aPackage.getImplementationVersion();
+                log.trace("Getting Classloader to isolate JDBC Library for: {}", jarFile);
+                DriverClassLoaderCache.CachedDriver cachedDriver = DriverClassLoaderCache.getInstance()
+                        .acquire(jarFiles, hs2Config.getDriverClassName(), environment.getClass().getClassLoader());
+                String implementationVersion = cachedDriver.getVersion();
                 hs2Config.setVersion(implementationVersion);
                 log.info("{} - Hive JDBC Implementation Version: {}", environment, implementationVersion);
-                Driver hiveDriver = (Driver) classToLoad.getDeclaredConstructor().newInstance();
-                log.trace("Building Hive Driver Shim");
-                hiveShim = new DriverShim(hiveDriver);
-                log.trace("Registering Hive Shim Driver with JDBC 'DriverManager'");
+                hiveShim = cachedDriver.getDriver();
             } else {
                 Class<?> hiveDriverClass = Class.forName(hs2Config.getDriverClassName());
                 hiveShim = (Driver) hiveDriverClass.getDeclaredConstructor().newInstance();
@@ -79,18 +72,31 @@ public class DriverUtils {
                 hs2Config.setVersion(implementationVersion);
                 log.info("{} - Hive JDBC Implementation Version: {}", environment, implementationVersion);
             }
-            DriverManager.registerDriver(hiveShim);
-        } catch (SQLException | MalformedURLException |
-                 ClassNotFoundException | InstantiationException |
-                 IllegalAccessException throwables) {
+        } catch (IOException throwables) {
             log.error(throwables.getMessage(), throwables);
-        } catch (InvocationTargetException | NoSuchMethodException e) {
+        } catch (ReflectiveOperationException e) {
             log.error("Issue getting Driver", e);
 //            throw new RuntimeException(e);
         }
         return hiveShim;
     }
 
+    /**
+     * Return a driver from 'getDriver' to the classloader cache.
+     */
+    public static void releaseDriver(Driver hiveShim) {
+        if (hiveShim != null) {
+            DriverClassLoaderCache.getInstance().release(hiveShim);
+        }
+    }
+
+    /**
+     * Close the cached driver classloaders that aren't used by any connection pools.
+     */
+    public static int evictUnusedDrivers() {
+        return DriverClassLoaderCache.getInstance().evictUnused();
+    }
+
     public static void deregisterDriver(Driver hiveShim) {
         try {
             log.trace("De-registering Driver from 'DriverManager'");
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Splits a table's partitions into chunks for the SQL data transfer and builds the WHERE clause that selects
+ * a chunk's partitions from the source table.
+ * <p>
+ * Partitions are identified by their spec, as returned by 'SHOW PARTITIONS'.  IE: <code>dt=2024-01-01/hr=05</code>
+ */
+@Slf4j
+public class PartitionChunkUtils {
+
+    public static final String DEFAULT_PARTITION = "__HIVE_DEFAULT_PARTITION__";
+
+    /**
+     * Split the partitions into balanced chunks.  The partitions are sorted and each chunk covers a contiguous
+     * run of them, which keeps each chunk's source files close together.
+     *
+     * @param partitionSpecs the partition specs of the table
+     * @param maxPartitions  the most partitions in a chunk.  0 or less means no limit.
+     * @param partitionBytes optional size of each partition.  When present, chunks are balanced by size
+     *                       instead of partition count.
+     * @param maxBytes       the most bytes in a chunk.  Only used with partitionBytes.  0 or less means no limit.
+     * @return the chunks, in partition order
+     */
+    public static List<List<String>> chunk(Collection<String> partitionSpecs, int maxPartitions,
+                                           Map<String, Long> partitionBytes, long maxBytes) {
+        List<List<String>> rtn = new ArrayList<>();
+        if (partitionSpecs.isEmpty()) {
+            return rtn;
+        }
+        List<String> sorted = new ArrayList<>(partitionSpecs);
+        Collections.sort(sorted);
+        int size = sorted.size();
+
+        boolean bySize = nonNull(partitionBytes) && !partitionBytes.isEmpty();
+        long[] weights = new long[size];
+        long totalWeight = 0;
+        if (bySize) {
+            // Partitions without a size get the average of the ones that have one.
+            long known = 0;
+            int knownCount = 0;
+            for (String spec : sorted) {
+                Long bytes = partitionBytes.get(spec);
+                if (nonNull(bytes)) {
+                    known += bytes;
+                    knownCount++;
+                }
+            }
+            long average = knownCount > 0 ? Math.max(1, known / knownCount) : 1;
+            for (int i = 0; i < size; i++) {
+                Long bytes = partitionBytes.get(sorted.get(i));
+                weights[i] = nonNull(bytes) ? Math.max(1, bytes) : average;
+                totalWeight += weights[i];
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                weights[i] = 1;
+            }
+            totalWeight = size;
+        }
+
+        long chunkCount = 1;
+        if (maxPartitions > 0) {
+            chunkCount = Math.max(chunkCount, (size + maxPartitions - 1) / maxPartitions);
+        }
+        if (bySize && maxBytes > 0) {
+            chunkCount = Math.max(chunkCount, (totalWeight + maxBytes - 1) / maxBytes);
+        }
+        double target = (double) totalWeight / chunkCount;
+
+        List<String> current = new ArrayList<>();
+        long currentWeight = 0;
+        long cumulative = 0;
+        for (int i = 0; i < size; i++) {
+            if (!current.isEmpty()) {
+                boolean full = (maxPartitions > 0 && current.size() >= maxPartitions)
+                        || (bySize && maxBytes > 0 && currentWeight + weights[i] > maxBytes)
+                        || cumulative >= target * (rtn.size() + 1);
+                if (full) {
+                    rtn.add(current);
+                    current = new ArrayList<>();
+                    currentWeight = 0;
+                }
+            }
+            current.add(sorted.get(i));
+            currentWeight += weights[i];
+            cumulative += weights[i];
+        }
+        rtn.add(current);
+        return rtn;
+    }
+
+    /**
+     * Build the predicate that selects exactly the given partitions.  Partitions that share all but their last
+     * partition value are grouped into an IN list.
+     * <p>
+     * IE: <code>(`dt` = '2024-01-01' AND `hr` IN ('01','02')) OR (`dt` = '2024-01-02' AND `hr` IN ('01'))</code>
+     */
+    public static String buildPredicate(List<String> partitionSpecs) {
+        // Key: the spec without its last element.
+        Map<String, List<String[]>> groups = new LinkedHashMap<>();
+        for (String spec : partitionSpecs) {
+            String[] elements = spec.split("/");
+            String prefix = spec.substring(0, Math.max(0, spec.length() - elements[elements.length - 1].length()));
+            List<String[]> parsed = groups.computeIfAbsent(prefix, k -> new ArrayList<>());
+            parsed.add(elements);
+        }
+        List<String> terms = new ArrayList<>();
+        for (List<String[]> group : groups.values()) {
+            String[] first = group.get(0);
+            List<String> conditions = new ArrayList<>();
+            for (int i = 0; i < first.length - 1; i++) {
+                conditions.add(condition(first[i]));
+            }
+            String lastName = null;
+            List<String> values = new ArrayList<>();
+            boolean includesDefault = Boolean.FALSE;
+            for (String[] elements : group) {
+                String[] kv = elements[elements.length - 1].split("=", 2);
+                lastName = kv[0];
+                String value = kv.length > 1 ? unescapePathName(kv[1]) : "";
+                if (DEFAULT_PARTITION.equals(value)) {
+                    includesDefault = Boolean.TRUE;
+                } else {
+                    values.add(quote(value));
+                }
+            }
+            String column = "`" + lastName + "`";
+            String lastCondition;
+            if (values.isEmpty()) {
+                lastCondition = column + " IS NULL";
+            } else {
+                lastCondition = values.size() == 1 ? column + " = " + values.get(0)
+                        : column + " IN (" + String.join(",", values) + ")";
+                if (includesDefault) {
+                    lastCondition = "(" + lastCondition + " OR " + column + " IS NULL)";
+                }
+            }
+            conditions.add(lastCondition);
+            terms.add(String.join(" AND ", conditions));
+        }
+        if (terms.size() == 1) {
+            return terms.get(0);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String term : terms) {
+            if (sb.length() > 0) {
+                sb.append(" OR ");
+            }
+            sb.append("(").append(term).append(")");
+        }
+        return sb.toString();
+    }
+
+    private static String condition(String element) {
+        String[] kv = element.split("=", 2);
+        String value = kv.length > 1 ? unescapePathName(kv[1]) : "";
+        if (DEFAULT_PARTITION.equals(value)) {
+            return "`" + kv[0] + "` IS NULL";
+        }
+        return "`" + kv[0] + "` = " + quote(value);
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    /*
+    Partition values in a spec are escaped the way Hive escapes path names.  IE: ':' is '%3A'.
+     */
+    public static String unescapePathName(String path) {
+        if (path.indexOf('%') < 0) {
+            return path;
+        }
+        StringBuilder sb = new StringBuilder(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '%' && i + 2 < path.length()) {
+                int code = -1;
+                try {
+                    code = Integer.parseInt(path.substring(i + 1, i + 3), 16);
+                } catch (NumberFormatException e) {
+                    // Not an escape sequence.
+                }
+                if (code >= 0) {
+                    sb.append((char) code);
+                    i += 2;
+                    continue;
+                }
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Keyset pagination declaration for a metastore-direct query.  Declared alongside the query
+ * 'statement' in the metastoreDirect.yaml resource.
+ * <p>
+ * The statement is expected to end in a WHERE clause.  Each page is run as:
+ * <pre>
+ *     statement AND keyColumn > ? ORDER BY keyColumn LIMIT pageSize
+ * </pre>
+ * and the last 'keyAlias' value read from the page is bound for the next page.
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class QueryPagination {
+
+    /*
+    The column expression (with table alias and any dialect quoting) used in the keyset predicate and the
+    ORDER BY.  IE: P.PART_ID
+     */
+    private String keyColumn = null;
+    /*
+    The label of the key in the result set.  The key must be part of the select list.
+     */
+    private String keyAlias = null;
+    /*
+    Rows per page.  When 0, the page size from the session config is used.
+     */
+    private int pageSize = 0;
+
+    public boolean isValid() {
+        return keyColumn != null && !keyColumn.trim().isEmpty()
+                && keyAlias != null && !keyAlias.trim().isEmpty();
+    }
+
+}
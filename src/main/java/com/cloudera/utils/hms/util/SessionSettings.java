@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.util;
+
+import org.apache.commons.dbcp2.DelegatingConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.Objects.isNull;
+
+/**
+ * The values set ('SET name=value') in the session of each connection, so a 'SET' to the value the session already
+ * has can be skipped.  With the database of the last 'USE', they're the setup that's replayed on another connection
+ * to carry on the session (see {@link #getSetup(Connection)}).
+ * <p>
+ * A connection is tracked by the driver connection under the pool's handle, so the values follow the session from
+ * one borrow to the next.  DBCP2 hands it out through {@link DelegatingConnection#getInnermostDelegate()} (when
+ * the pool allows access to the underlying connection), Hikari through unwrap.  When the pool doesn't hand it out,
+ * the handle is tracked, which only covers that borrow.  A connection that hasn't been seen has no values, so every 'SET' is run on it.  A 'RESET'
+ * forgets the values, and a failure that may have lost the session forgets the connection.
+ */
+public class SessionSettings {
+
+    private static final Pattern SET_VALUE = Pattern.compile("^\\s*set\\s+([^=\\s]+)\\s*=(.*)$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern RESET = Pattern.compile("^\\s*reset\\b.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern USE = Pattern.compile("^\\s*use\\s+(\\S+?)\\s*;?\\s*$", Pattern.CASE_INSENSITIVE);
+
+    private static class Session {
+        private String database;
+        private final Map<String, String> values = new LinkedHashMap<>();
+    }
+
+    private final Map<Connection, Session> sessions = new WeakHashMap<>();
+
+    /**
+     * Whether the statement sets a value the connection's session already has.
+     */
+    public synchronized boolean isCurrent(Connection connection, String sql) {
+        if (isNull(connection)) {
+            return false;
+        }
+        Matcher m = SET_VALUE.matcher(sql);
+        if (!m.matches()) {
+            return false;
+        }
+        Session current = sessions.get(sessionOf(connection));
+        return !isNull(current) && m.group(2).trim().equals(current.values.get(m.group(1)));
+    }
+
+    /**
+     * Keep the value set by a statement that was run on the connection.  Statements that don't change the session
+     * values are ignored.
+     */
+    public synchronized void record(Connection connection, String sql) {
+        if (isNull(connection)) {
+            return;
+        }
+        Matcher m = SET_VALUE.matcher(sql);
+        Matcher use = USE.matcher(sql);
+        if (m.matches()) {
+            sessions.computeIfAbsent(sessionOf(connection), k -> new Session())
+                    .values.put(m.group(1), m.group(2).trim());
+        } else if (use.matches()) {
+            sessions.computeIfAbsent(sessionOf(connection), k -> new Session()).database = use.group(1);
+        } else if (RESET.matcher(sql).matches()) {
+            // The database stays.
+            Session session = sessions.get(sessionOf(connection));
+            if (!isNull(session)) {
+                session.values.clear();
+            }
+        }
+    }
+
+    /**
+     * The 'USE' and 'SET' statements that put another connection's session where the connection's is.
+     */
+    public synchronized List<String> getSetup(Connection connection) {
+        List<String> rtn = new ArrayList<>();
+        Session session = isNull(connection) ? null : sessions.get(sessionOf(connection));
+        if (!isNull(session)) {
+            if (!isNull(session.database)) {
+                rtn.add("USE " + session.database);
+            }
+            session.values.forEach((name, value) -> rtn.add("SET " + name + "=" + value));
+        }
+        return rtn;
+    }
+
+    public synchronized void forget(Connection connection) {
+        if (!isNull(connection)) {
+            sessions.remove(sessionOf(connection));
+        }
+    }
+
+    /*
+    The driver connection under the pool's handle.  A DBCP2 handle unwraps to itself, so its delegates are
+    followed instead.  The Hive driver doesn't support unwrap, so it ends there.
+     */
+    protected static Connection sessionOf(Connection connection) {
+        if (connection instanceof DelegatingConnection) {
+            Connection inner = ((DelegatingConnection<?>) connection).getInnermostDelegate();
+            if (!isNull(inner)) {
+                return inner;
+            }
+        }
+        Connection rtn = connection;
+        try {
+            while (rtn.isWrapperFor(Connection.class)) {
+                Connection inner = rtn.unwrap(Connection.class);
+                if (isNull(inner) || inner == rtn) {
+                    break;
+                }
+                rtn = inner;
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Not a wrapper.
+        }
+        return rtn;
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.util;
+
+import com.cloudera.utils.hive.config.DBStore;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Runs metastore-direct queries so rows are streamed to the caller instead of being buffered by the driver.
+ * <p>
+ * Most metastore drivers will materialize the complete result set in memory by default.  For the partition
+ * queries against large metastores that is enough to exhaust the heap before the first row is processed.  The
+ * settings applied here are specific to each metastore database type:
+ * <ul>
+ *     <li>MYSQL - The MariaDB driver streams with a positive fetch size.  The MySQL Connector/J driver only
+ *     streams when the fetch size is Integer.MIN_VALUE.</li>
+ *     <li>POSTGRES - The driver only uses a cursor when auto-commit is off, so the query is wrapped in a
+ *     (read-only) transaction and auto-commit is restored afterward.</li>
+ *     <li>ORACLE - Streams by default, but with a fetch size of 10.  The larger fetch size cuts round trips.</li>
+ * </ul>
+ * When a {@link QueryPagination} is supplied, the query is run as a series of keyset pages which keeps each
+ * query (and its metastore locks/undo) small.
+ */
+@Slf4j
+@Getter
+public class StreamingQueryExecutor {
+
+    public static final int DEFAULT_FETCH_SIZE = 5000;
+
+    @FunctionalInterface
+    public interface RowHandler {
+        void handle(ResultSet resultSet) throws SQLException;
+    }
+
+    private final DBStore.DB_TYPE dbType;
+    private final int fetchSize;
+    private final int pageSize;
+
+    public StreamingQueryExecutor(DBStore.DB_TYPE dbType, int fetchSize, int pageSize) {
+        this.dbType = dbType;
+        this.fetchSize = fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE;
+        this.pageSize = Math.max(pageSize, 0);
+    }
+
+    /**
+     * Run the statement and pass each row to the handler as it's read.
+     *
+     * @param conn       the metastore connection.  It's not closed here.
+     * @param statement  the sql statement
+     * @param pagination optional keyset pagination for the statement
+     * @param handler    called once for each row
+     * @param parameters positional parameters for the statement
+     * @return the number of rows processed
+     */
+    public long execute(Connection conn, String statement, QueryPagination pagination,
+                        RowHandler handler, Object... parameters) throws SQLException {
+        boolean resetAutoCommit = beginStreaming(conn);
+        try {
+            long rows;
+            int lclPageSize = resolvePageSize(pagination);
+            if (lclPageSize > 0) {
+                rows = executePaged(conn, statement, pagination, lclPageSize, handler, parameters);
+            } else {
+                rows = executeSingle(conn, statement, handler, parameters);
+            }
+            if (resetAutoCommit) {
+                conn.commit();
+            }
+            return rows;
+        } catch (SQLException se) {
+            if (resetAutoCommit) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackException) {
+                    log.warn("Issue rolling back streaming query transaction", rollbackException);
+                }
+            }
+            throw se;
+        } finally {
+            if (resetAutoCommit) {
+                conn.setAutoCommit(Boolean.TRUE);
+            }
+        }
+    }
+
+    protected long executeSingle(Connection conn, String statement, RowHandler handler,
+                                 Object... parameters) throws SQLException {
+        long rows = 0;
+        try (PreparedStatement pstmt = prepare(conn, statement)) {
+            bindParameters(pstmt, parameters);
+            try (ResultSet resultSet = pstmt.executeQuery()) {
+                while (resultSet.next()) {
+                    handler.handle(resultSet);
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    protected long executePaged(Connection conn, String statement, QueryPagination pagination, int lclPageSize,
+                                RowHandler handler, Object... parameters) throws SQLException {
+        String pagedStatement = buildPagedStatement(statement, pagination, lclPageSize);
+        log.debug("Paged metastore query: {}", pagedStatement);
+        long rows = 0;
+        long lastKey = Long.MIN_VALUE;
+        int pageRows;
+        do {
+            pageRows = 0;
+            try (PreparedStatement pstmt = prepare(conn, pagedStatement)) {
+                int keyIndex = bindParameters(pstmt, parameters);
+                pstmt.setLong(keyIndex, lastKey);
+                try (ResultSet resultSet = pstmt.executeQuery()) {
+                    while (resultSet.next()) {
+                        handler.handle(resultSet);
+                        lastKey = resultSet.getLong(pagination.getKeyAlias());
+                        pageRows++;
+                    }
+                }
+            }
+            rows += pageRows;
+        } while (pageRows == lclPageSize);
+        return rows;
+    }
+
+    public String buildPagedStatement(String statement, QueryPagination pagination, int lclPageSize) {
+        StringBuilder sb = new StringBuilder(statement.trim());
+        sb.append(" AND ").append(pagination.getKeyColumn()).append(" > ?");
+        sb.append(" ORDER BY ").append(pagination.getKeyColumn());
+        if (dbType == DBStore.DB_TYPE.ORACLE) {
+            sb.append(" FETCH FIRST ").append(lclPageSize).append(" ROWS ONLY");
+        } else {
+            sb.append(" LIMIT ").append(lclPageSize);
+        }
+        return sb.toString();
+    }
+
+    protected int resolvePageSize(QueryPagination pagination) {
+        if (nonNull(pagination) && pagination.isValid()) {
+            if (pagination.getPageSize() > 0) {
+                return pagination.getPageSize();
+            }
+            return pageSize;
+        }
+        return 0;
+    }
+
+    protected int resolveFetchSize(Connection conn) throws SQLException {
+        if (dbType == DBStore.DB_TYPE.MYSQL) {
+            String driverName = conn.getMetaData().getDriverName();
+            if (nonNull(driverName) && driverName.contains("MySQL Connector")) {
+                return Integer.MIN_VALUE;
+            }
+        }
+        return fetchSize;
+    }
+
+    /*
+    Returns true when auto-commit was turned off and needs to be reset after the query.
+     */
+    protected boolean beginStreaming(Connection conn) throws SQLException {
+        if (dbType == DBStore.DB_TYPE.POSTGRES && conn.getAutoCommit()) {
+            conn.setAutoCommit(Boolean.FALSE);
+            return Boolean.TRUE;
+        }
+        return Boolean.FALSE;
+    }
+
+    protected PreparedStatement prepare(Connection conn, String statement) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(statement, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+        pstmt.setFetchSize(resolveFetchSize(conn));
+        return pstmt;
+    }
+
+    /*
+    Returns the next parameter index.
+     */
+    protected int bindParameters(PreparedStatement pstmt, Object... parameters) throws SQLException {
+        int index = 1;
+        if (nonNull(parameters)) {
+            for (Object parameter : parameters) {
+                pstmt.setObject(index++, parameter);
+            }
+        }
+        return index;
+    }
+
+}
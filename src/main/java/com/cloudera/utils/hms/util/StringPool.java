@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A shared pool of the text recorded against tables and databases: the message templates and step keys, and the
+ * message arguments and step values.  The arguments are mostly database, table and location names, and each one
+ * shows up in a lot of messages and steps (and again in every report read back), built or read as a new copy each
+ * time.  The pool keeps one copy of each.
+ * <p>
+ * The pool is read from every worker thread, so it's a concurrent map without a lock.  The entries are weak, so
+ * text no longer referenced by any session is collected with it, and the entries left behind are dropped on the
+ * next intern.
+ */
+public final class StringPool {
+
+    private static final ConcurrentMap<Entry, Entry> POOL = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<String> COLLECTED = new ReferenceQueue<>();
+
+    /*
+    Equal to another entry while both strings are reachable and equal.  Once collected, only equal to itself, so
+    it can still be removed.
+     */
+    private static final class Entry extends WeakReference<String> {
+        private final int hash;
+
+        private Entry(String value) {
+            super(value, COLLECTED);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry) || ((Entry) o).hash != hash) {
+                return false;
+            }
+            String value = get();
+            return value != null && value.equals(((Entry) o).get());
+        }
+    }
+
+    private StringPool() {
+    }
+
+    /**
+     * The pooled copy of the value, which is the value itself the first time it's seen.
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        expungeCollected();
+        Entry entry = new Entry(value);
+        while (true) {
+            Entry existing = POOL.putIfAbsent(entry, entry);
+            if (existing == null) {
+                return value;
+            }
+            String rtn = existing.get();
+            if (rtn != null) {
+                return rtn;
+            }
+            // Collected, but not dropped yet.
+            POOL.remove(existing, existing);
+        }
+    }
+
+    public static int size() {
+        expungeCollected();
+        return POOL.size();
+    }
+
+    private static void expungeCollected() {
+        Reference<? extends String> collected;
+        while ((collected = COLLECTED.poll()) != null) {
+            POOL.remove(collected, collected);
+        }
+    }
+
+}
@@ -26,13 +26,16 @@ import com.cloudera.utils.hms.mirror.feature.IcebergState;
 import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -41,6 +44,7 @@ import static com.cloudera.utils.hms.util.FileFormatType.*;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.trimToEmpty;
 
 @Slf4j
 public class TableUtils {
@@ -73,6 +77,7 @@ public class TableUtils {
     public static final String STAGE_TRANSFER_DESC = "Moving data to transfer table";
     public static final String STORAGE_MIGRATION_TRANSFER_DESC = "Moving data to new Namespace";
     public static final String STAGE_TRANSFER_PARTITION_DESC = "Moving data to partitioned ({0}) transfer table";
+    public static final String STAGE_TRANSFER_PARTITION_CHUNK_DESC = "Moving data to partitioned ({0}) transfer table. Chunk {1} of {2}: {3} to {4}";
     public static final String STORAGE_MIGRATION_TRANSFER_PARTITION_DESC = "Moving partitioned ({0}) data to new Namespace";
     public static final String LOAD_DESC = "Loading table from Staging";
     public static final String LOAD_FROM_SHADOW_DESC = "Loading table from Shadow";
@@ -347,6 +352,35 @@ public class TableUtils {
         return partSpec;
     }
 
+    /**
+     * The partition locations of a table, moved from under its location to under another table location.  The
+     * partition names stay the same.
+     *
+     * @param partitions   partition name to location
+     * @param fromLocation the location of the table the partitions belong to
+     * @param toLocation   the location of the table to register them on
+     * @return the moved locations, or null when a location isn't set or isn't under the table location.
+     */
+    public static Map<String, String> rebasePartitionLocations(Map<String, String> partitions, String fromLocation,
+                                                               String toLocation) {
+        if (isBlank(fromLocation) || isBlank(toLocation)) {
+            return null;
+        }
+        String from = fromLocation.endsWith("/") ? fromLocation.substring(0, fromLocation.length() - 1) : fromLocation;
+        String to = toLocation.endsWith("/") ? toLocation.substring(0, toLocation.length() - 1) : toLocation;
+        Map<String, String> rtn = new HashMap<>(partitions.size() * 4 / 3 + 1);
+        for (Map.Entry<String, String> entry : partitions.entrySet()) {
+            String location = entry.getValue();
+            // Must be the table location, or under it.  Not just a sibling with the same prefix.
+            if (isBlank(location) || MirrorConf.NOT_SET.equals(location) || !location.startsWith(from)
+                    || (location.length() > from.length() && location.charAt(from.length()) != '/')) {
+                return null;
+            }
+            rtn.put(entry.getKey(), to + location.substring(from.length()));
+        }
+        return rtn;
+    }
+
     public static String getPartitionElements(EnvironmentTable envTable) {
         String rtn = null;
         // LOCATE the "PARTITIONED BY" line.
@@ -756,8 +790,11 @@ public class TableUtils {
         return rtn;
     }
 
+    /*
+    Fingerprint of the lines of the definition between the CREATE and the LOCATION: the columns, partition keys,
+    clustering, row format and storage.  Use EnvironmentTable.getFingerprint(), which caches it.
+     */
     public static String tableFieldsFingerPrint(List<String> tableDef) {
-        StringBuilder hashText = null;
         StringBuilder sb = new StringBuilder();
         for (int i = 1; i < tableDef.size(); i++) {
             String item2 = tableDef.get(i);
@@ -767,10 +804,18 @@ public class TableUtils {
                 break;
             }
         }
+        return fingerprint(sb.toString());
+    }
+
+    /*
+    A stable 128 bit (MD5) hash of the text, as 32 hex characters.
+     */
+    public static String fingerprint(String text) {
+        StringBuilder hashText = null;
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            MessageDigest md = MessageDigest.getInstance("MD5");
 
-            byte[] messageDigest = md.digest(sb.toString().getBytes());
+            byte[] messageDigest = md.digest(text.getBytes(StandardCharsets.UTF_8));
 
             BigInteger no = new BigInteger(1, messageDigest);
             hashText = new StringBuilder(no.toString(16));
@@ -1011,6 +1056,30 @@ public class TableUtils {
         return rtn;
     }
 
+    /**
+     * The conversion state from the table's metastore attributes, for when the definition hasn't been fetched.
+     *
+     * @param tableType      TBLS.TBL_TYPE.  IE: EXTERNAL_TABLE, MANAGED_TABLE, VIRTUAL_VIEW
+     * @param serde          the serialization library of the table's storage descriptor
+     * @param inputFormat    the input format of the table's storage descriptor
+     * @param tableTypeParam the 'table_type' table parameter.  'ICEBERG' for Iceberg tables.
+     * @param storageHandler the 'storage_handler' table parameter
+     * @param formatVersion  the 'format-version' table parameter of an Iceberg table
+     */
+    public static IcebergState getIcebergConversionState(String tableType, String serde, String inputFormat,
+                                                         String tableTypeParam, String storageHandler,
+                                                         String formatVersion) {
+        if ("ICEBERG".equalsIgnoreCase(trimToEmpty(tableTypeParam))
+                || trimToEmpty(storageHandler).contains("HiveIcebergStorageHandler")) {
+            return "1".equals(trimToEmpty(formatVersion)) ? IcebergState.V1_FORMAT : IcebergState.V2_FORMAT;
+        }
+        if (!"EXTERNAL_TABLE".equalsIgnoreCase(trimToEmpty(tableType)) || isBlank(serde) || isBlank(inputFormat)) {
+            return IcebergState.NOT_CONVERTABLE;
+        }
+        return validateIcebergFileFormats.contains(FileFormatType.from(serde.trim(), inputFormat.trim()))
+                ? IcebergState.CONVERTABLE : IcebergState.NOT_CONVERTABLE;
+    }
+
     public static String getTblProperty(String key, EnvironmentTable environmentTable) {
         return getTblProperty(key, environmentTable.getDefinition());
     }
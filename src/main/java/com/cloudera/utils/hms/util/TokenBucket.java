@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.util;
+
+import lombok.Getter;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket rate limiter.  Tokens are added at 'rate' per second, up to one second's worth, and each call
+ * takes one.  When the bucket is empty, {@link #acquire} waits for the tokens instead of failing, which slows
+ * the callers down to the rate.
+ * <p>
+ * The rate can be changed while the bucket is in use.  A rate of 0 holds the callers until it's raised again.
+ * The clock and the sleep are pluggable, so the timing can be tested without waiting.
+ */
+public class TokenBucket {
+
+    /*
+    How long a caller waits before checking again while the rate is 0.
+     */
+    public static final long PAUSED_RECHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    public interface Sleeper {
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    public static final Sleeper THREAD_SLEEPER = nanos -> TimeUnit.NANOSECONDS.sleep(nanos);
+
+    private final Clock clock;
+    private final Sleeper sleeper;
+    @Getter
+    private double rate;
+    private double tokens;
+    private long lastNanos;
+
+    public TokenBucket(double rate, Clock clock, Sleeper sleeper) {
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.rate = Math.max(0, rate);
+        // Start full.
+        this.tokens = capacity();
+        this.lastNanos = nanos();
+    }
+
+    public synchronized void setRate(double rate) {
+        double newRate = Math.max(0, rate);
+        if (newRate != this.rate) {
+            // Settle the tokens earned at the old rate first.
+            refill();
+            this.rate = newRate;
+            tokens = Math.min(tokens, capacity());
+        }
+    }
+
+    /**
+     * Take a token, waiting for one when the bucket is empty.
+     *
+     * @return the nanoseconds spent waiting
+     */
+    public long acquire() throws InterruptedException {
+        long waited = 0;
+        while (true) {
+            long wait;
+            synchronized (this) {
+                refill();
+                if (rate > 0 && tokens >= 1) {
+                    tokens -= 1;
+                    return waited;
+                }
+                wait = rate > 0 ? (long) Math.ceil((1 - tokens) / rate * 1_000_000_000L) : PAUSED_RECHECK_NANOS;
+            }
+            sleeper.sleep(wait);
+            waited += wait;
+        }
+    }
+
+    private double capacity() {
+        return Math.max(1, rate);
+    }
+
+    private void refill() {
+        long now = nanos();
+        long elapsed = now - lastNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity(), tokens + elapsed * rate / 1_000_000_000L);
+            lastNanos = now;
+        }
+    }
+
+    private long nanos() {
+        Instant instant = clock.instant();
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+}
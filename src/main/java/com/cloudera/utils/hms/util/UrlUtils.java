@@ -37,12 +37,9 @@ public class UrlUtils {
     }
 
     public static String removeLastDirFromUrl(final String url) {
-        Matcher matcher = lastDirPattern.matcher(url);
-        if (matcher.find()) {
-            String matchStr = matcher.group(1);
-            // Remove last occurrence ONLY.
-            int lastIndexOf = url.lastIndexOf(matchStr);
-            return url.substring(0, lastIndexOf - 1);
+        int cut = lastDirIndex(url, url.length());
+        if (cut >= 0) {
+            return url.substring(0, cut);
         } else {
             return url;
         }
@@ -54,12 +51,42 @@ public class UrlUtils {
 
     public static String reduceUrlBy(String url, int level) {
         String rtn = url.trim();
+        int end = rtn.length();
         if (rtn.endsWith("/"))
-            rtn = rtn.substring(0, rtn.length() - 2);
+            end = Math.max(end - 2, 0);
+        // Walk the end index back instead of building a new string for each level.  This is called for every
+        // table and partition location when building the warehouse sources, so avoid the garbage.
         for (int i = 0; i < level; i++) {
-            rtn = removeLastDirFromUrl(rtn);
+            int cut = lastDirIndex(rtn, end);
+            if (cut < 0)
+                break;
+            end = cut;
+        }
+        return end == rtn.length() ? rtn : rtn.substring(0, end);
+    }
+
+    /*
+    The index of the '/' that starts the last directory in url[0, end), or -1 if there isn't one.  Equivalent to
+    matching 'lastDirPattern' and removing the last occurrence of the group, without the regex.
+     */
+    protected static int lastDirIndex(final String url, int end) {
+        for (int slash = end - 2; slash >= 0; slash--) {
+            if (url.charAt(slash) != '/')
+                continue;
+            char next = url.charAt(slash + 1);
+            if (next == '/' || next == '?')
+                continue;
+            int dirEnd = slash + 1;
+            while (dirEnd < end && url.charAt(dirEnd) != '/' && url.charAt(dirEnd) != '?')
+                dirEnd++;
+            if (dirEnd == end)
+                return slash;
+            // Something trails the directory (a query string), so the last occurrence of the directory name
+            // may be further along.
+            String dir = url.substring(slash + 1, dirEnd);
+            return url.lastIndexOf(dir, end - dir.length()) - 1;
         }
-        return rtn;
+        return -1;
     }
 
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.datastrategy;
+
+import com.cloudera.utils.hms.mirror.MirrorConf;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.cloudera.utils.hms.mirror.domain.support.DataStrategyEnum;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.HybridCostEstimate;
+import com.cloudera.utils.hms.mirror.service.ConfigService;
+import com.cloudera.utils.hms.mirror.service.ExecuteSessionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Feeds synthetic table statistics to the HYBRID cost model.
+ */
+public class ThroughputHybridCostModelTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private HmsMirrorConfig config;
+    private ThroughputHybridCostModel costModel;
+
+    @BeforeEach
+    public void setup() {
+        config = new HmsMirrorConfig();
+        config.getHybrid().setCostBased(Boolean.TRUE);
+        config.initClusterFor(Environment.LEFT).setHcfsNamespace("hdfs://left");
+        config.initClusterFor(Environment.RIGHT).setHcfsNamespace("hdfs://right");
+        costModel = new ThroughputHybridCostModel();
+    }
+
+    private static EnvironmentTable table(int partitions, long dataSize, int fileCount, String fileFormat) {
+        EnvironmentTable rtn = new EnvironmentTable();
+        rtn.setName("tbl");
+        for (int i = 0; i < partitions; i++) {
+            rtn.getPartitions().put(String.format("dt=%05d", i), MirrorConf.NOT_SET);
+        }
+        rtn.getStatistics().put(MirrorConf.DATA_SIZE, dataSize);
+        rtn.getStatistics().put(MirrorConf.FILE_COUNT, fileCount);
+        rtn.getStatistics().put(MirrorConf.FILE_FORMAT, fileFormat);
+        return rtn;
+    }
+
+    @Test
+    public void smallTableUsesExportImport() {
+        HybridCostEstimate estimate = costModel.estimate(table(5, 10 * MB, 50, "ORC"), config);
+        assertEquals(DataStrategyEnum.EXPORT_IMPORT, estimate.getStrategy());
+        // 0.1s + 0.1s of copy, 10s of partitions and 5s of files.
+        assertEquals(15.2, estimate.getExportImportCost(), 0.01);
+        assertEquals(30.05, estimate.getSqlCost(), 0.01);
+    }
+
+    @Test
+    public void largeTableUsesSqlUnderThePartitionLimit() {
+        // 50 partitions is under the exportImportPartitionLimit, but copying 100Gb twice is the slower path.
+        HybridCostEstimate estimate = costModel.estimate(table(50, 100 * 1024 * MB, 800, "ORC"), config);
+        assertEquals(DataStrategyEnum.SQL, estimate.getStrategy());
+        assertTrue(estimate.getSqlCost() < estimate.getExportImportCost());
+    }
+
+    @Test
+    public void rowFormatsCostMoreWithSql() {
+        HybridCostEstimate orc = costModel.estimate(table(10, 10 * 1024 * MB, 100, "ORC"), config);
+        HybridCostEstimate text = costModel.estimate(table(10, 10 * 1024 * MB, 100, "TEXT"), config);
+        assertEquals(orc.getExportImportCost(), text.getExportImportCost(), 0.001);
+        assertEquals(2 * (orc.getSqlCost() - 30) + 30, text.getSqlCost(), 0.01);
+    }
+
+    @Test
+    public void sharedStorageSkipsTheCrossClusterCap() {
+        config.getHybrid().setDistcpThroughput(50);
+        EnvironmentTable table = table(10, 10 * 1024 * MB, 100, "ORC");
+        HybridCostEstimate separate = costModel.estimate(table, config);
+        config.getCluster(Environment.RIGHT).setHcfsNamespace("hdfs://left");
+        HybridCostEstimate shared = costModel.estimate(table, config);
+        assertTrue(shared.getSqlCost() < separate.getSqlCost());
+        assertTrue(shared.getExportImportCost() < separate.getExportImportCost());
+    }
+
+    @Test
+    public void sqlPartitionLimitWithoutChunking() {
+        HybridCostEstimate estimate = costModel.estimate(table(600, 1024 * MB, 600, "ORC"), config);
+        assertEquals(DataStrategyEnum.EXPORT_IMPORT, estimate.getStrategy());
+        assertTrue(estimate.getSqlCost() < 0);
+        assertTrue(estimate.getReason().contains("hybrid->sqlPartitionLimit"));
+
+        // Chunked, it's two SQL jobs.
+        config.getOptimization().setChunkedSqlTransfer(Boolean.TRUE);
+        estimate = costModel.estimate(table(600, 1024 * MB, 600, "ORC"), config);
+        assertEquals(DataStrategyEnum.SQL, estimate.getStrategy());
+        assertEquals(60 + 1024.0 / 200, estimate.getSqlCost(), 0.01);
+    }
+
+    @Test
+    public void noStatisticsFallsBack() {
+        EnvironmentTable table = new EnvironmentTable();
+        table.getPartitions().put("dt=1", MirrorConf.NOT_SET);
+        assertNull(costModel.estimate(table, config));
+    }
+
+    @Test
+    public void hybridRecordsTheEstimateAndUsesTheCheaperStrategy() {
+        ExecuteSessionService executeSessionService = mock(ExecuteSessionService.class);
+        ExecuteSession session = mock(ExecuteSession.class);
+        when(executeSessionService.getSession()).thenReturn(session);
+        when(session.getConfig()).thenReturn(config);
+        ConfigService configService = mock(ConfigService.class);
+        SQLDataStrategy sqlDataStrategy = mock(SQLDataStrategy.class);
+        ExportImportDataStrategy exportImportDataStrategy = mock(ExportImportDataStrategy.class);
+        when(sqlDataStrategy.build(any())).thenReturn(Boolean.TRUE);
+        when(sqlDataStrategy.execute(any())).thenReturn(Boolean.TRUE);
+
+        HybridDataStrategy hybrid = new HybridDataStrategy(null, executeSessionService, null, configService,
+                null, sqlDataStrategy, exportImportDataStrategy, costModel);
+
+        TableMirror tableMirror = new TableMirror();
+        tableMirror.setName("tbl");
+        EnvironmentTable let = table(50, 100 * 1024 * MB, 800, "ORC");
+        tableMirror.getEnvironments().put(Environment.LEFT, let);
+
+        assertTrue(hybrid.build(tableMirror));
+        assertEquals(DataStrategyEnum.SQL, tableMirror.getStrategy());
+        assertTrue(tableMirror.getSteps().stream().anyMatch(m -> "HYBRID Cost Estimate".equals(m.getDescription())
+                && m.getAction().startsWith("SQL")));
+        assertTrue(hybrid.execute(tableMirror));
+        verify(sqlDataStrategy).execute(tableMirror);
+        verifyNoInteractions(exportImportDataStrategy);
+
+        // Without the cost model, 50 partitions is under the EXPORT_IMPORT limit.
+        config.getHybrid().setCostBased(Boolean.FALSE);
+        when(exportImportDataStrategy.build(any())).thenReturn(Boolean.TRUE);
+        assertTrue(hybrid.build(tableMirror));
+        assertEquals(DataStrategyEnum.EXPORT_IMPORT, tableMirror.getStrategy());
+    }
+
+}
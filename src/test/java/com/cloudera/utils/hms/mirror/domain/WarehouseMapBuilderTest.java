@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain;
+
+import com.cloudera.utils.hms.mirror.domain.support.TableType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WarehouseMapBuilderTest {
+
+    private static final int DATABASES = 8;
+    private static final int TABLES = 20;
+    private static final int PARTITIONS = 200;
+
+    @Test
+    public void parallelMergeMatchesSequential() {
+        WarehouseMapBuilder sequential = new WarehouseMapBuilder();
+        for (int d = 0; d < DATABASES; d++) {
+            String database = "db_" + d;
+            for (int t = 0; t < TABLES; t++) {
+                addTable(sequential, database, t);
+            }
+        }
+
+        WarehouseMapBuilder parallel = new WarehouseMapBuilder();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int d = 0; d < DATABASES; d++) {
+                String database = "db_" + d;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    SourceLocationMap locationMap = new SourceLocationMap();
+                    for (int t = 0; t < TABLES; t++) {
+                        addTable(parallel, locationMap, database, t);
+                    }
+                    parallel.mergeSources(database, locationMap);
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(sequential.getSources().keySet(), parallel.getSources().keySet());
+        for (Map.Entry<String, SourceLocationMap> entry : sequential.getSources().entrySet()) {
+            assertEquals(entry.getValue().getLocations(), parallel.getSources().get(entry.getKey()).getLocations(),
+                    entry.getKey());
+        }
+    }
+
+    @Test
+    public void partitionLocationsReducedAndShared() {
+        WarehouseMapBuilder builder = new WarehouseMapBuilder();
+        addTable(builder, "db_0", 0);
+
+        Map<String, Set<String>> external = builder.getSources().get("db_0").get(TableType.EXTERNAL_TABLE);
+        // The table location plus the one 'outside' location that all the partitions reduce to.
+        assertEquals(2, external.size());
+        assertTrue(external.containsKey("hdfs://ns1/warehouse/db_0.db"));
+        assertTrue(external.containsKey("hdfs://ns1/landing/db_0"));
+        assertEquals(Set.of("tbl_0"), external.get("hdfs://ns1/landing/db_0"));
+
+        // Every partition reduces to the same location, so they should share an instance.
+        String first = builder.intern("hdfs://ns1/landing/db_0");
+        String second = builder.intern(new String("hdfs://ns1/landing/db_0"));
+        assertSame(first, second);
+    }
+
+    @Test
+    public void mergeCombinesTables() {
+        SourceLocationMap left = new SourceLocationMap();
+        left.addTableLocation("tbl_a", TableType.EXTERNAL_TABLE, "hdfs://ns1/data");
+        SourceLocationMap right = new SourceLocationMap();
+        right.addTableLocation("tbl_b", TableType.EXTERNAL_TABLE, "hdfs://ns1/data");
+        right.addTableLocation("tbl_c", TableType.MANAGED_TABLE, "hdfs://ns1/managed");
+
+        left.merge(right);
+        assertEquals(Set.of("tbl_a", "tbl_b"), left.get(TableType.EXTERNAL_TABLE).get("hdfs://ns1/data"));
+        assertEquals(Set.of("tbl_c"), left.get(TableType.MANAGED_TABLE).get("hdfs://ns1/managed"));
+    }
+
+    @Test
+    public void partitionDepth() {
+        assertEquals(1, WarehouseMapBuilder.partitionDepth("dt=1"));
+        assertEquals(3, WarehouseMapBuilder.partitionDepth("a=1/b=2/c=3"));
+        assertEquals(2, WarehouseMapBuilder.partitionDepth("a=1/b=2/"));
+        assertEquals("a=1/b=2/".split("\\/").length, WarehouseMapBuilder.partitionDepth("a=1/b=2/"));
+        assertEquals("/".split("\\/").length, WarehouseMapBuilder.partitionDepth("/"));
+    }
+
+    private static void addTable(WarehouseMapBuilder builder, String database, int table) {
+        SourceLocationMap locationMap = builder.getSources().computeIfAbsent(database, k -> new SourceLocationMap());
+        addTable(builder, locationMap, database, table);
+    }
+
+    private static void addTable(WarehouseMapBuilder builder, SourceLocationMap locationMap, String database,
+                                 int table) {
+        String tableName = "tbl_" + table;
+        String tableLocation = "hdfs://ns1/warehouse/" + database + ".db/" + tableName;
+        builder.addSourceLocation(locationMap, tableName, TableType.EXTERNAL_TABLE, null, tableLocation, null,
+                1, false);
+        for (int p = 0; p < PARTITIONS; p++) {
+            String spec = "dt=" + p;
+            String partLocation = p % 2 == 0
+                    ? tableLocation + "/" + spec
+                    : "hdfs://ns1/landing/" + database + "/" + tableName + "/" + spec;
+            builder.addSourceLocation(locationMap, tableName, TableType.EXTERNAL_TABLE, spec, tableLocation,
+                    partLocation, 1, false);
+        }
+    }
+}
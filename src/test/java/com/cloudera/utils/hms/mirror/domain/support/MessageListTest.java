@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import com.cloudera.utils.hms.mirror.MessageCode;
+import com.cloudera.utils.hms.mirror.MirrorConf;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MessageListTest {
+
+    @Test
+    public void repeatedTemplatesAreHeldOnce() {
+        // Built at runtime, so they're separate instances until they're pooled.
+        String template = "The {0} partitions are added in " + 2 + " statements.";
+        CompactMessage first = CompactMessage.of(template, 12);
+        CompactMessage second = CompactMessage.of(new String(template), 24);
+        assertSame(first.getTemplate(), second.getTemplate());
+        assertEquals("The 24 partitions are added in 2 statements.", second.toString());
+    }
+
+    @Test
+    public void repeatedArgumentsAreHeldOnce() {
+        // The same table and location, built separately for each message.
+        String table = "my_db." + "my_tbl";
+        CompactMessage first = CompactMessage.of(MessageCode.LOCATION_NOT_MATCH_WAREHOUSE, new String(table),
+                "hdfs://ns/warehouse/" + table);
+        CompactMessage second = CompactMessage.of(MessageCode.LOCATION_NOT_MATCH_WAREHOUSE, new String(table),
+                "hdfs://ns/warehouse/" + table);
+        assertSame(first.getArgs()[0], second.getArgs()[0]);
+        assertSame(first.getArgs()[1], second.getArgs()[1]);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void templatedMessagesReadAsText() {
+        EnvironmentTable environmentTable = new EnvironmentTable();
+        environmentTable.addError(MessageCode.PARTITION_LIMIT_EXCEEDED, 12000, "hybrid->exportImportPartitionLimit",
+                100, "'-ep'");
+        // Same as the text it replaced, numbers included.
+        assertEquals("The number of partitions: 12000 exceeds the configuration limit " +
+                "(hybrid->exportImportPartitionLimit) of 100.  This value is used to abort migrations that have a high " +
+                "potential for failure.  The migration will need to be done manually OR try increasing the limit. " +
+                "Review commandline option '-ep'.", environmentTable.getErrors().get(0));
+    }
+
+    @Test
+    public void listOperations() {
+        MessageList messages = new MessageList(Arrays.asList("a", "b", "c"));
+        messages.add(MessageCode.BETA_FEATURE, "sync");
+        messages.add(0, "first");
+        assertEquals(5, messages.size());
+        assertEquals("b", messages.remove(2));
+        assertEquals("c", messages.set(2, "C"));
+        assertEquals(Arrays.asList("first", "a", "C",
+                "Beta Feature: sync isn't available unless you set the 'beta' flag to TRUE in the configuration. " +
+                        "The feature will be DISABLED."), new ArrayList<>(messages));
+        messages.clear();
+        assertTrue(messages.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> messages.get(0));
+    }
+
+    @Test
+    public void serializesAsAListOfStrings() throws Exception {
+        TableMirror tableMirror = new TableMirror();
+        EnvironmentTable environmentTable = new EnvironmentTable(tableMirror);
+        environmentTable.setName("my_tbl");
+        environmentTable.addIssue("Schema will be created");
+        environmentTable.addError(MessageCode.PARTITION_LIMIT_EXCEEDED, 500, "hybrid->sqlPartitionLimit", 100,
+                "'-sp'");
+        tableMirror.addStep("LEFT", MirrorConf.SQL_RUN_COMPLETE_STEP, "Create Table");
+
+        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+        assertEquals(mapper.writeValueAsString(new ArrayList<>(environmentTable.getErrors())),
+                mapper.writeValueAsString(environmentTable.getErrors()));
+
+        String yaml = mapper.writeValueAsString(environmentTable);
+
+        EnvironmentTable read = mapper.readValue(yaml, EnvironmentTable.class);
+        assertEquals(environmentTable.getIssues(), read.getIssues());
+        assertEquals(environmentTable.getErrors(), read.getErrors());
+        assertTrue(read.getErrors() instanceof MessageList);
+
+        List<String> steps = new ArrayList<>();
+        tableMirror.getSteps().forEach(marker -> steps.add(marker.getAction()));
+        assertEquals(Arrays.asList("", "Sql Run Complete for: Create Table"), steps);
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.domain.support;
+
+import com.cloudera.utils.hms.mirror.Marker;
+import com.cloudera.utils.hms.mirror.MirrorConf;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StepLogTest {
+
+    @Test
+    public void markers() {
+        StepLog stepLog = new StepLog();
+        stepLog.add("init", null);
+        stepLog.add("LEFT", "Sql Run Complete for: Use");
+        stepLog.add("RIGHT", 42);
+
+        List<Marker> markers = stepLog.getMarkers();
+        assertEquals(3, markers.size());
+        assertEquals("init", markers.get(0).getDescription());
+        assertEquals("", markers.get(0).getAction());
+        assertEquals("Sql Run Complete for: Use", markers.get(1).getAction());
+        assertEquals("42", markers.get(2).getAction());
+        for (Marker marker : markers) {
+            assertTrue(marker.getMark().matches("[0-9,]*\\.\\d\\d"), marker.getMark());
+        }
+
+        stepLog.clear();
+        assertEquals(0, stepLog.size());
+        assertTrue(stepLog.getMarkers().isEmpty());
+    }
+
+    @Test
+    public void repeatedValuesAreHeldOnce() {
+        StepLog first = new StepLog();
+        StepLog second = new StepLog();
+        String table = "my_db." + "my_tbl";
+        first.add("LEFT", new String(table));
+        second.add("LEFT", new String(table));
+        assertSame(first.getMarkers().get(0).getAction(), second.getMarkers().get(0).getAction());
+    }
+
+    @Test
+    public void formatSeconds() {
+        assertEquals(".00", StepLog.formatSeconds(0));
+        assertEquals(".50", StepLog.formatSeconds(500_000_000L));
+        assertEquals("1,234.50", StepLog.formatSeconds(1_234_500_000_000L));
+        assertEquals(".00", StepLog.formatSeconds(-1));
+        // Rounded HALF_EVEN, from the milliseconds.
+        assertEquals(".01", StepLog.formatSeconds(9_999_999L));
+        assertEquals(".00", StepLog.formatSeconds(5_000_000L));
+        assertEquals(".02", StepLog.formatSeconds(15_000_000L));
+    }
+
+    @Test
+    public void formatSecondsMatchesTheMarkersFormat() {
+        DecimalFormat decf = new DecimalFormat("#,###.00");
+        for (long millis : new long[]{0, 1, 5, 9, 10, 15, 25, 250, 500, 999, 1_000, 1_005, 61_235, 1_234_500_000L}) {
+            BigDecimal secs = new BigDecimal(millis).divide(new BigDecimal(1000));
+            assertEquals(decf.format(secs), StepLog.formatSeconds(millis * 1_000_000L), Long.toString(millis));
+        }
+    }
+
+    @Test
+    public void markersRoundTrip() {
+        StepLog stepLog = new StepLog();
+        stepLog.setMarkers(Arrays.asList(new Marker(".00", "init", ""),
+                new Marker("1,234.50", "LEFT", "Sql Run Complete for: Use"),
+                new Marker(".25", "RIGHT", "42")));
+
+        List<Marker> markers = stepLog.getMarkers();
+        assertEquals(3, markers.size());
+        assertEquals("1,234.50", markers.get(1).getMark());
+        assertEquals("LEFT", markers.get(1).getDescription());
+        assertEquals("Sql Run Complete for: Use", markers.get(1).getAction());
+        assertEquals(".25", markers.get(2).getMark());
+        assertEquals(1_234_500_000_000L, StepLog.parseSeconds("1,234.50"));
+        assertEquals(250_000_000L, StepLog.parseSeconds(".25"));
+        assertEquals(0, StepLog.parseSeconds("n/a"));
+    }
+
+    @Test
+    public void tableStepsRoundTripThroughYaml() throws Exception {
+        TableMirror tableMirror = new TableMirror();
+        tableMirror.setName("tbl");
+        tableMirror.addStep("LEFT", MirrorConf.SQL_RUN_COMPLETE_STEP, "Use");
+        tableMirror.addStep("RIGHT", 42);
+        List<Marker> steps = tableMirror.getSteps();
+
+        ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+        String yaml = yamlMapper.writeValueAsString(tableMirror);
+        TableMirror readBack = yamlMapper.readerFor(TableMirror.class).readValue(yaml);
+
+        // The 'init' step of the new TableMirror is replaced by the steps of the report.
+        List<Marker> readSteps = readBack.getSteps();
+        assertEquals(steps.size(), readSteps.size());
+        for (int i = 0; i < steps.size(); i++) {
+            assertEquals(steps.get(i).getMark(), readSteps.get(i).getMark());
+            assertEquals(steps.get(i).getDescription(), readSteps.get(i).getDescription());
+            assertEquals(steps.get(i).getAction(), readSteps.get(i).getAction());
+        }
+    }
+
+    @Test
+    public void growsPastTheInitialCapacity() {
+        StepLog stepLog = new StepLog();
+        for (int i = 0; i < 1000; i++) {
+            stepLog.add("step", i);
+        }
+        List<Marker> markers = stepLog.getMarkers();
+        assertEquals(1000, markers.size());
+        assertEquals("999", markers.get(999).getAction());
+    }
+
+    @Test
+    public void concurrentStepsAreNotCorrupted() throws Exception {
+        int threads = 8;
+        int perThread = 10_000;
+        StepLog stepLog = new StepLog();
+        long before = System.currentTimeMillis();
+        runConcurrently(threads, perThread, i -> stepLog.add("thread-" + i[0], i[1]));
+        long after = System.currentTimeMillis();
+
+        assertEquals(threads * perThread, stepLog.size());
+        // The timestamps are taken as the steps are added, so they never go backwards.
+        long[] times = stepLog.getTimes();
+        for (int i = 1; i < times.length; i++) {
+            assertTrue(times[i] >= times[i - 1], "Step " + i + " is before the step ahead of it");
+        }
+        // Placed from the nano time, so allow for a little clock skew.
+        long last = stepLog.getLastStepTime().toEpochMilli();
+        assertTrue(last >= before - 5 && last <= after + 5, "Last step outside the run: " + last);
+
+        // Every step is there once, and each thread's steps are in the order the thread added them.
+        int[] next = new int[threads];
+        for (Marker marker : stepLog.getMarkers()) {
+            int thread = Integer.parseInt(marker.getDescription().substring("thread-".length()));
+            assertEquals(String.valueOf(next[thread]), marker.getAction());
+            next[thread]++;
+            assertFalse(marker.getMark().startsWith("-"), marker.getMark());
+        }
+        for (int count : next) {
+            assertEquals(perThread, count);
+        }
+    }
+
+    /*
+    addStep throughput, against the way steps were recorded before (a Date, BigDecimal and DecimalFormat on every
+    step).  Run with -Dhms-mirror.steps.benchmark.iterations=<n>.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "hms-mirror.steps.benchmark.iterations", matches = "\\d+")
+    public void benchmark() throws Exception {
+        int iterations = Integer.getInteger("hms-mirror.steps.benchmark.iterations");
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        // Warm up both.
+        runFormatted(threads, Math.max(1, iterations / 10));
+        runStepLog(threads, Math.max(1, iterations / 10));
+
+        long formattedNanos = runFormatted(threads, iterations);
+        long stepLogNanos = runStepLog(threads, iterations);
+
+        long count = (long) iterations * threads;
+        System.out.printf("Threads: %d  Steps: %d%n", threads, count);
+        System.out.printf("Formatted: %d ms (%.0f steps/s)%n", formattedNanos / 1_000_000,
+                count * 1e9 / formattedNanos);
+        System.out.printf("StepLog:   %d ms (%.0f steps/s)%n", stepLogNanos / 1_000_000,
+                count * 1e9 / stepLogNanos);
+    }
+
+    private long runStepLog(int threads, int iterations) throws Exception {
+        StepLog stepLog = new StepLog();
+        return runConcurrently(threads, iterations, i -> stepLog.add("LEFT", "Sql Run Complete for: Step"));
+    }
+
+    private long runFormatted(int threads, int iterations) throws Exception {
+        List<Marker> steps = Collections.synchronizedList(new ArrayList<>());
+        Date[] start = {new Date()};
+        return runConcurrently(threads, iterations, i -> {
+            synchronized (steps) {
+                Date now = new Date();
+                long elapsed = now.getTime() - start[0].getTime();
+                start[0] = now;
+                BigDecimal secs = new BigDecimal(elapsed).divide(new BigDecimal(1000));
+                DecimalFormat decf = new DecimalFormat("#,###.00");
+                steps.add(new Marker(decf.format(secs), "LEFT", "Sql Run Complete for: Step"));
+            }
+        });
+    }
+
+    private interface Step {
+        // {thread, iteration}
+        void run(int[] i);
+    }
+
+    private long runConcurrently(int threads, int iterations, Step step) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    go.await();
+                    int[] i = {thread, 0};
+                    for (; i[1] < iterations; i[1]++) {
+                        step.run(i);
+                    }
+                    return null;
+                }));
+            }
+            long start = System.nanoTime();
+            go.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.features;
+
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.feature.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the {@link FeatureEngine} gives the same definitions as checking and fixing each feature in turn,
+ * over the DDL in the test data and the feature test schemas.
+ */
+public class FeatureEngineTest {
+
+    private static final List<List<String>> definitions = new ArrayList<>();
+
+    @BeforeAll
+    public static void loadDefinitions() throws IOException, URISyntaxException {
+        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+        File[] files = new File(FeatureEngineTest.class.getResource("/test_data").toURI()).listFiles();
+        assertNotNull(files);
+        Arrays.sort(files);
+        for (File file : files) {
+            collectDefinitions(mapper.readTree(file), definitions);
+        }
+        for (String[] schema : Arrays.asList(BadOrcDefFeatureTest.schema_01, BadOrcDefFeatureTest.schema_02,
+                BadParquetDefFeatureTest.schema_01, BadParquetDefFeatureTest.schema_02,
+                BadParquetDefFeatureTest.schema_03, BadRCDefFeatureTest.schema_01,
+                BadTextfileDefFeatureTest.schema_01, BadTextfileDefFeatureTest.schema_02,
+                StructEscapeFieldsFeatureTest.schema_01, StructEscapeFieldsFeatureTest.schema_02,
+                StructEscapeFieldsFeatureTest.schema_03, StructEscapeFieldsFeatureTest.schema_04,
+                StructEscapeFieldsFeatureTest.schema_05, LegacyTranslationTest.schema_01)) {
+            definitions.add(Arrays.asList(schema));
+        }
+    }
+
+    private static void collectDefinitions(JsonNode node, List<List<String>> definitions) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getKey().equals("definition") && field.getValue().isArray()
+                        && field.getValue().size() > 0) {
+                    List<String> definition = new ArrayList<>();
+                    field.getValue().forEach(line -> definition.add(line.asText()));
+                    definitions.add(definition);
+                } else {
+                    collectDefinitions(field.getValue(), definitions);
+                }
+            }
+        } else if (node.isArray()) {
+            node.forEach(child -> collectDefinitions(child, definitions));
+        }
+    }
+
+    /*
+    The per feature loop the engine replaces.
+     */
+    private static List<String> perFeature(List<String> definition) {
+        List<String> applied = new ArrayList<>();
+        for (FeaturesEnum features : FeaturesEnum.values()) {
+            if (features.getFeature().fixSchema(definition)) {
+                applied.add(features.toString());
+            }
+        }
+        return applied;
+    }
+
+    @Test
+    public void sameAsPerFeature() {
+        assertTrue(definitions.size() > 50);
+        int changed = 0;
+        for (List<String> definition : definitions) {
+            List<String> expected = new ArrayList<>(definition);
+            List<String> expectedApplied;
+            try {
+                expectedApplied = perFeature(expected);
+            } catch (RuntimeException e) {
+                // A fix that fails has to fail the same way.
+                assertThrows(e.getClass(), () -> FeatureEngine.getDefault().apply(new ArrayList<>(definition)));
+                continue;
+            }
+            List<String> actual = new ArrayList<>(definition);
+            Map<String, Feature> actualApplied = FeatureEngine.getDefault().apply(actual);
+            assertEquals(expectedApplied, new ArrayList<>(actualApplied.keySet()), String.join("\n", definition));
+            assertEquals(expected, actual);
+            if (!expectedApplied.isEmpty()) {
+                changed++;
+            }
+        }
+        // Make sure the fixes were covered.
+        assertTrue(changed > 0);
+    }
+
+    /*
+    A definition that counts the times its lines are read, which is each time one is checked against a prefix,
+    pattern or token.
+     */
+    private static class CountingDefinition extends ArrayList<String> {
+        private int reads = 0;
+
+        CountingDefinition(Collection<String> lines) {
+            super(lines);
+        }
+
+        @Override
+        public String get(int index) {
+            reads++;
+            return super.get(index);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            Iterator<String> iterator = super.iterator();
+            return new Iterator<String>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    reads++;
+                    return iterator.next();
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                }
+            };
+        }
+    }
+
+    @Test
+    public void eachLineIsCheckedOncePerIndex() {
+        // Nothing applies, so one pass.
+        CountingDefinition unchanged = new CountingDefinition(Arrays.asList("CREATE TABLE `t`(", "`id` int)",
+                "STORED AS ORC"));
+        assertTrue(FeatureEngine.getDefault().apply(unchanged).isEmpty());
+        assertEquals(unchanged.size(), unchanged.reads);
+
+        // The fix is made from the index it was checked on.  The only other pass is the index of the fixed
+        // definition, for the features after it.
+        CountingDefinition orc = new CountingDefinition(Arrays.asList(BadOrcDefFeatureTest.schema_01));
+        int lines = orc.size();
+        assertEquals(Collections.singletonList("BAD_ORC_DEF"),
+                new ArrayList<>(FeatureEngine.getDefault().apply(orc).keySet()));
+        // And the check reads the lines after the INPUTFORMAT and OUTPUTFORMAT.
+        assertEquals(lines + orc.size() + 2, orc.reads);
+    }
+
+    @Test
+    public void indexMatchesScans() {
+        DefinitionIndex index = new DefinitionIndex(Arrays.asList(BadOrcDefFeatureTest.schema_01),
+                Arrays.asList("row format delimited", "OUTPUTFORMAT", "MISSING"), Collections.emptyList(),
+                Collections.singletonList("orc"));
+        DefinitionIndex scan = new DefinitionIndex(Arrays.asList(BadOrcDefFeatureTest.schema_01),
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        for (String prefix : Arrays.asList("ROW FORMAT DELIMITED", "outputformat", "MISSING")) {
+            assertEquals(scan.indexOf(prefix), index.indexOf(prefix), prefix);
+        }
+        assertEquals(scan.linesContaining("ORC"), index.linesContaining("orc"));
+        assertFalse(index.linesContaining("orc").isEmpty());
+        assertEquals(-1, index.indexOf("MISSING"));
+    }
+
+    @Test
+    public void customFeaturesJoinThePass() {
+        IndexedFeature dropComment = new IndexedFeature() {
+            @Override
+            public Set<String> getPrefixes() {
+                return Collections.singleton("COMMENT");
+            }
+
+            @Override
+            public Boolean applicable(DefinitionIndex index) {
+                return index.contains("COMMENT");
+            }
+
+            @Override
+            public Boolean applicable(EnvironmentTable envTable) {
+                return applicable(envTable.getDefinition());
+            }
+
+            @Override
+            public Boolean applicable(List<String> schema) {
+                return applicable(new DefinitionIndex(schema, this));
+            }
+
+            @Override
+            public Boolean fixSchema(List<String> schema) {
+                if (applicable(schema)) {
+                    schema.removeIf(line -> line.trim().toUpperCase(Locale.ROOT).startsWith("COMMENT"));
+                    return Boolean.TRUE;
+                }
+                return Boolean.FALSE;
+            }
+
+            @Override
+            public Boolean fixSchema(EnvironmentTable envTable) {
+                return fixSchema(envTable.getDefinition());
+            }
+
+            @Override
+            public String getDescription() {
+                return "Drop the table comment.";
+            }
+        };
+        Map<String, Feature> features = new LinkedHashMap<>(FeatureEngine.getDefault().getFeatures());
+        features.put("DROP_COMMENT", dropComment);
+        FeatureEngine engine = new FeatureEngine(features);
+
+        List<String> schema = new ArrayList<>(Arrays.asList(BadOrcDefFeatureTest.schema_01));
+        schema.add(1, "COMMENT 'orc table'");
+        Map<String, Feature> applied = engine.apply(schema);
+        assertEquals(Arrays.asList("BAD_ORC_DEF", "DROP_COMMENT"), new ArrayList<>(applied.keySet()));
+        assertTrue(schema.contains("STORED AS ORC"));
+        assertFalse(schema.contains("COMMENT 'orc table'"));
+    }
+
+    /*
+    Compares the engine with the per feature loop.  Run with -Dhms-mirror.feature.benchmark.iterations=<n>.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "hms-mirror.feature.benchmark.iterations", matches = "\\d+")
+    public void benchmark() {
+        int iterations = Integer.getInteger("hms-mirror.feature.benchmark.iterations");
+        // Warm up both.
+        runPerFeature(Math.max(1, iterations / 10));
+        runEngine(Math.max(1, iterations / 10));
+
+        long start = System.nanoTime();
+        runPerFeature(iterations);
+        long perFeatureNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        runEngine(iterations);
+        long engineNanos = System.nanoTime() - start;
+
+        long count = (long) iterations * definitions.size();
+        System.out.printf("Definitions: %d  Iterations: %d%n", definitions.size(), iterations);
+        System.out.printf("Per feature: %d ms (%.2f us/definition)%n", perFeatureNanos / 1_000_000,
+                perFeatureNanos / 1000.0 / count);
+        System.out.printf("Engine:      %d ms (%.2f us/definition)%n", engineNanos / 1_000_000,
+                engineNanos / 1000.0 / count);
+    }
+
+    private void runPerFeature(int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            for (List<String> definition : definitions) {
+                try {
+                    perFeature(new ArrayList<>(definition));
+                } catch (RuntimeException e) {
+                    // Covered by sameAsPerFeature.
+                }
+            }
+        }
+    }
+
+    private void runEngine(int iterations) {
+        FeatureEngine engine = FeatureEngine.getDefault();
+        for (int i = 0; i < iterations; i++) {
+            for (List<String> definition : definitions) {
+                try {
+                    engine.apply(new ArrayList<>(definition));
+                } catch (RuntimeException e) {
+                    // Covered by sameAsPerFeature.
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.harness;
+
+import com.cloudera.utils.hive.config.DBStore;
+import com.cloudera.utils.hms.mirror.domain.Cluster;
+import com.cloudera.utils.hms.mirror.domain.HiveServer2Config;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * An in-process stand-in for one cluster: an embedded metastore database loaded by a {@link SyntheticMetastore}
+ * and a HiveServer2 endpoint served by the {@link StandInHiveDriver}.
+ * <p>
+ * Use {@link #applyTo(HmsMirrorConfig, Environment)} to point a config's cluster at the stand-in, for the
+ * services that read the HS2 and metastore-direct settings from it (EG: QueryDefinitionsService).  The
+ * connection pools can't use it: they only take the 'jdbc:hive2://' URIs and the drivers in HiveDriverEnum.
+ */
+@Slf4j
+@Getter
+public class StandInEnvironment implements AutoCloseable {
+
+    private final String name;
+    private final SyntheticMetastore metastore;
+    private final long latencyMs;
+    /*
+    Keeps the in-memory database open while the stand-in is in use.
+     */
+    private Connection keeper = null;
+
+    public StandInEnvironment(String name, SyntheticMetastore metastore, long latencyMs) {
+        this.name = name;
+        this.metastore = metastore;
+        this.latencyMs = latencyMs;
+    }
+
+    public StandInEnvironment start() throws SQLException {
+        try {
+            // Registers the driver.
+            Class.forName(StandInHiveDriver.class.getName());
+        } catch (ClassNotFoundException e) {
+            throw new SQLException(e);
+        }
+        keeper = DriverManager.getConnection(getMetastoreUri());
+        metastore.createSchema(keeper);
+        metastore.generate(keeper);
+        return this;
+    }
+
+    public String getHiveServer2Uri() {
+        return StandInHiveDriver.URL_PREFIX + name + ";" + StandInHiveDriver.LATENCY_PROPERTY + "=" + latencyMs;
+    }
+
+    public String getMetastoreUri() {
+        return StandInHiveDriver.getMetastoreUri(name);
+    }
+
+    public HiveServer2Config getHiveServer2Config() {
+        HiveServer2Config hiveServer2 = new HiveServer2Config();
+        hiveServer2.setUri(getHiveServer2Uri());
+        hiveServer2.setDriverClassName(StandInHiveDriver.class.getName());
+        return hiveServer2;
+    }
+
+    public DBStore getMetastoreDirect() {
+        DBStore metastoreDirect = new DBStore();
+        metastoreDirect.setType(DBStore.DB_TYPE.MYSQL);
+        metastoreDirect.setUri(getMetastoreUri());
+        return metastoreDirect;
+    }
+
+    public void applyTo(HmsMirrorConfig config, Environment environment) {
+        Cluster cluster = config.initClusterFor(environment);
+        cluster.setLegacyHive(Boolean.FALSE);
+        cluster.setHcfsNamespace(metastore.getNamespace());
+        cluster.setHiveServer2(getHiveServer2Config());
+        cluster.setMetastoreDirect(getMetastoreDirect());
+    }
+
+    @Override
+    public void close() throws SQLException {
+        StandInHiveDriver.clearExecutedStatements(name);
+        if (nonNull(keeper)) {
+            try (Statement stmt = keeper.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            } finally {
+                keeper.close();
+                keeper = null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.harness;
+
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.service.ExecuteSessionService;
+import com.cloudera.utils.hms.mirror.service.QueryDefinitionsService;
+import com.cloudera.utils.hms.util.DatabaseUtils;
+import com.cloudera.utils.hms.util.TableUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.cloudera.utils.hms.mirror.MirrorConf.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Exercises the stand-in HS2 driver and the synthetic metastore with the statements hms-mirror issues.
+ * <p>
+ * These tests drive the stand-in directly, not through HMSMirrorAppService.  The app can't be pointed at the
+ * stand-in as it is: the HS2 config only accepts 'jdbc:hive2://' URIs and the pools only take the drivers in
+ * HiveDriverEnum.  So the data strategies, translation and reports aren't covered here.
+ * <p>
+ * The catalog walk scale test only runs when the 'hms-mirror.harness.tables' system property is set.  IE:
+ * <pre>
+ *     mvn test -Dtest=StandInHarnessTest -Dhms-mirror.harness.tables=100000 -Dhms-mirror.harness.latencyMs=1
+ * </pre>
+ */
+@Slf4j
+public class StandInHarnessTest {
+
+    private static final int DATABASES = 3;
+    private static final int TABLES = 6;
+    private static final int PARTITIONS = 4;
+
+    private StandInEnvironment environment;
+    private SyntheticMetastore metastore;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        metastore = new SyntheticMetastore(DATABASES, TABLES, PARTITIONS);
+        metastore.setManagedEvery(3);
+        metastore.setViewEvery(5);
+        environment = new StandInEnvironment("standin_harness", metastore, 0).start();
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        environment.close();
+    }
+
+    private Connection hs2() throws SQLException {
+        return DriverManager.getConnection(environment.getHiveServer2Uri());
+    }
+
+    private static List<String> column(ResultSet resultSet) throws SQLException {
+        List<String> rtn = new ArrayList<>();
+        while (resultSet.next()) {
+            rtn.add(resultSet.getString(1));
+        }
+        return rtn;
+    }
+
+    @Test
+    public void showDatabasesAndTables() throws SQLException {
+        try (Connection conn = hs2(); Statement stmt = conn.createStatement()) {
+            List<String> databases = column(stmt.executeQuery(SHOW_DATABASES));
+            assertEquals(DATABASES + 1, databases.size());
+            assertTrue(databases.contains("default"));
+            assertTrue(databases.contains(metastore.getDatabaseName(2)));
+
+            stmt.execute(MessageFormat.format(USE, metastore.getDatabaseName(2)));
+            List<String> tables = column(stmt.executeQuery(SHOW_TABLES));
+            assertEquals(TABLES, tables.size());
+            List<String> views = column(stmt.executeQuery(SHOW_VIEWS));
+            assertEquals(List.of(metastore.getTableName(5)), views);
+        }
+    }
+
+    @Test
+    public void showCreateTable() throws SQLException {
+        String database = metastore.getDatabaseName(1);
+        try (Connection conn = hs2(); Statement stmt = conn.createStatement()) {
+            stmt.execute(MessageFormat.format(USE, database));
+            List<String> external = column(stmt.executeQuery(
+                    MessageFormat.format(SHOW_CREATE_TABLE, metastore.getTableName(1))));
+            assertTrue(external.get(0).startsWith("CREATE EXTERNAL TABLE"));
+            assertTrue(external.contains("PARTITIONED BY ("));
+            assertEquals(metastore.getDatabaseLocation(database) + "/" + metastore.getTableName(1),
+                    TableUtils.getLocation(metastore.getTableName(1), external));
+
+            List<String> managed = column(stmt.executeQuery(
+                    MessageFormat.format(SHOW_CREATE_TABLE, metastore.getTableName(3))));
+            assertTrue(managed.get(0).startsWith("CREATE TABLE"));
+            assertTrue(managed.contains("'transactional'='true',"));
+
+            SQLException missing = assertThrows(SQLException.class, () -> stmt.executeQuery(
+                    MessageFormat.format(SHOW_CREATE_TABLE, "not_a_table")));
+            assertTrue(missing.getMessage().contains("Table not found"));
+        }
+    }
+
+    @Test
+    public void showPartitionsAndOwner() throws SQLException {
+        String database = metastore.getDatabaseName(3);
+        try (Connection conn = hs2(); Statement stmt = conn.createStatement()) {
+            List<String> partitions = column(stmt.executeQuery(
+                    MessageFormat.format(SHOW_PARTITIONS, database, metastore.getTableName(2))));
+            assertEquals(List.of("dt=1", "dt=2", "dt=3", "dt=4"), partitions);
+
+            stmt.execute(MessageFormat.format(USE, database));
+            List<String> extended = column(stmt.executeQuery(
+                    MessageFormat.format(SHOW_TABLE_EXTENDED, metastore.getTableName(2))));
+            assertTrue(extended.contains("owner:hive"));
+        }
+    }
+
+    @Test
+    public void describeDatabase() throws SQLException {
+        String database = metastore.getDatabaseName(1);
+        try (Connection conn = hs2(); Statement stmt = conn.createStatement()) {
+            ResultSet resultSet = stmt.executeQuery(MessageFormat.format(DESCRIBE_DB, database));
+            assertTrue(resultSet.next());
+            assertEquals(database, resultSet.getString("db_name"));
+            assertEquals(metastore.getDatabaseLocation(database), resultSet.getString("location"));
+            assertEquals(metastore.getManagedDatabaseLocation(database), resultSet.getString("managedLocation"));
+            assertEquals("true", DatabaseUtils.parametersToMap(resultSet.getString("parameters"))
+                    .get("standin.generated"));
+
+            SQLException missing = assertThrows(SQLException.class, () -> stmt.executeQuery(
+                    MessageFormat.format(DESCRIBE_DB, "not_a_db")));
+            assertTrue(missing.getMessage().contains("Database does not exist"));
+        }
+    }
+
+    @Test
+    public void sessionVariablesAndNoOps() throws SQLException {
+        try (Connection conn = hs2(); Statement stmt = conn.createStatement()) {
+            stmt.execute("SET hive.exec.orc.split.strategy=BI");
+            List<String> vars = column(stmt.executeQuery(GET_ENV_VARS));
+            assertTrue(vars.contains("hive.metastore.warehouse.external.dir=" + metastore.getExternalWarehouse()));
+            assertTrue(vars.contains("hive.exec.orc.split.strategy=BI"));
+
+            assertFalse(stmt.execute("CREATE DATABASE IF NOT EXISTS new_db"));
+            assertFalse(stmt.execute("MSCK REPAIR TABLE new_db.some_table"));
+        }
+        // Session variables don't leak between sessions.
+        try (Connection conn = hs2(); Statement stmt = conn.createStatement()) {
+            assertFalse(column(stmt.executeQuery(GET_ENV_VARS)).contains("hive.exec.orc.split.strategy=BI"));
+        }
+        List<String> executed = StandInHiveDriver.getExecutedStatements(environment.getName());
+        assertTrue(executed.contains("MSCK REPAIR TABLE new_db.some_table"));
+    }
+
+    @Test
+    public void latencyIsApplied() throws SQLException {
+        try (StandInEnvironment slow = new StandInEnvironment("standin_slow", new SyntheticMetastore(1, 1, 0), 25)
+                .start();
+             Connection conn = DriverManager.getConnection(slow.getHiveServer2Uri());
+             Statement stmt = conn.createStatement()) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 4; i++) {
+                stmt.executeQuery(SHOW_DATABASES).close();
+            }
+            assertTrue((System.nanoTime() - start) / 1_000_000 >= 100);
+        }
+    }
+
+    @Test
+    public void metastoreDirectQueries() throws SQLException {
+        HmsMirrorConfig config = new HmsMirrorConfig();
+        environment.applyTo(config, Environment.LEFT);
+        ExecuteSessionService executeSessionService = mock(ExecuteSessionService.class);
+        ExecuteSession session = mock(ExecuteSession.class);
+        when(executeSessionService.getSession()).thenReturn(session);
+        when(session.getConfig()).thenReturn(config);
+        QueryDefinitionsService queryDefinitionsService = new QueryDefinitionsService(executeSessionService, null, null);
+        config.getOptimization().setMetastoreDirectPageSize(7);
+
+        String database = metastore.getDatabaseName(2);
+        try (Connection conn = DriverManager.getConnection(config.getCluster(Environment.LEFT)
+                .getMetastoreDirect().getUri())) {
+            Set<String> tables = new HashSet<>();
+            long tableRows = queryDefinitionsService.executeQuery(Environment.LEFT, conn,
+                    "database_table_locations", resultSet -> tables.add(resultSet.getString(1)), database);
+            assertEquals(TABLES, tableRows);
+            assertEquals(TABLES, tables.size());
+
+            long partitionRows = queryDefinitionsService.executeQuery(Environment.LEFT, conn,
+                    "database_partition_locations", resultSet -> { }, database);
+            assertEquals(metastore.getPartitionCount() / DATABASES, partitionRows);
+        }
+    }
+
+    /*
+    Issues the catalog statements the metadata phase does, over raw JDBC: SHOW TABLES per database, then
+    SHOW CREATE TABLE for each table, plus the metastore-direct partition location queries.  Reports the
+    throughput of the stand-in itself.  It doesn't run the app's services.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "hms-mirror.harness.tables", matches = "\\d+")
+    public void catalogWalkScale() throws SQLException {
+        int totalTables = Integer.getInteger("hms-mirror.harness.tables");
+        int databases = Integer.getInteger("hms-mirror.harness.databases", 100);
+        int partitions = Integer.getInteger("hms-mirror.harness.partitions", 10);
+        long latencyMs = Long.getLong("hms-mirror.harness.latencyMs", 0L);
+        SyntheticMetastore scaleMetastore = new SyntheticMetastore(databases,
+                Math.max(1, totalTables / databases), partitions);
+        scaleMetastore.setManagedEvery(4);
+
+        HmsMirrorConfig config = new HmsMirrorConfig();
+        ExecuteSessionService executeSessionService = mock(ExecuteSessionService.class);
+        ExecuteSession session = mock(ExecuteSession.class);
+        when(executeSessionService.getSession()).thenReturn(session);
+        when(session.getConfig()).thenReturn(config);
+        QueryDefinitionsService queryDefinitionsService = new QueryDefinitionsService(executeSessionService, null, null);
+
+        try (StandInEnvironment scaleEnvironment = new StandInEnvironment("standin_scale", scaleMetastore,
+                latencyMs)) {
+            long start = System.currentTimeMillis();
+            scaleEnvironment.start();
+            scaleEnvironment.applyTo(config, Environment.LEFT);
+            long generated = System.currentTimeMillis();
+
+            long tables = 0;
+            try (Connection conn = DriverManager.getConnection(scaleEnvironment.getHiveServer2Uri());
+                 Statement stmt = conn.createStatement()) {
+                for (String database : column(stmt.executeQuery(SHOW_DATABASES))) {
+                    stmt.execute(MessageFormat.format(USE, database));
+                    for (String table : column(stmt.executeQuery(SHOW_TABLES))) {
+                        column(stmt.executeQuery(MessageFormat.format(SHOW_CREATE_TABLE, table)));
+                        tables++;
+                    }
+                }
+            }
+            long walked = System.currentTimeMillis();
+
+            long partitionRows = 0;
+            try (Connection conn = DriverManager.getConnection(scaleEnvironment.getMetastoreUri())) {
+                for (int d = 1; d <= databases; d++) {
+                    partitionRows += queryDefinitionsService.executeQuery(Environment.LEFT, conn,
+                            "database_partition_locations", resultSet -> { }, scaleMetastore.getDatabaseName(d));
+                }
+            }
+            long direct = System.currentTimeMillis();
+
+            assertEquals(scaleMetastore.getTableCount(), tables);
+            assertEquals(scaleMetastore.getPartitionCount(), partitionRows);
+            log.info("Stand-in catalog walk: {} tables, {} partitions. Generate: {}ms, HS2 walk: {}ms ({} tables/s), " +
+                            "metastore-direct: {}ms", tables, partitionRows, generated - start, walked - generated,
+                    tables * 1000 / Math.max(1, walked - generated), direct - walked);
+        }
+    }
+
+}
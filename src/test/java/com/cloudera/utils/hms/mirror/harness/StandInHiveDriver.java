@@ -0,0 +1,607 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.harness;
+
+import lombok.extern.slf4j.Slf4j;
+import org.h2.tools.SimpleResultSet;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * A JDBC driver that stands in for HiveServer2.  The hive commands issued by hms-mirror are answered from the
+ * synthetic metastore (see {@link SyntheticMetastore}) held in an embedded H2 database.
+ * <p>
+ * URL: <code>jdbc:hms-standin:&lt;name&gt;[;latencyMs=&lt;ms&gt;]</code>
+ * <p>
+ * The 'name' is the in-memory H2 database with the metastore schema.  'latencyMs' is added to every
+ * statement to approximate the round trip to a real HS2.
+ * <p>
+ * Supported: SHOW DATABASES, USE, SHOW TABLES, SHOW VIEWS, SHOW CREATE TABLE, SHOW PARTITIONS,
+ * SHOW TABLE EXTENDED, DESCRIBE DATABASE, SHOW CREATE DATABASE and SET.  Every other statement (DDL, DML,
+ * ANALYZE, MSCK, etc.) is recorded and treated as a successful no-op.
+ */
+@Slf4j
+public class StandInHiveDriver implements Driver {
+
+    public static final String URL_PREFIX = "jdbc:hms-standin:";
+    public static final String LATENCY_PROPERTY = "latencyMs";
+
+    private static final Pattern USE = Pattern.compile("(?i)^USE\\s+`?([\\w$]+)`?$");
+    private static final Pattern SHOW_DATABASES = Pattern.compile("(?i)^SHOW\\s+(?:DATABASES|SCHEMAS)(?:\\s+LIKE\\s+'(.*)')?$");
+    private static final Pattern SHOW_TABLES = Pattern.compile("(?i)^SHOW\\s+(TABLES|VIEWS)(?:\\s+(?:IN|FROM)\\s+`?([\\w$]+)`?)?$");
+    private static final Pattern SHOW_CREATE_TABLE = Pattern.compile("(?i)^SHOW\\s+CREATE\\s+TABLE\\s+`?([\\w$]+)`?(?:\\.`?([\\w$]+)`?)?$");
+    private static final Pattern SHOW_PARTITIONS = Pattern.compile("(?i)^SHOW\\s+PARTITIONS\\s+`?([\\w$]+)`?(?:\\.`?([\\w$]+)`?)?$");
+    private static final Pattern SHOW_TABLE_EXTENDED = Pattern.compile("(?i)^SHOW\\s+TABLE\\s+EXTENDED(?:\\s+(?:IN|FROM)\\s+`?([\\w$]+)`?)?\\s+LIKE\\s+[`']?([\\w$]+)[`']?.*$");
+    private static final Pattern DESCRIBE_DATABASE = Pattern.compile("(?i)^DESC(?:RIBE)?\\s+(?:DATABASE|SCHEMA)(\\s+EXTENDED)?\\s+`?([\\w$]+)`?$");
+    private static final Pattern SHOW_CREATE_DATABASE = Pattern.compile("(?i)^SHOW\\s+CREATE\\s+(?:DATABASE|SCHEMA)\\s+`?([\\w$]+)`?$");
+    private static final Pattern SET = Pattern.compile("(?i)^SET(?:\\s+(-v|[^=\\s]+)(?:\\s*=\\s*(.*))?)?$");
+
+    /*
+    Statements sent to each stand-in, in order.  Used by tests to check what hms-mirror issued.
+     */
+    private static final Map<String, Queue<String>> executedStatements = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            DriverManager.registerDriver(new StandInHiveDriver());
+        } catch (SQLException se) {
+            throw new ExceptionInInitializerError(se);
+        }
+    }
+
+    public static String getMetastoreUri(String name) {
+        return "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    }
+
+    public static List<String> getExecutedStatements(String name) {
+        Queue<String> statements = executedStatements.get(name);
+        return isNull(statements) ? Collections.emptyList() : new ArrayList<>(statements);
+    }
+
+    public static void clearExecutedStatements(String name) {
+        executedStatements.remove(name);
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        String[] parts = url.substring(URL_PREFIX.length()).split(";");
+        String name = parts[0];
+        long latencyMs = 0;
+        for (int i = 1; i < parts.length; i++) {
+            String[] kv = parts[i].split("=", 2);
+            if (kv.length == 2 && kv[0].equalsIgnoreCase(LATENCY_PROPERTY)) {
+                latencyMs = Long.parseLong(kv[1].trim());
+            }
+        }
+        Connection metastore = DriverManager.getConnection(getMetastoreUri(name));
+        StandInSession session = new StandInSession(name, latencyMs, metastore);
+        return session.getConnection();
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return nonNull(url) && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 3;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 1;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ite) {
+            throw ite.getCause();
+        }
+    }
+
+    private static SimpleResultSet resultSet(String... columns) {
+        SimpleResultSet rs = new SimpleResultSet();
+        for (String column : columns) {
+            rs.addColumn(column, Types.VARCHAR, 4000, 0);
+        }
+        return rs;
+    }
+
+    private static SQLException tableNotFound(String database, String table) {
+        return new SQLException("Error while compiling statement: FAILED: SemanticException [Error 10001]: " +
+                "Table not found " + database + "." + table, "42S02", 10001);
+    }
+
+    private static SQLException databaseNotFound(String database) {
+        return new SQLException("Error while compiling statement: FAILED: SemanticException [Error 10072]: " +
+                "Database does not exist: " + database, "42000", 10072);
+    }
+
+    /*
+    One HS2 session.  Holds the session database (USE) and any session variables (SET).
+     */
+    private static class StandInSession implements InvocationHandler {
+        private final String name;
+        private final long latencyMs;
+        private final Connection metastore;
+        private final Connection connection;
+        private final Map<String, String> sessionVars = new TreeMap<>();
+        private String currentDatabase = "default";
+
+        StandInSession(String name, long latencyMs, Connection metastore) {
+            this.name = name;
+            this.latencyMs = latencyMs;
+            this.metastore = metastore;
+            this.connection = (Connection) Proxy.newProxyInstance(StandInHiveDriver.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this);
+        }
+
+        Connection getConnection() {
+            return connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("createStatement")) {
+                Statement statement = (Statement) StandInHiveDriver.invoke(metastore, method, args);
+                return new StandInStatement(this, statement).getStatement();
+            }
+            return StandInHiveDriver.invoke(metastore, method, args);
+        }
+
+        /*
+        Returns the result of the statement or null when the statement doesn't produce one.
+         */
+        ResultSet handle(String sql) throws SQLException {
+            String lclSql = sql.trim();
+            while (lclSql.endsWith(";")) {
+                lclSql = lclSql.substring(0, lclSql.length() - 1).trim();
+            }
+            executedStatements.computeIfAbsent(name, k -> new ConcurrentLinkedQueue<>()).add(lclSql);
+            if (latencyMs > 0) {
+                try {
+                    Thread.sleep(latencyMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted", ie);
+                }
+            }
+            Matcher matcher;
+            if ((matcher = USE.matcher(lclSql)).matches()) {
+                getDatabaseId(matcher.group(1));
+                currentDatabase = matcher.group(1).toLowerCase(Locale.ROOT);
+                return null;
+            } else if ((matcher = SHOW_DATABASES.matcher(lclSql)).matches()) {
+                return showDatabases(matcher.group(1));
+            } else if ((matcher = SHOW_TABLES.matcher(lclSql)).matches()) {
+                return showTables(matcher.group(1).equalsIgnoreCase("VIEWS"), database(matcher.group(2)));
+            } else if ((matcher = SHOW_CREATE_TABLE.matcher(lclSql)).matches()) {
+                return nonNull(matcher.group(2)) ? showCreateTable(matcher.group(1), matcher.group(2))
+                        : showCreateTable(currentDatabase, matcher.group(1));
+            } else if ((matcher = SHOW_PARTITIONS.matcher(lclSql)).matches()) {
+                return nonNull(matcher.group(2)) ? showPartitions(matcher.group(1), matcher.group(2))
+                        : showPartitions(currentDatabase, matcher.group(1));
+            } else if ((matcher = SHOW_TABLE_EXTENDED.matcher(lclSql)).matches()) {
+                return showTableExtended(database(matcher.group(1)), matcher.group(2));
+            } else if ((matcher = DESCRIBE_DATABASE.matcher(lclSql)).matches()) {
+                return describeDatabase(matcher.group(2), nonNull(matcher.group(1)));
+            } else if ((matcher = SHOW_CREATE_DATABASE.matcher(lclSql)).matches()) {
+                return showCreateDatabase(matcher.group(1));
+            } else if ((matcher = SET.matcher(lclSql)).matches()) {
+                return set(matcher.group(1), matcher.group(2));
+            }
+            log.debug("Stand-in {}: no-op for: {}", name, lclSql);
+            return null;
+        }
+
+        private String database(String database) {
+            return isNull(database) ? currentDatabase : database.toLowerCase(Locale.ROOT);
+        }
+
+        private long getDatabaseId(String database) throws SQLException {
+            try (PreparedStatement pstmt = metastore.prepareStatement("SELECT DB_ID FROM DBS WHERE NAME = ?")) {
+                pstmt.setString(1, database.toLowerCase(Locale.ROOT));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getLong(1);
+                    }
+                }
+            }
+            throw databaseNotFound(database);
+        }
+
+        private ResultSet showDatabases(String like) throws SQLException {
+            Pattern filter = null;
+            if (nonNull(like)) {
+                filter = Pattern.compile(like.replace("*", ".*"), Pattern.CASE_INSENSITIVE);
+            }
+            SimpleResultSet rtn = resultSet("database_name");
+            try (Statement stmt = metastore.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT NAME FROM DBS ORDER BY NAME")) {
+                while (rs.next()) {
+                    if (isNull(filter) || filter.matcher(rs.getString(1)).matches()) {
+                        rtn.addRow(rs.getString(1));
+                    }
+                }
+            }
+            return rtn;
+        }
+
+        private ResultSet showTables(boolean views, String database) throws SQLException {
+            long dbId = getDatabaseId(database);
+            SimpleResultSet rtn = resultSet("tab_name");
+            String sql = "SELECT TBL_NAME FROM TBLS WHERE DB_ID = ?"
+                    + (views ? " AND TBL_TYPE = 'VIRTUAL_VIEW'" : "") + " ORDER BY TBL_NAME";
+            try (PreparedStatement pstmt = metastore.prepareStatement(sql)) {
+                pstmt.setLong(1, dbId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rtn.addRow(rs.getString(1));
+                    }
+                }
+            }
+            return rtn;
+        }
+
+        private ResultSet showCreateTable(String database, String table) throws SQLException {
+            SimpleResultSet rtn = resultSet("createtab_stmt");
+            String sql = "SELECT T.TBL_ID, T.TBL_TYPE, T.VIEW_EXPANDED_TEXT, S.LOCATION, S.INPUT_FORMAT, " +
+                    "S.OUTPUT_FORMAT FROM DBS D INNER JOIN TBLS T ON D.DB_ID = T.DB_ID " +
+                    "INNER JOIN SDS S ON T.SD_ID = S.SD_ID WHERE D.NAME = ? AND T.TBL_NAME = ?";
+            try (PreparedStatement pstmt = metastore.prepareStatement(sql)) {
+                pstmt.setString(1, database.toLowerCase(Locale.ROOT));
+                pstmt.setString(2, table.toLowerCase(Locale.ROOT));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw tableNotFound(database, table);
+                    }
+                    long tblId = rs.getLong(1);
+                    String tblType = rs.getString(2);
+                    if ("VIRTUAL_VIEW".equals(tblType)) {
+                        rtn.addRow("CREATE VIEW `" + table + "` AS " + rs.getString(3));
+                        return rtn;
+                    }
+                    boolean orc = SyntheticMetastore.INPUT_FORMAT_ORC.equals(rs.getString(5));
+                    rtn.addRow(("EXTERNAL_TABLE".equals(tblType) ? "CREATE EXTERNAL TABLE `" : "CREATE TABLE `")
+                            + table + "`(");
+                    rtn.addRow("`id` string,");
+                    rtn.addRow("`checkvalue` string)");
+                    List<String> partitionKeys = getPartitionKeys(tblId);
+                    if (!partitionKeys.isEmpty()) {
+                        rtn.addRow("PARTITIONED BY (");
+                        for (int i = 0; i < partitionKeys.size(); i++) {
+                            rtn.addRow(partitionKeys.get(i) + (i < partitionKeys.size() - 1 ? "," : ")"));
+                        }
+                    }
+                    rtn.addRow("ROW FORMAT SERDE");
+                    rtn.addRow(orc ? "'org.apache.hadoop.hive.ql.io.orc.OrcSerde'"
+                            : "'org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe'");
+                    rtn.addRow("STORED AS INPUTFORMAT");
+                    rtn.addRow("'" + rs.getString(5) + "'");
+                    rtn.addRow("OUTPUTFORMAT");
+                    rtn.addRow("'" + rs.getString(6) + "'");
+                    rtn.addRow("LOCATION");
+                    rtn.addRow("'" + rs.getString(4) + "'");
+                    Map<String, String> parameters = getTableParameters(tblId);
+                    if (!parameters.isEmpty()) {
+                        rtn.addRow("TBLPROPERTIES (");
+                        int i = 0;
+                        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+                            rtn.addRow("'" + entry.getKey() + "'='" + entry.getValue() + "'"
+                                    + (++i < parameters.size() ? "," : ")"));
+                        }
+                    }
+                }
+            }
+            return rtn;
+        }
+
+        private List<String> getPartitionKeys(long tblId) throws SQLException {
+            List<String> rtn = new ArrayList<>();
+            try (PreparedStatement pstmt = metastore.prepareStatement(
+                    "SELECT PKEY_NAME, PKEY_TYPE FROM PARTITION_KEYS WHERE TBL_ID = ? ORDER BY INTEGER_IDX")) {
+                pstmt.setLong(1, tblId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rtn.add("`" + rs.getString(1) + "` " + rs.getString(2));
+                    }
+                }
+            }
+            return rtn;
+        }
+
+        private Map<String, String> getTableParameters(long tblId) throws SQLException {
+            Map<String, String> rtn = new TreeMap<>();
+            try (PreparedStatement pstmt = metastore.prepareStatement(
+                    "SELECT PARAM_KEY, PARAM_VALUE FROM TABLE_PARAMS WHERE TBL_ID = ?")) {
+                pstmt.setLong(1, tblId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rtn.put(rs.getString(1), rs.getString(2));
+                    }
+                }
+            }
+            return rtn;
+        }
+
+        private long getTableId(String database, String table) throws SQLException {
+            try (PreparedStatement pstmt = metastore.prepareStatement("SELECT T.TBL_ID FROM DBS D " +
+                    "INNER JOIN TBLS T ON D.DB_ID = T.DB_ID WHERE D.NAME = ? AND T.TBL_NAME = ?")) {
+                pstmt.setString(1, database.toLowerCase(Locale.ROOT));
+                pstmt.setString(2, table.toLowerCase(Locale.ROOT));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getLong(1);
+                    }
+                }
+            }
+            throw tableNotFound(database, table);
+        }
+
+        private ResultSet showPartitions(String database, String table) throws SQLException {
+            long tblId = getTableId(database, table);
+            SimpleResultSet rtn = resultSet("partition");
+            try (PreparedStatement pstmt = metastore.prepareStatement(
+                    "SELECT PART_NAME FROM PARTITIONS WHERE TBL_ID = ? ORDER BY PART_ID")) {
+                pstmt.setLong(1, tblId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rtn.addRow(rs.getString(1));
+                    }
+                }
+            }
+            return rtn;
+        }
+
+        private ResultSet showTableExtended(String database, String table) throws SQLException {
+            SimpleResultSet rtn = resultSet("tab_name");
+            String sql = "SELECT T.TBL_ID, T.OWNER, S.LOCATION, S.INPUT_FORMAT, S.OUTPUT_FORMAT " +
+                    "FROM DBS D INNER JOIN TBLS T ON D.DB_ID = T.DB_ID " +
+                    "INNER JOIN SDS S ON T.SD_ID = S.SD_ID WHERE D.NAME = ? AND T.TBL_NAME = ?";
+            try (PreparedStatement pstmt = metastore.prepareStatement(sql)) {
+                pstmt.setString(1, database);
+                pstmt.setString(2, table.toLowerCase(Locale.ROOT));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw tableNotFound(database, table);
+                    }
+                    List<String> partitionKeys = getPartitionKeys(rs.getLong(1));
+                    rtn.addRow("tableName:" + table);
+                    rtn.addRow("owner:" + rs.getString(2));
+                    rtn.addRow("location:" + rs.getString(3));
+                    rtn.addRow("inputformat:" + rs.getString(4));
+                    rtn.addRow("outputformat:" + rs.getString(5));
+                    rtn.addRow("columns:struct columns { string id, string checkvalue}");
+                    rtn.addRow("partitioned:" + !partitionKeys.isEmpty());
+                    rtn.addRow("partitionColumns:" + (partitionKeys.isEmpty() ? ""
+                            : "struct partition_columns { " + String.join(", ", partitionKeys).replace("`", "") + "}"));
+                }
+            }
+            return rtn;
+        }
+
+        private Map<String, String> getDatabaseParameters(long dbId) throws SQLException {
+            Map<String, String> rtn = new TreeMap<>();
+            try (PreparedStatement pstmt = metastore.prepareStatement(
+                    "SELECT PARAM_KEY, PARAM_VALUE FROM DATABASE_PARAMS WHERE DB_ID = ?")) {
+                pstmt.setLong(1, dbId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rtn.put(rs.getString(1), rs.getString(2));
+                    }
+                }
+            }
+            return rtn;
+        }
+
+        private ResultSet describeDatabase(String database, boolean extended) throws SQLException {
+            SimpleResultSet rtn = resultSet("db_name", "comment", "location", "managedLocation",
+                    "owner_name", "owner_type", "parameters");
+            try (PreparedStatement pstmt = metastore.prepareStatement("SELECT DB_ID, NAME, DB_LOCATION_URI, " +
+                    "MANAGED_LOCATION_URI, OWNER_NAME, OWNER_TYPE FROM DBS WHERE NAME = ?")) {
+                pstmt.setString(1, database.toLowerCase(Locale.ROOT));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw databaseNotFound(database);
+                    }
+                    String parameters = "";
+                    if (extended) {
+                        Map<String, String> dbParams = getDatabaseParameters(rs.getLong(1));
+                        if (!dbParams.isEmpty()) {
+                            parameters = dbParams.toString();
+                        }
+                    }
+                    rtn.addRow(rs.getString(2), "", rs.getString(3), rs.getString(4), rs.getString(5),
+                            rs.getString(6), parameters);
+                }
+            }
+            return rtn;
+        }
+
+        private ResultSet showCreateDatabase(String database) throws SQLException {
+            SimpleResultSet rtn = resultSet("createdb_stmt");
+            long dbId = getDatabaseId(database);
+            try (PreparedStatement pstmt = metastore.prepareStatement(
+                    "SELECT DB_LOCATION_URI, MANAGED_LOCATION_URI FROM DBS WHERE DB_ID = ?")) {
+                pstmt.setLong(1, dbId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    rtn.addRow("CREATE DATABASE `" + database + "`");
+                    rtn.addRow("LOCATION");
+                    rtn.addRow("'" + rs.getString(1) + "'");
+                    rtn.addRow("MANAGEDLOCATION");
+                    rtn.addRow("'" + rs.getString(2) + "'");
+                }
+            }
+            Map<String, String> parameters = getDatabaseParameters(dbId);
+            if (!parameters.isEmpty()) {
+                rtn.addRow("WITH DBPROPERTIES (");
+                int i = 0;
+                for (Map.Entry<String, String> entry : parameters.entrySet()) {
+                    rtn.addRow("'" + entry.getKey() + "'='" + entry.getValue() + "'"
+                            + (++i < parameters.size() ? "," : ")"));
+                }
+            }
+            return rtn;
+        }
+
+        private ResultSet set(String key, String value) throws SQLException {
+            if (nonNull(key) && nonNull(value)) {
+                sessionVars.put(key, value.trim());
+                return null;
+            }
+            Map<String, String> vars = new TreeMap<>();
+            try (Statement stmt = metastore.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT NAME, VAL FROM STANDIN_ENV_VARS")) {
+                while (rs.next()) {
+                    vars.put(rs.getString(1), rs.getString(2));
+                }
+            }
+            vars.putAll(sessionVars);
+            SimpleResultSet rtn = resultSet("set");
+            if (isNull(key) || key.equalsIgnoreCase("-v")) {
+                for (Map.Entry<String, String> entry : vars.entrySet()) {
+                    rtn.addRow(entry.getKey() + "=" + entry.getValue());
+                }
+            } else {
+                rtn.addRow(vars.containsKey(key) ? key + "=" + vars.get(key) : key + " is undefined");
+            }
+            return rtn;
+        }
+    }
+
+    /*
+    Routes the statement text to the session and everything else to the H2 statement.
+     */
+    private static class StandInStatement implements InvocationHandler {
+        private final StandInSession session;
+        private final Statement delegate;
+        private final Statement statement;
+        private ResultSet currentResultSet = null;
+        private int updateCount = -1;
+
+        StandInStatement(StandInSession session, Statement delegate) {
+            this.session = session;
+            this.delegate = delegate;
+            this.statement = (Statement) Proxy.newProxyInstance(StandInHiveDriver.class.getClassLoader(),
+                    new Class<?>[]{Statement.class}, this);
+        }
+
+        Statement getStatement() {
+            return statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            boolean sqlArg = nonNull(args) && args.length >= 1 && args[0] instanceof String;
+            switch (method.getName()) {
+                case "execute":
+                    if (sqlArg) {
+                        currentResultSet = session.handle((String) args[0]);
+                        updateCount = isNull(currentResultSet) ? 0 : -1;
+                        return nonNull(currentResultSet);
+                    }
+                    break;
+                case "executeQuery":
+                    if (sqlArg) {
+                        currentResultSet = session.handle((String) args[0]);
+                        if (isNull(currentResultSet)) {
+                            currentResultSet = resultSet("result");
+                        }
+                        updateCount = -1;
+                        return currentResultSet;
+                    }
+                    break;
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    if (sqlArg) {
+                        session.handle((String) args[0]);
+                        currentResultSet = null;
+                        updateCount = -1;
+                        return method.getReturnType() == long.class ? (Object) 0L : (Object) 0;
+                    }
+                    break;
+                case "getResultSet":
+                    return currentResultSet;
+                case "getUpdateCount":
+                    int rtn = updateCount;
+                    updateCount = -1;
+                    return rtn;
+                case "getMoreResults":
+                    currentResultSet = null;
+                    updateCount = -1;
+                    return Boolean.FALSE;
+                case "getConnection":
+                    return session.getConnection();
+                default:
+                    break;
+            }
+            return StandInHiveDriver.invoke(delegate, method, args);
+        }
+    }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.harness;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Generates a synthetic Hive metastore (N databases x M tables x P partitions) in an embedded H2 database.
+ * <p>
+ * Only the subset of the metastore schema used by the metastoreDirect.yaml queries and the stand-in HS2
+ * driver is created.  The table and column names match the real (MySQL) metastore schema, so the
+ * metastore-direct queries run against it unchanged.
+ */
+@Slf4j
+@Getter
+@Setter
+public class SyntheticMetastore {
+
+    public static final String INPUT_FORMAT_ORC = "org.apache.hadoop.hive.ql.io.orc.OrcInputFormat";
+    public static final String OUTPUT_FORMAT_ORC = "org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat";
+    public static final String INPUT_FORMAT_TEXT = "org.apache.hadoop.mapred.TextInputFormat";
+    public static final String OUTPUT_FORMAT_TEXT = "org.apache.hadoop.hive.ql.io.HiveIgnoreKeyTextOutputFormat";
+
+    private static final int BATCH_SIZE = 10000;
+
+    private int databases = 1;
+    private int tablesPerDatabase = 10;
+    private int partitionsPerTable = 0;
+    /*
+    Every nth table is a managed (ACID) table.  0 means all tables are external.
+     */
+    private int managedEvery = 0;
+    /*
+    Every nth table is a view.  0 means no views.
+     */
+    private int viewEvery = 0;
+    /*
+    Every nth partition is located outside of the table location.  0 means all partitions are under the table.
+     */
+    private int partitionOutsideEvery = 0;
+    private String namespace = "hdfs://standin";
+    private String externalWarehouse = "/warehouse/tablespace/external/hive";
+    private String managedWarehouse = "/warehouse/tablespace/managed/hive";
+    private String databasePrefix = "standin_db_";
+    private String tablePrefix = "tbl_";
+    private String owner = "hive";
+
+    public SyntheticMetastore() {
+    }
+
+    public SyntheticMetastore(int databases, int tablesPerDatabase, int partitionsPerTable) {
+        this.databases = databases;
+        this.tablesPerDatabase = tablesPerDatabase;
+        this.partitionsPerTable = partitionsPerTable;
+    }
+
+    public String getDatabaseName(int db) {
+        return String.format("%s%03d", databasePrefix, db);
+    }
+
+    public String getTableName(int table) {
+        return String.format("%s%05d", tablePrefix, table);
+    }
+
+    public boolean isManaged(int table) {
+        return managedEvery > 0 && table % managedEvery == 0;
+    }
+
+    public boolean isView(int table) {
+        return viewEvery > 0 && table % viewEvery == 0 && !isManaged(table);
+    }
+
+    public String getDatabaseLocation(String database) {
+        return namespace + externalWarehouse + "/" + database + ".db";
+    }
+
+    public String getManagedDatabaseLocation(String database) {
+        return namespace + managedWarehouse + "/" + database + ".db";
+    }
+
+    public long getTableCount() {
+        return (long) databases * tablesPerDatabase;
+    }
+
+    public long getPartitionCount() {
+        long partitionedTables = 0;
+        for (int t = 1; t <= tablesPerDatabase; t++) {
+            if (!isView(t)) {
+                partitionedTables++;
+            }
+        }
+        return partitionedTables * databases * partitionsPerTable;
+    }
+
+    public void createSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE DBS (DB_ID BIGINT PRIMARY KEY, NAME VARCHAR(128), " +
+                    "DB_LOCATION_URI VARCHAR(4000), MANAGED_LOCATION_URI VARCHAR(4000), " +
+                    "OWNER_NAME VARCHAR(128), OWNER_TYPE VARCHAR(10))");
+            stmt.execute("CREATE UNIQUE INDEX UNIQUE_DATABASE ON DBS (NAME)");
+            stmt.execute("CREATE TABLE DATABASE_PARAMS (DB_ID BIGINT, PARAM_KEY VARCHAR(180), " +
+                    "PARAM_VALUE VARCHAR(4000))");
+            stmt.execute("CREATE TABLE SDS (SD_ID BIGINT PRIMARY KEY, LOCATION VARCHAR(4000), " +
+                    "INPUT_FORMAT VARCHAR(4000), OUTPUT_FORMAT VARCHAR(4000))");
+            stmt.execute("CREATE TABLE TBLS (TBL_ID BIGINT PRIMARY KEY, DB_ID BIGINT, SD_ID BIGINT, " +
+                    "TBL_NAME VARCHAR(256), TBL_TYPE VARCHAR(128), OWNER VARCHAR(767), " +
+                    "VIEW_EXPANDED_TEXT CLOB)");
+            stmt.execute("CREATE UNIQUE INDEX UNIQUETABLE ON TBLS (DB_ID, TBL_NAME)");
+            stmt.execute("CREATE TABLE TABLE_PARAMS (TBL_ID BIGINT, PARAM_KEY VARCHAR(256), " +
+                    "PARAM_VALUE VARCHAR(4000))");
+            stmt.execute("CREATE INDEX TABLE_PARAMS_N49 ON TABLE_PARAMS (TBL_ID)");
+            stmt.execute("CREATE TABLE PARTITION_KEYS (TBL_ID BIGINT, PKEY_NAME VARCHAR(128), " +
+                    "PKEY_TYPE VARCHAR(767), INTEGER_IDX INT)");
+            stmt.execute("CREATE TABLE PARTITIONS (PART_ID BIGINT PRIMARY KEY, TBL_ID BIGINT, SD_ID BIGINT, " +
+                    "PART_NAME VARCHAR(767))");
+            stmt.execute("CREATE INDEX PARTITIONS_N49 ON PARTITIONS (TBL_ID)");
+            // Not part of the metastore.  The HS2 configuration reported by the stand-in driver for 'SET -v'.
+            stmt.execute("CREATE TABLE STANDIN_ENV_VARS (NAME VARCHAR(256) PRIMARY KEY, VAL VARCHAR(4000))");
+        }
+    }
+
+    /**
+     * Populate the schema.  Rows are written in batches so a 100k table metastore can be built in seconds.
+     */
+    public void generate(Connection conn) throws SQLException {
+        long start = System.currentTimeMillis();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(Boolean.FALSE);
+        long sdId = 1;
+        long tblId = 1;
+        long partId = 1;
+        int pending = 0;
+        try (PreparedStatement dbs = conn.prepareStatement("INSERT INTO DBS VALUES (?, ?, ?, ?, ?, 'USER')");
+             PreparedStatement dbParams = conn.prepareStatement("INSERT INTO DATABASE_PARAMS VALUES (?, ?, ?)");
+             PreparedStatement sds = conn.prepareStatement("INSERT INTO SDS VALUES (?, ?, ?, ?)");
+             PreparedStatement tbls = conn.prepareStatement("INSERT INTO TBLS VALUES (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement tblParams = conn.prepareStatement("INSERT INTO TABLE_PARAMS VALUES (?, ?, ?)");
+             PreparedStatement partKeys = conn.prepareStatement("INSERT INTO PARTITION_KEYS VALUES (?, 'dt', 'string', 0)");
+             PreparedStatement parts = conn.prepareStatement("INSERT INTO PARTITIONS VALUES (?, ?, ?, ?)");
+             PreparedStatement envVars = conn.prepareStatement("INSERT INTO STANDIN_ENV_VARS VALUES (?, ?)")) {
+            addEnvVar(envVars, "hive.metastore.warehouse.dir", managedWarehouse);
+            addEnvVar(envVars, "hive.metastore.warehouse.external.dir", externalWarehouse);
+            addEnvVar(envVars, "fs.defaultFS", namespace);
+            addEnvVar(envVars, "hive.execution.engine", "tez");
+            addEnvVar(envVars, "hive.exec.dynamic.partition.mode", "nonstrict");
+            envVars.executeBatch();
+            // Every metastore has a 'default' database.
+            addDatabase(dbs, 0, "default", namespace + externalWarehouse, namespace + managedWarehouse);
+            for (int d = 1; d <= databases; d++) {
+                String database = getDatabaseName(d);
+                addDatabase(dbs, d, database, getDatabaseLocation(database), getManagedDatabaseLocation(database));
+                dbParams.setLong(1, d);
+                dbParams.setString(2, "standin.generated");
+                dbParams.setString(3, "true");
+                dbParams.addBatch();
+                for (int t = 1; t <= tablesPerDatabase; t++) {
+                    String table = getTableName(t);
+                    boolean managed = isManaged(t);
+                    boolean view = isView(t);
+                    String tableLocation = view ? null : (managed ? getManagedDatabaseLocation(database)
+                            : getDatabaseLocation(database)) + "/" + table;
+                    long tblSdId = sdId++;
+                    addStorageDescriptor(sds, tblSdId, tableLocation, managed);
+                    tbls.setLong(1, tblId);
+                    tbls.setLong(2, d);
+                    tbls.setLong(3, tblSdId);
+                    tbls.setString(4, table);
+                    tbls.setString(5, view ? "VIRTUAL_VIEW" : (managed ? "MANAGED_TABLE" : "EXTERNAL_TABLE"));
+                    tbls.setString(6, owner);
+                    tbls.setString(7, view ? "SELECT * FROM `" + database + "`.`" + getTableName(1) + "`" : null);
+                    tbls.addBatch();
+                    if (!view) {
+                        addTableParameter(tblParams, tblId, "bucketing_version", "2");
+                        if (managed) {
+                            addTableParameter(tblParams, tblId, "transactional", "true");
+                            addTableParameter(tblParams, tblId, "transactional_properties", "default");
+                        } else {
+                            addTableParameter(tblParams, tblId, "EXTERNAL", "TRUE");
+                            addTableParameter(tblParams, tblId, "external.table.purge", "true");
+                        }
+                        if (partitionsPerTable > 0) {
+                            partKeys.setLong(1, tblId);
+                            partKeys.addBatch();
+                            for (int p = 1; p <= partitionsPerTable; p++) {
+                                String partName = "dt=" + p;
+                                String partLocation = partitionOutsideEvery > 0 && p % partitionOutsideEvery == 0
+                                        ? namespace + "/data/outside/" + database + "/" + table + "/" + partName
+                                        : tableLocation + "/" + partName;
+                                long partSdId = sdId++;
+                                addStorageDescriptor(sds, partSdId, partLocation, managed);
+                                parts.setLong(1, partId++);
+                                parts.setLong(2, tblId);
+                                parts.setLong(3, partSdId);
+                                parts.setString(4, partName);
+                                parts.addBatch();
+                                if (++pending >= BATCH_SIZE) {
+                                    executeBatches(sds, tbls, tblParams, partKeys, parts);
+                                    pending = 0;
+                                }
+                            }
+                        }
+                    }
+                    tblId++;
+                    if (++pending >= BATCH_SIZE) {
+                        executeBatches(sds, tbls, tblParams, partKeys, parts);
+                        pending = 0;
+                    }
+                }
+            }
+            executeBatches(dbs, dbParams, sds, tbls, tblParams, partKeys, parts);
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        log.info("Generated synthetic metastore: {} databases, {} tables, {} partitions in {}ms",
+                databases, getTableCount(), getPartitionCount(), System.currentTimeMillis() - start);
+    }
+
+    private void addDatabase(PreparedStatement dbs, long dbId, String name, String location,
+                             String managedLocation) throws SQLException {
+        dbs.setLong(1, dbId);
+        dbs.setString(2, name);
+        dbs.setString(3, location);
+        dbs.setString(4, managedLocation);
+        dbs.setString(5, owner);
+        dbs.addBatch();
+    }
+
+    private void addEnvVar(PreparedStatement envVars, String name, String value) throws SQLException {
+        envVars.setString(1, name);
+        envVars.setString(2, value);
+        envVars.addBatch();
+    }
+
+    private void addStorageDescriptor(PreparedStatement sds, long sdId, String location,
+                                      boolean orc) throws SQLException {
+        sds.setLong(1, sdId);
+        sds.setString(2, location);
+        sds.setString(3, orc ? INPUT_FORMAT_ORC : INPUT_FORMAT_TEXT);
+        sds.setString(4, orc ? OUTPUT_FORMAT_ORC : OUTPUT_FORMAT_TEXT);
+        sds.addBatch();
+    }
+
+    private void addTableParameter(PreparedStatement tblParams, long tblId, String key,
+                                   String value) throws SQLException {
+        tblParams.setLong(1, tblId);
+        tblParams.setString(2, key);
+        tblParams.setString(3, value);
+        tblParams.addBatch();
+    }
+
+    private static void executeBatches(PreparedStatement... statements) throws SQLException {
+        for (PreparedStatement statement : statements) {
+            statement.executeBatch();
+        }
+    }
+
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.domain.DBMirror;
+import com.cloudera.utils.hms.mirror.domain.HiveServer2Config;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.cloudera.utils.hms.mirror.domain.support.CatalogCacheEntry;
+import com.cloudera.utils.hms.mirror.domain.support.CatalogCacheStatistics;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.utils.FakeClock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hits, misses and invalidation of the catalog cache, and carrying it from one run to the next.
+ */
+public class CatalogCacheServiceTest {
+
+    @TempDir
+    File outputDirectory;
+
+    private ExecuteSessionService executeSessionService;
+    private ConfigService configService;
+    private CatalogCacheService catalogCacheService;
+    private FakeClock clock;
+    private ExecuteSession session;
+    // Table -> last DDL time, as the metastore would report it.
+    private final Map<String, String> ddlTimes = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    public void setup() {
+        executeSessionService = mock(ExecuteSessionService.class);
+        configService = mock(ConfigService.class);
+        clock = new FakeClock(Instant.parse("2024-01-01T00:00:00Z"));
+        catalogCacheService = new CatalogCacheService(configService, executeSessionService, null,
+                new ObjectMapper(new YAMLFactory())) {
+            @Override
+            protected Map<String, String> loadTableVersions(Environment environment, String database) {
+                return new HashMap<>(ddlTimes);
+            }
+        };
+        catalogCacheService.setClock(clock);
+        session = newSession("session-1");
+    }
+
+    private ExecuteSession newSession(String sessionId) {
+        HmsMirrorConfig config = new HmsMirrorConfig();
+        config.initClusterFor(Environment.LEFT).setHiveServer2(new HiveServer2Config());
+        config.getCluster(Environment.LEFT).getHiveServer2().setUri("jdbc:hive2://left:10000");
+        config.setOutputDirectory(outputDirectory.getPath());
+        ExecuteSession rtn = new ExecuteSession();
+        rtn.setSessionId(sessionId);
+        rtn.setConfig(config);
+        when(executeSessionService.getSession()).thenReturn(rtn);
+        return rtn;
+    }
+
+    private CatalogCacheStatistics statistics() {
+        return session.getRunStatus().getOperationStatistics().getCatalogCache();
+    }
+
+    private List<String> definition(String table) throws SQLException {
+        return catalogCacheService.getTableDefinition(Environment.LEFT, "sales", table, () -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(Arrays.asList("CREATE TABLE " + table + " (", "id int)"));
+        });
+    }
+
+    private void withMetastoreDirect() {
+        when(configService.isMetastoreDirectConfigured(any(), eq(Environment.LEFT))).thenReturn(Boolean.TRUE);
+    }
+
+    @Test
+    public void unversionedEntriesStayInTheSession() throws SQLException {
+        definition("orders");
+        definition("orders");
+        assertEquals(1, loads.get());
+        assertEquals(1, statistics().getHits().get());
+        assertEquals(1, statistics().getMisses().get());
+
+        // Another session can't tell if it's still current.
+        session = newSession("session-2");
+        definition("orders");
+        assertEquals(2, loads.get());
+
+        // Nor can this one, after the time to live.
+        clock.advance(TimeUnit.SECONDS.toNanos(301));
+        definition("orders");
+        assertEquals(3, loads.get());
+        assertEquals(2, statistics().getStale().get());
+    }
+
+    @Test
+    public void versionedEntriesFollowTheDdlTime() throws SQLException {
+        withMetastoreDirect();
+        ddlTimes.put("orders", "1000");
+        definition("orders");
+
+        // A new session, with the table unchanged.
+        session = newSession("session-2");
+        definition("orders");
+        assertEquals(1, loads.get());
+
+        // Altered between runs.
+        ddlTimes.put("orders", "2000");
+        session = newSession("session-3");
+        definition("orders");
+        assertEquals(2, loads.get());
+        assertEquals(1, statistics().getStale().get());
+    }
+
+    @Test
+    public void failedLookupsArentCached() throws SQLException {
+        assertNull(catalogCacheService.getDatabaseProperties(Environment.LEFT, "missing", () -> null));
+        Map<String, String> props = catalogCacheService.getDatabaseProperties(Environment.LEFT, "missing",
+                () -> Collections.singletonMap("LOCATION", "/warehouse/missing.db"));
+        assertEquals("/warehouse/missing.db", props.get("LOCATION"));
+
+        assertTrue(catalogCacheService.getDatabases(Environment.LEFT, ArrayList::new).isEmpty());
+        assertEquals(Collections.singletonList("default"),
+                catalogCacheService.getDatabases(Environment.LEFT, () -> new ArrayList<>(Collections.singletonList("default"))));
+        assertEquals(0, statistics().getHits().get());
+    }
+
+    @Test
+    public void invalidateTheTableAndItsWorkingTables() throws SQLException {
+        definition("orders");
+        definition("hms_mirror_transfer_orders");
+        definition("customers");
+
+        DBMirror dbMirror = new DBMirror();
+        dbMirror.setName("sales");
+        TableMirror tableMirror = dbMirror.addTable("orders");
+        catalogCacheService.invalidateTable(Environment.LEFT, tableMirror);
+        assertEquals(2, statistics().getInvalidations().get());
+
+        definition("orders");
+        definition("hms_mirror_transfer_orders");
+        definition("customers");
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    public void invalidateOnlyTheNamedTables() throws SQLException {
+        definition("a");
+        definition("hms_mirror_shadow_a");
+        definition("a_storage_migration");
+        definition("sales");
+        definition("hms_mirror_transfer_sales");
+
+        DBMirror dbMirror = new DBMirror();
+        dbMirror.setName("sales");
+        TableMirror tableMirror = dbMirror.addTable("a");
+        catalogCacheService.invalidateTable(Environment.LEFT, tableMirror);
+        assertEquals(3, statistics().getInvalidations().get());
+
+        // The names that contain 'a' are still cached.
+        definition("sales");
+        definition("hms_mirror_transfer_sales");
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    public void invalidateTheDatabase() throws SQLException {
+        catalogCacheService.getDatabases(Environment.LEFT, () -> new ArrayList<>(Arrays.asList("default", "sales")));
+        catalogCacheService.getDatabaseProperties(Environment.LEFT, "sales", () -> new TreeMap<>());
+        definition("orders");
+
+        // An ALTER DATABASE leaves the tables alone.
+        catalogCacheService.invalidateDatabase(Environment.LEFT, "sales", false);
+        assertEquals(2, statistics().getInvalidations().get());
+        definition("orders");
+        assertEquals(1, loads.get());
+
+        // A DROP DATABASE doesn't.
+        catalogCacheService.invalidateDatabase(Environment.LEFT, "sales", true);
+        definition("orders");
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void disabled() throws SQLException {
+        session.getConfig().getOptimization().setCatalogCache(Boolean.FALSE);
+        definition("orders");
+        definition("orders");
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void persistAndLoadForTheNextRun() throws SQLException {
+        withMetastoreDirect();
+        ddlTimes.put("orders", "1000");
+        session.getConfig().getOptimization().setPersistCatalogCache(Boolean.TRUE);
+        definition("orders");
+        // Not versioned, so not saved.
+        definition("no_ddl_time");
+
+        File reportDirectory = new File(outputDirectory, "session-1");
+        reportDirectory.mkdirs();
+        session.getConfig().setFinalOutputDirectory(reportDirectory.getPath());
+        catalogCacheService.finish();
+        assertTrue(new File(reportDirectory, CatalogCacheService.CACHE_FILE).exists());
+
+        // A new process, for the execute run.
+        catalogCacheService.invalidateAll();
+        session = newSession("session-2");
+        session.getConfig().getOptimization().setPersistCatalogCache(Boolean.TRUE);
+        catalogCacheService.load();
+        assertEquals(1, statistics().getLoaded().get());
+
+        definition("orders");
+        definition("no_ddl_time");
+        assertEquals(3, loads.get());
+        assertEquals(1, statistics().getHits().get());
+    }
+
+    @Test
+    public void finishDropsTheSessionsUnversionedEntries() throws SQLException {
+        withMetastoreDirect();
+        ddlTimes.put("orders", "1000");
+        definition("orders");
+        definition("no_ddl_time");
+        catalogCacheService.getDatabases(Environment.LEFT, () -> Arrays.asList("default", "sales"));
+
+        // Another session's entries are its own to drop.
+        ExecuteSession first = session;
+        session = newSession("session-2");
+        definition("returns");
+        when(executeSessionService.getSession()).thenReturn(first);
+
+        catalogCacheService.finish();
+        Map<String, CatalogCacheEntry> entries = catalogCacheService.getEntries();
+        assertEquals(2, entries.size());
+        assertTrue(entries.keySet().stream().anyMatch(k -> k.endsWith("sales.orders")));
+        assertTrue(entries.keySet().stream().anyMatch(k -> k.endsWith("sales.returns")));
+    }
+
+    @Test
+    public void theOldestEntriesAreDroppedOverTheLimit() throws SQLException {
+        session.getConfig().getOptimization().setCatalogCacheMaxEntries(10);
+        for (int i = 0; i < 10; i++) {
+            definition("table_" + i);
+            clock.advance(TimeUnit.SECONDS.toNanos(1));
+        }
+        assertEquals(10, catalogCacheService.getEntries().size());
+
+        // Down to 90% of the limit, the oldest first.
+        definition("table_10");
+        assertEquals(9, catalogCacheService.getEntries().size());
+        loads.set(0);
+        definition("table_10");
+        definition("table_2");
+        assertEquals(0, loads.get());
+        definition("table_1");
+        assertEquals(1, loads.get());
+    }
+}
@@ -53,10 +53,16 @@ public class DatabaseServiceTest {
     @Mock
     private WarehouseService warehouseService;
 
+    @Mock
+    private RateLimiterService rateLimiterService;
+
     @BeforeEach
     public void setUp() {
         databaseService = new DatabaseService(configService, executeSessionService, connectionPoolService, queryDefinitionsService,
-                warehouseService);
+                warehouseService, rateLimiterService, new SqlResilienceService(executeSessionService, rateLimiterService,
+                        connectionPoolService),
+                new CatalogCacheService(configService, executeSessionService,
+                        queryDefinitionsService, null), Runnable::run);
         when(executeSessionService.getSession()).thenReturn(executeSession);
         when(executeSession.getConfig()).thenReturn(config);
         when(executeSession.getRunStatus()).thenReturn(runStatus);
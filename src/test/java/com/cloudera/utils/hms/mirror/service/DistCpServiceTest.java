@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.MirrorConf;
+import com.cloudera.utils.hms.mirror.domain.DBMirror;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.cloudera.utils.hms.mirror.domain.support.Conversion;
+import com.cloudera.utils.hms.mirror.domain.support.DataStrategyEnum;
+import com.cloudera.utils.hms.mirror.domain.support.DistCpJob;
+import com.cloudera.utils.hms.mirror.domain.support.DistCpSource;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistCpServiceTest {
+
+    private static final long GB = 1024L * 1024L * 1024L;
+
+    @TempDir
+    File outputDirectory;
+
+    private DistCpService distCpService;
+    private ThreadPoolTaskExecutor metadataThreadPool;
+
+    @BeforeEach
+    public void setup() {
+        metadataThreadPool = new ThreadPoolTaskExecutor();
+        metadataThreadPool.setCorePoolSize(8);
+        metadataThreadPool.setMaxPoolSize(8);
+        metadataThreadPool.setThreadNamePrefix("metadata-");
+        metadataThreadPool.initialize();
+        distCpService = new DistCpService(new ObjectMapper(new YAMLFactory()), metadataThreadPool);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        metadataThreadPool.shutdown();
+    }
+
+    @Test
+    public void oversizedSourceGetsItsOwnJob() {
+        List<DistCpSource> sources = new ArrayList<>();
+        sources.add(source("big_db", "hdfs://target/big_db.db", "hdfs://source/big_db.db/facts", 500 * GB, 10000, false));
+        for (int i = 0; i < 200; i++) {
+            sources.add(source("tiny_db_" + i, "hdfs://target/tiny_db_" + i + ".db",
+                    "hdfs://source/tiny_db_" + i + ".db/tbl", GB, 100, false));
+        }
+
+        List<DistCpJob> jobs = distCpService.optimizeDistCpJobs(sources, 4, 500, 100);
+        assertEquals(4, jobs.size());
+        // The largest source is placed first, on its own.
+        assertEquals(1, jobs.get(0).getSources().size());
+        assertEquals(500 * GB, jobs.get(0).getDataSize());
+        // The small ones are spread evenly over the rest.
+        for (DistCpJob job : jobs.subList(1, jobs.size())) {
+            assertTrue(Math.abs(job.getSources().size() - 200 / 3) <= 1, "Job " + job.getId());
+        }
+        assertEquals(sources.size(), jobs.stream().mapToInt(job -> job.getSources().size()).sum());
+    }
+
+    @Test
+    public void jobsAreBalanced() {
+        List<DistCpSource> sources = new ArrayList<>();
+        long[] sizes = {70, 60, 50, 40, 30, 30, 20, 20, 10, 10, 5, 5};
+        for (int i = 0; i < sizes.length; i++) {
+            sources.add(source("db", "hdfs://target/db.db", "hdfs://source/db.db/tbl_" + i, sizes[i] * GB, 10, true));
+        }
+        List<DistCpJob> jobs = distCpService.optimizeDistCpJobs(sources, 3, 500, 100);
+        assertEquals(3, jobs.size());
+        double max = jobs.stream().mapToDouble(DistCpJob::getEstimatedSeconds).max().orElse(0);
+        double min = jobs.stream().mapToDouble(DistCpJob::getEstimatedSeconds).min().orElse(0);
+        // 350GB total, so an even split is ~117GB per job.  The largest first placement stays within 10%.
+        assertTrue(max / min < 1.1, "max: " + max + " min: " + min);
+        // The target was built from several sources, so every job copies with a source list.
+        for (DistCpJob job : jobs) {
+            assertTrue(job.isSourceList("hdfs://target/db.db"));
+        }
+    }
+
+    @Test
+    public void moreJobsThanSources() {
+        List<DistCpSource> sources = Arrays.asList(
+                source("db", "hdfs://target/a", "hdfs://source/a", GB, 1, false),
+                source("db", "hdfs://target/b", "hdfs://source/b", GB, 1, false));
+        List<DistCpJob> jobs = distCpService.optimizeDistCpJobs(sources, 10, 500, 100);
+        assertEquals(2, jobs.size());
+    }
+
+    @Test
+    public void unsizedSourcesAreStillSpread() {
+        List<DistCpSource> sources = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            sources.add(new DistCpSource("db", "hdfs://target/db.db", "hdfs://source/db.db/tbl_" + i, true));
+        }
+        distCpService.sizeDistCpSources(new Conversion(), sources);
+        List<DistCpJob> jobs = distCpService.optimizeDistCpJobs(sources, 3, 500, 100);
+        for (DistCpJob job : jobs) {
+            assertEquals(3, job.getSources().size());
+        }
+    }
+
+    @Test
+    public void sizeFromTableStatistics() {
+        Conversion conversion = new Conversion();
+        DBMirror dbMirror = conversion.addDatabase("sales");
+        addTable(dbMirror, "orders", "hdfs://source/warehouse/sales.db/orders", 40 * GB, 400);
+        addTable(dbMirror, "order_items", "hdfs://source/warehouse/sales.db/order_items", 60 * GB, 600);
+        addTable(dbMirror, "landing", "hdfs://source/landing/sales/landing", 10 * GB, 50);
+
+        DistCpSource warehouse = new DistCpSource("sales", "hdfs://target/sales.db",
+                "hdfs://source/warehouse/sales.db", true);
+        DistCpSource orders = new DistCpSource("sales", "hdfs://target/sales.db",
+                "hdfs://source/warehouse/sales.db/orders", true);
+        DistCpSource other = new DistCpSource("sales", "hdfs://target/other", "hdfs://source/other", false);
+        List<DistCpSource> sources = Arrays.asList(warehouse, orders, other);
+
+        distCpService.sizeDistCpSources(conversion, sources);
+
+        // 'orders' is only counted against the deepest source that holds it.
+        assertEquals(40 * GB, orders.getDataSize());
+        assertEquals(400, orders.getFileCount());
+        assertEquals(60 * GB, warehouse.getDataSize());
+        assertEquals(600, warehouse.getFileCount());
+        // No tables under it, so it gets the average.
+        assertFalse(other.isSized());
+        assertEquals(50 * GB, other.getDataSize());
+    }
+
+    @Test
+    public void sourcesByTarget() {
+        DistCpJob job = new DistCpJob(1);
+        job.add(source("db", "hdfs://target/b", "hdfs://source/b2", GB, 1, true), 1);
+        job.add(source("db", "hdfs://target/a", "hdfs://source/a", GB, 1, false), 1);
+        job.add(source("db", "hdfs://target/b", "hdfs://source/b1", GB, 1, true), 1);
+        assertEquals(Arrays.asList("hdfs://target/a", "hdfs://target/b"), new ArrayList<>(job.getSourcesByTarget().keySet()));
+        assertEquals(Set.of("hdfs://source/b1", "hdfs://source/b2"), job.getSourcesByTarget().get("hdfs://target/b"));
+        assertFalse(job.isSourceList("hdfs://target/a"));
+        assertEquals(3, job.getEstimatedSeconds());
+    }
+
+    @Test
+    public void formatDuration() {
+        assertEquals("00:00:00", DistCpService.formatDuration(0));
+        assertEquals("01:01:01", DistCpService.formatDuration(3660.2));
+    }
+
+    @Test
+    public void databaseReport() throws IOException {
+        File outputDir = new File(outputDirectory, "db_report");
+        outputDir.mkdirs();
+        distCpService.buildAllDistCpReports(reportSession(1, 1), outputDir.getPath());
+
+        assertEquals("## WARNING\n" +
+                "| Database | Target | Sources |\n" +
+                "|:---|:---|:---|\n" +
+                "| db_0 | | |\n" +
+                "| | hdfs://target/landing | hdfs://source/landing/db_0 |\n" +
+                "| | hdfs://target/warehouse/db_0.db | hdfs://source/warehouse/db_0.db/tbl_0<br>" +
+                "hdfs://source/warehouse/db_0.db/tbl_1<br>hdfs://source/warehouse/db_0.db/tbl_2<br> | \n",
+                read(outputDir, "db_0_LEFT_distcp_workbook.md"));
+        assertEquals("hdfs://source/warehouse/db_0.db/tbl_0\n" +
+                        "hdfs://source/warehouse/db_0.db/tbl_1\n" +
+                        "hdfs://source/warehouse/db_0.db/tbl_2\n",
+                read(outputDir, "db_0_LEFT_1_distcp_source.txt"));
+        String script = read(outputDir, "db_0_LEFT_distcp_script.sh");
+        assertTrue(script.startsWith("#!/usr/bin/env sh\n"));
+        assertTrue(script.endsWith("echo \"Only one element in path.\"\n" +
+                "echo \"Running 'distcp'\"\n" +
+                "hadoop distcp ${DISTCP_OPTS} hdfs://source/landing/db_0 hdfs://target/landing\n\n" +
+                "\n" +
+                "echo \"Copying 'distcp' source file to $HCFS_BASE_DIR\"\n" +
+                "\n" +
+                "hdfs dfs -copyFromLocal -f db_0_LEFT_1_distcp_source.txt ${HCFS_BASE_DIR}\n" +
+                "\n" +
+                "echo \"Running 'distcp'\"\n" +
+                "hadoop distcp ${DISTCP_OPTS} -skipcrccheck -f ${HCFS_BASE_DIR}/db_0_LEFT_1_distcp_source.txt " +
+                "hdfs://target/warehouse/db_0.db\n\n"), script);
+        assertTrue(new File(outputDir, "db_0_LEFT_distcp_plans.yaml").exists());
+        // STORAGE_MIGRATION only has the LEFT.
+        assertFalse(new File(outputDir, "db_0_RIGHT_distcp_workbook.md").exists());
+    }
+
+    @Test
+    public void reportsAreTheSameAtAnyConcurrency() throws IOException {
+        File sequentialDir = new File(outputDirectory, "sequential");
+        File parallelDir = new File(outputDirectory, "parallel");
+        sequentialDir.mkdirs();
+        parallelDir.mkdirs();
+
+        distCpService.buildAllDistCpReports(reportSession(12, 1), sequentialDir.getPath());
+        distCpService.buildAllDistCpReports(reportSession(12, 8), parallelDir.getPath());
+
+        Map<String, String> sequential = readAll(sequentialDir);
+        // A workbook, script, plan and source list for each database, and the balanced jobs.
+        assertTrue(sequential.containsKey("db_11_LEFT_distcp_workbook.md"));
+        assertTrue(sequential.containsKey("LEFT_distcp_jobs_runner.sh"));
+        assertTrue(sequential.size() > 12 * 4, sequential.keySet().toString());
+        assertEquals(sequential, readAll(parallelDir));
+    }
+
+    private static ExecuteSession reportSession(int databases, int concurrency) {
+        HmsMirrorConfig config = new HmsMirrorConfig();
+        config.setDataStrategy(DataStrategyEnum.STORAGE_MIGRATION);
+        config.getTransfer().getStorageMigration().setDistcpJobCount(3);
+        Conversion conversion = new Conversion();
+        for (int d = 0; d < databases; d++) {
+            String database = "db_" + d;
+            conversion.addDatabase(database);
+            for (int t = 0; t < 3; t++) {
+                config.getTranslator().addTranslation(database, Environment.LEFT,
+                        "hdfs://source/warehouse/" + database + ".db/tbl_" + t,
+                        "hdfs://target/warehouse/" + database + ".db/tbl_" + t, 1, false);
+            }
+            config.getTranslator().addTranslation(database, Environment.LEFT, "hdfs://source/landing/" + database,
+                    "hdfs://target/landing/" + database, 1, false);
+        }
+        ExecuteSession session = new ExecuteSession();
+        session.setConfig(config);
+        session.setConversion(conversion);
+        session.setConcurrency(concurrency);
+        return session;
+    }
+
+    private static String read(File dir, String fileName) throws IOException {
+        return new String(Files.readAllBytes(new File(dir, fileName).toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> readAll(File dir) throws IOException {
+        Map<String, String> rtn = new TreeMap<>();
+        for (File file : dir.listFiles()) {
+            rtn.put(file.getName(), read(dir, file.getName()));
+        }
+        return rtn;
+    }
+
+    private static DistCpSource source(String database, String target, String source, long dataSize,
+                                       long fileCount, boolean sourceList) {
+        DistCpSource rtn = new DistCpSource(database, target, source, sourceList);
+        rtn.setDataSize(dataSize);
+        rtn.setFileCount(fileCount);
+        rtn.setSized(Boolean.TRUE);
+        return rtn;
+    }
+
+    private static void addTable(DBMirror dbMirror, String table, String location, long dataSize, int fileCount) {
+        TableMirror tableMirror = dbMirror.addTable(table);
+        EnvironmentTable et = tableMirror.getEnvironmentTable(Environment.LEFT);
+        et.setName(table);
+        et.setDefinition(new ArrayList<>(Arrays.asList("CREATE EXTERNAL TABLE `" + table + "`(", "  `id` int)",
+                "LOCATION", "  '" + location + "'")));
+        et.getStatistics().put(MirrorConf.DATA_SIZE, dataSize);
+        et.getStatistics().put(MirrorConf.FILE_COUNT, fileCount);
+    }
+}
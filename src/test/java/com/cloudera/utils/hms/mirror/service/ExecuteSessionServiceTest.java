@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.ProgressEnum;
+import com.cloudera.utils.hms.mirror.exceptions.SessionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Several sessions running at the same time, each with its own id, run status and connection pools.
+ */
+public class ExecuteSessionServiceTest {
+
+    private ExecuteSessionService executeSessionService;
+    private ConnectionPoolService connectionPoolService;
+
+    @BeforeEach
+    public void setup() {
+        connectionPoolService = new ConnectionPoolService(null, null, null, null, null, null);
+        executeSessionService = new ExecuteSessionService(mock(ConfigService.class), null, connectionPoolService);
+        executeSessionService.setMaxConcurrentSessions(2);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        SessionContext.restore(null);
+    }
+
+    private ExecuteSession start(String name) throws SessionException {
+        ExecuteSession session = executeSessionService.createSession(name, new HmsMirrorConfig());
+        executeSessionService.setSession(session);
+        assertTrue(executeSessionService.startSession(4));
+        return session;
+    }
+
+    @Test
+    public void sessionsRunTogetherUpToTheMaximum() throws SessionException {
+        ExecuteSession one = start("one");
+        ExecuteSession two = start("two");
+        // Started in the same second, but each has its own id (and report directory).
+        assertNotEquals(one.getSessionId(), two.getSessionId());
+        assertEquals(two.getSessionId(), two.getRunStatus().getSessionId());
+        assertNotSame(one.getRunStatus(), two.getRunStatus());
+        assertNotSame(one.getConversion(), two.getConversion());
+        assertEquals(2, executeSessionService.getRunningSessions().size());
+        assertSame(one, executeSessionService.getSession(one.getSessionId()));
+
+        assertThrows(SessionException.class, () -> start("three"));
+
+        one.getRunStatus().setProgress(ProgressEnum.COMPLETED);
+        ExecuteSession three = start("three");
+        assertEquals(2, executeSessionService.getRunningSessions().size());
+        assertTrue(executeSessionService.getRunningSessions().contains(three));
+        // The finished session is still there for its status.
+        assertSame(one, executeSessionService.getSession(one.getSessionId()));
+    }
+
+    @Test
+    public void aRunningSessionCantBeStartedAgain() throws SessionException {
+        start("one");
+        assertThrows(SessionException.class, () -> executeSessionService.startSession(4));
+    }
+
+    @Test
+    public void boundSessionFollowsTheWork() throws Exception {
+        ExecuteSession one = start("one");
+        ExecuteSession two = start("two");
+        // 'two' is the current session, the one the unbound threads see.
+        assertSame(two, executeSessionService.getSession());
+        assertSame(two, connectionPoolService.getExecuteSession());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ExecuteSession previous = SessionContext.bind(one);
+            CompletableFuture<ExecuteSession> bound;
+            CompletableFuture<ExecuteSession> pool;
+            try {
+                assertSame(one, executeSessionService.getSession());
+                bound = CompletableFuture.supplyAsync(SessionContext.wrap(() -> executeSessionService.getSession()),
+                        executor);
+                pool = CompletableFuture.supplyAsync(SessionContext.wrap(() -> {
+                    try {
+                        return connectionPoolService.getExecuteSession();
+                    } catch (SessionException e) {
+                        throw new RuntimeException(e);
+                    }
+                }), executor);
+            } finally {
+                SessionContext.restore(previous);
+            }
+            assertSame(one, bound.join());
+            assertSame(one, pool.join());
+            // The pool threads are let go of the session after the task.
+            assertNull(CompletableFuture.supplyAsync(SessionContext::current, executor).join());
+            assertSame(two, executeSessionService.getSession());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void historyKeepsTheLatestSessions() throws SessionException {
+        executeSessionService.setMaxConcurrentSessions(1);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < ExecuteSessionService.MAX_SESSION_HISTORY + 5; i++) {
+            ExecuteSession session = start("s" + i);
+            ids.add(session.getSessionId());
+            session.getRunStatus().setProgress(ProgressEnum.COMPLETED);
+        }
+        assertEquals(ExecuteSessionService.MAX_SESSION_HISTORY + 5, ids.size());
+        assertEquals(ExecuteSessionService.MAX_SESSION_HISTORY, executeSessionService.getSessionHistory().size());
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hive.config.DBStore;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.util.QueryPagination;
+import com.cloudera.utils.hms.util.StreamingQueryExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the MYSQL metastoreDirect.yaml queries against an embedded H2 database loaded with a
+ * synthetic metastore schema.
+ */
+public class QueryDefinitionsServiceStreamingTest {
+
+    private static final String DB = "stream_db";
+    private static final int TABLES = 12;
+    private static final int PARTITIONS_PER_TABLE = 250;
+
+    private Connection conn;
+    private HmsMirrorConfig config;
+    private QueryDefinitionsService queryDefinitionsService;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:metastore_stream;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        loadSyntheticMetastore(conn);
+
+        config = new HmsMirrorConfig();
+        DBStore metastoreDirect = new DBStore();
+        metastoreDirect.setType(DBStore.DB_TYPE.MYSQL);
+        config.initClusterFor(Environment.LEFT).setMetastoreDirect(metastoreDirect);
+
+        ExecuteSessionService executeSessionService = mock(ExecuteSessionService.class);
+        ExecuteSession session = mock(ExecuteSession.class);
+        when(executeSessionService.getSession()).thenReturn(session);
+        when(session.getConfig()).thenReturn(config);
+
+        queryDefinitionsService = new QueryDefinitionsService(executeSessionService, null, null);
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    @Test
+    public void paginationDeclaredInYaml() {
+        QueryPagination partPagination = queryDefinitionsService.getPagination(Environment.LEFT, "part_locations");
+        assertNotNull(partPagination);
+        assertEquals("P.PART_ID", partPagination.getKeyColumn());
+        assertEquals("PART_ID", partPagination.getKeyAlias());
+        QueryPagination tblPagination = queryDefinitionsService.getPagination(Environment.LEFT, "database_table_locations");
+        assertNotNull(tblPagination);
+        assertEquals("T.TBL_ID", tblPagination.getKeyColumn());
+    }
+
+    @Test
+    public void streamPartLocations_unpaged() throws SQLException {
+        Map<String, String> partitions = new HashMap<>();
+        long rows = queryDefinitionsService.executeQuery(Environment.LEFT, conn, "part_locations",
+                resultSet -> partitions.put(resultSet.getString(1), resultSet.getString(2)), DB, "tbl_3");
+        assertEquals(PARTITIONS_PER_TABLE, rows);
+        assertEquals(PARTITIONS_PER_TABLE, partitions.size());
+        assertEquals("hdfs://ns/warehouse/stream_db.db/tbl_3/dt=7", partitions.get("dt=7"));
+    }
+
+    @Test
+    public void streamPartLocations_paged() throws SQLException {
+        config.getOptimization().setMetastoreDirectPageSize(33);
+        Map<String, String> partitions = new HashMap<>();
+        long rows = queryDefinitionsService.executeQuery(Environment.LEFT, conn, "part_locations",
+                resultSet -> partitions.put(resultSet.getString(1), resultSet.getString(2)), DB, "tbl_3");
+        assertEquals(PARTITIONS_PER_TABLE, rows);
+        assertEquals(PARTITIONS_PER_TABLE, partitions.size());
+    }
+
+    @Test
+    public void streamDatabasePartitionLocations_pagedMatchesUnpaged() throws SQLException {
+        Set<String> unpaged = new HashSet<>();
+        long unpagedRows = queryDefinitionsService.executeQuery(Environment.LEFT, conn, "database_partition_locations",
+                resultSet -> unpaged.add(resultSet.getString(1) + "/" + resultSet.getString(3)), DB);
+
+        // Page size that doesn't divide evenly into the row count.
+        config.getOptimization().setMetastoreDirectPageSize(97);
+        Set<String> paged = new HashSet<>();
+        long pagedRows = queryDefinitionsService.executeQuery(Environment.LEFT, conn, "database_partition_locations",
+                resultSet -> paged.add(resultSet.getString(1) + "/" + resultSet.getString(3)), DB);
+
+        assertEquals(TABLES * PARTITIONS_PER_TABLE, unpagedRows);
+        assertEquals(unpagedRows, pagedRows);
+        assertEquals(unpaged, paged);
+    }
+
+    @Test
+    public void streamDatabaseTableLocations_pageBoundary() throws SQLException {
+        // Page size equal to the row count forces an extra, empty page.
+        config.getOptimization().setMetastoreDirectPageSize(TABLES);
+        Set<String> tables = new HashSet<>();
+        long rows = queryDefinitionsService.executeQuery(Environment.LEFT, conn, "database_table_locations",
+                resultSet -> tables.add(resultSet.getString(1)), DB);
+        assertEquals(TABLES, rows);
+        assertEquals(TABLES, tables.size());
+    }
+
+    @Test
+    public void pagedStatementDialects() {
+        QueryPagination pagination = new QueryPagination();
+        pagination.setKeyColumn("P.PART_ID");
+        pagination.setKeyAlias("PART_ID");
+        String base = " SELECT P.PART_ID FROM PARTITIONS P WHERE P.TBL_ID = ? ";
+
+        StreamingQueryExecutor mysql = new StreamingQueryExecutor(DBStore.DB_TYPE.MYSQL, 0, 100);
+        assertEquals("SELECT P.PART_ID FROM PARTITIONS P WHERE P.TBL_ID = ? AND P.PART_ID > ? ORDER BY P.PART_ID LIMIT 100",
+                mysql.buildPagedStatement(base, pagination, 100));
+
+        StreamingQueryExecutor oracle = new StreamingQueryExecutor(DBStore.DB_TYPE.ORACLE, 0, 100);
+        assertEquals("SELECT P.PART_ID FROM PARTITIONS P WHERE P.TBL_ID = ? AND P.PART_ID > ? ORDER BY P.PART_ID FETCH FIRST 100 ROWS ONLY",
+                oracle.buildPagedStatement(base, pagination, 100));
+        assertEquals(StreamingQueryExecutor.DEFAULT_FETCH_SIZE, oracle.getFetchSize());
+    }
+
+    @Test
+    public void postgresStreamingRestoresAutoCommit() throws SQLException {
+        StreamingQueryExecutor postgres = new StreamingQueryExecutor(DBStore.DB_TYPE.POSTGRES, 10, 0);
+        conn.setAutoCommit(true);
+        long rows = postgres.execute(conn, "SELECT PART_ID FROM PARTITIONS WHERE TBL_ID = ?", null,
+                resultSet -> assertFalse(conn.getAutoCommit()), 1L);
+        assertEquals(PARTITIONS_PER_TABLE, rows);
+        assertTrue(conn.getAutoCommit());
+    }
+
+    private static void loadSyntheticMetastore(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE DBS (DB_ID BIGINT PRIMARY KEY, NAME VARCHAR(128))");
+            stmt.execute("CREATE TABLE SDS (SD_ID BIGINT PRIMARY KEY, LOCATION VARCHAR(4000))");
+            stmt.execute("CREATE TABLE TBLS (TBL_ID BIGINT PRIMARY KEY, DB_ID BIGINT, SD_ID BIGINT, " +
+                    "TBL_NAME VARCHAR(256), TBL_TYPE VARCHAR(128))");
+            stmt.execute("CREATE TABLE PARTITIONS (PART_ID BIGINT PRIMARY KEY, TBL_ID BIGINT, SD_ID BIGINT, " +
+                    "PART_NAME VARCHAR(767))");
+            stmt.execute("INSERT INTO DBS VALUES (1, '" + DB + "')");
+            // A second database that should never show up in the results.
+            stmt.execute("INSERT INTO DBS VALUES (2, 'other_db')");
+        }
+        long sdId = 1;
+        long partId = 1;
+        try (PreparedStatement sds = conn.prepareStatement("INSERT INTO SDS VALUES (?, ?)");
+             PreparedStatement tbls = conn.prepareStatement("INSERT INTO TBLS VALUES (?, ?, ?, ?, 'EXTERNAL_TABLE')");
+             PreparedStatement parts = conn.prepareStatement("INSERT INTO PARTITIONS VALUES (?, ?, ?, ?)")) {
+            for (int t = 1; t <= TABLES + 1; t++) {
+                long dbId = t <= TABLES ? 1 : 2;
+                String tableLocation = "hdfs://ns/warehouse/stream_db.db/tbl_" + t;
+                long tblSdId = sdId++;
+                sds.setLong(1, tblSdId);
+                sds.setString(2, tableLocation);
+                sds.addBatch();
+                tbls.setLong(1, t);
+                tbls.setLong(2, dbId);
+                tbls.setLong(3, tblSdId);
+                tbls.setString(4, "tbl_" + t);
+                tbls.addBatch();
+                for (int p = 1; p <= PARTITIONS_PER_TABLE; p++) {
+                    long partSdId = sdId++;
+                    sds.setLong(1, partSdId);
+                    sds.setString(2, tableLocation + "/dt=" + p);
+                    sds.addBatch();
+                    parts.setLong(1, partId++);
+                    parts.setLong(2, t);
+                    parts.setLong(3, partSdId);
+                    parts.setString(4, "dt=" + p);
+                    parts.addBatch();
+                }
+            }
+            sds.executeBatch();
+            tbls.executeBatch();
+            parts.executeBatch();
+        }
+    }
+}
@@ -27,7 +27,7 @@ public class QueryDefinitionsServiceTest {
 //    @Test
 //    void testGetQueryDefinitions_CachedEnvironment() {
 //        ExecuteSessionService mockExecuteSessionService = mock(ExecuteSessionService.class);
-//        QueryDefinitionsService queryDefinitionsService = new QueryDefinitionsService(mockExecuteSessionService);
+//        QueryDefinitionsService queryDefinitionsService = new QueryDefinitionsService(mockExecuteSessionService, null, null);
 //
 //        QueryDefinitions cachedQueryDefinitions = new QueryDefinitions();
 //        queryDefinitionsService.queryDefinitionsMap.put(Environment.LEFT, cachedQueryDefinitions);
@@ -63,7 +63,7 @@ public class QueryDefinitionsServiceTest {
 //        when(mockCluster.getMetastoreDirect()).thenReturn(mockDBStore);
         when(mockDBStore.getType()).thenReturn(DBStore.DB_TYPE.MYSQL);
 
-        QueryDefinitionsService queryDefinitionsService = new QueryDefinitionsService(mockExecuteSessionService);
+        QueryDefinitionsService queryDefinitionsService = new QueryDefinitionsService(mockExecuteSessionService, null, null);
 
 //        URL mockURL = this.getClass().getResource("/"+type.toString()+"/metastoreDirect.yaml");
 //        assertNotNull(mockURL, "Resource file for "+type.toString()+"/metastoreDirect.yaml must exist");
@@ -95,7 +95,7 @@ public class QueryDefinitionsServiceTest {
         when(mockCluster.getMetastoreDirect()).thenReturn(mockDBStore);
         when(mockDBStore.getType()).thenReturn(type);
 
-        QueryDefinitionsService queryDefinitionsService = new QueryDefinitionsService(mockExecuteSessionService);
+        QueryDefinitionsService queryDefinitionsService = new QueryDefinitionsService(mockExecuteSessionService, null, null);
 
         URL mockURL = this.getClass().getResource("/"+type.toString()+"/metastoreDirect.yaml");
         assertNotNull(mockURL, "Resource file for "+type.toString()+"/metastoreDirect.yaml must exist");
@@ -108,6 +108,10 @@ public class QueryDefinitionsServiceTest {
         assertNotNull(result.getQueryDefinition("part_locations"), "Loaded YAML content must have valid query for: 'part_locations'");
         assertNotNull(result.getQueryDefinition("database_partition_locations"), "Loaded YAML content must have valid query for: 'database_partition_locations'");
         assertNotNull(result.getQueryDefinition("database_table_locations"), "Loaded YAML content must have valid query for: 'database_table_locations'");
+        assertNotNull(result.getQueryDefinition("database_table_schemas"), "Loaded YAML content must have valid query for: 'database_table_schemas'");
+        assertNotNull(result.getQueryDefinition("database_table_ddl_times"), "Loaded YAML content must have valid query for: 'database_table_ddl_times'");
+        assertNotNull(result.getQueryDefinition("database_iceberg_eligibility"), "Loaded YAML content must have valid query for: 'database_iceberg_eligibility'");
+        assertNotNull(result.getQueryDefinition("database_table_filter_attributes"), "Loaded YAML content must have valid query for: 'database_table_filter_attributes'");
     }
 
     @Test
@@ -127,7 +131,7 @@ public class QueryDefinitionsServiceTest {
         when(mockCluster.getMetastoreDirect()).thenReturn(mockDBStore);
         when(mockDBStore.getType()).thenReturn(type);
 
-        QueryDefinitionsService queryDefinitionsService = new QueryDefinitionsService(mockExecuteSessionService);
+        QueryDefinitionsService queryDefinitionsService = new QueryDefinitionsService(mockExecuteSessionService, null, null);
 
         URL mockURL = this.getClass().getResource("/"+type.toString()+"/metastoreDirect.yaml");
         assertNotNull(mockURL, "Resource file for "+type.toString()+"/metastoreDirect.yaml must exist");
@@ -140,6 +144,10 @@ public class QueryDefinitionsServiceTest {
         assertNotNull(result.getQueryDefinition("part_locations"), "Loaded YAML content must have valid query for: 'part_locations'");
         assertNotNull(result.getQueryDefinition("database_partition_locations"), "Loaded YAML content must have valid query for: 'database_partition_locations'");
         assertNotNull(result.getQueryDefinition("database_table_locations"), "Loaded YAML content must have valid query for: 'database_table_locations'");
+        assertNotNull(result.getQueryDefinition("database_table_schemas"), "Loaded YAML content must have valid query for: 'database_table_schemas'");
+        assertNotNull(result.getQueryDefinition("database_table_ddl_times"), "Loaded YAML content must have valid query for: 'database_table_ddl_times'");
+        assertNotNull(result.getQueryDefinition("database_iceberg_eligibility"), "Loaded YAML content must have valid query for: 'database_iceberg_eligibility'");
+        assertNotNull(result.getQueryDefinition("database_table_filter_attributes"), "Loaded YAML content must have valid query for: 'database_table_filter_attributes'");
     }
 
     @Test
@@ -159,7 +167,7 @@ public class QueryDefinitionsServiceTest {
         when(mockCluster.getMetastoreDirect()).thenReturn(mockDBStore);
         when(mockDBStore.getType()).thenReturn(type);
 
-        QueryDefinitionsService queryDefinitionsService = new QueryDefinitionsService(mockExecuteSessionService);
+        QueryDefinitionsService queryDefinitionsService = new QueryDefinitionsService(mockExecuteSessionService, null, null);
 
         URL mockURL = this.getClass().getResource("/"+type.toString()+"/metastoreDirect.yaml");
         assertNotNull(mockURL, "Resource file for "+type.toString()+"/metastoreDirect.yaml must exist");
@@ -172,6 +180,10 @@ public class QueryDefinitionsServiceTest {
         assertNotNull(result.getQueryDefinition("part_locations"), "Loaded YAML content must have valid query for: 'part_locations'");
         assertNotNull(result.getQueryDefinition("database_partition_locations"), "Loaded YAML content must have valid query for: 'database_partition_locations'");
         assertNotNull(result.getQueryDefinition("database_table_locations"), "Loaded YAML content must have valid query for: 'database_table_locations'");
+        assertNotNull(result.getQueryDefinition("database_table_schemas"), "Loaded YAML content must have valid query for: 'database_table_schemas'");
+        assertNotNull(result.getQueryDefinition("database_table_ddl_times"), "Loaded YAML content must have valid query for: 'database_table_ddl_times'");
+        assertNotNull(result.getQueryDefinition("database_iceberg_eligibility"), "Loaded YAML content must have valid query for: 'database_iceberg_eligibility'");
+        assertNotNull(result.getQueryDefinition("database_table_filter_attributes"), "Loaded YAML content must have valid query for: 'database_table_filter_attributes'");
     }
 
     /**
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.RateLimitWindow;
+import com.cloudera.utils.hms.mirror.domain.RateLimits;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.RateLimitOperationEnum;
+import com.cloudera.utils.hms.utils.FakeClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the rate limits against a fake clock, so the waits are measured instead of slept.
+ */
+public class RateLimiterServiceTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private HmsMirrorConfig config;
+    private RateLimits leftLimits;
+    private RateLimiterService rateLimiterService;
+
+    private RateLimiterService service(String time) {
+        FakeClock clock = new FakeClock(Instant.parse("2024-01-01T" + time + "Z"));
+        ExecuteSessionService executeSessionService = mock(ExecuteSessionService.class);
+        ExecuteSession session = mock(ExecuteSession.class);
+        when(executeSessionService.getSession()).thenReturn(session);
+        when(session.getConfig()).thenReturn(config);
+        RateLimiterService rtn = new RateLimiterService(executeSessionService);
+        rtn.setClock(clock);
+        rtn.setSleeper(clock.sleeper());
+        return rtn;
+    }
+
+    private long timeFor(RateLimiterService service, Environment environment, RateLimitOperationEnum operation,
+                         int calls) {
+        FakeClock clock = (FakeClock) service.getClock();
+        long start = clock.nanos();
+        for (int i = 0; i < calls; i++) {
+            service.acquire(environment, operation);
+        }
+        return clock.nanos() - start;
+    }
+
+    @BeforeEach
+    public void setup() {
+        config = new HmsMirrorConfig();
+        leftLimits = config.initClusterFor(Environment.LEFT).getRateLimits();
+        config.initClusterFor(Environment.RIGHT);
+        leftLimits.setCatalogRead(20);
+        leftLimits.setPartitionRead(2);
+        leftLimits.getSchedule().add(new RateLimitWindow("08:00", "18:00", 0.25));
+    }
+
+    @Test
+    public void offPeakUsesTheLimit() {
+        rateLimiterService = service("20:00:00");
+        // 20 of burst, then 30 at 50ms.
+        assertEquals(1.5 * SECOND, timeFor(rateLimiterService, Environment.LEFT,
+                RateLimitOperationEnum.CATALOG_READ, 50), SECOND / 100);
+    }
+
+    @Test
+    public void peakWindowScalesTheLimit() {
+        rateLimiterService = service("09:00:00");
+        // A quarter of the limit, 5 per second: 5 of burst, then 45 at 200ms.
+        assertEquals(9 * SECOND, timeFor(rateLimiterService, Environment.LEFT,
+                RateLimitOperationEnum.CATALOG_READ, 50), SECOND / 100);
+    }
+
+    @Test
+    public void operationsAndEnvironmentsAreSeparate() {
+        rateLimiterService = service("20:00:00");
+        timeFor(rateLimiterService, Environment.LEFT, RateLimitOperationEnum.CATALOG_READ, 20);
+        // Partition reads have their own bucket: 2 of burst, then 8 at 500ms.
+        assertEquals(4 * SECOND, timeFor(rateLimiterService, Environment.LEFT,
+                RateLimitOperationEnum.PARTITION_READ, 10), SECOND / 100);
+        // No limit.
+        assertEquals(0, timeFor(rateLimiterService, Environment.LEFT, RateLimitOperationEnum.DDL_WRITE, 1000));
+        assertEquals(0, timeFor(rateLimiterService, Environment.RIGHT, RateLimitOperationEnum.CATALOG_READ, 1000));
+        assertEquals(0, timeFor(rateLimiterService, Environment.TRANSFER, RateLimitOperationEnum.CATALOG_READ, 10));
+    }
+
+    @Test
+    public void pausedWindowHoldsCallsUntilItCloses() {
+        leftLimits.getSchedule().add(0, new RateLimitWindow("07:00", "08:00", 0));
+        rateLimiterService = service("07:59:50");
+        // Held until 08:00, then at the peak rate.
+        long elapsed = timeFor(rateLimiterService, Environment.LEFT, RateLimitOperationEnum.CATALOG_READ, 1);
+        assertEquals(10 * SECOND, elapsed, SECOND);
+    }
+
+    @Test
+    public void newConfigStartsNewBuckets() {
+        rateLimiterService = service("20:00:00");
+        timeFor(rateLimiterService, Environment.LEFT, RateLimitOperationEnum.CATALOG_READ, 20);
+        assertTrue(timeFor(rateLimiterService, Environment.LEFT, RateLimitOperationEnum.CATALOG_READ, 1) > 0);
+
+        HmsMirrorConfig newConfig = config.clone();
+        newConfig.getCluster(Environment.LEFT).getRateLimits().setCatalogRead(0);
+        when(rateLimiterService.getExecuteSessionService().getSession().getConfig()).thenReturn(newConfig);
+        assertEquals(0, timeFor(rateLimiterService, Environment.LEFT, RateLimitOperationEnum.CATALOG_READ, 100));
+    }
+
+    @Test
+    public void windows() {
+        RateLimitWindow overnight = new RateLimitWindow("22:00", "06:00", 2);
+        assertTrue(overnight.contains(LocalTime.parse("23:00")));
+        assertTrue(overnight.contains(LocalTime.parse("05:59")));
+        assertFalse(overnight.contains(LocalTime.parse("06:00")));
+        assertFalse(overnight.contains(LocalTime.parse("12:00")));
+        assertEquals(0.25, leftLimits.getFactor(LocalTime.parse("17:59")));
+        assertEquals(1.0, leftLimits.getFactor(LocalTime.parse("18:00")));
+    }
+
+    @Test
+    public void statementClasses() {
+        assertNull(RateLimitOperationEnum.forStatement("SET hive.exec.dynamic.partition=true"));
+        assertNull(RateLimitOperationEnum.forStatement(" use my_db"));
+        assertEquals(RateLimitOperationEnum.DATA_TRANSFER,
+                RateLimitOperationEnum.forStatement("FROM a INSERT OVERWRITE TABLE b SELECT *"));
+        assertEquals(RateLimitOperationEnum.DATA_TRANSFER, RateLimitOperationEnum.forStatement("EXPORT TABLE a TO '/x'"));
+        assertEquals(RateLimitOperationEnum.DDL_WRITE, RateLimitOperationEnum.forStatement("CREATE EXTERNAL TABLE a (x int)"));
+        assertEquals(RateLimitOperationEnum.DDL_WRITE, RateLimitOperationEnum.forStatement("ALTER TABLE a ADD PARTITION (x=1)"));
+        assertEquals(RateLimitOperationEnum.PARTITION_READ, RateLimitOperationEnum.forStatement("SHOW PARTITIONS a.b"));
+        assertEquals(RateLimitOperationEnum.CATALOG_READ, RateLimitOperationEnum.forStatement("SHOW CREATE TABLE b"));
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Streaming the session reports as a zip, with the database and file type filters.
+ */
+public class ReportServiceTest {
+
+    private static final String SESSION = "2024-01-01_00-00-00";
+
+    @TempDir
+    File reportDirectory;
+
+    private ReportService reportService;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        ExecuteSessionService executeSessionService = mock(ExecuteSessionService.class);
+        when(executeSessionService.getReportOutputDirectory()).thenReturn(reportDirectory.getPath());
+        reportService = new ReportService(null, executeSessionService);
+
+        File session = new File(reportDirectory, SESSION);
+        session.mkdirs();
+        for (String file : Arrays.asList("session-config.yaml", "run-status.yaml",
+                "sales_hms-mirror.yaml", "sales_hms-mirror.md", "sales_LEFT_execute.sql",
+                "sales_archive_hms-mirror.yaml", "sales_archive_LEFT_execute.sql",
+                "hr_hms-mirror.yaml", "hr_RIGHT_execute.sql")) {
+            Files.write(new File(session, file).toPath(), file.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private Map<String, String> download(Set<String> databases, Set<String> fileTypes) throws IOException {
+        ResponseEntity<StreamingResponseBody> entity = reportService.getZippedReport(SESSION, databases, fileTypes);
+        assertTrue(entity.getHeaders().getFirst("Content-Disposition").contains(SESSION + ".zip"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Objects.requireNonNull(entity.getBody()).writeTo(out);
+
+        Map<String, String> rtn = new TreeMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                rtn.put(entry.getName(), new String(zis.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return rtn;
+    }
+
+    @Test
+    public void zipsEverything() throws IOException {
+        Map<String, String> entries = download(null, null);
+        assertEquals(9, entries.size());
+        // The content makes it through the stream.
+        assertEquals("hr_RIGHT_execute.sql", entries.get("hr_RIGHT_execute.sql"));
+    }
+
+    @Test
+    public void filterByDatabase() throws IOException {
+        Map<String, String> entries = download(Collections.singleton("sales"), null);
+        // The session files come along, but not 'sales_archive'.
+        assertEquals(new TreeSet<>(Arrays.asList("run-status.yaml", "session-config.yaml",
+                "sales_LEFT_execute.sql", "sales_hms-mirror.md", "sales_hms-mirror.yaml")), entries.keySet());
+    }
+
+    @Test
+    public void filterByFileType() throws IOException {
+        Map<String, String> entries = download(null, new HashSet<>(Arrays.asList(".SQL")));
+        assertEquals(new TreeSet<>(Arrays.asList("hr_RIGHT_execute.sql", "sales_LEFT_execute.sql",
+                "sales_archive_LEFT_execute.sql")), entries.keySet());
+    }
+
+    @Test
+    public void missingSession() {
+        assertThrows(IOException.class, () -> reportService.getZippedReport("not-there"));
+    }
+
+    /**
+     * Zips a 2 GB report directory in a JVM with a 32 MB heap.  Staging the zip in memory (or the files) would
+     * run out of heap, so this only finishes if the download is streamed.
+     */
+    @Test
+    public void largeReportWithSmallHeap() throws Exception {
+        File session = new File(reportDirectory, "large");
+        session.mkdirs();
+        long size = 0;
+        for (int i = 0; i < 4; i++) {
+            // Sparse, so the test doesn't need the disk space.
+            try (RandomAccessFile raf = new RandomAccessFile(new File(session, "db" + i + "_LEFT_execute.sql"), "rw")) {
+                raf.setLength(512L * 1024 * 1024);
+                size += raf.length();
+            }
+        }
+        assumeTrue(size == 2L * 1024 * 1024 * 1024);
+
+        String javaBin = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder pb = new ProcessBuilder(javaBin, "-Xmx32m", "-cp", System.getProperty("java.class.path"),
+                LargeReportZip.class.getName(), session.getPath());
+        pb.redirectErrorStream(true);
+        File log = new File(reportDirectory, "large.log");
+        pb.redirectOutput(log);
+        Process process = pb.start();
+        assertTrue(process.waitFor(5, TimeUnit.MINUTES), "Timed out zipping the large report");
+        String output = new String(Files.readAllBytes(log.toPath()), StandardCharsets.UTF_8);
+        assertEquals(0, process.exitValue(), output);
+        assertTrue(output.contains("entries=4"), output);
+    }
+
+    /*
+    Run in its own JVM by 'largeReportWithSmallHeap'.  Writes the zip to nowhere and reports what it read back.
+     */
+    public static class LargeReportZip {
+        public static void main(String[] args) throws IOException {
+            PipedInputStream in = new PipedInputStream(ReportService.ZIP_BUFFER_SIZE);
+            PipedOutputStream out = new PipedOutputStream(in);
+            Thread writer = new Thread(() -> {
+                try (OutputStream os = out) {
+                    new ReportService(null, null).writeZipFromDirectory(args[0], os, null, null);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    System.exit(2);
+                }
+            });
+            writer.start();
+            int entries = 0;
+            long bytes = 0;
+            byte[] buffer = new byte[ReportService.ZIP_BUFFER_SIZE];
+            try (ZipInputStream zis = new ZipInputStream(in)) {
+                while (zis.getNextEntry() != null) {
+                    entries++;
+                    int length;
+                    while ((length = zis.read(buffer)) >= 0) {
+                        bytes += length;
+                    }
+                }
+            }
+            System.out.println("entries=" + entries + " bytes=" + bytes);
+            System.exit(bytes == 2L * 1024 * 1024 * 1024 ? 0 : 1);
+        }
+    }
+}
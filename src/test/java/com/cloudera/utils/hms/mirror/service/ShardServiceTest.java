@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.EnvironmentConstants;
+import com.cloudera.utils.hms.mirror.cli.Mirror;
+import com.cloudera.utils.hms.mirror.domain.DBMirror;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.support.Conversion;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ShardByEnum;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Assigning the work to the shards and merging the reports the workers write, and coordinator runs of the
+ * application with its workers as local processes.
+ */
+public class ShardServiceTest {
+
+    private static final String TEST_DATABASE = "assorted_test_db";
+
+    private ObjectMapper yamlMapper;
+    private ShardService shardService;
+
+    @TempDir
+    File workDirectory;
+
+    @BeforeEach
+    public void setup() {
+        yamlMapper = new ObjectMapper(new YAMLFactory());
+        shardService = new ShardService(mock(ExecuteSessionService.class), yamlMapper);
+    }
+
+    private HmsMirrorConfig worker(ShardByEnum by, int count, int index) {
+        HmsMirrorConfig config = new HmsMirrorConfig();
+        config.getSharding().setBy(by);
+        config.getSharding().setCount(count);
+        config.getSharding().setIndex(index);
+        return config;
+    }
+
+    @Test
+    public void shardOfIsStableAndInRange() {
+        for (int i = 0; i < 100; i++) {
+            String db = "db_" + i;
+            int shard = ShardService.shardOf(db, 4);
+            assertTrue(shard >= 0 && shard < 4);
+            assertEquals(shard, ShardService.shardOf(db, 4));
+            assertEquals(shard, ShardService.shardOf(db.toUpperCase(), 4));
+        }
+    }
+
+    @Test
+    public void everyDatabaseGoesToExactlyOneWorker() {
+        Set<String> databases = new TreeSet<>();
+        for (int i = 0; i < 50; i++) {
+            databases.add("db_" + i);
+        }
+        Set<String> seen = new TreeSet<>();
+        int total = 0;
+        for (int index = 0; index < 3; index++) {
+            HmsMirrorConfig config = worker(ShardByEnum.DATABASE, 3, index);
+            config.setDatabases(new TreeSet<>(databases));
+            Conversion conversion = new Conversion();
+            for (String db : databases) {
+                conversion.addDatabase(db);
+            }
+            shardService.applyDatabaseShard(config, conversion);
+            assertEquals(config.getDatabases(), conversion.getDatabases().keySet());
+            seen.addAll(config.getDatabases());
+            total += config.getDatabases().size();
+        }
+        assertEquals(databases, seen);
+        assertEquals(databases.size(), total);
+    }
+
+    @Test
+    public void tableShardKeepsTheDatabases() {
+        int total = 0;
+        for (int index = 0; index < 2; index++) {
+            Conversion conversion = new Conversion();
+            DBMirror dbMirror = conversion.addDatabase("sales");
+            for (int i = 0; i < 20; i++) {
+                dbMirror.addTable("tbl_" + i);
+            }
+            HmsMirrorConfig config = worker(ShardByEnum.TABLE, 2, index);
+            // Only the table filter applies in TABLE mode.
+            shardService.applyDatabaseShard(config, conversion);
+            shardService.applyTableShard(config, conversion);
+            assertTrue(conversion.getDatabases().containsKey("sales"));
+            for (String table : dbMirror.getTableMirrors().keySet()) {
+                assertEquals(index, ShardService.shardOf("sales." + table, 2));
+            }
+            total += dbMirror.getTableMirrors().size();
+        }
+        assertEquals(20, total);
+    }
+
+    @Test
+    public void notAWorkerDoesNothing() {
+        HmsMirrorConfig config = worker(ShardByEnum.DATABASE, 1, -1);
+        config.setDatabases(new TreeSet<>(Arrays.asList("a", "b", "c")));
+        shardService.applyDatabaseShard(config, new Conversion());
+        assertEquals(3, config.getDatabases().size());
+    }
+
+    @Test
+    public void workerCommandAddsTheShard() {
+        List<String> command = shardService.workerCommand(Arrays.asList("java", "-jar", "hms-mirror.jar", "--shards", "2"),
+                "/tmp/work", 1);
+        assertEquals(Arrays.asList("java", "-jar", "hms-mirror.jar", "--shards", "2",
+                "--shard-index", "1", "--shard-work-dir", "/tmp/work"), command);
+    }
+
+    @Test
+    public void workerCommandReplacesTheCoordinatorsShardOptions() {
+        List<String> command = shardService.workerCommand(Arrays.asList("java", "-jar", "hms-mirror.jar", "-sh", "2",
+                "-shw", "/tmp/work", "--shard-index=0"), "/tmp/work", 1);
+        assertEquals(Arrays.asList("java", "-jar", "hms-mirror.jar", "-sh", "2",
+                "--shard-index", "1", "--shard-work-dir", "/tmp/work"), command);
+    }
+
+    private void writeReport(int shard, DBMirror dbMirror) throws IOException {
+        File dir = new File(workDirectory, ShardService.SHARD_DIRECTORY_PREFIX + shard);
+        dir.mkdirs();
+        yamlMapper.writeValue(new File(dir, dbMirror.getName() + ReportService.DB_REPORT_SUFFIX), dbMirror);
+    }
+
+    @Test
+    public void mergeShardReports() throws IOException {
+        DBMirror sales0 = new DBMirror();
+        sales0.setName("sales");
+        sales0.addTable("orders");
+        sales0.addIssue(Environment.LEFT, "common issue");
+        DBMirror hr = new DBMirror();
+        hr.setName("hr");
+        hr.addTable("people");
+        writeReport(0, sales0);
+        writeReport(0, hr);
+
+        DBMirror sales1 = new DBMirror();
+        sales1.setName("sales");
+        sales1.addTable("customers");
+        sales1.addIssue(Environment.LEFT, "common issue");
+        sales1.getFilteredOut().put("tmp_load", "filtered");
+        writeReport(1, sales1);
+
+        Map<String, DBMirror> merged = shardService.mergeShardReports(workDirectory.getPath(), 2);
+        assertEquals(new TreeSet<>(Arrays.asList("hr", "sales")), merged.keySet());
+        DBMirror sales = merged.get("sales");
+        assertEquals(new TreeSet<>(Arrays.asList("customers", "orders")), sales.getTableMirrors().keySet());
+        assertSame(sales, sales.getTable("customers").getParent());
+        assertEquals(1, sales.getIssuesList(Environment.LEFT).size());
+        assertTrue(sales.getFilteredOut().containsKey("tmp_load"));
+    }
+
+    /*
+    Runs the application as the coordinator of a 2 shard run over the test data.  It starts the workers (the
+    application again) with its own command line, so this covers the shard options, where the workers write their
+    reports and the merge.
+     */
+    private int runCoordinator(ShardByEnum by, File outputDirectory, File shardWorkDirectory) throws Exception {
+        List<String> command = Arrays.asList(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", System.getProperty("java.class.path"),
+                // No Hadoop CLI in the tests.
+                "-Dspring.profiles.active=no-cli",
+                Mirror.class.getName(),
+                "-mao",
+                "-ltd", EnvironmentConstants.ASSORTED_TBLS_04,
+                "-cfg", "/config/default.yaml.cdp-cdp",
+                "-o", outputDirectory.getPath(),
+                "-sh", "2",
+                "-shb", by.toString(),
+                // The workers get their own, not this one repeated.
+                "-shw", shardWorkDirectory.getPath());
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(new File(workDirectory, "coordinator.log"));
+        Process coordinator = pb.start();
+        try {
+            assertTrue(coordinator.waitFor(4, TimeUnit.MINUTES), "The coordinator didn't finish");
+            return coordinator.exitValue();
+        } finally {
+            coordinator.destroyForcibly();
+        }
+    }
+
+    private Set<String> reportTables(File report) throws IOException {
+        Set<String> rtn = new TreeSet<>();
+        yamlMapper.readTree(report).path("tableMirrors").fieldNames().forEachRemaining(rtn::add);
+        return rtn;
+    }
+
+    private void assertWorker(File shardWorkDirectory, int index, ShardByEnum by) throws IOException {
+        assertTrue(new File(shardWorkDirectory, ShardService.SHARD_DIRECTORY_PREFIX + index + ".log").exists());
+        // The worker's output directory was moved to its shard directory, with the shard it was given.
+        File sessionConfig = new File(shardWorkDirectory, ShardService.SHARD_DIRECTORY_PREFIX + index
+                + File.separator + "session-config.yaml");
+        assertTrue(sessionConfig.exists(), sessionConfig.getPath());
+        JsonNode sharding = yamlMapper.readTree(sessionConfig).path("sharding");
+        assertEquals(index, sharding.path("index").asInt());
+        assertEquals(2, sharding.path("count").asInt());
+        assertEquals(by.toString(), sharding.path("by").asText());
+        assertEquals(shardWorkDirectory.getPath(), sharding.path("workDirectory").asText());
+    }
+
+    private void assertNoFailedShards(File outputDirectory) throws IOException {
+        String runStatus = new String(Files.readAllBytes(new File(outputDirectory, "run-status.yaml").toPath()),
+                StandardCharsets.UTF_8);
+        assertFalse(runStatus.contains("finish cleanly"), runStatus);
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.MINUTES)
+    public void coordinateTableShards() throws Exception {
+        File outputDirectory = new File(workDirectory, "output");
+        File shardWorkDirectory = new File(workDirectory, "shards");
+        assertEquals(0, runCoordinator(ShardByEnum.TABLE, outputDirectory, shardWorkDirectory));
+
+        // Every worker has the database, with the tables that hash to it.
+        Set<String> tables = new TreeSet<>();
+        for (int i = 0; i < 2; i++) {
+            assertWorker(shardWorkDirectory, i, ShardByEnum.TABLE);
+            File report = new File(shardWorkDirectory, ShardService.SHARD_DIRECTORY_PREFIX + i + File.separator
+                    + TEST_DATABASE + ReportService.DB_REPORT_SUFFIX);
+            assertTrue(report.exists(), report.getPath());
+            for (String table : reportTables(report)) {
+                assertEquals(i, ShardService.shardOf(TEST_DATABASE + "." + table, 2), table);
+                assertTrue(tables.add(table), table);
+            }
+        }
+        assertFalse(tables.isEmpty());
+
+        // The coordinator's report has them all.
+        assertEquals(tables, reportTables(new File(outputDirectory, TEST_DATABASE + ReportService.DB_REPORT_SUFFIX)));
+        assertNoFailedShards(outputDirectory);
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.MINUTES)
+    public void coordinateDatabaseShardsWithAnEmptyShard() throws Exception {
+        File outputDirectory = new File(workDirectory, "output");
+        File shardWorkDirectory = new File(workDirectory, "shards");
+        assertEquals(0, runCoordinator(ShardByEnum.DATABASE, outputDirectory, shardWorkDirectory));
+
+        // The test data has one database, so the other worker has nothing to do.  That isn't a failure.
+        int owner = ShardService.shardOf(TEST_DATABASE, 2);
+        Set<String> tables = null;
+        for (int i = 0; i < 2; i++) {
+            assertWorker(shardWorkDirectory, i, ShardByEnum.DATABASE);
+            File report = new File(shardWorkDirectory, ShardService.SHARD_DIRECTORY_PREFIX + i + File.separator
+                    + TEST_DATABASE + ReportService.DB_REPORT_SUFFIX);
+            assertEquals(i == owner, report.exists(), report.getPath());
+            if (i == owner) {
+                tables = reportTables(report);
+            }
+        }
+        assertNotNull(tables);
+        assertFalse(tables.isEmpty());
+        assertEquals(tables, reportTables(new File(outputDirectory, TEST_DATABASE + ReportService.DB_REPORT_SUFFIX)));
+        assertNoFailedShards(outputDirectory);
+    }
+}
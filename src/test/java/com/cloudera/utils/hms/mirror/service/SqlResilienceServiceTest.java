@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.MessageCode;
+import com.cloudera.utils.hms.mirror.Pair;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.domain.HiveServer2Config;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.Resilience;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.RunStatus;
+import com.cloudera.utils.hms.util.CircuitBreaker;
+import com.cloudera.utils.hms.utils.FakeClock;
+import com.cloudera.utils.hms.utils.FaultInjectingDriver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs statements through the timeouts, retries and circuit breakers against a fault-injecting driver, on a fake
+ * clock so the waits are measured instead of slept.
+ */
+public class SqlResilienceServiceTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final String SHOW_CREATE = "SHOW CREATE TABLE my_tbl";
+    private static final String CREATE = "CREATE EXTERNAL TABLE my_tbl (id string)";
+
+    private HmsMirrorConfig config;
+    private Resilience resilience;
+    private RunStatus runStatus;
+    private FakeClock clock;
+    private FaultInjectingDriver driver;
+    private ExecuteSessionService executeSessionService;
+    private ConnectionPoolService connectionPoolService;
+    // The connections the retries borrowed from the pool.
+    private final List<Connection> borrowed = new ArrayList<>();
+    private SqlResilienceService sqlResilienceService;
+    private Statement stmt;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        config = new HmsMirrorConfig();
+        config.setExecute(Boolean.TRUE);
+        config.initClusterFor(Environment.LEFT).setHiveServer2(new HiveServer2Config());
+        config.initClusterFor(Environment.RIGHT).setHiveServer2(new HiveServer2Config());
+        resilience = config.getCluster(Environment.LEFT).getResilience();
+        runStatus = new RunStatus();
+
+        executeSessionService = mock(ExecuteSessionService.class);
+        ExecuteSession session = mock(ExecuteSession.class);
+        when(executeSessionService.getSession()).thenReturn(session);
+        when(session.getConfig()).thenReturn(config);
+        when(session.getRunStatus()).thenReturn(runStatus);
+
+        clock = new FakeClock(Instant.parse("2024-01-01T20:00:00Z"));
+        driver = new FaultInjectingDriver(clock);
+        connectionPoolService = mock(ConnectionPoolService.class);
+        when(connectionPoolService.getHS2EnvironmentConnection(Environment.LEFT)).thenAnswer(invocation -> {
+            Connection connection = connect();
+            borrowed.add(connection);
+            return connection;
+        });
+        sqlResilienceService = new SqlResilienceService(executeSessionService,
+                new RateLimiterService(executeSessionService), connectionPoolService);
+        sqlResilienceService.setClock(clock);
+        sqlResilienceService.setSleeper(clock.sleeper());
+        stmt = connect().createStatement();
+    }
+
+    private Connection connect() {
+        return driver.connect(FaultInjectingDriver.URL_PREFIX + "left", new Properties());
+    }
+
+    private long elapsed(long start) {
+        return clock.nanos() - start;
+    }
+
+    @Test
+    public void timeoutsByStatementClass() throws SQLException {
+        resilience.setCatalogReadTimeout(30);
+        resilience.setDataTransferTimeout(7200);
+        sqlResilienceService.execute(Environment.LEFT, stmt, "USE my_db");
+        sqlResilienceService.executeQuery(Environment.LEFT, stmt, SHOW_CREATE);
+        sqlResilienceService.execute(Environment.LEFT, stmt, CREATE);
+        sqlResilienceService.execute(Environment.LEFT, stmt, "FROM a INSERT OVERWRITE TABLE b SELECT *");
+        // The statement is reused, so the timeout is reset for the classes without one.
+        assertEquals(Arrays.asList(0, 30, 0, 7200), driver.getTimeouts());
+    }
+
+    @Test
+    public void noTimeoutsLeavesTheStatementAlone() throws SQLException {
+        stmt.setQueryTimeout(5);
+        sqlResilienceService.execute(Environment.LEFT, stmt, CREATE);
+        assertEquals(Collections.singletonList(5), driver.getTimeouts());
+    }
+
+    @Test
+    public void hungStatementTimesOutAndIsRetried() throws SQLException {
+        resilience.setCatalogReadTimeout(10);
+        driver.hangNext(SHOW_CREATE, 1);
+        long start = clock.nanos();
+        assertNotNull(sqlResilienceService.executeQuery(Environment.LEFT, stmt, SHOW_CREATE));
+        assertEquals(Arrays.asList(SHOW_CREATE, SHOW_CREATE), driver.getExecuted());
+        // The timeout, then the first backoff.
+        assertEquals(11 * SECOND, elapsed(start));
+    }
+
+    @Test
+    public void transientFailuresBackOffExponentially() throws SQLException {
+        resilience.setRetries(3);
+        driver.failNext(CREATE, 3, FaultInjectingDriver::connectionReset);
+        long start = clock.nanos();
+        sqlResilienceService.execute(Environment.LEFT, stmt, CREATE);
+        assertEquals(4, driver.getExecuted().size());
+        assertEquals((1 + 2 + 4) * SECOND, elapsed(start));
+        // Each reset lost the connection, so each retry was on a new one.
+        assertEquals(3, borrowed.size());
+        assertEquals(CircuitBreaker.State.CLOSED, runStatus.getCircuitBreakers().get(Environment.LEFT));
+    }
+
+    @Test
+    public void backoffIsCapped() throws SQLException {
+        resilience.setRetries(4);
+        resilience.setMaxRetryBackoffMillis(3000);
+        resilience.setCircuitBreakerThreshold(0);
+        driver.failNext(CREATE, 4, FaultInjectingDriver::connectionReset);
+        long start = clock.nanos();
+        sqlResilienceService.execute(Environment.LEFT, stmt, CREATE);
+        assertEquals((1 + 2 + 3 + 3) * SECOND, elapsed(start));
+    }
+
+    @Test
+    public void retriesRunOut() {
+        driver.failNext(CREATE, 5, FaultInjectingDriver::connectionReset);
+        SQLException se = assertThrows(SQLException.class,
+                () -> sqlResilienceService.execute(Environment.LEFT, stmt, CREATE));
+        assertEquals("08S01", se.getSQLState());
+        // The first try and 2 retries.
+        assertEquals(3, driver.getExecuted().size());
+    }
+
+    @Test
+    public void semanticErrorsAreNotRetried() {
+        driver.failNext(CREATE, 1, FaultInjectingDriver::semanticError);
+        assertThrows(SQLException.class, () -> sqlResilienceService.execute(Environment.LEFT, stmt, CREATE));
+        assertEquals(1, driver.getExecuted().size());
+        // Hive's catch all SQLState, without a lost connection, isn't transient either.
+        assertFalse(SqlResilienceService.isTransient(new SQLException("FAILED: Execution Error, return code 2 " +
+                "from org.apache.hadoop.hive.ql.exec.tez.TezTask", "08S01"), resilience));
+        assertTrue(SqlResilienceService.isTransient(new SQLException("Lost", "08006"), resilience));
+        assertTrue(SqlResilienceService.isTransient(new SQLTransientConnectionException("Pool"), resilience));
+    }
+
+    @Test
+    public void insertIntoIsNotRetried() {
+        String insert = "INSERT INTO TABLE my_tbl SELECT * FROM src";
+        driver.failNext(insert, 1, FaultInjectingDriver::connectionReset);
+        assertThrows(SQLException.class, () -> sqlResilienceService.execute(Environment.LEFT, stmt, insert));
+        assertEquals(1, driver.getExecuted().size());
+    }
+
+    @Test
+    public void onlyIdempotentStatementsAreRetried() {
+        for (String sql : Arrays.asList("USE my_db", "SET hive.exec.compress.output=false", SHOW_CREATE,
+                "DESCRIBE FORMATTED my_tbl", "SELECT * FROM my_tbl", "WITH a AS (SELECT 1) SELECT * FROM a",
+                CREATE, "CREATE TABLE IF NOT EXISTS my_tbl LIKE src", "DROP TABLE IF EXISTS my_tbl",
+                "ALTER TABLE my_tbl SET TBLPROPERTIES (\"a\"=\"b\")", "ALTER TABLE my_tbl UNSET TBLPROPERTIES (\"a\")",
+                "ALTER TABLE my_tbl PARTITION (dt='1') SET LOCATION \"/data/1\"",
+                "ALTER TABLE my_tbl SET OWNER USER bob", "ALTER DATABASE my_db SET OWNER USER bob",
+                "ALTER TABLE my_tbl ADD IF NOT EXISTS\nPARTITION (dt='1') LOCATION \"/data/1\"",
+                "MSCK REPAIR TABLE my_tbl", "ANALYZE TABLE my_tbl COMPUTE STATISTICS",
+                "FROM a INSERT OVERWRITE TABLE b PARTITION (`dt`) SELECT * WHERE `dt` = '1'",
+                "INSERT OVERWRITE TABLE b SELECT * FROM a")) {
+            assertTrue(SqlResilienceService.isRetryable(sql), sql);
+        }
+        for (String sql : Arrays.asList("INSERT INTO TABLE my_tbl SELECT * FROM src",
+                "FROM my_tbl INSERT INTO TABLE b SELECT *",
+                "FROM a INSERT OVERWRITE TABLE b SELECT * INSERT INTO TABLE c SELECT *",
+                "ALTER TABLE my_tbl_transfer RENAME TO my_tbl",
+                "EXPORT TABLE my_tbl TO \"/tmp/export\"",
+                "EXPORT TABLE my_tbl PARTITION (dt='1') TO \"/tmp/export/1\"",
+                "IMPORT TABLE my_tbl FROM \"/tmp/export\"",
+                "IMPORT EXTERNAL TABLE my_tbl FROM \"/tmp/export\" LOCATION \"/data\"",
+                "IMPORT EXTERNAL TABLE my_tbl PARTITION (dt='1') FROM \"/tmp/export/1\" LOCATION \"/data/1\"",
+                "LOAD DATA INPATH '/tmp/x' INTO TABLE my_tbl",
+                "ALTER TABLE my_tbl ADD PARTITION (dt='1') LOCATION \"/data/1\"")) {
+            assertFalse(SqlResilienceService.isRetryable(sql), sql);
+        }
+    }
+
+    @Test
+    public void renameIsNotRetried() {
+        String rename = "ALTER TABLE my_tbl_transfer RENAME TO my_tbl";
+        driver.failNext(rename, 1, FaultInjectingDriver::connectionReset);
+        assertThrows(SQLException.class, () -> sqlResilienceService.execute(Environment.LEFT, stmt, rename));
+        assertEquals(1, driver.getExecuted().size());
+        assertTrue(borrowed.isEmpty());
+    }
+
+    @Test
+    public void closedStatementIsNotRetried() throws SQLException {
+        Statement closing = connect().createStatement();
+        driver.failNext(CREATE, 1, () -> {
+            try {
+                closing.close();
+            } catch (SQLException se) {
+                throw new AssertionError(se);
+            }
+            return FaultInjectingDriver.connectionReset();
+        });
+        assertThrows(SQLException.class, () -> sqlResilienceService.execute(Environment.LEFT, closing, CREATE));
+        assertEquals(1, driver.getExecuted().size());
+    }
+
+    @Test
+    public void circuitBreakerPausesTheStatementsWhileTheServerIsDown() {
+        resilience.setRetries(0);
+        resilience.setCircuitBreakerThreshold(3);
+        resilience.setCircuitBreakerPauseSeconds(60);
+        driver.downFor(90 * SECOND);
+        long start = clock.nanos();
+        int failed = 0;
+        for (int i = 0; i < 10; i++) {
+            try {
+                sqlResilienceService.execute(Environment.LEFT, stmt, "CREATE EXTERNAL TABLE t" + i + " (id string)");
+            } catch (SQLException se) {
+                failed++;
+                if (i == 2) {
+                    assertEquals(CircuitBreaker.State.OPEN, runStatus.getCircuitBreakers().get(Environment.LEFT));
+                }
+            }
+        }
+        // 3 to open the breaker, and the trial after the first pause.  The trial after the second succeeds.
+        assertEquals(4, failed);
+        assertEquals(10, driver.getExecuted().size());
+        assertEquals(120 * SECOND, elapsed(start));
+        assertEquals(CircuitBreaker.State.CLOSED, runStatus.getCircuitBreakers().get(Environment.LEFT));
+        assertTrue(runStatus.hasWarnings());
+        // From the last time it opened, after the failed trial.
+        assertEquals(Collections.singletonList(MessageCode.CIRCUIT_BREAKER_OPENED + "-->" +
+                        MessageFormat.format(MessageCode.CIRCUIT_BREAKER_OPENED.getDesc(), Environment.LEFT, 4)),
+                runStatus.getWarningMessages());
+    }
+
+    @Test
+    public void circuitBreakersArePerEnvironment() throws SQLException {
+        resilience.setRetries(0);
+        resilience.setCircuitBreakerThreshold(1);
+        driver.failNext("t_left", 1, FaultInjectingDriver::connectionReset);
+        assertThrows(SQLException.class,
+                () -> sqlResilienceService.execute(Environment.LEFT, stmt, "CREATE TABLE t_left (id int)"));
+        assertEquals(CircuitBreaker.State.OPEN, runStatus.getCircuitBreakers().get(Environment.LEFT));
+        long start = clock.nanos();
+        sqlResilienceService.execute(Environment.RIGHT, connect().createStatement(), "CREATE TABLE t_right (id int)");
+        assertEquals(0, elapsed(start));
+        assertEquals(CircuitBreaker.State.CLOSED, runStatus.getCircuitBreakers().get(Environment.RIGHT));
+    }
+
+    @Test
+    public void retryOnANewConnectionReplaysTheSession() throws SQLException {
+        Connection lost = stmt.getConnection();
+        sqlResilienceService.execute(Environment.LEFT, stmt, "USE my_db");
+        sqlResilienceService.execute(Environment.LEFT, stmt, "SET hive.exec.compress.output=false");
+        driver.failNext(CREATE, 1, FaultInjectingDriver::connectionReset);
+
+        sqlResilienceService.execute(Environment.LEFT, stmt, CREATE);
+        assertEquals(Arrays.asList("USE my_db", "SET hive.exec.compress.output=false", CREATE,
+                "USE my_db", "SET hive.exec.compress.output=false", CREATE), driver.getExecuted());
+        assertFalse(lost.isValid(1));
+        // The new connection went back to the pool.
+        assertEquals(1, borrowed.size());
+        assertTrue(borrowed.get(0).isClosed());
+        // The caller's session is still the one it set up.
+        assertTrue(sqlResilienceService.isSessionValue(stmt, "SET hive.exec.compress.output=false"));
+
+        // The next statement on the lost connection doesn't reach the server, and is run on another new one.  The
+        // rows of a query are kept after the connection goes back.
+        ResultSet resultSet = sqlResilienceService.executeQuery(Environment.LEFT, stmt, SHOW_CREATE);
+        assertEquals(2, borrowed.size());
+        assertTrue(borrowed.get(1).isClosed());
+        assertFalse(resultSet.next());
+        assertEquals(Arrays.asList("USE my_db", "SET hive.exec.compress.output=false", SHOW_CREATE),
+                driver.getExecuted().subList(6, 9));
+    }
+
+    @Test
+    public void tableSqlRecoversFromAConnectionReset() throws SQLException {
+        TableService tableService = new TableService(null, executeSessionService, connectionPoolService, null, null,
+                null, new RateLimiterService(executeSessionService), sqlResilienceService,
+                new CatalogCacheService(null, executeSessionService, null, null), null);
+        TableMirror tableMirror = new TableMirror();
+        tableMirror.setName("my_tbl");
+        EnvironmentTable environmentTable = tableMirror.getEnvironmentTable(Environment.LEFT);
+        environmentTable.addSql(new Pair("Use", "USE my_db"));
+        environmentTable.addSql(new Pair("Create", CREATE));
+        driver.failNext(CREATE, 1, FaultInjectingDriver::connectionReset);
+
+        assertTrue(tableService.runTableSql(tableMirror, Environment.LEFT));
+        // Retried on a new connection, after the 'USE'.
+        assertEquals(Arrays.asList("USE my_db", CREATE, "USE my_db", CREATE), driver.getExecuted());
+        assertTrue(environmentTable.getErrors().isEmpty());
+    }
+
+    @Test
+    public void setToTheSessionValue() throws SQLException {
+        sqlResilienceService.execute(Environment.LEFT, stmt, "SET hive.exec.compress.output=false");
+        assertTrue(sqlResilienceService.isSessionValue(stmt, "SET hive.exec.compress.output=false"));
+        assertTrue(sqlResilienceService.isSessionValue(stmt, "set hive.exec.compress.output = false "));
+        assertFalse(sqlResilienceService.isSessionValue(stmt, "SET hive.exec.compress.output=true"));
+        assertFalse(sqlResilienceService.isSessionValue(stmt, "SET hive.stats.autogather=false"));
+        // The value is in the session of the connection, not the statement.
+        Statement other = stmt.getConnection().createStatement();
+        assertTrue(sqlResilienceService.isSessionValue(other, "SET hive.exec.compress.output=false"));
+        assertFalse(sqlResilienceService.isSessionValue(connect().createStatement(),
+                "SET hive.exec.compress.output=false"));
+
+        sqlResilienceService.execute(Environment.LEFT, stmt, "RESET");
+        assertFalse(sqlResilienceService.isSessionValue(stmt, "SET hive.exec.compress.output=false"));
+
+        sqlResilienceService.execute(Environment.LEFT, stmt, "SET hive.exec.compress.output=false");
+        resilience.setRetries(0);
+        driver.failNext(CREATE, 1, FaultInjectingDriver::connectionReset);
+        assertThrows(SQLException.class, () -> sqlResilienceService.execute(Environment.LEFT, stmt, CREATE));
+        // The session may have gone with the connection.
+        assertFalse(sqlResilienceService.isSessionValue(stmt, "SET hive.exec.compress.output=false"));
+    }
+
+    @Test
+    public void tableSqlSkipsTheSessionValues() throws SQLException {
+        // Each borrow is a new handle on the same connection, like the pools hand out.
+        Connection connection = connect();
+        ConnectionPoolService connectionPoolService = mock(ConnectionPoolService.class);
+        when(connectionPoolService.getHS2EnvironmentConnection(Environment.LEFT))
+                .thenAnswer(invocation -> borrow(connection));
+        TableService tableService = new TableService(null, executeSessionService, connectionPoolService, null, null,
+                null, new RateLimiterService(executeSessionService), sqlResilienceService,
+                new CatalogCacheService(null, executeSessionService, null, null), null);
+
+        assertTrue(tableService.runTableSql(tableWithSettings("tbl_a", "false"), Environment.LEFT));
+        assertTrue(tableService.runTableSql(tableWithSettings("tbl_b", "false"), Environment.LEFT));
+        assertTrue(tableService.runTableSql(tableWithSettings("tbl_c", "true"), Environment.LEFT));
+        assertEquals(Arrays.asList(
+                "SET hive.exec.compress.output=false", "SET hive.stats.autogather=false", "CREATE TABLE tbl_a",
+                "CREATE TABLE tbl_b",
+                "SET hive.exec.compress.output=true", "CREATE TABLE tbl_c"), driver.getExecuted());
+    }
+
+    private static TableMirror tableWithSettings(String table, String compressOutput) {
+        TableMirror tableMirror = new TableMirror();
+        tableMirror.setName(table);
+        EnvironmentTable environmentTable = tableMirror.getEnvironmentTable(Environment.LEFT);
+        environmentTable.addSql(new Pair("Setting: hive.exec.compress.output",
+                "SET hive.exec.compress.output=" + compressOutput));
+        environmentTable.addSql(new Pair("Setting: hive.stats.autogather", "SET hive.stats.autogather=false"));
+        environmentTable.addSql(new Pair("Create", "CREATE TABLE " + table));
+        return tableMirror;
+    }
+
+    private static Connection borrow(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(SqlResilienceServiceTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isWrapperFor":
+                            return ((Class<?>) args[0]).isInstance(connection);
+                        case "unwrap":
+                            return connection;
+                        case "close":
+                            return null;
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+}
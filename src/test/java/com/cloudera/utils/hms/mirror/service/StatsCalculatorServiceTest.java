@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.MirrorConf;
+import com.cloudera.utils.hms.mirror.Pair;
+import com.cloudera.utils.hms.mirror.domain.Cluster;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.SerdeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The session settings for a table, and the profiles they're shared through.
+ */
+public class StatsCalculatorServiceTest {
+
+    private HmsMirrorConfig config;
+    private Cluster cluster;
+    private StatsCalculatorService statsCalculatorService;
+
+    @BeforeEach
+    public void setup() {
+        config = new HmsMirrorConfig();
+        cluster = config.initClusterFor(Environment.RIGHT);
+        cluster.setLegacyHive(Boolean.FALSE);
+        ExecuteSessionService executeSessionService = mock(ExecuteSessionService.class);
+        ExecuteSession session = mock(ExecuteSession.class);
+        when(executeSessionService.getSession()).thenReturn(session);
+        when(session.getConfig()).thenReturn(config);
+        statsCalculatorService = new StatsCalculatorService(executeSessionService);
+    }
+
+    @Test
+    public void sessionOptions() {
+        EnvironmentTable source = table("web_logs", SerdeType.TEXT, 1024d * 1024d, 1500);
+        source.getStatistics().put(MirrorConf.DATA_SIZE, 1500L * 1024L * 1024L * 1024L);
+        EnvironmentTable target = table("web_logs", SerdeType.TEXT, null, 0);
+
+        statsCalculatorService.setSessionOptions(cluster, source, target);
+
+        assertEquals(Arrays.asList(
+                "SET tez.grouping.max-size=134217728",
+                "SET hive.exec.max.dynamic.partitions=1800",
+                // 1GB partitions of 256MB files: 3 * 1500 + 20
+                "SET hive.exec.reducers.max=4520",
+                "SET hive.exec.compress.output=false",
+                "SET hive.stats.autogather=false",
+                "SET hive.stats.column.autogather=false"), actions(target));
+        assertEquals(6, target.getIssues().size());
+    }
+
+    @Test
+    public void tablesWithTheSameSettingsShareAProfile() {
+        EnvironmentTable orders = table("orders", SerdeType.ORC, 200d * 1024d * 1024d, 0);
+        EnvironmentTable customers = table("customers", SerdeType.ORC, 300d * 1024d * 1024d, 0);
+        EnvironmentTable smallFiles = table("events", SerdeType.ORC, 1024d, 0);
+
+        assertSame(statsCalculatorService.getSessionProfile(config, cluster, orders),
+                statsCalculatorService.getSessionProfile(config, cluster, customers));
+        assertNotSame(statsCalculatorService.getSessionProfile(config, cluster, orders),
+                statsCalculatorService.getSessionProfile(config, cluster, smallFiles));
+
+        // Each table gets its own statements.
+        EnvironmentTable ordersTarget = table("orders", SerdeType.ORC, null, 0);
+        EnvironmentTable customersTarget = table("customers", SerdeType.ORC, null, 0);
+        statsCalculatorService.setSessionOptions(cluster, orders, ordersTarget);
+        statsCalculatorService.setSessionOptions(cluster, customers, customersTarget);
+        assertEquals(actions(ordersTarget), actions(customersTarget));
+        assertNotSame(ordersTarget.getSql().get(0), customersTarget.getSql().get(0));
+    }
+
+    @Test
+    public void profilesFollowTheConfig() {
+        EnvironmentTable text = table("raw", SerdeType.TEXT, 300d * 1024d * 1024d, 0);
+        EnvironmentTable target = table("raw", SerdeType.TEXT, null, 0);
+        statsCalculatorService.setSessionOptions(cluster, text, target);
+        assertTrue(actions(target).contains("SET hive.exec.compress.output=false"));
+
+        config.getOptimization().setCompressTextOutput(Boolean.TRUE);
+        cluster.setLegacyHive(Boolean.TRUE);
+        target = table("raw", SerdeType.TEXT, null, 0);
+        statsCalculatorService.setSessionOptions(cluster, text, target);
+        assertEquals(Arrays.asList("SET hive.exec.compress.output=true"), actions(target));
+    }
+
+    private static EnvironmentTable table(String name, SerdeType serdeType, Double avgFileSize, int partitions) {
+        TableMirror tableMirror = new TableMirror();
+        tableMirror.setName(name);
+        EnvironmentTable rtn = tableMirror.getEnvironmentTable(Environment.LEFT);
+        rtn.setName(name);
+        rtn.getStatistics().put(MirrorConf.FILE_FORMAT, serdeType.name());
+        if (avgFileSize != null) {
+            rtn.getStatistics().put(MirrorConf.AVG_FILE_SIZE, avgFileSize);
+        }
+        for (int i = 0; i < partitions; i++) {
+            rtn.getPartitions().put("dt=" + i, "hdfs://source/warehouse/" + name + "/dt=" + i);
+        }
+        return rtn;
+    }
+
+    private static List<String> actions(EnvironmentTable environmentTable) {
+        List<String> rtn = new ArrayList<>();
+        for (Pair pair : environmentTable.getSql()) {
+            rtn.add(pair.getAction());
+        }
+        return rtn;
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.MirrorConf;
+import com.cloudera.utils.hms.mirror.domain.DBMirror;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.cloudera.utils.hms.mirror.domain.support.DataStrategyEnum;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.SchedulingPolicyEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Simulates the job thread pool over synthetic table costs to compare the makespan (time until the last table
+ * finishes) of the scheduling policies with the name order the tables used to be submitted in.
+ */
+public class TableSchedulerServiceTest {
+
+    private static final long GB = 1024L * 1024 * 1024;
+    private static final int WORKERS = 8;
+
+    private HmsMirrorConfig config;
+    private TableSchedulerService tableSchedulerService;
+    private final Map<String, DBMirror> databases = new TreeMap<>();
+
+    @BeforeEach
+    public void setup() {
+        config = new HmsMirrorConfig();
+        ExecuteSessionService executeSessionService = mock(ExecuteSessionService.class);
+        ExecuteSession session = mock(ExecuteSession.class);
+        when(executeSessionService.getSession()).thenReturn(session);
+        when(session.getConfig()).thenReturn(config);
+        tableSchedulerService = new TableSchedulerService(executeSessionService);
+    }
+
+    private TableMirror table(String database, String name, Long dataSize, int partitions) {
+        DBMirror dbMirror = databases.computeIfAbsent(database, k -> {
+            DBMirror rtn = new DBMirror();
+            rtn.setName(k);
+            return rtn;
+        });
+        TableMirror tableMirror = dbMirror.addTable(name);
+        EnvironmentTable let = tableMirror.getEnvironmentTable(Environment.LEFT);
+        if (dataSize != null) {
+            let.getStatistics().put(MirrorConf.DATA_SIZE, dataSize);
+        }
+        for (int i = 0; i < partitions; i++) {
+            let.getPartitions().put("p=" + i, MirrorConf.NOT_SET);
+        }
+        return tableMirror;
+    }
+
+    /*
+    List scheduling: each table goes to the first free worker, in the given order.
+     */
+    private long makespan(List<TableMirror> order) {
+        PriorityQueue<Long> workers = new PriorityQueue<>();
+        for (int i = 0; i < WORKERS; i++) {
+            workers.add(0L);
+        }
+        long rtn = 0;
+        for (TableMirror tableMirror : order) {
+            long finish = workers.poll() + tableSchedulerService.estimateCost(tableMirror);
+            rtn = Math.max(rtn, finish);
+            workers.add(finish);
+        }
+        return rtn;
+    }
+
+    /*
+    No order can finish before the largest table, or before the total work spread evenly over the workers.
+     */
+    private long lowerBound(List<TableMirror> tables) {
+        long max = 0;
+        long total = 0;
+        for (TableMirror tableMirror : tables) {
+            long cost = tableSchedulerService.estimateCost(tableMirror);
+            max = Math.max(max, cost);
+            total += cost;
+        }
+        return Math.max(max, (total + WORKERS - 1) / WORKERS);
+    }
+
+    private void assertLargestFirstBeatsNameOrder(List<TableMirror> tables) {
+        long byName = makespan(SchedulingPolicyEnum.NAME.order(tables, tableSchedulerService::estimateCost));
+        long largestFirst = makespan(tableSchedulerService.schedule(tables));
+        assertTrue(largestFirst <= byName, "largest first: " + largestFirst + " name: " + byName);
+        // Largest first is within 4/3 of the optimal order.
+        assertTrue(largestFirst <= lowerBound(tables) * 4 / 3);
+    }
+
+    @Test
+    public void largeTableLastByName() {
+        Random random = new Random(7);
+        List<TableMirror> tables = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tables.add(table("sales", String.format("a_%03d", i), (1 + random.nextInt(100)) * GB, 0));
+        }
+        tables.add(table("sales", "zz_events", 2048 * GB, 0));
+
+        long byName = makespan(SchedulingPolicyEnum.NAME.order(tables, tableSchedulerService::estimateCost));
+        long largestFirst = makespan(tableSchedulerService.schedule(tables));
+        // The large table no longer starts after everything else.
+        assertEquals(2048 * GB, largestFirst);
+        assertTrue(largestFirst < byName * 3 / 4, "largest first: " + largestFirst + " name: " + byName);
+        assertLargestFirstBeatsNameOrder(tables);
+    }
+
+    @Test
+    public void heavyTailedSizes() {
+        Random random = new Random(42);
+        List<TableMirror> tables = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // Pareto, alpha 1.2: most tables are small, a few are very large.
+            double pareto = 1 / Math.pow(1 - random.nextDouble(), 1 / 1.2);
+            tables.add(table("db_" + (i % 5), String.format("t_%03d", i), (long) (pareto * GB), random.nextInt(50)));
+        }
+        assertLargestFirstBeatsNameOrder(tables);
+    }
+
+    @Test
+    public void uniformSizes() {
+        Random random = new Random(11);
+        List<TableMirror> tables = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            tables.add(table("db_" + (i % 3), String.format("t_%03d", i), (long) (random.nextDouble() * 10 * GB), 0));
+        }
+        assertLargestFirstBeatsNameOrder(tables);
+    }
+
+    @Test
+    public void costFallsBackToPartitionsWithoutStatistics() {
+        TableMirror noStats = table("db", "no_stats", null, 10);
+        assertEquals(10 * (TableSchedulerService.ASSUMED_PARTITION_SIZE + TableSchedulerService.PARTITION_OVERHEAD),
+                tableSchedulerService.estimateCost(noStats));
+        TableMirror withStats = table("db", "with_stats", 5 * GB, 10);
+        assertEquals(5 * GB + 10 * TableSchedulerService.PARTITION_OVERHEAD,
+                tableSchedulerService.estimateCost(withStats));
+        TableMirror view = table("db", "a_view", null, 0);
+        view.getEnvironmentTable(Environment.LEFT).getDefinition().add("CREATE VIEW `a_view` AS SELECT 1");
+        assertEquals(TableSchedulerService.VIEW_COST, tableSchedulerService.estimateCost(view));
+    }
+
+    @Test
+    public void icebergConversionByPartitionCount() {
+        config.setDataStrategy(DataStrategyEnum.ICEBERG_CONVERSION);
+        // Partition counts from the bulk eligibility scan, before the partitions are loaded.
+        TableMirror few = table("db", "a_few", 500 * GB, 0);
+        few.getEnvironmentTable(Environment.LEFT).getStatistics().put(MirrorConf.PARTITION_COUNT, 3);
+        TableMirror many = table("db", "b_many", 1 * GB, 0);
+        many.getEnvironmentTable(Environment.LEFT).getStatistics().put(MirrorConf.PARTITION_COUNT, 2000);
+        TableMirror unpartitioned = table("db", "c_none", 50 * GB, 0);
+
+        assertEquals(2000 * TableSchedulerService.PARTITION_OVERHEAD, tableSchedulerService.estimateCost(many));
+        assertEquals(TableSchedulerService.PARTITION_OVERHEAD, tableSchedulerService.estimateCost(unpartitioned));
+        assertEquals(List.of("db.b_many", "db.a_few", "db.c_none"),
+                names(tableSchedulerService.schedule(Arrays.asList(few, many, unpartitioned))));
+    }
+
+    @Test
+    public void policies() {
+        List<TableMirror> tables = Arrays.asList(
+                table("db_a", "small", 1 * GB, 0),
+                table("db_a", "large", 30 * GB, 0),
+                table("db_a", "medium", 10 * GB, 0),
+                table("db_b", "large", 20 * GB, 0),
+                table("db_b", "small", 2 * GB, 0));
+
+        assertEquals(List.of("db_a.large", "db_b.large", "db_a.medium", "db_b.small", "db_a.small"),
+                names(tableSchedulerService.schedule(tables)));
+
+        config.getOptimization().setTableScheduling(SchedulingPolicyEnum.SHORTEST_FIRST);
+        assertEquals(List.of("db_a.small", "db_b.small", "db_a.medium", "db_b.large", "db_a.large"),
+                names(tableSchedulerService.schedule(tables)));
+
+        config.getOptimization().setTableScheduling(SchedulingPolicyEnum.DATABASE_ROUND_ROBIN);
+        assertEquals(List.of("db_a.large", "db_b.large", "db_a.medium", "db_b.small", "db_a.small"),
+                names(tableSchedulerService.schedule(tables)));
+
+        config.getOptimization().setTableScheduling(SchedulingPolicyEnum.NAME);
+        assertEquals(List.of("db_a.large", "db_a.medium", "db_a.small", "db_b.large", "db_b.small"),
+                names(tableSchedulerService.schedule(tables)));
+    }
+
+    @Test
+    public void roundRobinInterleavesDatabases() {
+        List<TableMirror> tables = Arrays.asList(
+                table("db_a", "t1", 100 * GB, 0),
+                table("db_a", "t2", 90 * GB, 0),
+                table("db_a", "t3", 80 * GB, 0),
+                table("db_b", "t1", 1 * GB, 0));
+        config.getOptimization().setTableScheduling(SchedulingPolicyEnum.DATABASE_ROUND_ROBIN);
+        assertEquals(List.of("db_a.t1", "db_b.t1", "db_a.t2", "db_a.t3"),
+                names(tableSchedulerService.schedule(tables)));
+    }
+
+    private static List<String> names(List<TableMirror> tables) {
+        return tables.stream().map(t -> t.getParent().getName() + "." + t.getName()).collect(Collectors.toList());
+    }
+
+}
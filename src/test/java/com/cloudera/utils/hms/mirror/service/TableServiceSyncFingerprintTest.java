@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hive.config.QueryDefinition;
+import com.cloudera.utils.hive.config.QueryDefinitions;
+import com.cloudera.utils.hms.mirror.domain.DBMirror;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.cloudera.utils.hms.mirror.domain.support.DataStrategyEnum;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.SchemaFingerprint;
+import com.cloudera.utils.hms.stage.ReturnStatus;
+import com.cloudera.utils.hms.util.StreamingQueryExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Skips the unchanged tables of a '--sync' run with the metastore schema fingerprints, against mocked
+ * metastore-direct queries.
+ */
+public class TableServiceSyncFingerprintTest {
+
+    private HmsMirrorConfig config;
+    private TableService tableService;
+    private QueryDefinitionsService queryDefinitionsService;
+    private DBMirror dbMirror;
+    // Environment -> rows of the 'database_table_schemas' query.
+    private final Map<Environment, List<Object[]>> rows = new HashMap<>();
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        config = new HmsMirrorConfig();
+        config.setSync(Boolean.TRUE);
+        config.setDataStrategy(DataStrategyEnum.SCHEMA_ONLY);
+        config.getOptimization().setSkipUnchangedSyncTables(Boolean.TRUE);
+
+        ExecuteSessionService executeSessionService = mock(ExecuteSessionService.class);
+        ExecuteSession session = mock(ExecuteSession.class);
+        when(executeSessionService.getSession()).thenReturn(session);
+        when(session.getConfig()).thenReturn(config);
+
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.isMetastoreDirectConfigured(any(), any())).thenReturn(Boolean.TRUE);
+        ConnectionPoolService connectionPoolService = mock(ConnectionPoolService.class);
+        when(connectionPoolService.getMetastoreDirectEnvironmentConnection(any())).thenReturn(mock(Connection.class));
+
+        QueryDefinition queryDefinition = mock(QueryDefinition.class);
+        when(queryDefinition.getStatement())
+                .thenReturn("SELECT ... WHERE D.NAME = ? UNION ALL SELECT ... WHERE D.NAME = ?");
+        QueryDefinitions queryDefinitions = mock(QueryDefinitions.class);
+        when(queryDefinitions.getQueryDefinition(TableService.TABLE_SCHEMAS_QUERY)).thenReturn(queryDefinition);
+        RateLimiterService rateLimiterService = new RateLimiterService(executeSessionService);
+        // The real per database helper, over the stubbed query.
+        queryDefinitionsService = spy(new QueryDefinitionsService(executeSessionService, connectionPoolService,
+                rateLimiterService));
+        doReturn(queryDefinitions).when(queryDefinitionsService).getQueryDefinitions(any());
+        doAnswer(invocation -> {
+            Environment environment = invocation.getArgument(0);
+            StreamingQueryExecutor.RowHandler handler = invocation.getArgument(3);
+            List<Object[]> envRows = rows.getOrDefault(environment, Collections.emptyList());
+            for (Object[] row : envRows) {
+                handler.handle(resultSet(row));
+            }
+            return (long) envRows.size();
+        }).when(queryDefinitionsService).executeQuery(any(), any(), eq(TableService.TABLE_SCHEMAS_QUERY), any(),
+                any(Object[].class));
+
+        tableService = new TableService(configService, executeSessionService, connectionPoolService,
+                queryDefinitionsService, null, null, rateLimiterService,
+                new SqlResilienceService(executeSessionService, rateLimiterService, connectionPoolService),
+                new CatalogCacheService(configService, executeSessionService, queryDefinitionsService, null), null);
+
+        dbMirror = new DBMirror();
+        dbMirror.setName("sales");
+        for (String table : Arrays.asList("unchanged", "new_column", "partitioned", "a_view", "missing")) {
+            dbMirror.addTable(table);
+        }
+        for (Environment environment : Arrays.asList(Environment.LEFT, Environment.RIGHT)) {
+            table(environment, "unchanged", "id", "string");
+            table(environment, "partitioned", "id", "string");
+            row(environment, "partitioned", "PARTITION_KEY", 0, "dt", "string", null);
+            table(environment, "a_view", "id", "string");
+            row(environment, "a_view", "TYPE", 0, "VIRTUAL_VIEW", null, null);
+        }
+        table(Environment.LEFT, "new_column", "id", "string");
+        row(Environment.LEFT, "new_column", "COLUMN", 1, "amount", "decimal(10,2)", null);
+        table(Environment.RIGHT, "new_column", "id", "string");
+        table(Environment.LEFT, "missing", "id", "string");
+    }
+
+    private void table(Environment environment, String table, String column, String type) {
+        row(environment, table, "TYPE", 0, "EXTERNAL_TABLE", null, null);
+        row(environment, table, "COLUMN", 0, column, type, null);
+        row(environment, table, "STORAGE", 0, "serde", "org.apache.hadoop.hive.ql.io.orc.OrcSerde", null);
+        row(environment, table, "SERDE_PARAM", 0, "serialization.format", "1", null);
+    }
+
+    private void row(Environment environment, Object... row) {
+        rows.computeIfAbsent(environment, k -> new ArrayList<>()).add(row);
+    }
+
+    private static ResultSet resultSet(Object[] row) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString(anyInt())).thenAnswer(invocation -> {
+            Object value = row[(int) invocation.getArgument(0) - 1];
+            return value == null ? null : value.toString();
+        });
+        when(resultSet.getInt(3)).thenReturn((Integer) row[2]);
+        return resultSet;
+    }
+
+    private Set<String> removed() {
+        Set<String> rtn = new TreeSet<>();
+        dbMirror.getTableMirrors().forEach((name, tableMirror) -> {
+            if (tableMirror.isRemove()) {
+                rtn.add(name);
+            }
+        });
+        return rtn;
+    }
+
+    @Test
+    public void unchangedTablesAreSkipped() {
+        tableService.skipUnchangedTables(dbMirror);
+        assertEquals(new TreeSet<>(Arrays.asList("partitioned", "unchanged")), removed());
+        assertTrue(dbMirror.getTableMirrors().get("unchanged").getRemoveReason().contains("fingerprint"));
+        // The skipped tables don't get their definitions fetched.
+        assertEquals(ReturnStatus.Status.SKIP,
+                tableService.getTableMetadata(dbMirror.getTableMirrors().get("unchanged")).join().getStatus());
+    }
+
+    @Test
+    public void otherStrategiesFetchEverything() {
+        config.setDataStrategy(DataStrategyEnum.SQL);
+        tableService.skipUnchangedTables(dbMirror);
+        assertTrue(removed().isEmpty());
+        verifyNoInteractions(queryDefinitionsService);
+    }
+
+    @Test
+    public void queryFailureFetchesEverything() throws SQLException {
+        doThrow(new SQLException("Lost connection")).when(queryDefinitionsService)
+                .executeQuery(eq(Environment.RIGHT), any(), anyString(), any(), any(Object[].class));
+        tableService.skipUnchangedTables(dbMirror);
+        assertTrue(removed().isEmpty());
+    }
+
+    @Test
+    public void eachBranchGetsTheDatabase() throws SQLException {
+        config.setDbPrefix("dr_");
+        tableService.skipUnchangedTables(dbMirror);
+        verify(queryDefinitionsService).executeQuery(eq(Environment.LEFT), any(), anyString(), any(),
+                eq("sales"), eq("sales"));
+        verify(queryDefinitionsService).executeQuery(eq(Environment.RIGHT), any(), anyString(), any(),
+                eq("dr_sales"), eq("dr_sales"));
+    }
+
+    @Test
+    public void fingerprintsIgnoreRowOrder() {
+        SchemaFingerprint one = new SchemaFingerprint();
+        one.add("COLUMN", 0, "id", "string", null);
+        one.add("COLUMN", 1, "Name", "string", "the name");
+        SchemaFingerprint two = new SchemaFingerprint();
+        two.add("COLUMN", 1, "name", "string ", "the name");
+        two.add("COLUMN", 0, "id", "string", "");
+        assertTrue(one.matches(two));
+        assertEquals(32, one.getFingerprint().length());
+        two.add("COLUMN", 2, "extra", "int", null);
+        assertFalse(one.matches(two));
+    }
+
+    @Test
+    public void definitionFingerprintIsCachedUntilTheDefinitionChanges() {
+        TableMirror tableMirror = new TableMirror();
+        EnvironmentTable left = tableMirror.getEnvironmentTable(Environment.LEFT);
+        left.setDefinition(new ArrayList<>(Arrays.asList("CREATE EXTERNAL TABLE `t`(", "`id` string)",
+                "LOCATION", "'hdfs://one/t'")));
+        EnvironmentTable right = tableMirror.getEnvironmentTable(Environment.RIGHT);
+        right.setDefinition(new ArrayList<>(Arrays.asList("CREATE TABLE `t`(", "`id` string)",
+                "LOCATION", "'hdfs://two/t'")));
+        String fingerprint = left.getFingerprint();
+        assertSame(fingerprint, left.getFingerprint());
+        assertTrue(tableMirror.schemasEqual(Environment.LEFT, Environment.RIGHT));
+        // Edited in place.
+        right.getDefinition().set(1, "`id` int)");
+        assertFalse(tableMirror.schemasEqual(Environment.LEFT, Environment.RIGHT));
+        assertNull(new EnvironmentTable().getFingerprint());
+    }
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hive.config.QueryDefinition;
+import com.cloudera.utils.hive.config.QueryDefinitions;
+import com.cloudera.utils.hms.mirror.domain.Cluster;
+import com.cloudera.utils.hms.mirror.domain.DBMirror;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.support.DataStrategyEnum;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.util.StreamingQueryExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+import static com.cloudera.utils.hms.mirror.MirrorConf.PARTITION_COUNT;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the table filters against the metastore attributes, before the definitions are fetched, and narrows the
+ * table listing with the tblRegEx.
+ */
+public class TableServiceTableFilterTest {
+
+    private HmsMirrorConfig config;
+    private TableService tableService;
+    private ConfigService configService;
+    private QueryDefinitionsService queryDefinitionsService;
+    private Connection connection;
+    private DBMirror dbMirror;
+    // Rows of the 'database_table_filter_attributes' query.
+    private final List<String[]> rows = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        config = new HmsMirrorConfig();
+        config.setDataStrategy(DataStrategyEnum.SCHEMA_ONLY);
+        config.getClusters().put(Environment.LEFT, new Cluster());
+
+        ExecuteSessionService executeSessionService = mock(ExecuteSessionService.class);
+        ExecuteSession session = mock(ExecuteSession.class);
+        when(executeSessionService.getSession()).thenReturn(session);
+        when(session.getConfig()).thenReturn(config);
+
+        configService = mock(ConfigService.class);
+        when(configService.isMetastoreDirectConfigured(any(), any())).thenReturn(Boolean.TRUE);
+        ConnectionPoolService connectionPoolService = mock(ConnectionPoolService.class);
+        connection = mock(Connection.class);
+        when(connectionPoolService.getMetastoreDirectEnvironmentConnection(any())).thenReturn(connection);
+
+        QueryDefinition queryDefinition = mock(QueryDefinition.class);
+        when(queryDefinition.getStatement())
+                .thenReturn("SELECT ... WHERE D.NAME = ? UNION ALL SELECT ... WHERE D.NAME = ? UNION ALL " +
+                        "SELECT ... WHERE D.NAME = ? GROUP BY T.TBL_NAME");
+        QueryDefinitions queryDefinitions = mock(QueryDefinitions.class);
+        when(queryDefinitions.getQueryDefinition(TableService.TABLE_FILTER_QUERY)).thenReturn(queryDefinition);
+        RateLimiterService rateLimiterService = new RateLimiterService(executeSessionService);
+        // The real per database helper, over the stubbed query.
+        queryDefinitionsService = spy(new QueryDefinitionsService(executeSessionService, connectionPoolService,
+                rateLimiterService));
+        doReturn(queryDefinitions).when(queryDefinitionsService).getQueryDefinitions(any());
+        doAnswer(invocation -> {
+            StreamingQueryExecutor.RowHandler handler = invocation.getArgument(3);
+            for (String[] row : rows) {
+                handler.handle(resultSet(row));
+            }
+            return (long) rows.size();
+        }).when(queryDefinitionsService).executeQuery(any(), any(), eq(TableService.TABLE_FILTER_QUERY), any(),
+                any(Object[].class));
+
+        tableService = new TableService(configService, executeSessionService, connectionPoolService,
+                queryDefinitionsService, null, null, rateLimiterService,
+                new SqlResilienceService(executeSessionService, rateLimiterService, connectionPoolService),
+                new CatalogCacheService(configService, executeSessionService, queryDefinitionsService, null), null);
+
+        dbMirror = new DBMirror();
+        dbMirror.setName("sales");
+        row("orders", "TYPE", "EXTERNAL_TABLE");
+        row("orders", "totalSize", "1048576");
+        row("events", "TYPE", "EXTERNAL_TABLE");
+        row("events", "PARTITIONS", "1200");
+        row("acid_orders", "TYPE", "MANAGED_TABLE");
+        row("acid_orders", "transactional", "true");
+        row("legacy_managed", "TYPE", "MANAGED_TABLE");
+        row("order_view", "TYPE", "VIRTUAL_VIEW");
+        row("hbase_orders", "TYPE", "EXTERNAL_TABLE");
+        row("hbase_orders", "storage_handler", "org.apache.hadoop.hive.hbase.HBaseStorageHandler");
+        row("ice_orders", "TYPE", "EXTERNAL_TABLE");
+        row("ice_orders", "storage_handler", "org.apache.iceberg.mr.hive.HiveIcebergStorageHandler");
+        for (String table : Arrays.asList("orders", "events", "acid_orders", "legacy_managed", "order_view",
+                "hbase_orders", "ice_orders", "not_in_metastore")) {
+            dbMirror.addTable(table);
+        }
+    }
+
+    private void row(String... row) {
+        rows.add(row);
+    }
+
+    private static ResultSet resultSet(String[] row) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString(anyInt())).thenAnswer(invocation -> row[(int) invocation.getArgument(0) - 1]);
+        return resultSet;
+    }
+
+    private Set<String> removed() {
+        Set<String> rtn = new TreeSet<>();
+        dbMirror.getTableMirrors().forEach((name, tableMirror) -> {
+            if (tableMirror.isRemove()) {
+                rtn.add(name);
+            }
+        });
+        return rtn;
+    }
+
+    @Test
+    public void excludedTablesAreRemovedBeforeTheirDefinitions() throws SQLException {
+        tableService.scanTableFilters(dbMirror);
+        assertEquals(new TreeSet<>(Arrays.asList("acid_orders", "hbase_orders", "order_view")), removed());
+        assertTrue(dbMirror.getTableMirrors().get("acid_orders").getRemoveReason().startsWith("ACID table"));
+        assertEquals(1200, dbMirror.getTableMirrors().get("events").getEnvironmentTable(Environment.LEFT)
+                .getStatistics().get(PARTITION_COUNT));
+        verify(queryDefinitionsService).executeQuery(eq(Environment.LEFT), any(), anyString(), any(),
+                eq("sales"), eq("sales"), eq("sales"));
+    }
+
+    @Test
+    public void acidOnlyKeepsTheTransactionalTables() {
+        config.getMigrateACID().setOn(Boolean.TRUE);
+        config.getMigrateACID().setOnly(Boolean.TRUE);
+        config.setMigrateNonNative(Boolean.TRUE);
+        config.setDataStrategy(DataStrategyEnum.DUMP);
+        tableService.scanTableFilters(dbMirror);
+        // The Iceberg table is left to the definition check.
+        assertEquals(new TreeSet<>(Arrays.asList("events", "legacy_managed", "orders")), removed());
+    }
+
+    @Test
+    public void sizeAndPartitionLimits() {
+        config.setMigrateNonNative(Boolean.TRUE);
+        config.setDataStrategy(DataStrategyEnum.DUMP);
+        config.getMigrateACID().setOn(Boolean.TRUE);
+        config.getFilter().setTblSizeLimit(0L);
+        config.getFilter().setTblPartitionLimit(1000);
+        tableService.scanTableFilters(dbMirror);
+        assertEquals(Collections.singleton("events"), removed());
+
+        config.getFilter().setTblSizeLimit(1L);
+        assertNull(TableService.getTableFilterRemoveReason(config, attributes("TYPE", "EXTERNAL_TABLE",
+                "totalSize", "1048576")));
+        assertNotNull(TableService.getTableFilterRemoveReason(config, attributes("TYPE", "EXTERNAL_TABLE",
+                "totalSize", "1048577")));
+        // The table level size isn't kept for partitioned tables.
+        assertNull(TableService.getTableFilterRemoveReason(config, attributes("TYPE", "EXTERNAL_TABLE",
+                "totalSize", "0", "PARTITIONS", "10")));
+    }
+
+    @Test
+    public void storageMigrationFlag() {
+        config.setDataStrategy(DataStrategyEnum.STORAGE_MIGRATION);
+        assertTrue(TableService.getTableFilterRemoveReason(config, attributes("TYPE", "EXTERNAL_TABLE",
+                "hms-mirror-STORAGE_MIGRATED", "2024-05-01")).contains("STORAGE_MIGRATION"));
+    }
+
+    @Test
+    public void withoutMetastoreDirectTheDefinitionsDecide() {
+        when(configService.isMetastoreDirectConfigured(any(), any())).thenReturn(Boolean.FALSE);
+        tableService.scanTableFilters(dbMirror);
+        assertTrue(removed().isEmpty());
+        verifyNoInteractions(queryDefinitionsService);
+    }
+
+    @Test
+    public void queryFailureFetchesEverything() throws SQLException {
+        doThrow(new SQLException("Lost connection")).when(queryDefinitionsService)
+                .executeQuery(any(), any(), anyString(), any(), any(Object[].class));
+        tableService.scanTableFilters(dbMirror);
+        assertTrue(removed().isEmpty());
+        verify(connection).close();
+    }
+
+    @Test
+    public void closeFailureKeepsTheResults() throws SQLException {
+        doThrow(new SQLException("Already closed")).when(connection).close();
+        tableService.scanTableFilters(dbMirror);
+        assertTrue(removed().contains("acid_orders"));
+        verify(connection).close();
+    }
+
+    @Test
+    public void showTablesIsNarrowedByTheTableRegEx() {
+        assertEquals(Collections.singletonList("SHOW TABLES"),
+                tableService.buildShowStatements(config, Environment.LEFT));
+        config.getFilter().setTblRegEx("orders_.*|returns");
+        assertEquals(Collections.singletonList("SHOW TABLES LIKE 'orders_*|returns'"),
+                tableService.buildShowStatements(config, Environment.LEFT));
+        config.getMigrateVIEW().setOn(Boolean.TRUE);
+        config.setDataStrategy(DataStrategyEnum.DUMP);
+        assertEquals(Arrays.asList("SHOW VIEWS LIKE 'orders_*|returns'", "SHOW TABLES LIKE 'orders_*|returns'"),
+                tableService.buildShowStatements(config, Environment.LEFT));
+    }
+
+    @Test
+    public void showPatterns() {
+        config.getFilter().setTblRegEx("orders_[0-9]+");
+        assertNull(config.getFilter().getTblShowPattern());
+        config.getFilter().setTblRegEx("a.*b.*.*|c");
+        assertEquals("a*b*|c", config.getFilter().getTblShowPattern());
+        config.getFilter().setTblRegEx("a|");
+        assertNull(config.getFilter().getTblShowPattern());
+        // The dbRegEx can match anywhere in the name.
+        config.getFilter().setDbRegEx("sales|hr_.*");
+        assertEquals("*sales*|*hr_*", config.getFilter().getDbShowPattern());
+    }
+
+    private static Map<String, String> attributes(String... keyValues) {
+        Map<String, String> rtn = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            rtn.put(keyValues[i], keyValues[i + 1]);
+        }
+        return rtn;
+    }
+}
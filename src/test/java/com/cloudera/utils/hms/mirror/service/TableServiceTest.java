@@ -29,7 +29,7 @@ class TableServiceTest extends ServiceTestBase {
 
     @BeforeEach
     void setUp1() {
-        queryDefinitionsService = new QueryDefinitionsService(executeSessionService);
+        queryDefinitionsService = new QueryDefinitionsService(executeSessionService, null, null);
 
         statsCalculatorService = new StatsCalculatorService(executeSessionService);
 
@@ -39,7 +39,12 @@ class TableServiceTest extends ServiceTestBase {
                 connectionPoolService,
                 queryDefinitionsService,
                 translatorService,
-                statsCalculatorService
+                statsCalculatorService,
+                new RateLimiterService(executeSessionService),
+                new SqlResilienceService(executeSessionService, new RateLimiterService(executeSessionService),
+                        connectionPoolService),
+                new CatalogCacheService(configService, executeSessionService, queryDefinitionsService, null),
+                null
         );
     }
 
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.Pair;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.domain.HiveServer2Config;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.TableMirror;
+import com.cloudera.utils.hms.mirror.domain.support.Environment;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.ProgressEnum;
+import com.cloudera.utils.hms.mirror.domain.support.TransferChunk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs a partition-chunked transfer through TableService.runTableSql against mocked HS2 connections.
+ */
+public class TableServiceTransferChunkTest {
+
+    private static final String USE = "USE my_db";
+    private static final String SET = "SET hive.optimize.sort.dynamic.partition=false";
+    private static final String RENAME = "ALTER TABLE my_tbl_transfer RENAME TO my_tbl";
+
+    private HmsMirrorConfig config;
+    private TableService tableService;
+    private TableMirror tableMirror;
+    private EnvironmentTable environmentTable;
+    // Connection number -> statements run on it.
+    private final Map<Integer, List<String>> executed = new TreeMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicBoolean failChunk3 = new AtomicBoolean(Boolean.TRUE);
+    private ConnectionPoolService connectionPoolService;
+    private ThreadPoolTaskExecutor jobThreadPool;
+    // The first 'SET's wait for each other, to hold the connections at the same time.
+    private volatile CyclicBarrier setBarrier;
+    private final AtomicInteger heldSets = new AtomicInteger();
+    // When set, the chunks on the table's connection wait for another connection to start, so both run chunks.
+    private volatile CountDownLatch otherConnection;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        jobThreadPool = new ThreadPoolTaskExecutor();
+        jobThreadPool.setCorePoolSize(2);
+        jobThreadPool.setMaxPoolSize(2);
+        jobThreadPool.setThreadNamePrefix("job-");
+        jobThreadPool.initialize();
+
+        config = new HmsMirrorConfig();
+        config.setExecute(Boolean.TRUE);
+        config.initClusterFor(Environment.LEFT).setHiveServer2(new HiveServer2Config());
+
+        ExecuteSessionService executeSessionService = mock(ExecuteSessionService.class);
+        ExecuteSession session = mock(ExecuteSession.class);
+        when(executeSessionService.getSession()).thenReturn(session);
+        when(session.getConfig()).thenReturn(config);
+
+        connectionPoolService = mock(ConnectionPoolService.class);
+        when(connectionPoolService.getHS2EnvironmentConnection(Environment.LEFT)).thenAnswer(invocation -> newConnection());
+
+        tableService = new TableService(null, executeSessionService, connectionPoolService, null, null, null,
+                new RateLimiterService(executeSessionService),
+                new SqlResilienceService(executeSessionService, new RateLimiterService(executeSessionService),
+                        connectionPoolService),
+                new CatalogCacheService(null, executeSessionService, null, null), jobThreadPool);
+
+        tableMirror = newTableMirror();
+        environmentTable = tableMirror.getEnvironmentTable(Environment.LEFT);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        jobThreadPool.shutdown();
+    }
+
+    private TableMirror newTableMirror() {
+        TableMirror rtn = new TableMirror();
+        rtn.setName("my_tbl");
+        EnvironmentTable et = rtn.getEnvironmentTable(Environment.LEFT);
+        et.addSql(new Pair("Use", USE));
+        et.addSql(new Pair("Setting", SET));
+        for (int i = 1; i <= 4; i++) {
+            Pair pair = new Pair("Chunk " + i, "FROM my_tbl INSERT OVERWRITE TABLE my_tbl_transfer PARTITION (`dt`) " +
+                    "SELECT * WHERE `dt` = 'chunk_" + i + "'");
+            TransferChunk chunk = new TransferChunk(i, 4);
+            chunk.setSql(pair);
+            et.getTransferChunks().add(chunk);
+            et.addSql(pair);
+        }
+        et.addSql(new Pair("Rename", RENAME));
+        return rtn;
+    }
+
+    private Connection newConnection() throws SQLException {
+        int id = connections.incrementAndGet();
+        List<String> statements = Collections.synchronizedList(new ArrayList<>());
+        synchronized (executed) {
+            executed.put(id, statements);
+        }
+        Statement stmt = mock(Statement.class);
+        when(stmt.execute(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            statements.add(sql);
+            CyclicBarrier barrier = setBarrier;
+            if (sql.equals(SET) && barrier != null && heldSets.getAndDecrement() > 0) {
+                barrier.await(10, TimeUnit.SECONDS);
+            }
+            CountDownLatch other = otherConnection;
+            if (other != null) {
+                if (id > 1) {
+                    other.countDown();
+                } else if (!sql.equals(USE) && !sql.equals(SET)) {
+                    assertTrue(other.await(10, TimeUnit.SECONDS));
+                }
+            }
+            if (sql.contains("chunk_3") && failChunk3.getAndSet(Boolean.FALSE)) {
+                throw new SQLException("Vertex failed");
+            }
+            return Boolean.FALSE;
+        });
+        Connection conn = mock(Connection.class);
+        when(conn.createStatement()).thenReturn(stmt);
+        return conn;
+    }
+
+    private List<String> allExecuted() {
+        List<String> rtn = new ArrayList<>();
+        synchronized (executed) {
+            executed.values().forEach(rtn::addAll);
+        }
+        return rtn;
+    }
+
+    @Test
+    public void sequentialChunksStopDependentStatementsOnFailure() {
+        assertFalse(tableService.runTableSql(tableMirror, Environment.LEFT));
+        List<TransferChunk> chunks = environmentTable.getTransferChunks();
+        assertEquals(ProgressEnum.COMPLETED, chunks.get(0).getStatus());
+        assertEquals(ProgressEnum.FAILED, chunks.get(2).getStatus());
+        assertEquals("Vertex failed", chunks.get(2).getError());
+        // The other chunks still run.
+        assertEquals(ProgressEnum.COMPLETED, chunks.get(3).getStatus());
+        assertFalse(allExecuted().contains(RENAME));
+        assertEquals(1, connections.get());
+    }
+
+    @Test
+    public void retryRunsOnlyTheFailedChunk() {
+        assertFalse(tableService.runTableSql(tableMirror, Environment.LEFT));
+        executed.clear();
+
+        assertTrue(tableService.runTableSql(tableMirror, Environment.LEFT));
+        List<String> retried = allExecuted();
+        assertEquals(List.of(USE, SET, environmentTable.getTransferChunks().get(2).getSqlStatement(), RENAME), retried);
+        for (TransferChunk chunk : environmentTable.getTransferChunks()) {
+            assertEquals(ProgressEnum.COMPLETED, chunk.getStatus());
+        }
+    }
+
+    @Test
+    public void multiStatementChunkRetriesFromTheFailedStatement() {
+        // Two partition groups, as for a chunked EXPORT, run on the table's connection and one other.
+        environmentTable.getSql().clear();
+        environmentTable.getTransferChunks().clear();
+        environmentTable.addSql(new Pair("Use", USE));
+        List<String> statements = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            TransferChunk chunk = new TransferChunk(i, 2);
+            chunk.setParallelism(2);
+            for (int j = 1; j <= 3; j++) {
+                // The second statement of the second group fails once.
+                String dt = (i == 2 && j == 2) ? "chunk_3" : "p" + i + j;
+                String sql = "EXPORT TABLE my_tbl PARTITION (`dt`='" + dt + "') TO \"/tmp/my_tbl/" + dt + "\"";
+                Pair pair = new Pair("Export " + i + "." + j, sql);
+                chunk.addSql(pair);
+                environmentTable.addSql(pair);
+                statements.add(sql);
+            }
+            environmentTable.getTransferChunks().add(chunk);
+        }
+        otherConnection = new CountDownLatch(1);
+
+        assertFalse(tableService.runTableSql(tableMirror, Environment.LEFT));
+        TransferChunk failed = environmentTable.getTransferChunks().get(1);
+        assertEquals(ProgressEnum.COMPLETED, environmentTable.getTransferChunks().get(0).getStatus());
+        assertEquals(ProgressEnum.FAILED, failed.getStatus());
+        assertEquals(1, failed.getCompletedStatements());
+        assertEquals(2, connections.get());
+
+        otherConnection = null;
+        executed.clear();
+        assertTrue(tableService.runTableSql(tableMirror, Environment.LEFT));
+        // Only the failed group is left, so it runs on the table's connection.
+        List<String> retried = allExecuted();
+        assertEquals(List.of(USE, statements.get(4), statements.get(5)), retried);
+        assertEquals(ProgressEnum.COMPLETED, failed.getStatus());
+        assertEquals(3, failed.getCompletedStatements());
+    }
+
+    @Test
+    public void parallelChunksReplaySessionSetup() {
+        config.getOptimization().setChunkedSqlTransferParallelism(2);
+        failChunk3.set(Boolean.FALSE);
+        otherConnection = new CountDownLatch(1);
+
+        assertTrue(tableService.runTableSql(tableMirror, Environment.LEFT));
+        // The table's connection plus one other.
+        assertEquals(2, connections.get());
+        List<String> main = executed.get(1);
+        assertEquals(List.of(USE, SET), main.subList(0, 2));
+        assertEquals(RENAME, main.get(main.size() - 1));
+        List<String> other = executed.get(2);
+        assertEquals(List.of(USE, SET), other.subList(0, 2));
+        // Each chunk is run once, on one of them.
+        List<String> chunkStatements = new ArrayList<>(main.subList(2, main.size() - 1));
+        chunkStatements.addAll(other.subList(2, other.size()));
+        assertEquals(4, chunkStatements.size());
+        for (TransferChunk chunk : environmentTable.getTransferChunks()) {
+            assertTrue(chunkStatements.contains(chunk.getSqlStatement()));
+            assertEquals(ProgressEnum.COMPLETED, chunk.getStatus());
+        }
+    }
+
+    @Test
+    public void parallelChunksDontWaitOnAnExhaustedPool() throws Exception {
+        // As many connections as tables running, and each table holds one before its chunks run.
+        int threads = 2;
+        Semaphore pool = new Semaphore(threads);
+        when(connectionPoolService.getHS2EnvironmentConnection(Environment.LEFT)).thenAnswer(invocation -> {
+            try {
+                // Waits as long as it takes, like DBCP2 with the default 'maxWaitMillis'.
+                pool.acquire();
+            } catch (InterruptedException ie) {
+                throw new SQLException("Interrupted waiting for a connection", ie);
+            }
+            Connection conn = newConnection();
+            doAnswer(i -> {
+                pool.release();
+                return null;
+            }).when(conn).close();
+            return conn;
+        });
+        config.getOptimization().setChunkedSqlTransferParallelism(4);
+        failChunk3.set(Boolean.FALSE);
+        heldSets.set(threads);
+        setBarrier = new CyclicBarrier(threads);
+
+        List<TableMirror> tables = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            tables.add(newTableMirror());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (TableMirror table : tables) {
+                results.add(executor.submit(() -> tableService.runTableSql(table, Environment.LEFT)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (TableMirror table : tables) {
+            for (TransferChunk chunk : table.getEnvironmentTable(Environment.LEFT).getTransferChunks()) {
+                assertEquals(ProgressEnum.COMPLETED, chunk.getStatus());
+            }
+        }
+        long chunkRuns = allExecuted().stream().filter(sql -> sql.contains("INSERT OVERWRITE")).count();
+        assertEquals(8, chunkRuns);
+    }
+
+    @Test
+    public void parallelChunksDontWaitOnAFullJobPool() throws Exception {
+        // The tables take all the job threads, so the other connections never get one.
+        config.getOptimization().setChunkedSqlTransferParallelism(4);
+        failChunk3.set(Boolean.FALSE);
+
+        List<TableMirror> tables = new ArrayList<>();
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            TableMirror table = newTableMirror();
+            tables.add(table);
+            results.add(jobThreadPool.submit(() -> tableService.runTableSql(table, Environment.LEFT)));
+        }
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get(30, TimeUnit.SECONDS));
+        }
+        for (TableMirror table : tables) {
+            for (TransferChunk chunk : table.getEnvironmentTable(Environment.LEFT).getTransferChunks()) {
+                assertEquals(ProgressEnum.COMPLETED, chunk.getStatus());
+            }
+        }
+        // Each chunk once, whichever connection took it.
+        assertEquals(8, allExecuted().stream().filter(sql -> sql.contains("INSERT OVERWRITE")).count());
+    }
+
+}
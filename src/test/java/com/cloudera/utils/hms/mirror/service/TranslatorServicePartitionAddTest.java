@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.mirror.service;
+
+import com.cloudera.utils.hms.mirror.MirrorConf;
+import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.domain.HmsMirrorConfig;
+import com.cloudera.utils.hms.mirror.domain.support.ExecuteSession;
+import com.cloudera.utils.hms.mirror.domain.support.TransferChunk;
+import com.cloudera.utils.hms.util.TableUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Splits the partition adds of a table into bounded ALTER TABLE ... ADD PARTITION statements.
+ */
+public class TranslatorServicePartitionAddTest {
+
+    private HmsMirrorConfig config;
+    private TranslatorService translatorService;
+    private EnvironmentTable environmentTable;
+
+    @BeforeEach
+    public void setup() {
+        config = new HmsMirrorConfig();
+        ExecuteSessionService executeSessionService = mock(ExecuteSessionService.class);
+        ExecuteSession session = mock(ExecuteSession.class);
+        when(executeSessionService.getSession()).thenReturn(session);
+        when(session.getConfig()).thenReturn(config);
+        translatorService = new TranslatorService(executeSessionService, null);
+
+        environmentTable = new EnvironmentTable();
+        environmentTable.setName("my_tbl");
+        for (int i = 0; i < 25; i++) {
+            String dt = String.format("2024-01-%02d", i + 1);
+            environmentTable.getPartitions().put("dt=" + dt, "hdfs://ns/warehouse/my_tbl/dt=" + dt);
+        }
+    }
+
+    @Test
+    public void noPartitions() {
+        environmentTable.getPartitions().clear();
+        assertTrue(translatorService.buildPartitionAddChunks(environmentTable).isEmpty());
+    }
+
+    @Test
+    public void singleStatement() {
+        List<TransferChunk> chunks = translatorService.buildPartitionAddChunks(environmentTable);
+        assertEquals(1, chunks.size());
+        TransferChunk chunk = chunks.get(0);
+        assertEquals(MirrorConf.ALTER_TABLE_PARTITION_ADD_LOCATION_DESC, chunk.getSql().getDescription());
+        assertEquals(25, chunk.getPartitionCount());
+        String sql = chunk.getSqlStatement();
+        assertTrue(sql.startsWith("ALTER TABLE my_tbl ADD IF NOT EXISTS\n\tPARTITION (`dt`='2024-01-01') "
+                + "LOCATION 'hdfs://ns/warehouse/my_tbl/dt=2024-01-01' \n"), sql);
+        assertEquals(25, sql.split("\tPARTITION ").length - 1);
+    }
+
+    @Test
+    public void chunkedByCount() {
+        List<TransferChunk> chunks = translatorService.buildPartitionAddChunks(environmentTable, 10, 0);
+        assertEquals(3, chunks.size());
+        assertEquals(10, chunks.get(0).getPartitionCount());
+        assertEquals(10, chunks.get(1).getPartitionCount());
+        assertEquals(5, chunks.get(2).getPartitionCount());
+        assertEquals("dt=2024-01-11", chunks.get(1).getFirstPartition());
+        assertEquals("dt=2024-01-20", chunks.get(1).getLastPartition());
+        for (TransferChunk chunk : chunks) {
+            assertEquals(3, chunk.getTotal());
+            assertTrue(chunk.getSqlStatement().startsWith("ALTER TABLE my_tbl ADD IF NOT EXISTS\n"));
+            assertTrue(chunk.getSql().getDescription().contains("chunk " + chunk.getId() + " of 3"));
+        }
+        assertTrue(chunks.get(2).getSqlStatement().contains("`dt`='2024-01-25'"));
+    }
+
+    @Test
+    public void chunkedByBytes() {
+        long maxBytes = 500;
+        List<TransferChunk> chunks = translatorService.buildPartitionAddChunks(environmentTable, 0, maxBytes);
+        assertTrue(chunks.size() > 1);
+        int partitions = 0;
+        for (TransferChunk chunk : chunks) {
+            assertTrue(chunk.getSqlStatement().length() <= maxBytes, chunk.getSqlStatement());
+            partitions += chunk.getPartitionCount();
+        }
+        assertEquals(25, partitions);
+    }
+
+    @Test
+    public void partitionOverTheByteLimit() {
+        // Each partition still gets a statement.
+        List<TransferChunk> chunks = translatorService.buildPartitionAddChunks(environmentTable, 0, 10);
+        assertEquals(25, chunks.size());
+    }
+
+    @Test
+    public void statementsAreBuiltFromThePartitionsTheyCover() {
+        List<TransferChunk> chunks = translatorService.buildPartitionAddChunks(environmentTable, 10, 0);
+        String sql = chunks.get(0).getSqlStatement();
+        // The statement is put together when it's asked for, from the locations at the time the chunks were made.
+        environmentTable.getPartitions().put("dt=2024-01-01", "hdfs://ns/moved");
+        assertEquals(sql, chunks.get(0).getSqlStatement());
+        assertFalse(sql.contains("dt=2024-01-11"), sql);
+
+        chunks.get(0).getSql().setAction("ALTER TABLE my_tbl ADD IF NOT EXISTS PARTITION (`dt`='2024-01-01')");
+        assertEquals("ALTER TABLE my_tbl ADD IF NOT EXISTS PARTITION (`dt`='2024-01-01')",
+                chunks.get(0).getSqlStatement());
+    }
+
+    @Test
+    public void limitsFromConfig() {
+        config.getOptimization().setPartitionAddChunkSize(5);
+        assertEquals(5, translatorService.buildPartitionAddChunks(environmentTable).size());
+    }
+
+    @Test
+    public void registerFiftyThousandKnownPartitions() {
+        // The known partitions of a LEFT table, registered on a table at a new location in place of an MSCK.
+        Map<String, String> partitions = new HashMap<>();
+        for (int day = 0; day < 2000; day++) {
+            for (int hr = 0; hr < 25; hr++) {
+                String name = String.format("dt=%04d/hr=%02d", day, hr);
+                partitions.put(name, "hdfs://LEFT/warehouse/my_db.db/my_tbl/" + name);
+            }
+        }
+        Map<String, String> rebased = TableUtils.rebasePartitionLocations(partitions,
+                "hdfs://LEFT/warehouse/my_db.db/my_tbl", "s3a://bucket/warehouse/my_db.db/my_tbl");
+        assertEquals(50000, rebased.size());
+
+        List<TransferChunk> chunks = translatorService.buildPartitionAddChunks("my_tbl_shadow", rebased,
+                config.getOptimization().getPartitionAddChunkSize(), config.getOptimization().getPartitionAddMaxBytes());
+        assertEquals(100, chunks.size());
+
+        // Put together, the statements add each partition once, in order, at its new location.
+        String header = "ALTER TABLE my_tbl_shadow ADD IF NOT EXISTS\n";
+        StringBuilder emitted = new StringBuilder();
+        for (TransferChunk chunk : chunks) {
+            String sql = chunk.getSqlStatement();
+            assertTrue(sql.startsWith(header));
+            assertTrue(sql.length() <= config.getOptimization().getPartitionAddMaxBytes());
+            assertEquals(500, chunk.getPartitionCount());
+            emitted.append(sql.substring(header.length()));
+        }
+        StringBuilder expected = new StringBuilder();
+        for (int day = 0; day < 2000; day++) {
+            for (int hr = 0; hr < 25; hr++) {
+                expected.append(String.format("\tPARTITION (`dt`='%04d',`hr`='%02d') LOCATION "
+                        + "'s3a://bucket/warehouse/my_db.db/my_tbl/dt=%04d/hr=%02d' \n", day, hr, day, hr));
+            }
+        }
+        assertEquals(expected.toString(), emitted.toString());
+    }
+
+}
@@ -19,6 +19,7 @@ package com.cloudera.utils.hms.mirror.utils;
 
 import com.cloudera.utils.hms.mirror.domain.Cluster;
 import com.cloudera.utils.hms.mirror.domain.EnvironmentTable;
+import com.cloudera.utils.hms.mirror.feature.IcebergState;
 import com.cloudera.utils.hms.util.TableUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,7 +27,9 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.cloudera.utils.hms.mirror.TablePropertyVars.TRANSACTIONAL;
 import static org.junit.jupiter.api.Assertions.*;
@@ -549,4 +552,45 @@ public class TableUtilsTest {
     @Test
     public void updateTblProperty() {
     }
-}
\ No newline at end of file
+
+    @Test
+    public void icebergConversionStateFromMetastore() {
+        String orcSerde = "org.apache.hadoop.hive.ql.io.orc.OrcSerde";
+        String orcInput = "org.apache.hadoop.hive.ql.io.orc.OrcInputFormat";
+        assertEquals(IcebergState.CONVERTABLE, TableUtils.getIcebergConversionState("EXTERNAL_TABLE", orcSerde,
+                orcInput, null, null, null));
+        assertEquals(IcebergState.NOT_CONVERTABLE, TableUtils.getIcebergConversionState("MANAGED_TABLE", orcSerde,
+                orcInput, null, null, null));
+        assertEquals(IcebergState.NOT_CONVERTABLE, TableUtils.getIcebergConversionState("EXTERNAL_TABLE",
+                "org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe", "org.apache.hadoop.mapred.TextInputFormat",
+                null, null, null));
+        assertEquals(IcebergState.NOT_CONVERTABLE, TableUtils.getIcebergConversionState("VIRTUAL_VIEW", null,
+                null, null, null, null));
+        assertEquals(IcebergState.V2_FORMAT, TableUtils.getIcebergConversionState("EXTERNAL_TABLE", orcSerde,
+                orcInput, "ICEBERG", null, "2"));
+        assertEquals(IcebergState.V1_FORMAT, TableUtils.getIcebergConversionState("EXTERNAL_TABLE", null, null,
+                null, "org.apache.iceberg.mr.hive.HiveIcebergStorageHandler", "1"));
+    }
+
+    @Test
+    public void rebasePartitionLocations() {
+        Map<String, String> partitions = new HashMap<>();
+        partitions.put("dt=2024-01-01", "hdfs://LEFT/warehouse/my_tbl/dt=2024-01-01");
+        partitions.put("dt=2024-01-02/hr=01", "hdfs://LEFT/warehouse/my_tbl/dt=2024-01-02/hr=01");
+        Map<String, String> rebased = TableUtils.rebasePartitionLocations(partitions,
+                "hdfs://LEFT/warehouse/my_tbl/", "s3a://bucket/warehouse/my_tbl");
+        assertEquals(2, rebased.size());
+        assertEquals("s3a://bucket/warehouse/my_tbl/dt=2024-01-01", rebased.get("dt=2024-01-01"));
+        assertEquals("s3a://bucket/warehouse/my_tbl/dt=2024-01-02/hr=01", rebased.get("dt=2024-01-02/hr=01"));
+
+        // Outside the table location.
+        partitions.put("dt=2024-01-03", "hdfs://LEFT/warehouse/my_tbl_old/dt=2024-01-03");
+        assertNull(TableUtils.rebasePartitionLocations(partitions, "hdfs://LEFT/warehouse/my_tbl",
+                "s3a://bucket/warehouse/my_tbl"));
+        // Location not collected.
+        partitions.put("dt=2024-01-03", "NOT_SET");
+        assertNull(TableUtils.rebasePartitionLocations(partitions, "hdfs://LEFT/warehouse/my_tbl",
+                "s3a://bucket/warehouse/my_tbl"));
+        assertNull(TableUtils.rebasePartitionLocations(partitions, null, "s3a://bucket/warehouse/my_tbl"));
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.utils;
+
+import com.cloudera.utils.hms.util.DriverClassLoaderCache;
+import com.cloudera.utils.hms.util.DriverDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Uses the H2 jar from the test classpath as the 'isolated' JDBC driver.  The platform classloader is the parent,
+ * so the driver classes are loaded by the cached classloader and not the application classloader.
+ */
+@Slf4j
+public class DriverClassLoaderCacheTest {
+
+    private static final String H2_DRIVER = "org.h2.Driver";
+    private static final int SESSION_STARTS = 10;
+
+    private final DriverClassLoaderCache cache = DriverClassLoaderCache.getInstance();
+    private final ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    private File[] jars;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        jars = new File[]{new File(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI())};
+        cache.evictUnused();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cache.evictUnused();
+    }
+
+    @Test
+    public void repeatedSessionStartsReuseClassLoader() throws Exception {
+        // Uncached baseline: a new classloader for every session start, like before.
+        long baselineClasses = 0;
+        long baselineNanos = 0;
+        for (int i = 0; i < 2; i++) {
+            long classesBefore = classLoading.getTotalLoadedClassCount();
+            long start = System.nanoTime();
+            try (URLClassLoader classLoader = URLClassLoader.newInstance(new URL[]{jars[0].toURI().toURL()},
+                    ClassLoader.getPlatformClassLoader())) {
+                Driver driver = (Driver) classLoader.loadClass(H2_DRIVER).getDeclaredConstructor().newInstance();
+                sessionStart(driver, i);
+            }
+            baselineNanos += System.nanoTime() - start;
+            baselineClasses += classLoading.getTotalLoadedClassCount() - classesBefore;
+        }
+        baselineClasses /= 2;
+        baselineNanos /= 2;
+
+        // First (cold) start through the cache.
+        long classesBefore = classLoading.getTotalLoadedClassCount();
+        long start = System.nanoTime();
+        DriverClassLoaderCache.CachedDriver first = cache.acquire(jars, H2_DRIVER, ClassLoader.getPlatformClassLoader());
+        sessionStart(first.getDriver(), 100);
+        long coldNanos = System.nanoTime() - start;
+        long coldClasses = classLoading.getTotalLoadedClassCount() - classesBefore;
+        cache.release(first.getDriver());
+
+        // Repeated starts.
+        classesBefore = classLoading.getTotalLoadedClassCount();
+        start = System.nanoTime();
+        for (int i = 0; i < SESSION_STARTS; i++) {
+            DriverClassLoaderCache.CachedDriver cachedDriver = cache.acquire(jars, H2_DRIVER,
+                    ClassLoader.getPlatformClassLoader());
+            assertSame(first.getDriver(), cachedDriver.getDriver());
+            sessionStart(cachedDriver.getDriver(), 200 + i);
+            cache.release(cachedDriver.getDriver());
+        }
+        long warmNanos = (System.nanoTime() - start) / SESSION_STARTS;
+        long warmClasses = classLoading.getTotalLoadedClassCount() - classesBefore;
+
+        log.info("Uncached start: {} classes, {} ms", baselineClasses, baselineNanos / 1_000_000);
+        log.info("Cached cold start: {} classes, {} ms", coldClasses, coldNanos / 1_000_000);
+        log.info("Cached start (avg of {}): {} classes total, {} ms", SESSION_STARTS, warmClasses,
+                warmNanos / 1_000_000);
+
+        assertTrue(coldClasses > 0);
+        // Without the cache, every start loads the driver classes again.  With it, all the repeated starts
+        // together load fewer classes than a single uncached start.
+        assertTrue(warmClasses < baselineClasses, "cached: " + warmClasses + " uncached: " + baselineClasses);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictOnlyUnreferenced() throws Exception {
+        DriverClassLoaderCache.CachedDriver cachedDriver = cache.acquire(jars, H2_DRIVER,
+                ClassLoader.getPlatformClassLoader());
+        DriverClassLoaderCache.CachedDriver second = cache.acquire(jars, H2_DRIVER,
+                ClassLoader.getPlatformClassLoader());
+        assertSame(cachedDriver.getDriver(), second.getDriver());
+        assertEquals(2, cache.getReferences(cachedDriver.getKey()));
+
+        cache.release(cachedDriver.getDriver());
+        assertEquals(0, cache.evictUnused());
+        assertEquals(1, cache.size());
+
+        cache.release(second.getDriver());
+        assertEquals(1, cache.evictUnused());
+        assertEquals(0, cache.size());
+
+        // Releasing again, or releasing a driver that didn't come from the cache, is ignored.
+        cache.release(second.getDriver());
+        cache.release(new org.h2.Driver());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void registeredUntilEvicted() throws Exception {
+        DriverClassLoaderCache.CachedDriver cachedDriver = cache.acquire(jars, H2_DRIVER,
+                ClassLoader.getPlatformClassLoader());
+        cache.acquire(jars, H2_DRIVER, ClassLoader.getPlatformClassLoader());
+        // Once, however many times it's acquired.
+        assertEquals(1, registrations(cachedDriver.getDriver()));
+
+        cache.release(cachedDriver.getDriver());
+        cache.release(cachedDriver.getDriver());
+        // Still cached for the next session start.
+        assertEquals(1, registrations(cachedDriver.getDriver()));
+
+        assertEquals(1, cache.evictUnused());
+        assertEquals(0, registrations(cachedDriver.getDriver()));
+    }
+
+    @Test
+    public void dataSourceConnectsThroughItsDriver() throws Exception {
+        DriverClassLoaderCache.CachedDriver cachedDriver = cache.acquire(jars, H2_DRIVER,
+                ClassLoader.getPlatformClassLoader());
+        DataSource dataSource = new DriverDataSource(cachedDriver.getDriver(), "jdbc:h2:mem:driver_data_source",
+                new Properties());
+        try (Connection conn = dataSource.getConnection()) {
+            // From the isolated classloader, not the H2 on the test classpath.
+            assertNotSame(org.h2.Driver.class.getClassLoader(), conn.getClass().getClassLoader());
+        }
+        assertThrows(SQLException.class, () -> new DriverDataSource(cachedDriver.getDriver(), "jdbc:hive2://host:10000",
+                new Properties()).getConnection());
+        cache.release(cachedDriver.getDriver());
+    }
+
+    @Test
+    public void changedJarGetsNewClassLoader(@TempDir Path tempDir) throws Exception {
+        Path jarCopy = tempDir.resolve("h2-copy.jar");
+        Files.copy(jars[0].toPath(), jarCopy);
+        File[] copyJars = new File[]{jarCopy.toFile()};
+
+        DriverClassLoaderCache.CachedDriver original = cache.acquire(copyJars, H2_DRIVER,
+                ClassLoader.getPlatformClassLoader());
+        assertTrue(jarCopy.toFile().setLastModified(jarCopy.toFile().lastModified() - 60_000L));
+        DriverClassLoaderCache.CachedDriver changed = cache.acquire(copyJars, H2_DRIVER,
+                ClassLoader.getPlatformClassLoader());
+
+        assertNotEquals(original.getKey(), changed.getKey());
+        assertNotSame(original.getDriver(), changed.getDriver());
+        assertEquals(2, cache.size());
+
+        cache.release(original.getDriver());
+        cache.release(changed.getDriver());
+    }
+
+    @Test
+    public void missingDriverClass() {
+        assertThrows(ClassNotFoundException.class, () -> cache.acquire(jars, "org.h2.NotADriver",
+                ClassLoader.getPlatformClassLoader()));
+        assertEquals(0, cache.size());
+    }
+
+    private static long registrations(Driver driver) {
+        return Collections.list(DriverManager.getDrivers()).stream().filter(d -> d == driver).count();
+    }
+
+    /*
+    What a session start does with the driver: connect and run a query.
+     */
+    private static void sessionStart(Driver driver, int session) throws Exception {
+        try (Connection conn = driver.connect("jdbc:h2:mem:driver_cache_" + session, new Properties());
+             Statement stmt = conn.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT 1")) {
+            assertTrue(resultSet.next());
+        }
+    }
+}
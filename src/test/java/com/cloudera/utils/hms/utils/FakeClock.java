@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.utils;
+
+import com.cloudera.utils.hms.util.TokenBucket;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A clock that only moves when told to.  Its {@link #sleeper()} advances the clock instead of waiting, so rate
+ * limited code runs instantly while the clock shows how long it would have taken.
+ */
+public class FakeClock extends Clock {
+
+    private final AtomicLong nanos;
+
+    public FakeClock(Instant start) {
+        this.nanos = new AtomicLong(start.getEpochSecond() * 1_000_000_000L + start.getNano());
+    }
+
+    public void advance(long nanos) {
+        this.nanos.addAndGet(nanos);
+    }
+
+    public long nanos() {
+        return nanos.get();
+    }
+
+    public TokenBucket.Sleeper sleeper() {
+        return this::advance;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+
+    @Override
+    public Instant instant() {
+        long now = nanos.get();
+        return Instant.ofEpochSecond(now / 1_000_000_000L, now % 1_000_000_000L);
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.net.SocketException;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * A stub JDBC driver whose statements fail, or hang, on cue.  Statements that aren't told to fail succeed and
+ * return an empty result.  A hang is ended by the statement's query timeout, on a {@link FakeClock}, the way the
+ * Hive driver cancels the operation.  A connection reset (see {@link #connectionReset()}) loses the connection: its
+ * statements fail from then on, without reaching the server, and it's no longer valid.
+ */
+public class FaultInjectingDriver implements Driver {
+
+    public static final String URL_PREFIX = "jdbc:faulty:";
+
+    private static class Fault {
+        private final String match;
+        private int times;
+        private final Supplier<SQLException> error;
+
+        private Fault(String match, int times, Supplier<SQLException> error) {
+            this.match = match;
+            this.times = times;
+            this.error = error;
+        }
+    }
+
+    private final FakeClock clock;
+    private final List<Fault> faults = new ArrayList<>();
+    private long downUntil = Long.MIN_VALUE;
+    /*
+    Every statement that reached the server, and the query timeout it was run with.
+     */
+    private final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> timeouts = Collections.synchronizedList(new ArrayList<>());
+
+    public FaultInjectingDriver(FakeClock clock) {
+        this.clock = clock;
+    }
+
+    public static SQLException connectionReset() {
+        return new SQLException("org.apache.thrift.transport.TTransportException: java.net.SocketException: " +
+                "Connection reset", "08S01", new SocketException("Connection reset"));
+    }
+
+    public static SQLException semanticError() {
+        return new SQLException("Error while compiling statement: FAILED: SemanticException [Error 10001]: " +
+                "Table not found", "42S02");
+    }
+
+    /**
+     * The next 'times' statements that contain 'match' fail with the error.
+     */
+    public synchronized FaultInjectingDriver failNext(String match, int times, Supplier<SQLException> error) {
+        faults.add(new Fault(match, times, error));
+        return this;
+    }
+
+    /**
+     * The next 'times' statements that contain 'match' hang until their query timeout.
+     */
+    public synchronized FaultInjectingDriver hangNext(String match, int times) {
+        faults.add(new Fault(match, times, null));
+        return this;
+    }
+
+    /**
+     * Every statement fails with a connection reset for the next 'nanos' on the clock.  The connections are kept,
+     * as they are through a load balancer while the server behind it is down.
+     */
+    public synchronized FaultInjectingDriver downFor(long nanos) {
+        downUntil = clock.nanos() + nanos;
+        return this;
+    }
+
+    public List<String> getExecuted() {
+        synchronized (executed) {
+            return new ArrayList<>(executed);
+        }
+    }
+
+    public List<Integer> getTimeouts() {
+        synchronized (timeouts) {
+            return new ArrayList<>(timeouts);
+        }
+    }
+
+    private void run(String sql, int timeout, boolean[] lost) throws SQLException {
+        if (lost[0]) {
+            throw connectionReset();
+        }
+        executed.add(sql);
+        timeouts.add(timeout);
+        Fault fault = null;
+        synchronized (this) {
+            if (clock.nanos() < downUntil) {
+                throw connectionReset();
+            }
+            for (Fault candidate : faults) {
+                if (candidate.times > 0 && sql.contains(candidate.match)) {
+                    candidate.times--;
+                    fault = candidate;
+                    break;
+                }
+            }
+        }
+        if (fault == null) {
+            return;
+        }
+        if (fault.error != null) {
+            SQLException se = fault.error.get();
+            if (se.getCause() instanceof SocketException) {
+                lost[0] = true;
+            }
+            throw se;
+        }
+        if (timeout <= 0) {
+            throw new AssertionError("'" + sql + "' would hang forever without a query timeout");
+        }
+        clock.advance(TimeUnit.SECONDS.toNanos(timeout));
+        throw new SQLTimeoutException("Query timed out after " + timeout + " seconds");
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        boolean[] closed = {false};
+        boolean[] lost = {false};
+        return proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "createStatement":
+                    return newStatement((Connection) proxy, lost);
+                case "close":
+                    closed[0] = true;
+                    return null;
+                case "isClosed":
+                    return closed[0];
+                case "isValid":
+                    return !closed[0] && !lost[0];
+                default:
+                    return objectMethod(proxy, method.getName(), args);
+            }
+        });
+    }
+
+    private Statement newStatement(Connection connection, boolean[] lost) {
+        int[] timeout = {0};
+        boolean[] closed = {false};
+        return proxy(Statement.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "execute":
+                    run((String) args[0], timeout[0], lost);
+                    return Boolean.FALSE;
+                case "executeQuery":
+                    run((String) args[0], timeout[0], lost);
+                    return emptyResultSet();
+                case "setQueryTimeout":
+                    timeout[0] = (Integer) args[0];
+                    return null;
+                case "getQueryTimeout":
+                    return timeout[0];
+                case "getResultSet":
+                    return null;
+                case "getConnection":
+                    return connection;
+                case "close":
+                    closed[0] = true;
+                    return null;
+                case "isClosed":
+                    return closed[0];
+                default:
+                    return objectMethod(proxy, method.getName(), args);
+            }
+        });
+    }
+
+    private static ResultSet emptyResultSet() {
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (proxy, method, args) ->
+                "getColumnCount".equals(method.getName()) ? 1 : objectMethod(proxy, method.getName(), args));
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return Boolean.FALSE;
+                case "getMetaData":
+                    return metaData;
+                case "close":
+                    return null;
+                default:
+                    return objectMethod(proxy, method.getName(), args);
+            }
+        });
+    }
+
+    private static Object objectMethod(Object proxy, String name, Object[] args) throws SQLException {
+        switch (name) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "FaultInjectingDriver$" + Integer.toHexString(System.identityHashCode(proxy));
+            default:
+                throw new SQLFeatureNotSupportedException(name);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FaultInjectingDriver.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.utils;
+
+import com.cloudera.utils.hms.util.PartitionChunkUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionChunkUtilsTest {
+
+    private static List<String> specs(int count) {
+        List<String> rtn = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rtn.add(String.format("dt=%05d", i));
+        }
+        return rtn;
+    }
+
+    @Test
+    public void chunk_balancedByCount() {
+        List<List<String>> chunks = PartitionChunkUtils.chunk(specs(1050), 500, null, 0);
+        assertEquals(3, chunks.size());
+        for (List<String> chunk : chunks) {
+            assertEquals(350, chunk.size());
+        }
+    }
+
+    @Test
+    public void chunk_coversEveryPartitionOnceInOrder() {
+        List<String> specs = specs(20000);
+        List<List<String>> chunks = PartitionChunkUtils.chunk(specs, 750, null, 0);
+        List<String> flattened = new ArrayList<>();
+        for (List<String> chunk : chunks) {
+            assertTrue(chunk.size() <= 750);
+            flattened.addAll(chunk);
+        }
+        assertEquals(specs, flattened);
+        assertEquals(27, chunks.size());
+    }
+
+    @Test
+    public void chunk_underLimitIsOneChunk() {
+        assertEquals(1, PartitionChunkUtils.chunk(specs(10), 500, null, 0).size());
+        assertTrue(PartitionChunkUtils.chunk(new ArrayList<>(), 500, null, 0).isEmpty());
+    }
+
+    @Test
+    public void chunk_balancedBySize() {
+        List<String> specs = specs(100);
+        Map<String, Long> bytes = new HashMap<>();
+        // The first 10 partitions hold as much data as the other 90.
+        for (int i = 0; i < 100; i++) {
+            bytes.put(specs.get(i), i < 10 ? 900L : 100L);
+        }
+        List<List<String>> chunks = PartitionChunkUtils.chunk(specs, 0, bytes, 4500);
+        assertEquals(4, chunks.size());
+        assertEquals(5, chunks.get(0).size());
+        assertEquals(5, chunks.get(1).size());
+        for (List<String> chunk : chunks) {
+            long chunkBytes = 0;
+            for (String spec : chunk) {
+                chunkBytes += bytes.get(spec);
+            }
+            assertTrue(chunkBytes <= 4500, "Chunk over size limit: " + chunkBytes);
+        }
+    }
+
+    @Test
+    public void predicate_singleKey() {
+        assertEquals("`dt` IN ('2024-01-01','2024-01-02')",
+                PartitionChunkUtils.buildPredicate(Arrays.asList("dt=2024-01-01", "dt=2024-01-02")));
+        assertEquals("`dt` = '2024-01-01'",
+                PartitionChunkUtils.buildPredicate(Arrays.asList("dt=2024-01-01")));
+    }
+
+    @Test
+    public void predicate_multiKeyGroupsOnLeadingValues() {
+        String predicate = PartitionChunkUtils.buildPredicate(Arrays.asList(
+                "dt=2024-01-01/hr=01", "dt=2024-01-01/hr=02", "dt=2024-01-02/hr=01"));
+        assertEquals("(`dt` = '2024-01-01' AND `hr` IN ('01','02')) OR (`dt` = '2024-01-02' AND `hr` = '01')",
+                predicate);
+    }
+
+    @Test
+    public void predicate_defaultPartitionAndEscapes() {
+        assertEquals("(`dt` = 'a' OR `dt` IS NULL)", PartitionChunkUtils.buildPredicate(
+                Arrays.asList("dt=a", "dt=" + PartitionChunkUtils.DEFAULT_PARTITION)));
+        assertEquals("`ts` = '2024-01-01 10:00'", PartitionChunkUtils.buildPredicate(
+                Arrays.asList("ts=2024-01-01 10%3A00")));
+        assertEquals("`name` = 'o\\'brien'", PartitionChunkUtils.buildPredicate(
+                Arrays.asList("name=o'brien")));
+    }
+
+    @Test
+    public void predicate_everyChunkIsDisjoint() {
+        List<String> specs = new ArrayList<>();
+        for (int d = 1; d <= 30; d++) {
+            for (int h = 0; h < 24; h++) {
+                specs.add(String.format("dt=2024-01-%02d/hr=%02d", d, h));
+            }
+        }
+        Set<String> predicates = new HashSet<>();
+        for (List<String> chunk : PartitionChunkUtils.chunk(specs, 100, null, 0)) {
+            assertTrue(predicates.add(PartitionChunkUtils.buildPredicate(chunk)));
+        }
+        assertEquals(8, predicates.size());
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.utils;
+
+import com.cloudera.utils.hms.util.SessionSettings;
+import org.apache.commons.dbcp2.DriverConnectionFactory;
+import org.apache.commons.dbcp2.PoolableConnection;
+import org.apache.commons.dbcp2.PoolableConnectionFactory;
+import org.apache.commons.dbcp2.PoolingDataSource;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The session settings of a DBCP2 pooled connection, set up the way the HS2 pools are, over an in-memory H2
+ * database.  Each borrow gets a new handle, so the values have to follow the connection under it.
+ */
+public class SessionSettingsTest {
+
+    private static final String SET_DYN_PARTS = "SET hive.exec.max.dynamic.partitions=6000";
+
+    private GenericObjectPool<PoolableConnection> connectionPool;
+    private PoolingDataSource<PoolableConnection> dataSource;
+    private final SessionSettings sessionSettings = new SessionSettings();
+
+    @BeforeEach
+    public void setup() {
+        PoolableConnectionFactory poolableConnectionFactory = new PoolableConnectionFactory(
+                new DriverConnectionFactory(new org.h2.Driver(), "jdbc:h2:mem:session_settings", new Properties()),
+                null);
+        connectionPool = new GenericObjectPool<>(poolableConnectionFactory);
+        connectionPool.setMaxTotal(2);
+        poolableConnectionFactory.setPool(connectionPool);
+        dataSource = new PoolingDataSource<>(connectionPool);
+        dataSource.setAccessToUnderlyingConnectionAllowed(true);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        dataSource.close();
+    }
+
+    @Test
+    public void settingsFollowThePooledConnection() throws Exception {
+        Connection first = dataSource.getConnection();
+        sessionSettings.record(first, "USE sales");
+        sessionSettings.record(first, SET_DYN_PARTS);
+        first.close();
+
+        try (Connection second = dataSource.getConnection()) {
+            assertNotSame(first, second);
+            assertEquals(1, connectionPool.getNumActive());
+            assertTrue(sessionSettings.isCurrent(second, SET_DYN_PARTS));
+            assertFalse(sessionSettings.isCurrent(second, "SET hive.exec.max.dynamic.partitions=7000"));
+            assertEquals(Arrays.asList("USE sales", SET_DYN_PARTS), sessionSettings.getSetup(second));
+        }
+    }
+
+    @Test
+    public void anotherPooledConnectionHasItsOwnSession() throws Exception {
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            sessionSettings.record(first, SET_DYN_PARTS);
+            assertTrue(sessionSettings.isCurrent(first, SET_DYN_PARTS));
+            assertFalse(sessionSettings.isCurrent(second, SET_DYN_PARTS));
+            assertEquals(Collections.emptyList(), sessionSettings.getSetup(second));
+        }
+    }
+
+    @Test
+    public void forgottenConnectionRunsEverySetAgain() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            sessionSettings.record(connection, SET_DYN_PARTS);
+            sessionSettings.forget(connection);
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            assertFalse(sessionSettings.isCurrent(connection, SET_DYN_PARTS));
+        }
+    }
+
+}
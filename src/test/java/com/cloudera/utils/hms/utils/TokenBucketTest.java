@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.utils;
+
+import com.cloudera.utils.hms.util.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final FakeClock clock = new FakeClock(Instant.parse("2024-01-01T00:00:00Z"));
+
+    @Test
+    public void burstThenRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(10, clock, clock.sleeper());
+        long start = clock.nanos();
+        // A second's worth of burst.
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, bucket.acquire());
+        }
+        assertEquals(start, clock.nanos());
+        // Then one every 100ms.
+        for (int i = 0; i < 90; i++) {
+            bucket.acquire();
+        }
+        assertEquals(9 * SECOND, clock.nanos() - start, SECOND / 100);
+    }
+
+    @Test
+    public void refillsWhileIdle() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(2, clock, clock.sleeper());
+        bucket.acquire();
+        bucket.acquire();
+        clock.advance(10 * SECOND);
+        long start = clock.nanos();
+        // Only up to a second's worth is saved.
+        bucket.acquire();
+        bucket.acquire();
+        assertEquals(start, clock.nanos());
+        assertTrue(bucket.acquire() > 0);
+    }
+
+    @Test
+    public void pausedUntilRateRaised() throws InterruptedException {
+        AtomicInteger pauses = new AtomicInteger();
+        TokenBucket[] holder = new TokenBucket[1];
+        TokenBucket bucket = new TokenBucket(0, clock, nanos -> {
+            clock.advance(nanos);
+            if (pauses.incrementAndGet() == 3) {
+                holder[0].setRate(1);
+            }
+        });
+        holder[0] = bucket;
+        long start = clock.nanos();
+        long waited = bucket.acquire();
+        assertEquals(3, pauses.get());
+        assertEquals(3 * TokenBucket.PAUSED_RECHECK_NANOS, waited);
+        assertEquals(waited, clock.nanos() - start);
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2024. Cloudera, Inc. All Rights Reserved
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.cloudera.utils.hms.utils;
+
+import com.cloudera.utils.hms.util.UrlUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UrlUtilsTest {
+
+    private static final List<String> URLS = Arrays.asList(
+            "hdfs://ns1/warehouse/tablespace/external/hive/my_db.db/my_tbl",
+            "hdfs://ns1/warehouse/tablespace/external/hive/my_db.db/my_tbl/",
+            "hdfs://ns1/warehouse/my_db.db/my_tbl/dt=2024-01-01/hr=01",
+            "hdfs://ns1:8020/apps/hive/warehouse/my_db.db/my_tbl/dt=2024-01-01",
+            "s3a://bucket/data//my_tbl",
+            "ofs://ozone1/vol/bucket/my_db.db/my_tbl?opt=1",
+            "hdfs://ns1/a/b?b",
+            "hdfs://ns1/a/b?x/",
+            "  hdfs://ns1/data/part=a/part=a  ",
+            "hdfs://ns1",
+            "/warehouse/my_db.db/my_tbl",
+            "my_tbl",
+            "");
+
+    @Test
+    public void reduceUrlBy_matchesRegex() {
+        for (String url : URLS) {
+            for (int level = 0; level < 8; level++) {
+                assertEquals(regexReduceUrlBy(url, level), UrlUtils.reduceUrlBy(url, level),
+                        "url: '" + url + "' level: " + level);
+            }
+        }
+    }
+
+    @Test
+    public void removeLastDirFromUrl_matchesRegex() {
+        for (String url : URLS) {
+            assertEquals(regexRemoveLastDirFromUrl(url), UrlUtils.removeLastDirFromUrl(url), "url: '" + url + "'");
+        }
+    }
+
+    @Test
+    public void reduceUrlBy() {
+        assertEquals("hdfs://ns1/warehouse/my_db.db",
+                UrlUtils.reduceUrlBy("hdfs://ns1/warehouse/my_db.db/my_tbl/dt=2024-01-01", 2));
+        assertEquals("hdfs://ns1/warehouse/my_db.db/my_tbl/dt=2024-01-01",
+                UrlUtils.reduceUrlBy("hdfs://ns1/warehouse/my_db.db/my_tbl/dt=2024-01-01", 0));
+    }
+
+    /*
+    The regex implementation that 'reduceUrlBy' was originally built on.
+     */
+    private static String regexReduceUrlBy(String url, int level) {
+        String rtn = url.trim();
+        if (rtn.endsWith("/"))
+            rtn = rtn.substring(0, rtn.length() - 2);
+        for (int i = 0; i < level; i++) {
+            rtn = regexRemoveLastDirFromUrl(rtn);
+        }
+        return rtn;
+    }
+
+    private static String regexRemoveLastDirFromUrl(String url) {
+        Matcher matcher = UrlUtils.lastDirPattern.matcher(url);
+        if (matcher.find()) {
+            String matchStr = matcher.group(1);
+            int lastIndexOf = url.lastIndexOf(matchStr);
+            return url.substring(0, lastIndexOf - 1);
+        } else {
+            return url;
+        }
+    }
+}